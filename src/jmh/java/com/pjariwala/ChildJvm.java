@@ -0,0 +1,56 @@
+package com.pjariwala;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a main class in a fresh JVM for the startup harnesses, with this JVM's class path and
+ * placeholder AWS settings (nothing calls AWS).
+ */
+final class ChildJvm {
+
+  static final String RESULT = "RESULT ";
+
+  private ChildJvm() {}
+
+  /** Run {@code mainClass} with {@code args}; returns the last line it printed after RESULT */
+  static String run(Class<?> mainClass, String... args) throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(mainClass.getName());
+    command.addAll(List.of(args));
+    ProcessBuilder builder = new ProcessBuilder(command);
+    Map<String, String> env = builder.environment();
+    env.putIfAbsent("AWS_REGION", "ap-south-1");
+    env.putIfAbsent("AWS_ACCESS_KEY_ID", "harness");
+    env.putIfAbsent("AWS_SECRET_ACCESS_KEY", "harness");
+    env.putIfAbsent("COGNITO_USER_POOL_ID", "ap-south-1_harness");
+    env.putIfAbsent("COGNITO_CLIENT_ID", "harness");
+    env.putIfAbsent("COGNITO_CLIENT_SECRET", "harness");
+    builder.redirectErrorStream(true);
+
+    Process process = builder.start();
+    String result = null;
+    try (BufferedReader output =
+        new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = output.readLine()) != null) {
+        if (line.startsWith(RESULT)) {
+          result = line.substring(RESULT.length());
+        }
+      }
+    }
+    if (process.waitFor() != 0 || result == null) {
+      throw new IllegalStateException("Harness run failed with exit code " + process.exitValue());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,134 @@
+package com.pjariwala;
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.services.lambda.runtime.Context;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time to first response of a fresh {@link StreamLambdaHandler}, with and without the {@link
+ * LambdaPriming} requests that run before a SnapStart checkpoint.
+ *
+ * <p>Each run is a new JVM, so class loading and JIT state start cold. A run boots the handler,
+ * primes it (in the primed mode), then times the first {@code /ping}, a login and a user listing
+ * with a bad token; none of them reach AWS. Without a CRaC JVM there is no real checkpoint, so the
+ * primed numbers show what the priming buys a restored snapshot, not the restore itself.
+ *
+ * <p>Usage: {@code ColdStartHarness [runs]} with the benchmarks classpath (see the README). Prints
+ * the median of each measurement per mode.
+ */
+public class ColdStartHarness {
+
+  private static final String CHILD = "--child";
+  private static final List<String> MEASUREMENTS =
+      List.of("boot", "prime", "ping", "login", "listUsers");
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 2 && CHILD.equals(args[0])) {
+      runChild(Boolean.parseBoolean(args[1]));
+      return;
+    }
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+    System.out.printf("%-10s", "mode");
+    MEASUREMENTS.forEach(name -> System.out.printf(" %12s", name + " ms"));
+    System.out.println();
+    for (boolean primed : new boolean[] {false, true}) {
+      Map<String, List<Double>> samples = new LinkedHashMap<>();
+      for (int run = 0; run < runs; run++) {
+        forkChild(primed)
+            .forEach(
+                (name, millis) ->
+                    samples.computeIfAbsent(name, k -> new ArrayList<>()).add(millis));
+      }
+      System.out.printf("%-10s", primed ? "primed" : "unprimed");
+      for (String name : MEASUREMENTS) {
+        System.out.printf(" %12.1f", median(samples.getOrDefault(name, List.of())));
+      }
+      System.out.println();
+    }
+  }
+
+  /** One cold JVM; its result line holds {@code name=millis} pairs */
+  private static Map<String, Double> forkChild(boolean primed)
+      throws IOException, InterruptedException {
+    String result = ChildJvm.run(ColdStartHarness.class, CHILD, Boolean.toString(primed));
+    Map<String, Double> millis = new LinkedHashMap<>();
+    for (String pair : result.split(" ")) {
+      String[] parts = pair.split("=");
+      millis.put(parts[0], Double.parseDouble(parts[1]));
+    }
+    return millis;
+  }
+
+  private static void runChild(boolean primed) throws IOException {
+    Map<String, Double> millis = new LinkedHashMap<>();
+    long start = System.nanoTime();
+    StreamLambdaHandler handler = new StreamLambdaHandler();
+    millis.put("boot", elapsedMillis(start));
+
+    start = System.nanoTime();
+    if (primed) {
+      StreamLambdaHandler.priming().prime();
+    }
+    millis.put("prime", elapsedMillis(start));
+
+    Context context = new MockLambdaContext();
+    millis.put("ping", time(handler, context, new AwsProxyRequestBuilder("/ping", HttpMethod.GET)));
+    millis.put(
+        "login",
+        time(
+            handler,
+            context,
+            new AwsProxyRequestBuilder("/api/v1/auth/login", HttpMethod.POST)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                .body("{\"login\":\"\",\"password\":\"harness\"}")));
+    millis.put(
+        "listUsers",
+        time(
+            handler,
+            context,
+            new AwsProxyRequestBuilder("/api/v1/users", HttpMethod.GET)
+                .queryString("userType", "COACH")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not.a.token")));
+
+    StringBuilder result = new StringBuilder("RESULT");
+    millis.forEach((name, value) -> result.append(' ').append(name).append('=').append(value));
+    System.out.println(result);
+    System.exit(0);
+  }
+
+  private static double time(
+      StreamLambdaHandler handler, Context context, AwsProxyRequestBuilder request)
+      throws IOException {
+    InputStream event =
+        request.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON).buildStream();
+    long start = System.nanoTime();
+    handler.handleRequest(event, new ByteArrayOutputStream(1024), context);
+    return elapsedMillis(start);
+  }
+
+  private static double elapsedMillis(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000.0;
+  }
+
+  private static double median(List<Double> values) {
+    if (values.isEmpty()) {
+      return Double.NaN;
+    }
+    double[] sorted = values.stream().mapToDouble(Double::doubleValue).toArray();
+    Arrays.sort(sorted);
+    int middle = sorted.length / 2;
+    return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+  }
+}
@@ -0,0 +1,78 @@
+package com.pjariwala;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compare two JMH JSON results (e.g. the previous release's baseline and a fresh run) by score and
+ * by normalized allocation ({@code gc.alloc.rate.norm}).
+ *
+ * <p>Usage: {@code JmhResultDiff <baseline.json> <current.json> [thresholdPercent]}. Exits with 1
+ * if any benchmark got slower or allocates more than the threshold (default 10%).
+ */
+public class JmhResultDiff {
+
+  private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: JmhResultDiff <baseline.json> <current.json> [thresholdPercent]");
+      System.exit(2);
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+    Map<String, double[]> baseline = read(new File(args[0]));
+    Map<String, double[]> current = read(new File(args[1]));
+
+    boolean regressed = false;
+    System.out.printf(
+        "%-60s %14s %14s %8s %12s %12s %8s%n",
+        "benchmark", "baseline", "current", "delta", "B/op base", "B/op now", "delta");
+    for (Map.Entry<String, double[]> entry : current.entrySet()) {
+      double[] before = baseline.get(entry.getKey());
+      double[] now = entry.getValue();
+      if (before == null) {
+        System.out.printf("%-60s %14s %14.3f%n", entry.getKey(), "(new)", now[0]);
+        continue;
+      }
+      double scoreDelta = percent(before[0], now[0]);
+      double allocDelta = percent(before[1], now[1]);
+      boolean flagged = scoreDelta > threshold || allocDelta > threshold;
+      regressed |= flagged;
+      System.out.printf(
+          "%-60s %14.3f %14.3f %7.1f%% %12.1f %12.1f %7.1f%%%s%n",
+          entry.getKey(),
+          before[0],
+          now[0],
+          scoreDelta,
+          before[1],
+          now[1],
+          allocDelta,
+          flagged ? "  <-- regression" : "");
+    }
+    System.exit(regressed ? 1 : 0);
+  }
+
+  /** benchmark (+ params) -> {score, bytes allocated per op}; scores are assumed to be time/op */
+  private static Map<String, double[]> read(File file) throws IOException {
+    Map<String, double[]> results = new LinkedHashMap<>();
+    for (JsonNode run : new ObjectMapper().readTree(file)) {
+      String name = run.path("benchmark").asText();
+      JsonNode params = run.path("params");
+      if (!params.isMissingNode()) {
+        name += params.toString();
+      }
+      double score = run.path("primaryMetric").path("score").asDouble();
+      double alloc = run.path("secondaryMetrics").path(ALLOC_NORM).path("score").asDouble(0);
+      results.put(name, new double[] {score, alloc});
+    }
+    return results;
+  }
+
+  private static double percent(double before, double now) {
+    return before == 0 ? 0 : (now - before) * 100 / before;
+  }
+}
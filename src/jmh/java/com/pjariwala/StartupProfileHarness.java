@@ -0,0 +1,135 @@
+package com.pjariwala;
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.HttpMethod;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distribution of the startup profile that {@link StreamLambdaHandler} logs once per container,
+ * over many fresh JVMs.
+ *
+ * <p>Each run starts the handler in a new JVM, sends it one {@code /ping} and reads back the
+ * profile: handler init, JVM ready time, first invocation, total bean creation time, the called-out
+ * beans ({@code AuthServiceImpl} and the {@code AwsConfig} clients) and the slowest beans. The
+ * summary is written to {@code target/startup-profile.json}.
+ *
+ * <p>Usage: {@code StartupProfileHarness [runs] [baseline.json [thresholdPercent]]} with the
+ * benchmarks classpath (see the README). With a baseline (an earlier summary), exits with 1 if any
+ * median got slower than the threshold (default 20%) and by at least 5 ms.
+ */
+public class StartupProfileHarness {
+
+  private static final String CHILD = "--child";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Sub-millisecond timings double on noise alone */
+  private static final double MIN_REGRESSION_MILLIS = 5;
+
+  private static final File SUMMARY = new File("target", "startup-profile.json");
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 1 && CHILD.equals(args[0])) {
+      runChild();
+      return;
+    }
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    // Read first: the baseline may be the summary file this run overwrites
+    JsonNode baseline = args.length > 1 ? MAPPER.readTree(new File(args[1])) : null;
+
+    Map<String, List<Double>> samples = new LinkedHashMap<>();
+    for (int run = 0; run < runs; run++) {
+      JsonNode profile = MAPPER.readTree(ChildJvm.run(StartupProfileHarness.class, CHILD));
+      for (String field :
+          List.of(
+              "handlerInitMillis",
+              "jvmReadyMillis",
+              "firstInvocationMillis",
+              "beanCreationMillis")) {
+        add(samples, field, profile.path(field).asDouble());
+      }
+      for (JsonNode bean : profile.path("calledOut")) {
+        String name = bean.path("bean").asText();
+        add(samples, name + ".selfMillis", bean.path("selfMillis").asDouble());
+        add(samples, name + ".initMillis", bean.path("initMillis").asDouble());
+      }
+      for (JsonNode bean : profile.path("slowestBeans")) {
+        add(samples, "slowest " + bean.path("bean").asText(), bean.path("selfMillis").asDouble());
+      }
+    }
+
+    Map<String, double[]> summary = new LinkedHashMap<>();
+    System.out.printf(
+        "%-80s %6s %10s %10s %10s %10s%n", "measurement (ms)", "runs", "min", "p50", "p90", "max");
+    samples.forEach(
+        (name, values) -> {
+          double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+          double[] stats = {
+            sorted[0], percentile(sorted, 50), percentile(sorted, 90), sorted[sorted.length - 1]
+          };
+          summary.put(name, stats);
+          System.out.printf(
+              "%-80s %6d %10.1f %10.1f %10.1f %10.1f%n",
+              name, sorted.length, stats[0], stats[1], stats[2], stats[3]);
+        });
+    SUMMARY.getParentFile().mkdirs();
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(SUMMARY, summary);
+
+    if (baseline != null) {
+      double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 20.0;
+      System.exit(compare(baseline, summary, threshold) ? 1 : 0);
+    }
+  }
+
+  /** Prints median changes against the baseline; true if any got slower than the threshold */
+  private static boolean compare(
+      JsonNode baseline, Map<String, double[]> current, double threshold) {
+    boolean regressed = false;
+    System.out.printf("%n%-80s %10s %10s %8s%n", "median (ms)", "baseline", "current", "delta");
+    for (Map.Entry<String, double[]> entry : current.entrySet()) {
+      JsonNode before = baseline.path(entry.getKey());
+      // Slowest-bean entries come and go between runs; only stable measurements are compared
+      if (before.isMissingNode() || entry.getKey().startsWith("slowest ")) {
+        continue;
+      }
+      double was = before.get(1).asDouble();
+      double now = entry.getValue()[1];
+      double delta = was == 0 ? 0 : (now - was) * 100 / was;
+      boolean flagged = delta > threshold && now - was >= MIN_REGRESSION_MILLIS;
+      regressed |= flagged;
+      System.out.printf(
+          "%-80s %10.1f %10.1f %7.1f%%%s%n",
+          entry.getKey(), was, now, delta, flagged ? "  <-- regression" : "");
+    }
+    return regressed;
+  }
+
+  private static void runChild() throws IOException {
+    StreamLambdaHandler handler = new StreamLambdaHandler();
+    handler.handleRequest(
+        new AwsProxyRequestBuilder("/ping", HttpMethod.GET).buildStream(),
+        new ByteArrayOutputStream(1024),
+        new MockLambdaContext());
+    System.out.println(
+        ChildJvm.RESULT + MAPPER.writeValueAsString(StreamLambdaHandler.startupProfile()));
+    System.exit(0);
+  }
+
+  private static void add(Map<String, List<Double>> samples, String name, double value) {
+    samples.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+  }
+
+  /** Nearest-rank percentile of sorted values */
+  private static double percentile(double[] sorted, int percent) {
+    int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+}
@@ -0,0 +1,57 @@
+package com.pjariwala;
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.services.lambda.runtime.Context;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full warm-container invocation: API Gateway proxy event in, through the Spring Boot container and
+ * filters, proxy response out. Needs the same environment variables as the application (the
+ * benchmarks profile sets dummy ones); /ping makes no AWS calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamLambdaHandlerBenchmark {
+
+  private StreamLambdaHandler handler;
+  private Context context;
+  private byte[] pingRequest;
+
+  @Setup
+  public void setUp() throws Exception {
+    handler = new StreamLambdaHandler();
+    context = new MockLambdaContext();
+    pingRequest =
+        new AwsProxyRequestBuilder("/ping", HttpMethod.GET)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON)
+            .buildStream()
+            .readAllBytes();
+  }
+
+  @Benchmark
+  public byte[] ping() throws Exception {
+    ByteArrayOutputStream response = new ByteArrayOutputStream(512);
+    handler.handleRequest(new ByteArrayInputStream(pingRequest), response, context);
+    return response.toByteArray();
+  }
+}
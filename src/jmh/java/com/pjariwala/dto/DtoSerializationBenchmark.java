@@ -0,0 +1,103 @@
+package com.pjariwala.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Request/response bodies of the auth endpoints, with the same mapper settings Spring Boot uses */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private AuthResponse authResponse;
+  private SignupRequest signupRequest;
+  private ErrorResponse errorResponse;
+  private byte[] authResponseJson;
+  private byte[] signupRequestJson;
+  private byte[] errorResponseJson;
+
+  @Setup
+  public void setUp() throws Exception {
+    authResponse =
+        new AuthResponse(
+            "eyJraWQiOiJhY2Nlc3MiLCJhbGciOiJSUzI1NiJ9." + "a".repeat(900) + ".signature",
+            "eyJjdHkiOiJKV1QiLCJlbmMiOiJBMjU2R0NNIn0." + "r".repeat(1700),
+            "eyJraWQiOiJpZCIsImFsZyI6IlJTMjU2In0." + "i".repeat(1100) + ".signature",
+            "Bearer",
+            3600,
+            new UserInfo(
+                "USER_C_0123456789abcdef",
+                "coach@chessacademy.com",
+                "John Doe",
+                "COACH",
+                "+919876543210"));
+    signupRequest =
+        new SignupRequest(
+            "alice_student",
+            "alice@example.com",
+            "Str0ngPassw0rd!",
+            "Alice",
+            "+919876543210",
+            "STUDENT",
+            "Bob",
+            "+919876500000",
+            false);
+    errorResponse =
+        new ErrorResponse(
+            "INVALID_CREDENTIALS", "Invalid username or password", 401, "/api/v1/auth/login");
+
+    authResponseJson = objectMapper.writeValueAsBytes(authResponse);
+    signupRequestJson = objectMapper.writeValueAsBytes(signupRequest);
+    errorResponseJson = objectMapper.writeValueAsBytes(errorResponse);
+  }
+
+  @Benchmark
+  public byte[] writeAuthResponse() throws Exception {
+    return objectMapper.writeValueAsBytes(authResponse);
+  }
+
+  @Benchmark
+  public AuthResponse readAuthResponse() throws Exception {
+    return objectMapper.readValue(authResponseJson, AuthResponse.class);
+  }
+
+  @Benchmark
+  public byte[] writeSignupRequest() throws Exception {
+    return objectMapper.writeValueAsBytes(signupRequest);
+  }
+
+  @Benchmark
+  public SignupRequest readSignupRequest() throws Exception {
+    return objectMapper.readValue(signupRequestJson, SignupRequest.class);
+  }
+
+  @Benchmark
+  public byte[] writeErrorResponse() throws Exception {
+    return objectMapper.writeValueAsBytes(errorResponse);
+  }
+
+  @Benchmark
+  public ErrorResponse readErrorResponse() throws Exception {
+    return objectMapper.readValue(errorResponseJson, ErrorResponse.class);
+  }
+}
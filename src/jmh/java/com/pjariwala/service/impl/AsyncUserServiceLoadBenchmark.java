@@ -0,0 +1,120 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.TestFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load test: {@value #REQUESTS} concurrent getUserById requests served by a fixed pool of {@code
+ * requestThreads} (the servlet container's threads), against a table that answers every call after
+ * {@code latencyMillis}. {@code blocking} holds a request thread for the whole DynamoDB round trip,
+ * so throughput is capped at {@code requestThreads / latency}; {@code async} hands the call to
+ * {@link AsyncUserServiceImpl} and frees the thread at once. Scores are requests per second. The
+ * identity cache is off so every request reaches the table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncUserServiceLoadBenchmark {
+
+  private static final int REQUESTS = 256;
+
+  @Param({"8", "32"})
+  public int requestThreads;
+
+  @Param({"10"})
+  public long latencyMillis;
+
+  private final List<String> userIds = new ArrayList<>(REQUESTS);
+  private UserServiceImpl userService;
+  private AsyncUserServiceImpl asyncUserService;
+  private ExecutorService requestPool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    for (int i = 0; i < REQUESTS; i++) {
+      String userId = String.format("USER_S_%016x", i);
+      db.seed(
+          Map.of(
+              "userId", new AttributeValue(userId),
+              "userType", new AttributeValue("STUDENT"),
+              "username", new AttributeValue("student_" + i)));
+      userIds.add(userId);
+    }
+    db.setLatencyMillis(latencyMillis);
+
+    userService = TestServices.userService(db, TestServices.identityCache(false));
+    asyncUserService = new AsyncUserServiceImpl();
+    TestFields.set(asyncUserService, "userService", userService);
+
+    requestPool = Executors.newFixedThreadPool(requestThreads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    requestPool.shutdownNow();
+    asyncUserService.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public int blocking() throws Exception {
+    List<Callable<Optional<User>>> requests = new ArrayList<>(REQUESTS);
+    for (String userId : userIds) {
+      requests.add(() -> userService.getUserById(userId));
+    }
+    int found = 0;
+    for (Future<Optional<User>> response : requestPool.invokeAll(requests)) {
+      found += response.get().isPresent() ? 1 : 0;
+    }
+    return found;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(REQUESTS)
+  public int async() throws Exception {
+    // A request thread only starts the lookup, as a controller returning the future does
+    List<Callable<CompletableFuture<Optional<User>>>> requests = new ArrayList<>(REQUESTS);
+    for (String userId : userIds) {
+      requests.add(() -> asyncUserService.getUserById(userId));
+    }
+    List<CompletableFuture<Optional<User>>> responses = new ArrayList<>(REQUESTS);
+    for (Future<CompletableFuture<Optional<User>>> started : requestPool.invokeAll(requests)) {
+      responses.add(started.get());
+    }
+    int found = 0;
+    for (CompletableFuture<Optional<User>> response : responses) {
+      found += response.join().isPresent() ? 1 : 0;
+    }
+    return found;
+  }
+}
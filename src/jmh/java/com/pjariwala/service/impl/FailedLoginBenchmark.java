@@ -0,0 +1,105 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.dto.AuthRequest;
+import com.pjariwala.dto.ErrorResponse;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.exception.GlobalExceptionHandler;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A failed-login storm: logins with a wrong password, each turned into its 401 response by {@link
+ * GlobalExceptionHandler}, as a credential-stuffing burst would be. The user exists, so every login
+ * resolves it and reaches Cognito, which rejects the password. Console logging is kept but written
+ * to a null stream, so the score includes formatting the log lines and not the terminal. Scores are
+ * failed logins per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FailedLoginBenchmark {
+
+  private static final HttpServletRequest LOGIN_REQUEST =
+      (HttpServletRequest)
+          Proxy.newProxyInstance(
+              HttpServletRequest.class.getClassLoader(),
+              new Class<?>[] {HttpServletRequest.class},
+              (proxy, method, args) ->
+                  "getRequestURI".equals(method.getName()) ? "/api/v1/auth/login" : null);
+
+  private AuthServiceImpl authService;
+  private GlobalExceptionHandler exceptionHandler;
+  private AuthRequest wrongPassword;
+  private PrintStream originalOut;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    db.seed(
+        Map.of(
+            "userId", new AttributeValue("USER_S_0000000000000001"),
+            "userType", new AttributeValue("STUDENT"),
+            "username", new AttributeValue("alice_student"),
+            "email", new AttributeValue("alice@example.com")));
+    StubCognito cognito = new StubCognito();
+    cognito.seed("alice_student", "Password1!");
+
+    UserServiceImpl userService = TestServices.userService(db, TestServices.identityCache(true));
+    authService = TestServices.authService(cognito, userService);
+    TestFields.set(authService, "loginIdentifierResolver", TestServices.resolver(userService));
+
+    exceptionHandler = TestFields.defaults(new GlobalExceptionHandler());
+    TestFields.set(exceptionHandler, "meterRegistry", new SimpleMeterRegistry());
+    exceptionHandler.init();
+
+    wrongPassword = new AuthRequest();
+    wrongPassword.setLogin("alice@example.com");
+    wrongPassword.setPassword("not-the-password");
+
+    originalOut = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.setOut(originalOut);
+    authService.shutdown();
+  }
+
+  @Benchmark
+  public ErrorResponse failedLogin() {
+    try {
+      authService.login(wrongPassword);
+      throw new IllegalStateException("Login with a wrong password succeeded");
+    } catch (AuthException e) {
+      return exceptionHandler.handleAuthException(e, LOGIN_REQUEST).getBody();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * getUserByPhone against tables of {@code rows} users. The lookup is one query on the
+ * phoneNumber-index, so the score should not grow with the table. The identity cache is off so
+ * every lookup reaches the table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhoneLookupBenchmark {
+
+  @Param({"1000", "100000"})
+  public int rows;
+
+  private UserServiceImpl userService;
+  private String[] phones;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    phones = new String[rows];
+    for (int i = 0; i < rows; i++) {
+      phones[i] = String.format("+9198%08d", i);
+      db.seed(
+          Map.of(
+              "userId", new AttributeValue("USER_" + i),
+              "userType", new AttributeValue(i % 10 == 0 ? "COACH" : "STUDENT"),
+              "username", new AttributeValue("user" + i),
+              "phoneNumber", new AttributeValue(phones[i])));
+    }
+
+    userService = TestServices.userService(db, TestServices.identityCache(false));
+  }
+
+  @Benchmark
+  public Optional<User> getUserByPhone() {
+    next = (next + 7919) % rows;
+    return userService.getUserByPhone(phones[next]);
+  }
+}
@@ -0,0 +1,112 @@
+package com.pjariwala.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pjariwala.support.TestFields;
+import com.pjariwala.support.TestTokens;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Claim extraction as a controller does it: user id, email and user type from the same token.
+ * {@code legacy*} reproduces the getters before {@link DecodedToken} (regex split, String payload,
+ * Jackson tree per call) as the comparison point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private JwtUtil jwtUtil;
+  private String token;
+  private Path jwksFile;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    TestTokens signer = new TestTokens("bench-key");
+    token = signer.sign(TestTokens.idClaims("sub-1", "coach@chessacademy.com", "COACH"));
+    jwksFile = Files.createTempFile("jwks", ".json");
+    Files.writeString(jwksFile, TestTokens.jwks(signer));
+
+    jwtUtil = TestFields.defaults(new JwtUtil());
+    TestFields.set(jwtUtil, "userPoolId", TestTokens.USER_POOL_ID);
+    TestFields.set(jwtUtil, "awsRegion", TestTokens.REGION);
+    TestFields.set(jwtUtil, "clientId", TestTokens.CLIENT_ID);
+    TestFields.set(jwtUtil, "jwksUri", jwksFile.toUri().toString());
+    jwtUtil.init();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    jwtUtil.shutdown();
+    Files.deleteIfExists(jwksFile);
+  }
+
+  @Benchmark
+  public void legacyGetters(Blackhole bh) throws Exception {
+    bh.consume(legacyClaim(token, "sub"));
+    bh.consume(legacyClaim(token, "email"));
+    bh.consume(legacyClaim(token, "custom:user_type"));
+  }
+
+  @Benchmark
+  public void getters(Blackhole bh) {
+    bh.consume(jwtUtil.getUserIdFromToken(token));
+    bh.consume(jwtUtil.getEmailFromToken(token));
+    bh.consume(jwtUtil.getUserTypeFromToken(token));
+  }
+
+  /** One uncached parse: the cost of the first lookup for a token */
+  @Benchmark
+  public DecodedToken parse() {
+    return DecodedToken.parse(token);
+  }
+
+  @Benchmark
+  public boolean legacyIsTokenExpired() throws Exception {
+    return System.currentTimeMillis() / 1000 > legacyTree(token).get("exp").asLong();
+  }
+
+  @Benchmark
+  public boolean isTokenExpired() {
+    return jwtUtil.isTokenExpired(token);
+  }
+
+  /** Signature verification is memoized on the cached token; this is the warm-container path */
+  @Benchmark
+  public boolean validateToken() {
+    return jwtUtil.validateToken(token);
+  }
+
+  private String legacyClaim(String token, String claim) throws Exception {
+    return legacyTree(token).get(claim).asText();
+  }
+
+  private JsonNode legacyTree(String token) throws Exception {
+    String[] chunks = token.split("\\.");
+    if (chunks.length != 3) {
+      throw new RuntimeException("Invalid JWT token format");
+    }
+    String payload = new String(Base64.getUrlDecoder().decode(chunks[1]));
+    return objectMapper.readTree(payload);
+  }
+}
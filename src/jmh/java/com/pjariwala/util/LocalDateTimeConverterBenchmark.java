@@ -0,0 +1,37 @@
+package com.pjariwala.util;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** DynamoDBMapper runs the converter for createdAt/updatedAt/enrollmentDate on every load/save */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalDateTimeConverterBenchmark {
+
+  private final LocalDateTimeConverter converter = new LocalDateTimeConverter();
+  private final LocalDateTime dateTime = LocalDateTime.of(2025, 6, 1, 10, 15, 30, 123_456_789);
+  private final String stored = converter.convert(dateTime);
+
+  @Benchmark
+  public String convert() {
+    return converter.convert(dateTime);
+  }
+
+  @Benchmark
+  public LocalDateTime unconvert() {
+    return converter.unconvert(stored);
+  }
+}
@@ -0,0 +1,88 @@
+package com.pjariwala.util;
+
+import com.pjariwala.support.TestFields;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cognito SECRET_HASH, computed on every signup, login, forgot and reset password call. {@code
+ * legacy} is the former {@code AuthServiceImpl.calculateSecretHash} (Mac lookup and key setup per
+ * call); {@code distinctUsernames} defeats the memo so it measures the pooled Mac itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecretHashBenchmark {
+
+  private static final String CLIENT_ID = "benchmark-client-id";
+  private static final String CLIENT_SECRET = "benchmark-client-secret-0123456789abcdef";
+
+  private final String[] usernames = new String[4096];
+  private SecretHashCalculator calculator;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < usernames.length; i++) {
+      usernames[i] = "student_" + i;
+    }
+    calculator = TestFields.defaults(new SecretHashCalculator());
+    TestFields.set(calculator, "clientId", CLIENT_ID);
+    TestFields.set(calculator, "clientSecret", CLIENT_SECRET);
+    calculator.init();
+  }
+
+  @Benchmark
+  public String legacy(Cursor cursor) throws Exception {
+    String username = usernames[cursor.next++ & (usernames.length - 1)];
+    SecretKeySpec signingKey =
+        new SecretKeySpec(CLIENT_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(signingKey);
+    byte[] rawHmac = mac.doFinal((username + CLIENT_ID).getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(rawHmac);
+  }
+
+  @Benchmark
+  public String distinctUsernames(Cursor cursor) {
+    return calculator.calculate(usernames[cursor.next++ & (usernames.length - 1)]);
+  }
+
+  @Benchmark
+  public String repeatedUsername() {
+    return calculator.calculate("johndoe_coach");
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String legacyContended(Cursor cursor) throws Exception {
+    return legacy(cursor);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String distinctUsernamesContended(Cursor cursor) {
+    return distinctUsernames(cursor);
+  }
+}
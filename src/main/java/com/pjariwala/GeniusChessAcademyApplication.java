@@ -1,11 +1,23 @@
 package com.pjariwala;
 
+import com.pjariwala.config.StartupProfiler;
 import com.pjariwala.controller.AuthController;
 import com.pjariwala.controller.PingController;
+import com.pjariwala.controller.UserController;
+import com.pjariwala.service.impl.AsyncAuthServiceImpl;
+import com.pjariwala.service.impl.AsyncUserServiceImpl;
 import com.pjariwala.service.impl.AuthServiceImpl;
+import com.pjariwala.service.impl.CognitoGuard;
+import com.pjariwala.service.impl.DependencyMetrics;
+import com.pjariwala.service.impl.KnownIdentifierFilter;
+import com.pjariwala.service.impl.LoginIdentifierResolver;
+import com.pjariwala.service.impl.LoginThrottle;
+import com.pjariwala.service.impl.UserIdentityCache;
 import com.pjariwala.service.impl.UserServiceImpl;
 import com.pjariwala.util.JwtUtil;
 import com.pjariwala.util.LocalDateTimeConverter;
+import com.pjariwala.util.PageCursorCodec;
+import com.pjariwala.util.SecretHashCalculator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
@@ -14,11 +26,23 @@ import org.springframework.context.annotation.Import;
 // We use direct @Import instead of @ComponentScan to speed up cold starts
 // @ComponentScan(basePackages = "com.pjariwala.controller")
 @Import({
+  StartupProfiler.class,
   PingController.class,
   AuthController.class,
+  UserController.class,
   AuthServiceImpl.class,
   UserServiceImpl.class,
+  AsyncAuthServiceImpl.class,
+  AsyncUserServiceImpl.class,
+  UserIdentityCache.class,
+  DependencyMetrics.class,
+  LoginIdentifierResolver.class,
+  LoginThrottle.class,
+  KnownIdentifierFilter.class,
+  CognitoGuard.class,
   JwtUtil.class,
+  SecretHashCalculator.class,
+  PageCursorCodec.class,
   LocalDateTimeConverter.class
 })
 public class GeniusChessAcademyApplication {
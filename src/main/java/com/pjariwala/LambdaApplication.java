@@ -0,0 +1,25 @@
+package com.pjariwala;
+
+import com.amazonaws.serverless.proxy.spring.embedded.ServerlessServletEmbeddedServerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Starts the application context the way {@link StreamLambdaHandler} does: the serverless servlet
+ * factory instead of Tomcat, and the {@code lambda} profile.
+ *
+ * <p>This is the main class for Spring AOT processing in the {@code lambda-aot} build profile, so
+ * the generated bean definitions describe the context the handler runs, not the local Tomcat one.
+ */
+public class LambdaApplication {
+
+  public static final String PROFILE = "lambda";
+
+  public static void main(String[] args) {
+    new SpringApplicationBuilder(
+            ServerlessServletEmbeddedServerFactory.class, GeniusChessAcademyApplication.class)
+        .web(WebApplicationType.SERVLET)
+        .profiles(PROFILE)
+        .run(args);
+  }
+}
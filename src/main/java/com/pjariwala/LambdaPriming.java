@@ -0,0 +1,190 @@
+package com.pjariwala;
+
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.model.ApiGatewayRequestIdentity;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyRequestContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.Headers;
+import com.amazonaws.serverless.proxy.model.MultiValuedTreeMap;
+import com.amazonaws.serverless.proxy.spring.SpringBootLambdaContainerHandler;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.UserInfo;
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.model.User;
+import com.pjariwala.util.Jitter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Resource;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+/**
+ * Checkpoint/restore hooks for {@link StreamLambdaHandler} (Lambda SnapStart).
+ *
+ * <p>Before the checkpoint, synthetic requests are sent through {@code handler.proxyStream} so the
+ * snapshot already holds loaded and JIT-warmed classes for the proxy event (de)serialization, the
+ * Spring dispatch and async paths, request validation, error responses, JWT parsing and the {@code
+ * User} DynamoDB model. None of them reach AWS: each one is rejected by validation before any
+ * remote call. The AWS clients close their own connections (see {@code RestorableAwsClient}); this
+ * resource is registered after them, and CRaC notifies resources in reverse order, so priming runs
+ * while the clients are still open.
+ *
+ * <p>After restore, the backoff jitter is reseeded so restored copies do not retry in lockstep.
+ */
+@Slf4j
+public class LambdaPriming implements Resource {
+
+  /** Shaped like a JWT but signed with HS256, which is rejected before any JWKS fetch */
+  private static final String PRIMING_TOKEN =
+      base64Url("{\"alg\":\"HS256\",\"kid\":\"priming\"}")
+          + "."
+          + base64Url("{\"sub\":\"priming\",\"token_use\":\"access\"}")
+          + "."
+          + base64Url("priming");
+
+  private final SpringBootLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler;
+
+  public LambdaPriming(
+      SpringBootLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler) {
+    this.handler = handler;
+  }
+
+  @Override
+  public void beforeCheckpoint(Context<? extends Resource> context) {
+    prime();
+  }
+
+  @Override
+  public void afterRestore(Context<? extends Resource> context) {
+    Jitter.reseed();
+  }
+
+  /** Run the synthetic requests; failures are logged and never stop a checkpoint */
+  public void prime() {
+    long startedAt = System.nanoTime();
+    send("GET", "/ping", null, null, null);
+    send(
+        "POST",
+        "/api/v1/auth/login",
+        null,
+        null,
+        "{\"login\":\"\",\"password\":\"\",\"userType\":\"STUDENT\"}");
+    send(
+        "POST",
+        "/api/v1/auth/signup",
+        null,
+        null,
+        "{\"username\":\"priming\",\"email\":\"priming@example.com\",\"password\":\"short\","
+            + "\"name\":\"Priming\",\"phoneNumber\":\"+919876543210\",\"userType\":\"STUDENT\"}");
+    send("GET", "/api/v1/users", "STUDENT", "Bearer " + PRIMING_TOKEN, null);
+
+    WebApplicationContext applicationContext =
+        WebApplicationContextUtils.getWebApplicationContext(handler.getServletContext());
+    if (applicationContext != null) {
+      primeUserModel(applicationContext.getBean(DynamoDBMapper.class));
+      primeSerialization(applicationContext.getBean(ObjectMapper.class));
+    }
+    log.info("Priming finished in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+  }
+
+  private void send(
+      String method, String path, String userType, String authorization, String body) {
+    AwsProxyRequest request = new AwsProxyRequest();
+    request.setHttpMethod(method);
+    request.setPath(path);
+    request.setResource("/{proxy+}");
+    Headers headers = new Headers();
+    headers.putSingle("Accept", "application/json");
+    if (body != null) {
+      headers.putSingle("Content-Type", "application/json");
+      request.setBody(body);
+    }
+    if (authorization != null) {
+      headers.putSingle("Authorization", authorization);
+    }
+    request.setMultiValueHeaders(headers);
+    if (userType != null) {
+      MultiValuedTreeMap<String, String> query = new MultiValuedTreeMap<>();
+      query.putSingle("userType", userType);
+      request.setMultiValueQueryStringParameters(query);
+    }
+    AwsProxyRequestContext requestContext = new AwsProxyRequestContext();
+    requestContext.setRequestId("priming");
+    requestContext.setIdentity(new ApiGatewayRequestIdentity());
+    request.setRequestContext(requestContext);
+
+    try {
+      byte[] event = LambdaContainerHandler.getObjectMapper().writeValueAsBytes(request);
+      ByteArrayOutputStream response = new ByteArrayOutputStream(1024);
+      handler.proxyStream(new ByteArrayInputStream(event), response, null);
+      AwsProxyResponse parsed =
+          LambdaContainerHandler.getObjectMapper()
+              .readValue(response.toByteArray(), AwsProxyResponse.class);
+      log.debug("Priming {} {} -> {}", method, path, parsed.getStatusCode());
+    } catch (Exception e) {
+      log.warn("Priming request {} {} failed", method, path, e);
+    }
+  }
+
+  private static void primeUserModel(DynamoDBMapper mapper) {
+    try {
+      DynamoDBMapperTableModel<User> model = mapper.getTableModel(User.class);
+      Map<String, AttributeValue> item = model.convert(sampleUser());
+      model.unconvert(item);
+    } catch (Exception e) {
+      log.warn("Priming the User table model failed", e);
+    }
+  }
+
+  private static void primeSerialization(ObjectMapper objectMapper) {
+    try {
+      UserInfo userInfo = new UserInfo();
+      userInfo.setUserId("USER_S_0000000000000000");
+      userInfo.setEmail("priming@example.com");
+      userInfo.setName("Priming");
+      userInfo.setUserType("STUDENT");
+      userInfo.setPhoneNumber("+919876543210");
+      AuthResponse authResponse = new AuthResponse();
+      authResponse.setAccessToken(PRIMING_TOKEN);
+      authResponse.setTokenType("Bearer");
+      authResponse.setExpiresIn(3600);
+      authResponse.setUserInfo(userInfo);
+      objectMapper.readValue(objectMapper.writeValueAsBytes(authResponse), AuthResponse.class);
+      objectMapper.writeValueAsBytes(new UserPageResponse(List.of(userInfo), null));
+    } catch (Exception e) {
+      log.warn("Priming JSON serialization failed", e);
+    }
+  }
+
+  private static User sampleUser() {
+    User user = new User();
+    user.setUserId("USER_S_0000000000000000");
+    user.setUserType("STUDENT");
+    user.setUsername("priming");
+    user.setEmail("priming@example.com");
+    user.setName("Priming");
+    user.setPhoneNumber("+919876543210");
+    user.setCognitoSub("priming");
+    user.setCreatedAt(LocalDateTime.now());
+    user.setUpdatedAt(LocalDateTime.now());
+    return user;
+  }
+
+  private static String base64Url(String value) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
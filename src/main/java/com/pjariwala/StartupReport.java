@@ -0,0 +1,47 @@
+package com.pjariwala;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import org.springframework.aot.AotDetector;
+
+/**
+ * Starts {@link StreamLambdaHandler} once, prints how long the context took and the heap it holds,
+ * then runs the {@link LambdaPriming} requests and exits.
+ *
+ * <p>The {@code lambda-aot} build profile runs it as the training run for the class data sharing
+ * archive ({@code -XX:ArchiveClassesAtExit}), so the archive holds the classes of startup and of
+ * the first requests. Run it with the packaged classpath to compare variants (see the README).
+ */
+public class StartupReport {
+
+  public static void main(String[] args) {
+    long startedAt = System.nanoTime();
+    new StreamLambdaHandler();
+    long contextMillis = (System.nanoTime() - startedAt) / 1_000_000;
+    long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+    System.gc();
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    System.out.printf(
+        "STARTUP aot=%s cds=%s contextMillis=%d uptimeMillis=%d heapUsedMb=%.1f"
+            + " heapCommittedMb=%.1f%n",
+        AotDetector.useGeneratedArtifacts(),
+        sharedArchive(),
+        contextMillis,
+        uptimeMillis,
+        heap.getUsed() / (1024.0 * 1024.0),
+        heap.getCommitted() / (1024.0 * 1024.0));
+
+    StreamLambdaHandler.priming().prime();
+    // The handler's executors are not daemon threads
+    System.exit(0);
+  }
+
+  private static String sharedArchive() {
+    HotSpotDiagnosticMXBean hotSpot =
+        ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+    String archive = hotSpot.getVMOption("SharedArchiveFile").getValue();
+    return archive.isEmpty() ? "default" : archive;
+  }
+}
@@ -1,22 +1,56 @@
 package com.pjariwala;
 
 import com.amazonaws.serverless.exceptions.ContainerInitializationException;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
+import com.amazonaws.serverless.proxy.internal.servlet.ApacheCombinedServletLogFormatter;
+import com.amazonaws.serverless.proxy.internal.servlet.AwsHttpServletResponse;
 import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.serverless.proxy.spring.SpringBootLambdaContainerHandler;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pjariwala.config.StartupProfiler;
+import com.pjariwala.util.InvocationMetrics;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Core;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
 
+@Slf4j
 public class StreamLambdaHandler implements RequestStreamHandler {
   private static SpringBootLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler;
 
+  // Held here because the CRaC context only keeps weak references to resources
+  private static LambdaPriming priming;
+
+  private static long handlerInitNanos;
+  private static long jvmReadyMillis;
+  private static volatile boolean firstInvocation = true;
+  private static volatile Map<String, Object> startupProfile;
+
+  // Null unless EMF records are enabled
+  private static final InvocationMetrics invocationMetrics = invocationMetrics();
+
   static {
     try {
+      long startedAt = System.nanoTime();
       handler =
-          SpringBootLambdaContainerHandler.getAwsProxyHandler(GeniusChessAcademyApplication.class);
+          SpringBootLambdaContainerHandler.getAwsProxyHandler(
+              GeniusChessAcademyApplication.class, LambdaApplication.PROFILE);
+      if (invocationMetrics != null) {
+        recordResponses(handler);
+      }
+      handlerInitNanos = System.nanoTime() - startedAt;
+      jvmReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+      priming = new LambdaPriming(handler);
+      Core.getGlobalContext().register(priming);
     } catch (ContainerInitializationException e) {
       // if we fail here. We re-throw the exception to force another cold start
       e.printStackTrace();
@@ -27,6 +61,87 @@ public class StreamLambdaHandler implements RequestStreamHandler {
   @Override
   public void handleRequest(InputStream inputStream, OutputStream outputStream, Context context)
       throws IOException {
-    handler.proxyStream(inputStream, outputStream, context);
+    boolean coldStart = firstInvocation;
+    firstInvocation = false;
+    if (invocationMetrics != null) {
+      invocationMetrics.start(coldStart);
+    }
+    long startedAt = System.nanoTime();
+    try {
+      handler.proxyStream(inputStream, outputStream, context);
+    } finally {
+      if (invocationMetrics != null) {
+        invocationMetrics.finish(context == null ? null : context.getAwsRequestId());
+      }
+      if (coldStart) {
+        logStartupProfile(System.nanoTime() - startedAt);
+      }
+    }
+  }
+
+  /**
+   * One EMF record per invocation on stdout. On by default only in Lambda, where CloudWatch picks
+   * the metrics out of the log; {@code METRICS_EMF_ENABLED} overrides that.
+   */
+  private static InvocationMetrics invocationMetrics() {
+    String functionName = System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+    String enabled = System.getenv("METRICS_EMF_ENABLED");
+    if (enabled == null ? functionName == null : !Boolean.parseBoolean(enabled)) {
+      return null;
+    }
+    return new InvocationMetrics(
+        System.getenv().getOrDefault("METRICS_NAMESPACE", "GeniusChessAcademy"),
+        functionName == null ? "genius-chess-academy" : functionName);
+  }
+
+  /**
+   * Passes the method, path and status of each request to the invocation record. The container
+   * calls its log formatter once the response is complete; the access log itself is unchanged.
+   */
+  private static void recordResponses(
+      SpringBootLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler) {
+    ApacheCombinedServletLogFormatter<HttpServletRequest, AwsHttpServletResponse> accessLog =
+        new ApacheCombinedServletLogFormatter<>();
+    handler.setLogFormatter(
+        (request, response, securityContext) -> {
+          invocationMetrics.response(
+              request.getMethod(), request.getRequestURI(), response.getStatus());
+          return accessLog.format(request, response, securityContext);
+        });
+  }
+
+  /**
+   * One JSON record per container: handler init, bean creation times and the first request.
+   * Restored SnapStart copies each log their own, with the init of the snapshot.
+   */
+  private static void logStartupProfile(long firstInvocationNanos) {
+    WebApplicationContext applicationContext =
+        WebApplicationContextUtils.getWebApplicationContext(handler.getServletContext());
+    if (applicationContext == null) {
+      return;
+    }
+    Map<String, Object> profile =
+        applicationContext
+            .getBean(StartupProfiler.class)
+            .report(handlerInitNanos, firstInvocationNanos);
+    profile.put("jvmReadyMillis", jvmReadyMillis);
+    profile.put("memorySizeMb", System.getenv("AWS_LAMBDA_FUNCTION_MEMORY_SIZE"));
+    startupProfile = profile;
+    try {
+      log.info(
+          "Startup profile {}",
+          LambdaContainerHandler.getObjectMapper().writeValueAsString(profile));
+    } catch (JsonProcessingException e) {
+      log.warn("Could not write the startup profile", e);
+    }
+  }
+
+  static LambdaPriming priming() {
+    return priming;
+  }
+
+  /** The logged startup profile, or null before the first invocation */
+  static Map<String, Object> startupProfile() {
+    return startupProfile;
   }
 }
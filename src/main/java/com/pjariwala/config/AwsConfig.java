@@ -23,8 +23,14 @@ public class AwsConfig {
   @Value("${aws.secretKey:}")
   private String secretKey;
 
+  /** Rebuilt after a SnapStart restore, see {@link RestorableAwsClient} */
   @Bean
   public AmazonDynamoDB amazonDynamoDB() {
+    return RestorableAwsClient.create(
+        AmazonDynamoDB.class, "DynamoDB", this::buildAmazonDynamoDB, AmazonDynamoDB::shutdown);
+  }
+
+  private AmazonDynamoDB buildAmazonDynamoDB() {
     AmazonDynamoDBClientBuilder builder =
         AmazonDynamoDBClientBuilder.standard().withRegion(awsRegion);
 
@@ -47,6 +53,14 @@ public class AwsConfig {
 
   @Bean
   public AWSCognitoIdentityProvider awsCognitoIdentityProvider() {
+    return RestorableAwsClient.create(
+        AWSCognitoIdentityProvider.class,
+        "Cognito",
+        this::buildCognitoIdentityProvider,
+        AWSCognitoIdentityProvider::shutdown);
+  }
+
+  private AWSCognitoIdentityProvider buildCognitoIdentityProvider() {
     AWSCognitoIdentityProviderClientBuilder builder =
         AWSCognitoIdentityProviderClientBuilder.standard().withRegion(awsRegion);
 
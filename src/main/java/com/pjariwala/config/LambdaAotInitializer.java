@@ -0,0 +1,62 @@
+package com.pjariwala.config;
+
+import com.pjariwala.LambdaApplication;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.ApplicationContextFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.aot.AotApplicationContextInitializer;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs the Lambda context from the bean definitions generated by Spring AOT (the {@code lambda-aot}
+ * build profile) when {@code spring.aot.enabled} is set; otherwise does nothing.
+ *
+ * <p>Spring looks for the generated initializer next to the main class, which under the Lambda
+ * runtime is the runtime's own entry point, so it is applied here instead. {@code
+ * SpringBootLambdaContainerHandler} also expects an annotation-config servlet context, where AOT
+ * mode would create a plain one; {@link ContextFactory} hands it one with the annotation processors
+ * removed, as the generated definitions already contain what they would have produced.
+ *
+ * <p>Both are registered in {@code META-INF/spring.factories}.
+ */
+public class LambdaAotInitializer
+    implements AotApplicationContextInitializer<ConfigurableApplicationContext> {
+
+  static final String GENERATED_INITIALIZER =
+      LambdaApplication.class.getName() + "__ApplicationContextInitializer";
+
+  @Override
+  public void initialize(ConfigurableApplicationContext applicationContext) {
+    if (AotDetector.useGeneratedArtifacts()) {
+      ApplicationContextInitializer<ConfigurableApplicationContext> generated =
+          AotApplicationContextInitializer.forInitializerClasses(GENERATED_INITIALIZER);
+      generated.initialize(applicationContext);
+    }
+  }
+
+  /** Servlet context for AOT mode that the container handler can cast */
+  public static class ContextFactory implements ApplicationContextFactory, Ordered {
+
+    @Override
+    public ConfigurableApplicationContext create(WebApplicationType webApplicationType) {
+      if (webApplicationType != WebApplicationType.SERVLET
+          || !AotDetector.useGeneratedArtifacts()) {
+        return null;
+      }
+      AnnotationConfigServletWebServerApplicationContext context =
+          new AnnotationConfigServletWebServerApplicationContext();
+      for (String name : context.getBeanDefinitionNames()) {
+        context.removeBeanDefinition(name);
+      }
+      return context;
+    }
+
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.pjariwala.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+
+/**
+ * AWS client that survives a checkpoint/restore (Lambda SnapStart).
+ *
+ * <p>Callers hold a proxy of the client interface. Before a checkpoint the real client is shut
+ * down, closing its pooled connections, which would be dead in every restored copy; after restore a
+ * new client is built, so it picks up the credentials of the restored environment. A call that
+ * arrives while there is no client builds one.
+ */
+@Slf4j
+public final class RestorableAwsClient<T> implements InvocationHandler, Resource {
+
+  private final String name;
+  private final Supplier<T> factory;
+  private final Consumer<T> shutdown;
+  private volatile T client;
+
+  private RestorableAwsClient(String name, Supplier<T> factory, Consumer<T> shutdown) {
+    this.name = name;
+    this.factory = factory;
+    this.shutdown = shutdown;
+  }
+
+  /**
+   * Build a client and register it for checkpoint/restore.
+   *
+   * @param type client interface handed out to callers
+   * @param name client name for log lines
+   * @param factory builds a new client
+   * @param shutdown releases a client's connections
+   */
+  public static <T> T create(
+      Class<T> type, String name, Supplier<T> factory, Consumer<T> shutdown) {
+    RestorableAwsClient<T> handler = new RestorableAwsClient<>(name, factory, shutdown);
+    handler.client = factory.get();
+    // The CRaC context only keeps weak references; the proxy keeps the handler alive
+    Core.getGlobalContext().register(handler);
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if (method.getDeclaringClass() == Object.class) {
+      return switch (method.getName()) {
+        case "equals" -> proxy == args[0];
+        case "hashCode" -> System.identityHashCode(proxy);
+        default -> "RestorableAwsClient[" + name + "]";
+      };
+    }
+    try {
+      return method.invoke(current(), args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Override
+  public synchronized void beforeCheckpoint(Context<? extends Resource> context) {
+    T closing = client;
+    client = null;
+    if (closing != null) {
+      log.info("Closing {} client before checkpoint", name);
+      shutdown.accept(closing);
+    }
+  }
+
+  @Override
+  public void afterRestore(Context<? extends Resource> context) {
+    log.info("Rebuilding {} client after restore", name);
+    current();
+  }
+
+  private T current() {
+    T current = client;
+    if (current == null) {
+      synchronized (this) {
+        current = client;
+        if (current == null) {
+          current = factory.get();
+          client = current;
+        }
+      }
+    }
+    return current;
+  }
+}
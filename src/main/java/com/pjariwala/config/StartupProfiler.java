@@ -0,0 +1,151 @@
+package com.pjariwala.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Records how long each bean took to create, for the startup profile {@code StreamLambdaHandler}
+ * logs once per container.
+ *
+ * <p>A bean's total time runs from just before it is instantiated to the end of its initialization,
+ * so it includes the beans it pulled in as dependencies; its own time excludes them. Init time is
+ * the {@code @PostConstruct} and other init callbacks. This processor runs before all others, so
+ * those callbacks fall inside its window. Beans created before it was registered (other
+ * post-processors) are not seen.
+ */
+public class StartupProfiler implements InstantiationAwareBeanPostProcessor, PriorityOrdered {
+
+  /**
+   * Beans always reported on their own: the Cognito client and JWKS setup in {@code
+   * AuthServiceImpl.init}, and the AWS clients built by {@code AwsConfig}
+   */
+  static final List<String> CALLED_OUT =
+      List.of("authServiceImpl", "amazonDynamoDB", "awsCognitoIdentityProvider");
+
+  private static final int SLOWEST = 10;
+
+  private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+  private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+  @Override
+  public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+    creating.get().push(new Frame(beanName, System.nanoTime()));
+    return null;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    Frame frame = creating.get().peek();
+    if (frame != null && frame.beanName.equals(beanName)) {
+      frame.initStartedAt = System.nanoTime();
+    }
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    Deque<Frame> stack = creating.get();
+    if (stack.stream().noneMatch(frame -> frame.beanName.equals(beanName))) {
+      return bean;
+    }
+    // Frames above it belong to beans whose creation failed
+    Frame frame = stack.pop();
+    while (!frame.beanName.equals(beanName)) {
+      frame = stack.pop();
+    }
+    long now = System.nanoTime();
+    long total = now - frame.startedAt;
+    long init = frame.initStartedAt == 0 ? 0 : now - frame.initStartedAt;
+    timings.put(beanName, new Timing(total, total - frame.childNanos, init));
+    Frame parent = stack.peek();
+    if (parent != null) {
+      parent.childNanos += total;
+    }
+    return bean;
+  }
+
+  @Override
+  public int getOrder() {
+    return HIGHEST_PRECEDENCE;
+  }
+
+  /** Recorded time of a bean, or null if it was not created through this processor */
+  public Timing timing(String beanName) {
+    return timings.get(beanName);
+  }
+
+  /**
+   * Startup profile of this container as a JSON-ready map.
+   *
+   * @param handlerInitNanos time to build the container handler (Spring context included)
+   * @param firstInvocationNanos time to serve the first request
+   */
+  public Map<String, Object> report(long handlerInitNanos, long firstInvocationNanos) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("handlerInitMillis", millis(handlerInitNanos));
+    report.put("firstInvocationMillis", millis(firstInvocationNanos));
+    report.put("beanCount", timings.size());
+    report.put(
+        "beanCreationMillis", millis(timings.values().stream().mapToLong(Timing::selfNanos).sum()));
+
+    List<Map<String, Object>> calledOut = new ArrayList<>();
+    for (String beanName : CALLED_OUT) {
+      Timing timing = timings.get(beanName);
+      if (timing != null) {
+        calledOut.add(describe(beanName, timing));
+      }
+    }
+    report.put("calledOut", calledOut);
+
+    List<Map<String, Object>> slowest = new ArrayList<>();
+    timings.entrySet().stream()
+        .sorted(Comparator.comparingLong(entry -> -entry.getValue().selfNanos))
+        .limit(SLOWEST)
+        .forEach(entry -> slowest.add(describe(entry.getKey(), entry.getValue())));
+    report.put("slowestBeans", slowest);
+    return report;
+  }
+
+  private static Map<String, Object> describe(String beanName, Timing timing) {
+    Map<String, Object> bean = new LinkedHashMap<>();
+    bean.put("bean", beanName);
+    bean.put("selfMillis", millis(timing.selfNanos));
+    bean.put("totalMillis", millis(timing.totalNanos));
+    bean.put("initMillis", millis(timing.initNanos));
+    return bean;
+  }
+
+  /** Milliseconds with one decimal */
+  static double millis(long nanos) {
+    return Math.round(nanos / 100_000.0) / 10.0;
+  }
+
+  /**
+   * Creation time of one bean.
+   *
+   * @param totalNanos instantiation through initialization, dependencies included
+   * @param selfNanos total minus the beans created while this one was
+   * @param initNanos init callbacks ({@code @PostConstruct}, {@code afterPropertiesSet})
+   */
+  public record Timing(long totalNanos, long selfNanos, long initNanos) {}
+
+  private static final class Frame {
+    private final String beanName;
+    private final long startedAt;
+    private long initStartedAt;
+    private long childNanos;
+
+    private Frame(String beanName, long startedAt) {
+      this.beanName = beanName;
+      this.startedAt = startedAt;
+    }
+  }
+}
@@ -2,8 +2,13 @@ package com.pjariwala.controller;
 
 import com.pjariwala.dto.AuthRequest;
 import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.BulkSignupRequest;
+import com.pjariwala.dto.BulkSignupResponse;
 import com.pjariwala.dto.SignupRequest;
-import com.pjariwala.service.AuthService;
+import com.pjariwala.service.AsyncAuthService;
+import com.pjariwala.service.impl.LoginThrottle;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -16,76 +21,130 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+/**
+ * Authentication endpoints. Handlers return futures from {@link AsyncAuthService}, so the request
+ * thread is released while Cognito and DynamoDB answer. Login, forgot password and reset password
+ * go through {@link LoginThrottle} first.
+ */
 @RestController
 @RequestMapping("/api/v1/auth")
 @CrossOrigin(origins = "*")
 @Slf4j
 public class AuthController {
 
-  @Autowired private AuthService authService;
+  @Autowired private AsyncAuthService authService;
+
+  @Autowired private LoginThrottle loginThrottle;
 
   @PostMapping("/signup")
-  public ResponseEntity<AuthResponse> signup(@RequestBody SignupRequest signupRequest) {
+  public CompletableFuture<ResponseEntity<AuthResponse>> signup(
+      @RequestBody SignupRequest signupRequest) {
     log.info(
         "Received signup request for email: {} with userType: {}",
         signupRequest.getEmail(),
         signupRequest.getUserType());
-    AuthResponse response = authService.signup(signupRequest);
-    log.info("Signup completed successfully for email: {}", signupRequest.getEmail());
-    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    return authService
+        .signup(signupRequest)
+        .thenApply(
+            response -> {
+              log.info("Signup completed successfully for email: {}", signupRequest.getEmail());
+              return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            });
+  }
+
+  /** Enroll many users at once (e.g. a school batch); requires a coach's access token */
+  @PostMapping("/signup/bulk")
+  public CompletableFuture<ResponseEntity<BulkSignupResponse>> bulkSignup(
+      @RequestHeader("Authorization") String authorization,
+      @RequestBody BulkSignupRequest bulkSignupRequest) {
+    log.info(
+        "Received bulk signup request for {} users",
+        bulkSignupRequest.getUsers() == null ? 0 : bulkSignupRequest.getUsers().size());
+    return authService
+        .bulkSignup(extractAccessToken(authorization), bulkSignupRequest.getUsers())
+        .thenApply(
+            response -> {
+              log.info(
+                  "Bulk signup completed - created: {}, failed: {}",
+                  response.getCreated(),
+                  response.getFailed());
+              return ResponseEntity.ok(response);
+            });
   }
 
   @PostMapping("/login")
-  public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest authRequest) {
+  public CompletableFuture<ResponseEntity<AuthResponse>> login(
+      @RequestBody AuthRequest authRequest, HttpServletRequest request) {
     log.info(
         "Received login request for user: {} with userType: {}",
         authRequest.getLogin(),
         authRequest.getUserType());
-    AuthResponse response = authService.login(authRequest);
-    log.info("Login completed successfully for user: {}", authRequest.getLogin());
-    return ResponseEntity.ok(response);
+    loginThrottle.check(
+        LoginThrottle.Operation.LOGIN, authRequest.getLogin(), request.getRemoteAddr());
+    return authService
+        .login(authRequest)
+        .thenApply(
+            response -> {
+              log.info("Login completed successfully for user: {}", authRequest.getLogin());
+              return ResponseEntity.ok(response);
+            });
   }
 
   @PostMapping("/refresh")
-  public ResponseEntity<AuthResponse> refreshToken(@RequestParam String refreshToken) {
+  public CompletableFuture<ResponseEntity<AuthResponse>> refreshToken(
+      @RequestParam String refreshToken) {
     log.info("Received token refresh request");
-    AuthResponse response = authService.refreshToken(refreshToken);
-    log.info("Token refresh completed successfully");
-    return ResponseEntity.ok(response);
+    return authService
+        .refreshToken(refreshToken)
+        .thenApply(
+            response -> {
+              log.info("Token refresh completed successfully");
+              return ResponseEntity.ok(response);
+            });
   }
 
   @PostMapping("/logout")
-  public ResponseEntity<Void> logout(@RequestHeader("Authorization") String authorization) {
+  public CompletableFuture<ResponseEntity<Void>> logout(
+      @RequestHeader("Authorization") String authorization) {
     log.info("Received logout request");
     String accessToken = extractAccessToken(authorization);
-    authService.logout(accessToken);
-    log.info("Logout completed successfully");
-    return ResponseEntity.ok().build();
+    return authService
+        .logout(accessToken)
+        .thenApply(
+            done -> {
+              log.info("Logout completed successfully");
+              return ResponseEntity.ok().<Void>build();
+            });
   }
 
   @PostMapping("/change-password")
-  public ResponseEntity<Void> changePassword(
+  public CompletableFuture<ResponseEntity<Void>> changePassword(
       @RequestHeader("Authorization") String authorization,
       @RequestParam String oldPassword,
       @RequestParam String newPassword) {
     String accessToken = extractAccessToken(authorization);
-    authService.changePassword(accessToken, oldPassword, newPassword);
-    return ResponseEntity.ok().build();
+    return authService
+        .changePassword(accessToken, oldPassword, newPassword)
+        .thenApply(done -> ResponseEntity.ok().<Void>build());
   }
 
   @PostMapping("/forgot-password")
-  public ResponseEntity<Void> forgotPassword(@RequestParam String email) {
-    authService.forgotPassword(email);
-    return ResponseEntity.ok().build();
+  public CompletableFuture<ResponseEntity<Void>> forgotPassword(
+      @RequestParam String email, HttpServletRequest request) {
+    loginThrottle.check(LoginThrottle.Operation.FORGOT_PASSWORD, email, request.getRemoteAddr());
+    return authService.forgotPassword(email).thenApply(done -> ResponseEntity.ok().<Void>build());
   }
 
   @PostMapping("/reset-password")
-  public ResponseEntity<Void> resetPassword(
+  public CompletableFuture<ResponseEntity<Void>> resetPassword(
       @RequestParam String email,
       @RequestParam String confirmationCode,
-      @RequestParam String newPassword) {
-    authService.resetPassword(email, confirmationCode, newPassword);
-    return ResponseEntity.ok().build();
+      @RequestParam String newPassword,
+      HttpServletRequest request) {
+    loginThrottle.check(LoginThrottle.Operation.RESET_PASSWORD, email, request.getRemoteAddr());
+    return authService
+        .resetPassword(email, confirmationCode, newPassword)
+        .thenApply(done -> ResponseEntity.ok().<Void>build());
   }
 
   /** Extract access token from Authorization header */
@@ -0,0 +1,58 @@
+package com.pjariwala.controller;
+
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.service.AsyncUserService;
+import com.pjariwala.util.JwtUtil;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/users")
+@CrossOrigin(origins = "*")
+@Slf4j
+public class UserController {
+
+  @Autowired private AsyncUserService userService;
+
+  @Autowired private JwtUtil jwtUtil;
+
+  @Value("${app.users.pageSize.default:25}")
+  private int defaultPageSize;
+
+  @Value("${app.users.pageSize.max:100}")
+  private int maxPageSize;
+
+  /** List users of a type, newest first, one page at a time */
+  @GetMapping
+  public CompletableFuture<ResponseEntity<UserPageResponse>> listUsers(
+      @RequestHeader(value = "Authorization", required = false) String authorization,
+      @RequestParam String userType,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor) {
+    requireValidToken(authorization);
+
+    // Requests above the maximum are capped rather than rejected
+    int pageSize = limit == null ? defaultPageSize : Math.min(limit, maxPageSize);
+    log.info("Received list users request for userType: {} with pageSize: {}", userType, pageSize);
+    return userService.getUsersByType(userType, pageSize, cursor).thenApply(ResponseEntity::ok);
+  }
+
+  private void requireValidToken(String authorization) {
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      throw AuthException.invalidToken();
+    }
+    if (!jwtUtil.validateToken(authorization.substring("Bearer ".length()))) {
+      throw AuthException.invalidToken();
+    }
+  }
+}
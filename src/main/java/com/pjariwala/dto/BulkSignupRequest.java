@@ -0,0 +1,13 @@
+package com.pjariwala.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSignupRequest {
+  private List<SignupRequest> users;
+}
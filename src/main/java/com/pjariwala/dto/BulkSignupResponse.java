@@ -0,0 +1,15 @@
+package com.pjariwala.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSignupResponse {
+  private int created;
+  private int failed;
+  private List<BulkSignupResult> results; // one per request row, in request order
+}
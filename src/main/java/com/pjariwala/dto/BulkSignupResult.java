@@ -0,0 +1,17 @@
+package com.pjariwala.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSignupResult {
+  private int index; // position of the row in the request
+  private String email;
+  private String status; // "CREATED" or "FAILED"
+  private String userId; // set when created
+  private String errorCode; // set when failed, e.g. "USER_EXISTS"
+  private String message;
+}
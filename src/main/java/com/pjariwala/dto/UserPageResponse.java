@@ -0,0 +1,14 @@
+package com.pjariwala.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponse {
+  private List<UserInfo> users;
+  private String nextCursor; // null on the last page; pass back as ?cursor= for the next one
+}
@@ -0,0 +1,38 @@
+package com.pjariwala.exception;
+
+/**
+ * Base of the exceptions that map to an error response: an error code and an HTTP status.
+ *
+ * <p>Client errors (4xx) are expected failures such as a wrong password or an invalid request. A
+ * burst of them, e.g. credential stuffing against login, is normal traffic and has to stay cheap,
+ * so they capture no stack trace and take no suppressed exceptions; {@link GlobalExceptionHandler}
+ * logs them at a sampled rate. Server errors (5xx) are faults and keep their full stack trace.
+ */
+public abstract class ApiException extends RuntimeException {
+
+  private final String errorCode;
+  private final int httpStatus;
+
+  protected ApiException(String errorCode, String message, int httpStatus, Throwable cause) {
+    super(message, cause, !isClientError(httpStatus), !isClientError(httpStatus));
+    this.errorCode = errorCode;
+    this.httpStatus = httpStatus;
+  }
+
+  public String getErrorCode() {
+    return errorCode;
+  }
+
+  public int getHttpStatus() {
+    return httpStatus;
+  }
+
+  /** True for expected failures caused by the request, which carry no stack trace */
+  public boolean isClientError() {
+    return isClientError(httpStatus);
+  }
+
+  private static boolean isClientError(int httpStatus) {
+    return httpStatus >= 400 && httpStatus < 500;
+  }
+}
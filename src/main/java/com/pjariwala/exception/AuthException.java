@@ -1,29 +1,14 @@
 package com.pjariwala.exception;
 
 /** Custom exception for authentication-related operations */
-public class AuthException extends RuntimeException {
-
-  private final String errorCode;
-  private final int httpStatus;
+public class AuthException extends ApiException {
 
   public AuthException(String errorCode, String message, int httpStatus) {
-    super(message);
-    this.errorCode = errorCode;
-    this.httpStatus = httpStatus;
+    super(errorCode, message, httpStatus, null);
   }
 
   public AuthException(String errorCode, String message, int httpStatus, Throwable cause) {
-    super(message, cause);
-    this.errorCode = errorCode;
-    this.httpStatus = httpStatus;
-  }
-
-  public String getErrorCode() {
-    return errorCode;
-  }
-
-  public int getHttpStatus() {
-    return httpStatus;
+    super(errorCode, message, httpStatus, cause);
   }
 
   // Static factory methods for common auth exceptions
@@ -47,6 +32,10 @@ public class AuthException extends RuntimeException {
     return new AuthException("INVALID_TOKEN", "Invalid or expired token", 401);
   }
 
+  public static AuthException forbidden(String message) {
+    return new AuthException("FORBIDDEN", message, 403);
+  }
+
   public static AuthException validationError(String message) {
     return new AuthException("VALIDATION_ERROR", message, 400);
   }
@@ -59,6 +48,15 @@ public class AuthException extends RuntimeException {
     return new AuthException("EXPIRED_CODE", "Confirmation code has expired", 400);
   }
 
+  public static AuthException tooManyRequests() {
+    return new AuthException("TOO_MANY_REQUESTS", "Too many attempts, please try again later", 429);
+  }
+
+  public static AuthException serviceUnavailable() {
+    return new AuthException(
+        "SERVICE_UNAVAILABLE", "Authentication service is busy, please try again later", 503);
+  }
+
   public static AuthException cognitoError(String message, Throwable cause) {
     return new AuthException(
         "COGNITO_ERROR", "Authentication service error: " + message, 500, cause);
@@ -1,8 +1,17 @@
 package com.pjariwala.exception;
 
 import com.pjariwala.dto.ErrorResponse;
+import com.pjariwala.util.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -11,37 +20,66 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 /**
  * Global exception handler for the entire application Handles all custom exceptions and provides
  * consistent error responses
+ *
+ * <p>Every error response is counted as {@code api.errors} by error code. Client errors (4xx) are
+ * expected and logged without a stack trace, at most once per error code and {@code
+ * app.errors.clientErrorLogInterval}; server errors are logged every time with their trace.
  */
 @ControllerAdvice
 @Slf4j
 public class GlobalExceptionHandler {
 
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Value("${app.errors.clientErrorLogInterval:PT10S}")
+  private Duration clientErrorLogInterval;
+
+  private LogSampler clientErrorSampler;
+
+  private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    clientErrorSampler = new LogSampler(clientErrorLogInterval);
+  }
+
   /** Handle AuthException - authentication and authorization related errors */
   @ExceptionHandler(AuthException.class)
   public ResponseEntity<ErrorResponse> handleAuthException(
       AuthException e, HttpServletRequest request) {
-    log.error(
-        "AuthException caught - Code: {}, Message: {}, Path: {}",
-        e.getErrorCode(),
-        e.getMessage(),
-        request.getRequestURI(),
-        e);
-    return ResponseEntity.status(e.getHttpStatus())
-        .body(
-            new ErrorResponse(
-                e.getErrorCode(), e.getMessage(), e.getHttpStatus(), request.getRequestURI()));
+    return handleApiException("AuthException", e, request);
   }
 
   /** Handle UserException - user management related errors */
   @ExceptionHandler(UserException.class)
   public ResponseEntity<ErrorResponse> handleUserException(
       UserException e, HttpServletRequest request) {
-    log.error(
-        "UserException caught - Code: {}, Message: {}, Path: {}",
-        e.getErrorCode(),
-        e.getMessage(),
-        request.getRequestURI(),
-        e);
+    return handleApiException("UserException", e, request);
+  }
+
+  private ResponseEntity<ErrorResponse> handleApiException(
+      String type, ApiException e, HttpServletRequest request) {
+    count(e.getErrorCode(), e.getHttpStatus());
+    if (!e.isClientError()) {
+      log.error(
+          "{} caught - Code: {}, Message: {}, Path: {}",
+          type,
+          e.getErrorCode(),
+          e.getMessage(),
+          request.getRequestURI(),
+          e);
+    } else {
+      long suppressed = clientErrorSampler.sample(e.getErrorCode());
+      if (suppressed >= 0) {
+        log.warn(
+            "{} caught - Code: {}, Message: {}, Path: {} ({} more since the last one logged)",
+            type,
+            e.getErrorCode(),
+            e.getMessage(),
+            request.getRequestURI(),
+            suppressed);
+      }
+    }
     return ResponseEntity.status(e.getHttpStatus())
         .body(
             new ErrorResponse(
@@ -52,6 +90,7 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<ErrorResponse> handleRuntimeException(
       RuntimeException e, HttpServletRequest request) {
+    count("INTERNAL_ERROR", 500);
     log.error(
         "Unhandled RuntimeException caught - Message: {}, Path: {}",
         e.getMessage(),
@@ -70,6 +109,7 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponse> handleGenericException(
       Exception e, HttpServletRequest request) {
+    count("INTERNAL_ERROR", 500);
     log.error(
         "Unhandled Exception caught - Type: {}, Message: {}, Path: {}",
         e.getClass().getSimpleName(),
@@ -84,4 +124,17 @@ public class GlobalExceptionHandler {
                 500,
                 request.getRequestURI()));
   }
+
+  // Each error code has one status, so the code alone keys its counter
+  private void count(String errorCode, int httpStatus) {
+    errorCounters
+        .computeIfAbsent(
+            errorCode,
+            code ->
+                Counter.builder("api.errors")
+                    .description("Error responses by error code")
+                    .tags("code", code, "status", String.valueOf(httpStatus))
+                    .register(meterRegistry))
+        .increment();
+  }
 }
@@ -1,29 +1,14 @@
 package com.pjariwala.exception;
 
 /** Custom exception for user-related operations */
-public class UserException extends RuntimeException {
-
-  private final String errorCode;
-  private final int httpStatus;
+public class UserException extends ApiException {
 
   public UserException(String errorCode, String message, int httpStatus) {
-    super(message);
-    this.errorCode = errorCode;
-    this.httpStatus = httpStatus;
+    super(errorCode, message, httpStatus, null);
   }
 
   public UserException(String errorCode, String message, int httpStatus, Throwable cause) {
-    super(message, cause);
-    this.errorCode = errorCode;
-    this.httpStatus = httpStatus;
-  }
-
-  public String getErrorCode() {
-    return errorCode;
-  }
-
-  public int getHttpStatus() {
-    return httpStatus;
+    super(errorCode, message, httpStatus, cause);
   }
 
   // Static factory methods for common exceptions
@@ -35,6 +20,11 @@ public class UserException extends RuntimeException {
     return new UserException("USER_EXISTS", "User already exists: " + identifier, 409);
   }
 
+  public static UserException conflict(String userId) {
+    return new UserException(
+        "CONFLICT", "User was updated by another request, reload and retry: " + userId, 409);
+  }
+
   public static UserException validationError(String message) {
     return new UserException("VALIDATION_ERROR", message, 400);
   }
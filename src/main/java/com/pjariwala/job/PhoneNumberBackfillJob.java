@@ -0,0 +1,61 @@
+package com.pjariwala.job;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.pjariwala.model.User;
+import com.pjariwala.util.PhoneNumberUtil;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rewrites existing {@code phoneNumber} values to E.164 so that rows created before phone numbers
+ * were normalized become reachable through {@code phoneNumber-index}.
+ *
+ * <p>Usage: {@code java -cp ... com.pjariwala.job.PhoneNumberBackfillJob [checkpointFile]
+ * [defaultCountryCode]}. Re-running with the same checkpoint file resumes the scan.
+ */
+@Slf4j
+public class PhoneNumberBackfillJob extends ResumableScanJob {
+
+  private static final int PAGE_SIZE = 100;
+
+  private final String defaultCountryCode;
+
+  public PhoneNumberBackfillJob(
+      DynamoDBMapper dynamoDBMapper, Path checkpointFile, String defaultCountryCode) {
+    super(dynamoDBMapper, checkpointFile, PAGE_SIZE);
+    this.defaultCountryCode = defaultCountryCode;
+  }
+
+  @Override
+  protected boolean process(User user) {
+    String phoneNumber = user.getPhoneNumber();
+    if (phoneNumber == null || PhoneNumberUtil.isE164(phoneNumber)) {
+      return false;
+    }
+
+    String e164 = PhoneNumberUtil.toE164(phoneNumber, defaultCountryCode);
+    if (e164 == null) {
+      log.warn(
+          "Skipping userId: {} - phone number cannot be normalized: {}",
+          user.getUserId(),
+          phoneNumber);
+      return false;
+    }
+
+    user.setPhoneNumber(e164);
+    dynamoDBMapper.save(user);
+    log.debug("Normalized phone number for userId: {}", user.getUserId());
+    return true;
+  }
+
+  public static void main(String[] args) {
+    Path checkpointFile = Path.of(args.length > 0 ? args[0] : "phone-backfill.checkpoint.json");
+    String defaultCountryCode = args.length > 1 ? args[1] : "91";
+    String region = System.getenv().getOrDefault("AWS_REGION", "ap-south-1");
+
+    DynamoDBMapper mapper =
+        new DynamoDBMapper(AmazonDynamoDBClientBuilder.standard().withRegion(region).build());
+    new PhoneNumberBackfillJob(mapper, checkpointFile, defaultCountryCode).run();
+  }
+}
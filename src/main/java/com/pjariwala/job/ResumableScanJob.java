@@ -0,0 +1,161 @@
+package com.pjariwala.job;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pjariwala.model.UniqueIdentifier;
+import com.pjariwala.model.User;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Base class for maintenance jobs that walk every user row of GCA_Users one scan page at a time.
+ *
+ * <p>The scan position ({@code LastEvaluatedKey}) and running totals are written to a local
+ * checkpoint file after each page, so a job that is killed can be started again with the same
+ * checkpoint file and will continue from the last completed page. Rows are processed at least once,
+ * so {@link #process(User)} must be idempotent.
+ */
+@Slf4j
+public abstract class ResumableScanJob {
+
+  /** Scan filter that leaves out uniqueness guard items, which share the table with users */
+  static final String SKIP_GUARDS = "userType <> :guardType";
+
+  static final Map<String, AttributeValue> SKIP_GUARDS_VALUES =
+      Map.of(":guardType", new AttributeValue(UniqueIdentifier.ITEM_TYPE));
+
+  protected final DynamoDBMapper dynamoDBMapper;
+  private final Path checkpointFile;
+  private final int pageSize;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  protected ResumableScanJob(DynamoDBMapper dynamoDBMapper, Path checkpointFile, int pageSize) {
+    this.dynamoDBMapper = dynamoDBMapper;
+    this.checkpointFile = checkpointFile;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Handle one row.
+   *
+   * @return true if the row was changed
+   */
+  protected abstract boolean process(User user);
+
+  /** Run (or resume) the job until the whole table has been scanned. */
+  public Checkpoint run() {
+    Checkpoint checkpoint = readCheckpoint();
+    if (checkpoint.isComplete()) {
+      log.info(
+          "{} already complete per {} (scanned: {}, updated: {})",
+          getClass().getSimpleName(),
+          checkpointFile,
+          checkpoint.getScanned(),
+          checkpoint.getUpdated());
+      return checkpoint;
+    }
+    log.info(
+        "Starting {} from {} (scanned so far: {})",
+        getClass().getSimpleName(),
+        checkpoint.getLastEvaluatedKey() == null
+            ? "the beginning"
+            : checkpoint.getLastEvaluatedKey(),
+        checkpoint.getScanned());
+
+    do {
+      DynamoDBScanExpression scanExpression =
+          new DynamoDBScanExpression()
+              .withLimit(pageSize)
+              .withExclusiveStartKey(toAttributeValues(checkpoint.getLastEvaluatedKey()))
+              .withFilterExpression(SKIP_GUARDS)
+              .withExpressionAttributeValues(SKIP_GUARDS_VALUES);
+      ScanResultPage<User> page = dynamoDBMapper.scanPage(User.class, scanExpression);
+
+      for (User user : page.getResults()) {
+        if (process(user)) {
+          checkpoint.setUpdated(checkpoint.getUpdated() + 1);
+        }
+        checkpoint.setScanned(checkpoint.getScanned() + 1);
+      }
+
+      checkpoint.setLastEvaluatedKey(fromAttributeValues(page.getLastEvaluatedKey()));
+      checkpoint.setComplete(page.getLastEvaluatedKey() == null);
+      writeCheckpoint(checkpoint);
+      log.debug(
+          "{} progress - scanned: {}, updated: {}",
+          getClass().getSimpleName(),
+          checkpoint.getScanned(),
+          checkpoint.getUpdated());
+    } while (!checkpoint.isComplete());
+
+    log.info(
+        "{} finished - scanned: {}, updated: {}",
+        getClass().getSimpleName(),
+        checkpoint.getScanned(),
+        checkpoint.getUpdated());
+    return checkpoint;
+  }
+
+  private Checkpoint readCheckpoint() {
+    if (!Files.exists(checkpointFile)) {
+      return new Checkpoint();
+    }
+    try {
+      return objectMapper.readValue(checkpointFile.toFile(), Checkpoint.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read checkpoint " + checkpointFile, e);
+    }
+  }
+
+  private void writeCheckpoint(Checkpoint checkpoint) {
+    try {
+      Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+      objectMapper.writeValue(tmp.toFile(), checkpoint);
+      Files.move(
+          tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write checkpoint " + checkpointFile, e);
+    }
+  }
+
+  private static Map<String, AttributeValue> toAttributeValues(Map<String, String> key) {
+    if (key == null) {
+      return null;
+    }
+    Map<String, AttributeValue> values = new HashMap<>();
+    key.forEach((name, value) -> values.put(name, new AttributeValue().withS(value)));
+    return values;
+  }
+
+  private static Map<String, String> fromAttributeValues(Map<String, AttributeValue> key) {
+    if (key == null) {
+      return null;
+    }
+    Map<String, String> values = new HashMap<>();
+    key.forEach((name, value) -> values.put(name, value.getS()));
+    return values;
+  }
+
+  /** Scan position and totals, persisted as JSON after every page */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Checkpoint {
+    private Map<String, String> lastEvaluatedKey;
+    private long scanned;
+    private long updated;
+    private boolean complete;
+  }
+}
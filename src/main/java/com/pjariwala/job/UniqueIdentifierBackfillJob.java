@@ -0,0 +1,68 @@
+package com.pjariwala.job;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.pjariwala.model.UniqueIdentifier;
+import com.pjariwala.model.User;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the uniqueness guards ({@link UniqueIdentifier}) of users created before signup claimed
+ * their identifiers, so that a new signup cannot take the username, email or phone number of an
+ * existing user. Run it after {@link PhoneNumberBackfillJob}, since phone guards use the E.164
+ * number.
+ *
+ * <p>A guard already held by another user is left alone and logged: the two rows were duplicates
+ * before guards existed and have to be resolved by hand.
+ *
+ * <p>Usage: {@code java -cp ... com.pjariwala.job.UniqueIdentifierBackfillJob [checkpointFile]}.
+ * Re-running with the same checkpoint file resumes the scan.
+ */
+@Slf4j
+public class UniqueIdentifierBackfillJob extends ResumableScanJob {
+
+  private static final int PAGE_SIZE = 100;
+
+  public UniqueIdentifierBackfillJob(DynamoDBMapper dynamoDBMapper, Path checkpointFile) {
+    super(dynamoDBMapper, checkpointFile, PAGE_SIZE);
+  }
+
+  @Override
+  protected boolean process(User user) {
+    boolean written = false;
+    for (UniqueIdentifier guard : UniqueIdentifier.of(user)) {
+      try {
+        dynamoDBMapper.save(
+            guard,
+            new DynamoDBSaveExpression()
+                .withExpectedEntry("userId", new ExpectedAttributeValue(false)));
+        written = true;
+      } catch (ConditionalCheckFailedException e) {
+        UniqueIdentifier existing =
+            dynamoDBMapper.load(
+                UniqueIdentifier.class, guard.getIdentifier(), UniqueIdentifier.ITEM_TYPE);
+        if (existing != null && !user.getUserId().equals(existing.getOwnerUserId())) {
+          log.warn(
+              "Duplicate identifier {}: held by userId: {}, also used by userId: {}",
+              guard.getIdentifier(),
+              existing.getOwnerUserId(),
+              user.getUserId());
+        }
+      }
+    }
+    return written;
+  }
+
+  public static void main(String[] args) {
+    Path checkpointFile = Path.of(args.length > 0 ? args[0] : "guard-backfill.checkpoint.json");
+    String region = System.getenv().getOrDefault("AWS_REGION", "ap-south-1");
+
+    DynamoDBMapper mapper =
+        new DynamoDBMapper(AmazonDynamoDBClientBuilder.standard().withRegion(region).build());
+    new UniqueIdentifierBackfillJob(mapper, checkpointFile).run();
+  }
+}
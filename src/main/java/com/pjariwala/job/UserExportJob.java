@@ -0,0 +1,381 @@
+package com.pjariwala.job;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pjariwala.model.User;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports every row of GCA_Users as gzip-compressed NDJSON, one user per line.
+ *
+ * <p>The table is read with a parallel scan: each of {@code totalSegments} segments is scanned page
+ * by page on a fixed pool of {@code parallelism} threads and streamed into its own part file, so
+ * memory use is one page per running segment whatever the size of the table. Every page is written
+ * as a complete gzip member and synced before the segment's scan position and byte offset are
+ * checkpointed. A killed export is resumed by running it again with the same output file: each part
+ * file is truncated back to its checkpointed offset (dropping a partly written page) and its scan
+ * continues from there. Once all segments are done the parts are concatenated into the output file,
+ * which is still valid gzip since a gzip file may hold several members.
+ *
+ * <p>Usage: {@code java -cp ... com.pjariwala.job.UserExportJob <output.ndjson.gz> [totalSegments]
+ * [parallelism]}.
+ */
+@Slf4j
+public class UserExportJob {
+
+  private static final int PAGE_SIZE = 1_000;
+
+  private final DynamoDBMapper dynamoDBMapper;
+  private final Path outputFile;
+  private final Path checkpointFile;
+  private final int totalSegments;
+  private final int parallelism;
+  private final ObjectMapper checkpointMapper = new ObjectMapper();
+  private final ObjectMapper rowMapper =
+      new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+  public UserExportJob(
+      DynamoDBMapper dynamoDBMapper, Path outputFile, int totalSegments, int parallelism) {
+    if (totalSegments < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("totalSegments and parallelism must be at least 1");
+    }
+    this.dynamoDBMapper = dynamoDBMapper;
+    this.outputFile = outputFile;
+    this.checkpointFile = sibling(".checkpoint.json");
+    this.totalSegments = totalSegments;
+    this.parallelism = Math.min(parallelism, totalSegments);
+  }
+
+  /** Run (or resume) the export until every segment is written and the parts are merged. */
+  public Checkpoint run() {
+    Checkpoint checkpoint = readCheckpoint();
+    if (checkpoint.isComplete()) {
+      log.info(
+          "User export already complete per {} (exported: {})",
+          checkpointFile,
+          checkpoint.getExported());
+      return checkpoint;
+    }
+    log.info(
+        "Starting user export to {} with {} segments on {} threads (exported so far: {})",
+        outputFile,
+        totalSegments,
+        parallelism,
+        checkpoint.getExported());
+
+    // Set by the first failing segment so the others stop after their current page
+    AtomicBoolean stop = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (SegmentCheckpoint segment : checkpoint.getSegments()) {
+        if (!segment.isComplete()) {
+          futures.add(
+              executor.submit(
+                  () -> {
+                    exportSegment(checkpoint, segment, stop);
+                    return null;
+                  }));
+        }
+      }
+      awaitAll(futures, stop);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    mergeParts(checkpoint);
+    synchronized (checkpoint) {
+      checkpoint.setComplete(true);
+      writeCheckpoint(checkpoint);
+    }
+    for (int segment = 0; segment < totalSegments; segment++) {
+      deleteQuietly(partFile(segment));
+    }
+    log.info("User export finished - exported: {} to {}", checkpoint.getExported(), outputFile);
+    return checkpoint;
+  }
+
+  private void exportSegment(Checkpoint checkpoint, SegmentCheckpoint segment, AtomicBoolean stop)
+      throws IOException {
+    Path part = partFile(segment.getSegment());
+    PageBuffer buffer = new PageBuffer();
+    try (FileChannel channel =
+        FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      // Anything past the checkpointed offset is a page whose checkpoint was never written
+      channel.truncate(segment.getBytesWritten());
+      channel.position(segment.getBytesWritten());
+
+      boolean complete;
+      do {
+        if (stop.get()) {
+          return;
+        }
+        DynamoDBScanExpression scanExpression =
+            new DynamoDBScanExpression()
+                .withSegment(segment.getSegment())
+                .withTotalSegments(totalSegments)
+                .withLimit(PAGE_SIZE)
+                .withExclusiveStartKey(toAttributeValues(segment.getLastEvaluatedKey()))
+                .withFilterExpression(ResumableScanJob.SKIP_GUARDS)
+                .withExpressionAttributeValues(ResumableScanJob.SKIP_GUARDS_VALUES);
+        ScanResultPage<User> page = dynamoDBMapper.scanPage(User.class, scanExpression);
+
+        if (!page.getResults().isEmpty()) {
+          writePage(page.getResults(), buffer);
+          ByteBuffer bytes = buffer.toByteBuffer();
+          while (bytes.hasRemaining()) {
+            channel.write(bytes);
+          }
+          channel.force(false);
+        }
+
+        complete = page.getLastEvaluatedKey() == null;
+        synchronized (checkpoint) {
+          segment.setLastEvaluatedKey(fromAttributeValues(page.getLastEvaluatedKey()));
+          segment.setBytesWritten(channel.position());
+          segment.setExported(segment.getExported() + page.getResults().size());
+          segment.setComplete(complete);
+          writeCheckpoint(checkpoint);
+        }
+      } while (!complete);
+      log.debug(
+          "Export segment {} finished - exported: {}", segment.getSegment(), segment.getExported());
+    } catch (RuntimeException | IOException e) {
+      stop.set(true);
+      throw e;
+    }
+  }
+
+  /** Serialize one page into {@code buffer} as a single, self-contained gzip member */
+  private void writePage(List<User> users, PageBuffer buffer) throws IOException {
+    buffer.reset();
+    try (JsonGenerator json = rowMapper.createGenerator(new GZIPOutputStream(buffer, 8192))) {
+      json.setRootValueSeparator(new SerializedString("\n"));
+      for (User user : users) {
+        json.writeObject(user);
+      }
+      json.writeRaw('\n');
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> futures, AtomicBoolean stop) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        stop.set(true);
+        throw new IllegalStateException("User export interrupted", e);
+      } catch (ExecutionException e) {
+        RuntimeException cause =
+            e.getCause() instanceof RuntimeException runtime
+                ? runtime
+                : new IllegalStateException("User export segment failed", e.getCause());
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Concatenate the checkpointed part of each part file into the output file, replacing it
+   * atomically
+   */
+  private void mergeParts(Checkpoint checkpoint) {
+    Path tmp = sibling(".tmp");
+    try (FileChannel out =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (SegmentCheckpoint segment : checkpoint.getSegments()) {
+        long size = segment.getBytesWritten();
+        if (size == 0) {
+          continue; // a segment without rows may not have a part file
+        }
+        try (FileChannel in =
+            FileChannel.open(partFile(segment.getSegment()), StandardOpenOption.READ)) {
+          long position = 0;
+          while (position < size) {
+            position += in.transferTo(position, size - position, out);
+          }
+        }
+      }
+      out.force(true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + outputFile, e);
+    }
+    try {
+      Files.move(
+          tmp, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write " + outputFile, e);
+    }
+  }
+
+  private Checkpoint readCheckpoint() {
+    if (!Files.exists(checkpointFile)) {
+      List<SegmentCheckpoint> segments = new ArrayList<>();
+      for (int segment = 0; segment < totalSegments; segment++) {
+        segments.add(new SegmentCheckpoint(segment, null, 0, 0, false));
+      }
+      return new Checkpoint(totalSegments, segments, false);
+    }
+    Checkpoint checkpoint;
+    try {
+      checkpoint = checkpointMapper.readValue(checkpointFile.toFile(), Checkpoint.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read checkpoint " + checkpointFile, e);
+    }
+    if (checkpoint.getTotalSegments() != totalSegments) {
+      // Segment boundaries depend on the segment count, so positions cannot be carried over
+      throw new IllegalStateException(
+          "Checkpoint "
+              + checkpointFile
+              + " was written for "
+              + checkpoint.getTotalSegments()
+              + " segments; resume with the same count or delete it to start over");
+    }
+    return checkpoint;
+  }
+
+  private void writeCheckpoint(Checkpoint checkpoint) {
+    try {
+      Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+      checkpointMapper.writeValue(tmp.toFile(), checkpoint);
+      Files.move(
+          tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write checkpoint " + checkpointFile, e);
+    }
+  }
+
+  Path partFile(int segment) {
+    return sibling(String.format(".part-%04d", segment));
+  }
+
+  private Path sibling(String suffix) {
+    return outputFile.resolveSibling(outputFile.getFileName() + suffix);
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("Could not delete {}", path, e);
+    }
+  }
+
+  private static Map<String, AttributeValue> toAttributeValues(Map<String, String> key) {
+    if (key == null) {
+      return null;
+    }
+    Map<String, AttributeValue> values = new HashMap<>();
+    key.forEach((name, value) -> values.put(name, new AttributeValue().withS(value)));
+    return values;
+  }
+
+  private static Map<String, String> fromAttributeValues(Map<String, AttributeValue> key) {
+    if (key == null) {
+      return null;
+    }
+    Map<String, String> values = new HashMap<>();
+    key.forEach((name, value) -> values.put(name, value.getS()));
+    return values;
+  }
+
+  /** Reusable page buffer whose contents can be written to a channel without copying */
+  private static final class PageBuffer extends ByteArrayOutputStream {
+    PageBuffer() {
+      super(64 * 1024);
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(buf, 0, count);
+    }
+  }
+
+  /** Per-segment progress, persisted as JSON after every page */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Checkpoint {
+    private int totalSegments;
+    private List<SegmentCheckpoint> segments;
+    private boolean complete;
+
+    @JsonIgnore
+    public long getExported() {
+      return segments.stream().mapToLong(SegmentCheckpoint::getExported).sum();
+    }
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class SegmentCheckpoint {
+    private int segment;
+    private Map<String, String> lastEvaluatedKey;
+    private long bytesWritten; // length of the part file up to the last completed page
+    private long exported;
+    private boolean complete;
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.err.println("Usage: UserExportJob <output.ndjson.gz> [totalSegments] [parallelism]");
+      System.exit(2);
+    }
+    Path outputFile = Path.of(args[0]);
+    int totalSegments = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : totalSegments;
+    String region = System.getenv().getOrDefault("AWS_REGION", "ap-south-1");
+
+    DynamoDBMapper mapper =
+        new DynamoDBMapper(AmazonDynamoDBClientBuilder.standard().withRegion(region).build());
+    new UserExportJob(mapper, outputFile, totalSegments, parallelism).run();
+  }
+}
@@ -0,0 +1,70 @@
+package com.pjariwala.model;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uniqueness guard: an item in GCA_Users that claims a username, email or phone number for one
+ * user. Its key is the identifier ({@code EMAIL#alice@example.com}) with the sort key {@value
+ * #ITEM_TYPE}, so a user row and its guards are written in one transaction, each guard on the
+ * condition that it does not exist yet, and a second user with the same identifier cannot be
+ * saved. Guards carry none of the indexed attributes, so they do not show up in any GSI.
+ *
+ * <p>Usernames and emails are claimed lower-cased, phone numbers in E.164 as stored.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "GCA_Users")
+public class UniqueIdentifier {
+
+  /** Sort key of every guard item; table scans over users skip items of this type */
+  public static final String ITEM_TYPE = "UNIQUE";
+
+  @DynamoDBHashKey(attributeName = "userId")
+  private String identifier; // e.g. EMAIL#alice@example.com
+
+  @DynamoDBRangeKey(attributeName = "userType")
+  private String itemType = ITEM_TYPE;
+
+  @DynamoDBAttribute(attributeName = "ownerUserId")
+  private String ownerUserId;
+
+  public static UniqueIdentifier username(String username, String ownerUserId) {
+    return new UniqueIdentifier(
+        "USERNAME#" + username.toLowerCase(Locale.ROOT), ITEM_TYPE, ownerUserId);
+  }
+
+  public static UniqueIdentifier email(String email, String ownerUserId) {
+    return new UniqueIdentifier("EMAIL#" + email.toLowerCase(Locale.ROOT), ITEM_TYPE, ownerUserId);
+  }
+
+  public static UniqueIdentifier phone(String phoneNumber, String ownerUserId) {
+    return new UniqueIdentifier("PHONE#" + phoneNumber, ITEM_TYPE, ownerUserId);
+  }
+
+  /** The guards a user row needs: one per identifier it has */
+  public static List<UniqueIdentifier> of(User user) {
+    List<UniqueIdentifier> guards = new ArrayList<>(3);
+    if (user.getUsername() != null) {
+      guards.add(username(user.getUsername(), user.getUserId()));
+    }
+    if (user.getEmail() != null) {
+      guards.add(email(user.getEmail(), user.getUserId()));
+    }
+    if (user.getPhoneNumber() != null) {
+      guards.add(phone(user.getPhoneNumber(), user.getUserId()));
+    }
+    return guards;
+  }
+
+  /** The kind of identifier claimed, e.g. {@code EMAIL} */
+  public String kind() {
+    return identifier.substring(0, identifier.indexOf('#'));
+  }
+}
@@ -17,6 +17,7 @@ public class User {
   private String userId;
 
   @DynamoDBRangeKey(attributeName = "userType")
+  @DynamoDBIndexHashKey(globalSecondaryIndexName = "userType-createdAt-index")
   private String userType; // "COACH" or "STUDENT"
 
   @DynamoDBAttribute(attributeName = "username")
@@ -31,7 +32,8 @@ public class User {
   private String name;
 
   @DynamoDBAttribute(attributeName = "phoneNumber")
-  private String phoneNumber;
+  @DynamoDBIndexHashKey(globalSecondaryIndexName = "phoneNumber-index")
+  private String phoneNumber; // E.164, e.g. +919876543210
 
   @DynamoDBAttribute(attributeName = "cognitoSub")
   @DynamoDBIndexHashKey(globalSecondaryIndexName = "cognitoSub-index")
@@ -41,6 +43,7 @@ public class User {
   private Boolean isActive;
 
   @DynamoDBAttribute(attributeName = "createdAt")
+  @DynamoDBIndexRangeKey(globalSecondaryIndexName = "userType-createdAt-index")
   @DynamoDBTypeConverted(converter = LocalDateTimeConverter.class)
   private LocalDateTime createdAt;
 
@@ -48,6 +51,12 @@ public class User {
   @DynamoDBTypeConverted(converter = LocalDateTimeConverter.class)
   private LocalDateTime updatedAt;
 
+  // Optimistic locking: every update is conditioned on the version it read and increments it.
+  // Kept by UserServiceImpl rather than @DynamoDBVersionAttribute, since updates are partial
+  // UpdateItem calls, some of them inside a transaction with the uniqueness guards
+  @DynamoDBAttribute(attributeName = "version")
+  private Long version; // null for rows written before versioning
+
   // Student-specific fields
   @DynamoDBAttribute(attributeName = "guardianName")
   private String guardianName;
@@ -0,0 +1,42 @@
+package com.pjariwala.service;
+
+import com.pjariwala.dto.AuthRequest;
+import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.BulkSignupResponse;
+import com.pjariwala.dto.SignupRequest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of {@link AuthService}: every call returns at once and the future completes
+ * when Cognito and DynamoDB have answered. Failures complete the future exceptionally with the same
+ * exceptions the blocking service throws.
+ */
+public interface AsyncAuthService {
+
+  /** Register a new user (coach or student) */
+  CompletableFuture<AuthResponse> signup(SignupRequest signupRequest);
+
+  /** Register many users at once on behalf of a coach, without logging them in */
+  CompletableFuture<BulkSignupResponse> bulkSignup(
+      String accessToken, List<SignupRequest> signupRequests);
+
+  /** Authenticate user and return tokens */
+  CompletableFuture<AuthResponse> login(AuthRequest authRequest);
+
+  /** Refresh access token using refresh token */
+  CompletableFuture<AuthResponse> refreshToken(String refreshToken);
+
+  /** Logout user by invalidating tokens */
+  CompletableFuture<Void> logout(String accessToken);
+
+  /** Change user password */
+  CompletableFuture<Void> changePassword(
+      String accessToken, String oldPassword, String newPassword);
+
+  /** Initiate forgot password process */
+  CompletableFuture<Void> forgotPassword(String login);
+
+  /** Reset password using confirmation code */
+  CompletableFuture<Void> resetPassword(String login, String confirmationCode, String newPassword);
+}
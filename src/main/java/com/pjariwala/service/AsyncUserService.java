@@ -0,0 +1,54 @@
+package com.pjariwala.service;
+
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.User;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of {@link UserService}: every call returns at once and the future completes
+ * when DynamoDB has answered. Failures complete the future exceptionally with the same exceptions
+ * the blocking service throws.
+ */
+public interface AsyncUserService {
+
+  /** Create a new user */
+  CompletableFuture<User> createUser(User user);
+
+  /** Create users with batched writes; completes with why each unsaved user was not saved */
+  CompletableFuture<Map<String, UserException>> createUsers(List<User> users);
+
+  /** Get user by ID */
+  CompletableFuture<Optional<User>> getUserById(String userId);
+
+  /** Get users by ID, in the order given; IDs that do not exist are left out */
+  CompletableFuture<Map<String, User>> getUsersByIds(Collection<String> userIds);
+
+  /** Get user by username */
+  CompletableFuture<Optional<User>> getUserByUsername(String username);
+
+  /** Get user by email */
+  CompletableFuture<Optional<User>> getUserByEmail(String email);
+
+  /** Get user by phone number */
+  CompletableFuture<Optional<User>> getUserByPhone(String phoneNumber);
+
+  /** Get user by Cognito sub */
+  CompletableFuture<Optional<User>> getUserByCognitoSub(String cognitoSub);
+
+  /** Get one page of users by type, newest first */
+  CompletableFuture<UserPageResponse> getUsersByType(String userType, int pageSize, String cursor);
+
+  /** Update user */
+  CompletableFuture<User> updateUser(User user);
+
+  /** Delete user */
+  CompletableFuture<Void> deleteUser(String userId);
+
+  /** Check if user exists by email */
+  CompletableFuture<Boolean> userExistsByEmail(String email);
+}
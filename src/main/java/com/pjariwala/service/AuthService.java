@@ -2,13 +2,21 @@ package com.pjariwala.service;
 
 import com.pjariwala.dto.AuthRequest;
 import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.BulkSignupResponse;
 import com.pjariwala.dto.SignupRequest;
+import java.util.List;
 
 public interface AuthService {
 
   /** Register a new user (coach or student) */
   AuthResponse signup(SignupRequest signupRequest);
 
+  /**
+   * Register many users at once on behalf of a coach, without logging them in. Each row succeeds or
+   * fails on its own; the response reports every row.
+   */
+  BulkSignupResponse bulkSignup(String accessToken, List<SignupRequest> signupRequests);
+
   /** Authenticate user and return tokens */
   AuthResponse login(AuthRequest authRequest);
 
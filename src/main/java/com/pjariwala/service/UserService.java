@@ -1,17 +1,44 @@
 package com.pjariwala.service;
 
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.UniqueIdentifier;
 import com.pjariwala.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserService {
 
-  /** Create a new user */
+  /**
+   * Create a new user, claiming its username, email and phone number in the same write. Fails with
+   * USER_EXISTS if any of them is taken.
+   */
   User createUser(User user);
 
+  /**
+   * Create users with transactional writes (25 per request), claiming their identifiers like {@link
+   * #createUser}. Returns why each user that could not be saved was not, by user id: USER_EXISTS if
+   * an identifier is taken, DATABASE_ERROR if the write kept failing. An empty map means all were
+   * saved.
+   */
+  Map<String, UserException> createUsers(List<User> users);
+
+  /**
+   * The identifiers among {@code guards} that are already claimed, read from their uniqueness
+   * guards with strongly consistent BatchGetItem requests of up to 100 keys
+   */
+  Set<String> findTakenIdentifiers(Collection<UniqueIdentifier> guards);
+
   /** Get user by ID */
   Optional<User> getUserById(String userId);
 
+  /** Get users by ID, in the order given; IDs that do not exist are left out */
+  Map<String, User> getUsersByIds(Collection<String> userIds);
+
   /** Get user by username */
   Optional<User> getUserByUsername(String username);
 
@@ -24,12 +51,32 @@ public interface UserService {
   /** Get user by Cognito sub */
   Optional<User> getUserByCognitoSub(String cognitoSub);
 
-  /** Get all users by type */
+  /**
+   * Get all users by type, newest first. The list is loaded lazily page by page as it is iterated;
+   * prefer {@link #getUsersByType(String, int, String)}, which bounds what one call reads.
+   */
   List<User> getUsersByType(String userType);
 
-  /** Update user */
+  /**
+   * Get one page of users by type, newest first. Pass the previous page's {@code nextCursor} to get
+   * the next page, or null for the first one.
+   */
+  UserPageResponse getUsersByType(String userType, int pageSize, String cursor);
+
+  /**
+   * Update user, writing only the attributes that differ from the stored row; nothing is written if
+   * none do. Fails with CONFLICT if the row was updated since {@code user} was read (its version is
+   * behind), and with USER_EXISTS if a new username, email or phone number is taken.
+   */
   User updateUser(User user);
 
+  /**
+   * Apply {@code changes} to the current row and write only the attributes they change. If another
+   * update lands in between, the row is read again and the changes applied again; fails with
+   * CONFLICT if that keeps happening.
+   */
+  User updateUser(String userId, Consumer<User> changes);
+
   /** Delete user */
   void deleteUser(String userId);
 
@@ -38,4 +85,7 @@ public interface UserService {
 
   /** Generate unique user ID */
   String generateUserId();
+
+  /** Generate unique user ID that encodes the user type, so the user can be loaded by key */
+  String generateUserId(String userType);
 }
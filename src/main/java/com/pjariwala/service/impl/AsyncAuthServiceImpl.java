@@ -0,0 +1,96 @@
+package com.pjariwala.service.impl;
+
+import com.pjariwala.dto.AuthRequest;
+import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.BulkSignupResponse;
+import com.pjariwala.dto.SignupRequest;
+import com.pjariwala.service.AsyncAuthService;
+import com.pjariwala.service.AuthService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link AsyncAuthService} that runs each {@link AuthService} call on its own virtual thread, so a
+ * request thread is not held while Cognito answers. {@code app.async.inline} runs them on the
+ * caller's thread instead, as for {@link AsyncUserServiceImpl}.
+ */
+@Service
+public class AsyncAuthServiceImpl implements AsyncAuthService {
+
+  @Autowired private AuthService authService;
+
+  /** Run calls on the caller's thread; see application-lambda.properties */
+  @Value("${app.async.inline:false}")
+  private boolean inline;
+
+  private Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @PostConstruct
+  void init() {
+    if (inline) {
+      shutdown();
+      executor = Runnable::run;
+    }
+  }
+
+  @Override
+  public CompletableFuture<AuthResponse> signup(SignupRequest signupRequest) {
+    return CompletableFuture.supplyAsync(() -> authService.signup(signupRequest), executor);
+  }
+
+  @Override
+  public CompletableFuture<BulkSignupResponse> bulkSignup(
+      String accessToken, List<SignupRequest> signupRequests) {
+    return CompletableFuture.supplyAsync(
+        () -> authService.bulkSignup(accessToken, signupRequests), executor);
+  }
+
+  @Override
+  public CompletableFuture<AuthResponse> login(AuthRequest authRequest) {
+    return CompletableFuture.supplyAsync(() -> authService.login(authRequest), executor);
+  }
+
+  @Override
+  public CompletableFuture<AuthResponse> refreshToken(String refreshToken) {
+    return CompletableFuture.supplyAsync(() -> authService.refreshToken(refreshToken), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> logout(String accessToken) {
+    return CompletableFuture.runAsync(() -> authService.logout(accessToken), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> changePassword(
+      String accessToken, String oldPassword, String newPassword) {
+    return CompletableFuture.runAsync(
+        () -> authService.changePassword(accessToken, oldPassword, newPassword), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> forgotPassword(String login) {
+    return CompletableFuture.runAsync(() -> authService.forgotPassword(login), executor);
+  }
+
+  @Override
+  public CompletableFuture<Void> resetPassword(
+      String login, String confirmationCode, String newPassword) {
+    return CompletableFuture.runAsync(
+        () -> authService.resetPassword(login, confirmationCode, newPassword), executor);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (executor instanceof ExecutorService service) {
+      service.shutdown();
+    }
+  }
+}
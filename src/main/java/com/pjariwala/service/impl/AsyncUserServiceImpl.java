@@ -0,0 +1,123 @@
+package com.pjariwala.service.impl;
+
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.User;
+import com.pjariwala.service.AsyncUserService;
+import com.pjariwala.service.UserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link AsyncUserService} that runs each {@link UserService} call on its own virtual thread.
+ *
+ * <p>The DynamoDB client is blocking, but a virtual thread parked on its socket does not hold a
+ * platform thread, so callers (request threads) are released at once and any number of lookups can
+ * be in flight together.
+ *
+ * <p>With {@code app.async.inline} the calls run on the caller's thread and the futures are already
+ * complete when returned. The Lambda handler needs this (see application-lambda.properties).
+ */
+@Service
+public class AsyncUserServiceImpl implements AsyncUserService {
+
+  @Autowired private UserService userService;
+
+  /** Run calls on the caller's thread; see application-lambda.properties */
+  @Value("${app.async.inline:false}")
+  private boolean inline;
+
+  private Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @PostConstruct
+  void init() {
+    if (inline) {
+      shutdown();
+      executor = Runnable::run;
+    }
+  }
+
+  @Override
+  public CompletableFuture<User> createUser(User user) {
+    return async(() -> userService.createUser(user));
+  }
+
+  @Override
+  public CompletableFuture<Map<String, UserException>> createUsers(List<User> users) {
+    return async(() -> userService.createUsers(users));
+  }
+
+  @Override
+  public CompletableFuture<Optional<User>> getUserById(String userId) {
+    return async(() -> userService.getUserById(userId));
+  }
+
+  @Override
+  public CompletableFuture<Map<String, User>> getUsersByIds(Collection<String> userIds) {
+    return async(() -> userService.getUsersByIds(userIds));
+  }
+
+  @Override
+  public CompletableFuture<Optional<User>> getUserByUsername(String username) {
+    return async(() -> userService.getUserByUsername(username));
+  }
+
+  @Override
+  public CompletableFuture<Optional<User>> getUserByEmail(String email) {
+    return async(() -> userService.getUserByEmail(email));
+  }
+
+  @Override
+  public CompletableFuture<Optional<User>> getUserByPhone(String phoneNumber) {
+    return async(() -> userService.getUserByPhone(phoneNumber));
+  }
+
+  @Override
+  public CompletableFuture<Optional<User>> getUserByCognitoSub(String cognitoSub) {
+    return async(() -> userService.getUserByCognitoSub(cognitoSub));
+  }
+
+  @Override
+  public CompletableFuture<UserPageResponse> getUsersByType(
+      String userType, int pageSize, String cursor) {
+    return async(() -> userService.getUsersByType(userType, pageSize, cursor));
+  }
+
+  @Override
+  public CompletableFuture<User> updateUser(User user) {
+    return async(() -> userService.updateUser(user));
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteUser(String userId) {
+    return CompletableFuture.runAsync(() -> userService.deleteUser(userId), executor);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> userExistsByEmail(String email) {
+    return async(() -> userService.userExistsByEmail(email));
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (executor instanceof ExecutorService service) {
+      service.shutdown();
+    }
+  }
+
+  private <T> CompletableFuture<T> async(Supplier<T> call) {
+    return CompletableFuture.supplyAsync(call, executor);
+  }
+}
@@ -1,11 +1,14 @@
 package com.pjariwala.service.impl;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.cognitoidp.AWSCognitoIdentityProvider;
 import com.amazonaws.services.cognitoidp.AWSCognitoIdentityProviderClientBuilder;
 import com.amazonaws.services.cognitoidp.model.AdminConfirmSignUpRequest;
+import com.amazonaws.services.cognitoidp.model.AdminDeleteUserRequest;
 import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthRequest;
 import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthResult;
 import com.amazonaws.services.cognitoidp.model.AttributeType;
@@ -17,29 +20,55 @@ import com.amazonaws.services.cognitoidp.model.ConfirmForgotPasswordRequest;
 import com.amazonaws.services.cognitoidp.model.ExpiredCodeException;
 import com.amazonaws.services.cognitoidp.model.ForgotPasswordRequest;
 import com.amazonaws.services.cognitoidp.model.GlobalSignOutRequest;
+import com.amazonaws.services.cognitoidp.model.InvalidParameterException;
 import com.amazonaws.services.cognitoidp.model.InvalidPasswordException;
 import com.amazonaws.services.cognitoidp.model.NotAuthorizedException;
 import com.amazonaws.services.cognitoidp.model.SignUpRequest;
 import com.amazonaws.services.cognitoidp.model.SignUpResult;
+import com.amazonaws.services.cognitoidp.model.TooManyRequestsException;
 import com.amazonaws.services.cognitoidp.model.UserNotConfirmedException;
 import com.amazonaws.services.cognitoidp.model.UserNotFoundException;
 import com.amazonaws.services.cognitoidp.model.UsernameExistsException;
+import com.pjariwala.config.RestorableAwsClient;
 import com.pjariwala.dto.AuthRequest;
 import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.BulkSignupResponse;
+import com.pjariwala.dto.BulkSignupResult;
 import com.pjariwala.dto.SignupRequest;
 import com.pjariwala.dto.UserInfo;
 import com.pjariwala.exception.AuthException;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.UniqueIdentifier;
 import com.pjariwala.model.User;
 import com.pjariwala.service.AuthService;
 import com.pjariwala.service.UserService;
+import com.pjariwala.util.JwtUtil;
+import com.pjariwala.util.SecretHashCalculator;
+import com.pjariwala.util.SingleFlight;
+import com.pjariwala.util.StageTimings;
+import com.pjariwala.util.TokenBucket;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -55,9 +84,6 @@ public class AuthServiceImpl implements AuthService {
   @Value("${aws.cognito.clientId}")
   private String clientId;
 
-  @Value("${aws.cognito.clientSecret}")
-  private String clientSecret;
-
   @Value("${aws.region:ap-south-1}")
   private String awsRegion;
 
@@ -69,40 +95,85 @@ public class AuthServiceImpl implements AuthService {
 
   @Autowired private UserService userService;
 
+  @Autowired private LoginIdentifierResolver loginIdentifierResolver;
+
+  @Autowired private SecretHashCalculator secretHashCalculator;
+
+  @Autowired private JwtUtil jwtUtil;
+
+  @Autowired private CognitoGuard cognitoGuard;
+
+  @Value("${app.enrollment.maxBatchSize:500}")
+  private int bulkMaxBatchSize;
+
+  @Value("${app.enrollment.cognitoConcurrency:4}")
+  private int bulkCognitoConcurrency;
+
+  @Value("${app.enrollment.cognitoRatePerSecond:20}")
+  private double bulkCognitoRatePerSecond;
+
   private AWSCognitoIdentityProvider cognitoClient;
 
+  private final SingleFlight<String, AuthResponse> tokenRefreshes = new SingleFlight<>();
+
+  private DependencyMetrics.Call signUpCall;
+  private DependencyMetrics.Call confirmSignUpCall;
+  private DependencyMetrics.Call deleteUserCall;
+  private DependencyMetrics.Call initiateAuthCall;
+  private DependencyMetrics.Call globalSignOutCall;
+  private DependencyMetrics.Call changePasswordCall;
+  private DependencyMetrics.Call forgotPasswordCall;
+  private DependencyMetrics.Call confirmForgotPasswordCall;
+
+  /** Runs the signup steps that can overlap with the Cognito calls */
+  private final ExecutorService signupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private static final int BULK_PERSIST_CHUNK = 25;
+
   @PostConstruct
   void init() {
     log.info("Initializing AWS Cognito client for region: {}", awsRegion);
+    this.cognitoClient =
+        cognitoGuard.wrap(
+            RestorableAwsClient.create(
+                AWSCognitoIdentityProvider.class,
+                "Cognito",
+                this::buildCognitoClient,
+                AWSCognitoIdentityProvider::shutdown));
+    log.info("AWS Cognito client initialized successfully");
+  }
 
+  /** Creates the Cognito call timers once, so that recording a call does not look them up */
+  @Autowired
+  void setDependencyMetrics(DependencyMetrics metrics) {
+    signUpCall = metrics.cognito("signUp");
+    confirmSignUpCall = metrics.cognito("adminConfirmSignUp");
+    deleteUserCall = metrics.cognito("adminDeleteUser");
+    initiateAuthCall = metrics.cognito("adminInitiateAuth");
+    globalSignOutCall = metrics.cognito("globalSignOut");
+    changePasswordCall = metrics.cognito("changePassword");
+    forgotPasswordCall = metrics.cognito("forgotPassword");
+    confirmForgotPasswordCall = metrics.cognito("confirmForgotPassword");
+  }
+
+  private AWSCognitoIdentityProvider buildCognitoClient() {
     AWSCognitoIdentityProviderClientBuilder clientBuilder =
         AWSCognitoIdentityProviderClientBuilder.standard().withRegion(Regions.fromName(awsRegion));
     BasicAWSCredentials awsCredentials = new BasicAWSCredentials(awsAccessKeyId, awsSecretKey);
     clientBuilder.withCredentials(new AWSStaticCredentialsProvider(awsCredentials));
+    // CognitoGuard retries with its own backoff and sees every attempt; SDK retries would hide them
+    clientBuilder.withClientConfiguration(
+        new ClientConfiguration().withRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY));
+    return clientBuilder.build();
+  }
 
-    this.cognitoClient = clientBuilder.build();
-    log.info("AWS Cognito client initialized successfully");
+  @PreDestroy
+  void shutdown() {
+    signupExecutor.shutdown();
   }
 
   public String calculateSecretHash(String username) {
-    log.debug("Calculating secret hash for username: {}", username);
-    try {
-      final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
-      SecretKeySpec signingKey =
-          new SecretKeySpec(clientSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM);
-      Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
-      mac.init(signingKey);
-
-      String message = username + clientId;
-      byte[] rawHmac = mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
-
-      String secretHash = Base64.getEncoder().encodeToString(rawHmac);
-      log.debug("Secret hash calculated successfully for username: {}", username);
-      return secretHash;
-    } catch (Exception e) {
-      log.error("Error calculating secret hash for username: {}", username, e);
-      throw new RuntimeException("Error calculating secret hash", e);
-    }
+    return secretHashCalculator.calculate(username);
   }
 
   /** Validate signup request */
@@ -114,6 +185,14 @@ public class AuthServiceImpl implements AuthService {
       throw AuthException.validationError("Username is required");
     }
 
+    // Keep usernames distinguishable from emails so login identifiers can be classified
+    if (signupRequest.getUsername().contains("@")) {
+      log.error(
+          "Signup validation failed: Username must not contain '@' for email: {}",
+          signupRequest.getEmail());
+      throw AuthException.validationError("Username must not contain '@'");
+    }
+
     if (signupRequest.getEmail() == null || signupRequest.getEmail().trim().isEmpty()) {
       log.error("Signup validation failed: Email is required");
       throw AuthException.validationError("Email is required");
@@ -150,12 +229,12 @@ public class AuthServiceImpl implements AuthService {
     log.debug("Validating login request for: {}", authRequest.getLogin());
 
     if (authRequest.getLogin() == null || authRequest.getLogin().trim().isEmpty()) {
-      log.error("Login validation failed: Login identifier is required");
+      log.debug("Login validation failed: Login identifier is required");
       throw AuthException.validationError("Login (username, email, or phone) is required");
     }
 
     if (authRequest.getPassword() == null || authRequest.getPassword().trim().isEmpty()) {
-      log.error(
+      log.debug(
           "Login validation failed: Password is required for login: {}", authRequest.getLogin());
       throw AuthException.validationError("Password is required");
     }
@@ -169,140 +248,508 @@ public class AuthServiceImpl implements AuthService {
         "Starting user signup process for email: {} with userType: {}",
         signupRequest.getEmail(),
         signupRequest.getUserType());
+    StageTimings timings = new StageTimings();
     try {
       // Validate input
-      validateSignupRequest(signupRequest);
+      timings.run("validate", () -> validateSignupRequest(signupRequest));
 
-      // Check if user already exists in our system
-      if (userService.userExistsByEmail(signupRequest.getEmail())) {
-        log.error("Signup failed: User already exists with email: {}", signupRequest.getEmail());
-        throw AuthException.userExists();
-      }
+      // No lookup for an existing user: the user row is written together with guards on its
+      // username, email and phone, and that write fails if any of them is taken
 
       // Create user in Cognito User Pool
-      // NOTE: Consider using email as username for better UX in future:
-      // .withUsername(signupRequest.getEmail()) instead of signupRequest.getUsername()
-      SignUpRequest cognitoSignupRequest =
-          new SignUpRequest()
-              .withClientId(clientId)
-              .withUsername(signupRequest.getUsername())
-              .withPassword(signupRequest.getPassword())
-              .withSecretHash(calculateSecretHash(signupRequest.getUsername()))
-              .withUserAttributes(
-                  new AttributeType().withName("email").withValue(signupRequest.getEmail()),
-                  new AttributeType().withName("name").withValue(signupRequest.getName()),
-                  new AttributeType()
-                      .withName("phone_number")
-                      .withValue(signupRequest.getPhoneNumber()),
-                  new AttributeType()
-                      .withName("custom:user_type")
-                      .withValue(signupRequest.getUserType()));
-
-      // Add student-specific attributes
-      if ("STUDENT".equals(signupRequest.getUserType())) {
-        if (signupRequest.getGuardianName() != null) {
-          cognitoSignupRequest
-              .getUserAttributes()
-              .add(
-                  new AttributeType()
-                      .withName("custom:guardian_name")
-                      .withValue(signupRequest.getGuardianName()));
-        }
-        if (signupRequest.getGuardianPhone() != null) {
-          cognitoSignupRequest
-              .getUserAttributes()
-              .add(
-                  new AttributeType()
-                      .withName("custom:guardian_phone")
-                      .withValue(signupRequest.getGuardianPhone()));
-        }
-      }
-
-      // Add coach-specific attributes
-      if ("COACH".equals(signupRequest.getUserType())) {
-        cognitoSignupRequest
-            .getUserAttributes()
-            .add(
-                new AttributeType()
-                    .withName("custom:is_admin")
-                    .withValue(signupRequest.getIsAdmin().toString()));
-      }
+      SignUpRequest cognitoSignupRequest = toCognitoSignUpRequest(signupRequest);
 
       log.debug("Creating user in Cognito User Pool for email: {}", signupRequest.getEmail());
-      SignUpResult signUpResult = cognitoClient.signUp(cognitoSignupRequest);
+      SignUpResult signUpResult =
+          timings.time(
+              "cognitoSignUp",
+              () -> signUpCall.time(() -> cognitoClient.signUp(cognitoSignupRequest)));
       log.info(
           "User created in Cognito successfully with sub: {} for email: {}",
           signUpResult.getUserSub(),
           signupRequest.getEmail());
 
-      // Auto-confirm the user (in production, you might want email verification)
-      log.debug("Auto-confirming user in Cognito for email: {}", signupRequest.getEmail());
-      AdminConfirmSignUpRequest confirmRequest =
-          new AdminConfirmSignUpRequest()
-              .withUserPoolId(userPoolId)
-              .withUsername(signupRequest.getUsername());
-
-      cognitoClient.adminConfirmSignUp(confirmRequest);
-      log.info("User auto-confirmed in Cognito for email: {}", signupRequest.getEmail());
-
-      // Create user record in our system
-      User user = new User();
-      user.setUserId(userService.generateUserId());
-      user.setUserType(signupRequest.getUserType());
-      user.setEmail(signupRequest.getEmail());
-      user.setName(signupRequest.getName());
-      user.setPhoneNumber(signupRequest.getPhoneNumber());
-      user.setUsername(signupRequest.getUsername()); // ✅ Store Cognito username
-      user.setCognitoSub(signUpResult.getUserSub());
-      user.setIsActive(true);
-      user.setCreatedAt(LocalDateTime.now());
-      user.setUpdatedAt(LocalDateTime.now());
-
-      if ("STUDENT".equals(signupRequest.getUserType())) {
-        user.setGuardianName(signupRequest.getGuardianName());
-        user.setGuardianPhone(signupRequest.getGuardianPhone());
-        user.setJoiningDate(LocalDateTime.now());
-      } else if ("COACH".equals(signupRequest.getUserType())) {
-        user.setIsAdmin(signupRequest.getIsAdmin());
+      // Create user record in our system. It does not depend on the confirmation, so it is saved
+      // while Cognito confirms the user. From here on, a failed step undoes the signup: the
+      // Cognito user is deleted, and so is the row if it was saved
+      User user = toUser(signupRequest, signUpResult.getUserSub());
+      log.debug("Creating user record in our system for email: {}", signupRequest.getEmail());
+      CompletableFuture<User> persisted =
+          CompletableFuture.supplyAsync(
+              () -> timings.time("persist", () -> userService.createUser(user)), signupExecutor);
+      AuthResponse response;
+      try {
+        // Auto-confirm the user (in production, you might want email verification), unless the
+        // save has already failed
+        if (persisted.isCompletedExceptionally()) {
+          join(persisted);
+        }
+        log.debug("Auto-confirming user in Cognito for email: {}", signupRequest.getEmail());
+        AdminConfirmSignUpRequest confirmRequest =
+            new AdminConfirmSignUpRequest()
+                .withUserPoolId(userPoolId)
+                .withUsername(signupRequest.getUsername());
+        timings.run(
+            "confirm",
+            () -> confirmSignUpCall.time(() -> cognitoClient.adminConfirmSignUp(confirmRequest)));
+        log.info("User auto-confirmed in Cognito for email: {}", signupRequest.getEmail());
+
+        // A taken username, email or phone fails here, before any tokens are issued
+        join(persisted);
+        log.info(
+            "User record created successfully in our system with userId: {} for email: {}",
+            user.getUserId(),
+            signupRequest.getEmail());
+
+        // Auto-login with the user we just built. Resolving it again through the username GSI,
+        // which is eventually consistent, could miss the new row and fail with INVALID_CREDENTIALS
+        log.info("Auto-login after successful signup for email: {}", signupRequest.getEmail());
+        response =
+            timings.time("authenticate", () -> authenticate(user, signupRequest.getPassword()));
+      } catch (RuntimeException e) {
+        undoSignup(persisted, user);
+        if (e instanceof UserException saveError
+            && "USER_EXISTS".equals(saveError.getErrorCode())) {
+          log.info(
+              "Signup failed: {} for email: {}", saveError.getMessage(), signupRequest.getEmail());
+          throw AuthException.userExists();
+        }
+        throw e;
       }
 
-      log.debug("Creating user record in our system for email: {}", signupRequest.getEmail());
-      userService.createUser(user);
       log.info(
-          "User record created successfully in our system with userId: {} for email: {}",
-          user.getUserId(),
-          signupRequest.getEmail());
-
-      // Auto-login after successful signup
-      log.info("Auto-login after successful signup for email: {}", signupRequest.getEmail());
-      AuthResponse response =
-          login(
-              new AuthRequest(
-                  signupRequest.getUsername(),
-                  signupRequest.getPassword(),
-                  signupRequest.getUserType()));
-
-      log.info("Signup process completed successfully for email: {}", signupRequest.getEmail());
+          "Signup process completed successfully for email: {} ({})",
+          signupRequest.getEmail(),
+          timings);
       return response;
 
+    } catch (AuthException e) {
+      throw e; // Validation failures are already the right response
     } catch (UsernameExistsException e) {
-      log.error(
+      log.info(
           "Signup failed: Username already exists in Cognito for email: {}",
-          signupRequest.getEmail(),
-          e);
+          signupRequest.getEmail());
       throw AuthException.userExists();
     } catch (InvalidPasswordException e) {
-      log.error(
+      log.info(
           "Signup failed: Password does not meet Cognito requirements for email: {}",
-          signupRequest.getEmail(),
-          e);
+          signupRequest.getEmail());
       throw AuthException.invalidPassword("Password does not meet requirements");
     } catch (Exception e) {
-      log.error("Signup failed: Unexpected error for email: {}", signupRequest.getEmail(), e);
+      log.error(
+          "Signup failed: Unexpected error for email: {} ({})",
+          signupRequest.getEmail(),
+          timings,
+          e);
       throw AuthException.cognitoError("Signup failed", e);
     }
   }
 
+  @Override
+  public BulkSignupResponse bulkSignup(String accessToken, List<SignupRequest> signupRequests) {
+    requireCoach(accessToken);
+    if (signupRequests == null || signupRequests.isEmpty()) {
+      throw AuthException.validationError("At least one user is required");
+    }
+    if (signupRequests.size() > bulkMaxBatchSize) {
+      throw AuthException.validationError(
+          "At most " + bulkMaxBatchSize + " users can be enrolled at once");
+    }
+    log.info("Starting bulk signup for {} users", signupRequests.size());
+    long startedAt = System.nanoTime();
+
+    BulkSignup batch = new BulkSignup(signupRequests);
+
+    // 1. Validate every row before making any remote call
+    Set<String> emails = new HashSet<>();
+    Set<String> usernames = new HashSet<>();
+    for (int i = 0; i < batch.size(); i++) {
+      SignupRequest row = batch.pending(i);
+      try {
+        if (row == null) {
+          throw AuthException.validationError("User details are required");
+        }
+        validateSignupRequest(row);
+        if (!emails.add(row.getEmail())) {
+          throw AuthException.validationError("Duplicate email in batch: " + row.getEmail());
+        }
+        if (!usernames.add(row.getUsername())) {
+          throw AuthException.validationError("Duplicate username in batch: " + row.getUsername());
+        }
+      } catch (AuthException e) {
+        batch.fail(i, e.getErrorCode(), e.getMessage());
+      }
+    }
+
+    // 2. Rows whose username or email is taken, read from the uniqueness guards in batches
+    // rather than two index queries per row. Phone numbers are claimed in E.164, so a taken one
+    // is only found when the row is saved
+    List<UniqueIdentifier> guards = new ArrayList<>();
+    List<Integer> guardRows = new ArrayList<>();
+    for (int i = 0; i < batch.size(); i++) {
+      SignupRequest row = batch.pending(i);
+      if (row != null) {
+        guards.add(UniqueIdentifier.username(row.getUsername(), null));
+        guards.add(UniqueIdentifier.email(row.getEmail(), null));
+        guardRows.add(i);
+        guardRows.add(i);
+      }
+    }
+    try {
+      Set<String> taken = userService.findTakenIdentifiers(guards);
+      for (int g = 0; g < guards.size(); g++) {
+        int i = guardRows.get(g);
+        if (batch.pending(i) != null && taken.contains(guards.get(g).getIdentifier())) {
+          AuthException e = AuthException.userExists();
+          batch.fail(i, e.getErrorCode(), e.getMessage());
+        }
+      }
+    } catch (UserException e) {
+      // Saving still rejects taken identifiers, at the cost of a Cognito user to delete
+      log.warn("Bulk signup could not check for existing users, continuing", e);
+    }
+
+    // 3. Cognito sign-up and confirmation, paced to stay under the user pool's quotas. Rows that
+    // Cognito accepted are saved 25 at a time as they come in, so only a chunk is held at once.
+    // The calls go through CognitoGuard like any other, and its retries are the only ones. Once it
+    // gives up on throttling or turns a call away with 503, the user pool is overloaded: the rows
+    // not sent yet fail with SERVICE_UNAVAILABLE, for the coach to send again later, rather than
+    // adding to the load that interactive signups and logins share
+    TokenBucket cognitoRate = new TokenBucket(bulkCognitoRatePerSecond, bulkCognitoConcurrency);
+    AtomicBoolean overloaded = new AtomicBoolean();
+    forEachPending(
+        batch,
+        bulkCognitoConcurrency,
+        i -> {
+          SignupRequest row = batch.pending(i);
+          if (overloaded.get()) {
+            AuthException e = AuthException.serviceUnavailable();
+            batch.fail(i, e.getErrorCode(), e.getMessage());
+            return;
+          }
+          SignUpResult signUpResult = null;
+          try {
+            cognitoRate.acquire();
+            signUpResult =
+                signUpCall.time(() -> cognitoClient.signUp(toCognitoSignUpRequest(row)));
+            cognitoRate.acquire();
+            confirmSignUpCall.time(
+                () ->
+                    cognitoClient.adminConfirmSignUp(
+                        new AdminConfirmSignUpRequest()
+                            .withUserPoolId(userPoolId)
+                            .withUsername(row.getUsername())));
+            batch.signedUp(i, toUser(row, signUpResult.getUserSub()));
+          } catch (Exception e) {
+            if (signUpResult != null) {
+              // Not confirmed: an unconfirmed Cognito user would make a retry of the row fail
+              deleteCognitoUser(row.getUsername());
+            }
+            AuthException error = toSignupError(e);
+            if ("SERVICE_UNAVAILABLE".equals(error.getErrorCode())) {
+              overloaded.set(true);
+            }
+            log.error("Bulk signup row {} failed in Cognito for email: {}", i, row.getEmail(), e);
+            batch.fail(i, error.getErrorCode(), error.getMessage());
+          }
+        });
+    batch.persistRemaining();
+
+    BulkSignupResponse response = batch.response();
+    log.info(
+        "Bulk signup finished in {} ms - created: {}, failed: {}",
+        (System.nanoTime() - startedAt) / 1_000_000,
+        response.getCreated(),
+        response.getFailed());
+    return response;
+  }
+
+  /**
+   * State of one bulk signup. A row's request is dropped as soon as the row has a result, and
+   * signed-up users are only kept until their chunk is saved.
+   */
+  private class BulkSignup {
+    private final SignupRequest[] pending;
+    private final BulkSignupResult[] results;
+    private final Map<String, Integer> rowByUserId = new ConcurrentHashMap<>();
+    private final List<User> unsaved = new ArrayList<>(BULK_PERSIST_CHUNK);
+
+    BulkSignup(List<SignupRequest> signupRequests) {
+      pending = signupRequests.toArray(new SignupRequest[0]);
+      results = new BulkSignupResult[pending.length];
+    }
+
+    int size() {
+      return pending.length;
+    }
+
+    /** Request of a row that has no result yet, or null */
+    SignupRequest pending(int row) {
+      return pending[row];
+    }
+
+    void fail(int row, String errorCode, String message) {
+      String email = pending[row] == null ? null : pending[row].getEmail();
+      results[row] = new BulkSignupResult(row, email, "FAILED", null, errorCode, message);
+      pending[row] = null;
+    }
+
+    /** Queue a user Cognito accepted; saves a chunk once 25 are queued */
+    void signedUp(int row, User user) {
+      rowByUserId.put(user.getUserId(), row);
+      List<User> chunk = null;
+      synchronized (unsaved) {
+        unsaved.add(user);
+        if (unsaved.size() >= BULK_PERSIST_CHUNK) {
+          chunk = new ArrayList<>(unsaved);
+          unsaved.clear();
+        }
+      }
+      if (chunk != null) {
+        persist(chunk);
+      }
+    }
+
+    void persistRemaining() {
+      List<User> chunk;
+      synchronized (unsaved) {
+        chunk = new ArrayList<>(unsaved);
+        unsaved.clear();
+      }
+      if (!chunk.isEmpty()) {
+        persist(chunk);
+      }
+    }
+
+    private void persist(List<User> chunk) {
+      Map<String, UserException> failed;
+      try {
+        failed = userService.createUsers(chunk);
+      } catch (Exception e) {
+        log.error("Bulk signup failed to save {} users", chunk.size(), e);
+        UserException error = UserException.databaseError("Failed to create users", e);
+        failed = new HashMap<>();
+        for (User user : chunk) {
+          failed.put(user.getUserId(), error);
+        }
+      }
+      for (User user : chunk) {
+        int row = rowByUserId.remove(user.getUserId());
+        UserException error = failed.get(user.getUserId());
+        if (error != null) {
+          // Taken identifier or failed write: the Cognito user must not outlive the missing row
+          log.error(
+              "Bulk signup row {} signed up in Cognito (sub: {}) but was not saved: {}",
+              row,
+              user.getCognitoSub(),
+              error.getMessage());
+          deleteCognitoUser(user.getUsername());
+          if ("USER_EXISTS".equals(error.getErrorCode())) {
+            AuthException exists = AuthException.userExists();
+            fail(row, exists.getErrorCode(), exists.getMessage());
+          } else {
+            fail(row, "DATABASE_ERROR", "User could not be saved");
+          }
+        } else {
+          results[row] =
+              new BulkSignupResult(row, user.getEmail(), "CREATED", user.getUserId(), null, null);
+          pending[row] = null;
+        }
+      }
+    }
+
+    BulkSignupResponse response() {
+      int created = 0;
+      for (BulkSignupResult result : results) {
+        if ("CREATED".equals(result.getStatus())) {
+          created++;
+        }
+      }
+      return new BulkSignupResponse(created, results.length - created, Arrays.asList(results));
+    }
+  }
+
+  /** Run {@code task} for every pending row on at most {@code concurrency} virtual threads */
+  private static void forEachPending(BulkSignup batch, int concurrency, IntConsumer task) {
+    AtomicInteger next = new AtomicInteger();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int worker = 0; worker < Math.min(concurrency, batch.size()); worker++) {
+        executor.execute(
+            () -> {
+              for (int i = next.getAndIncrement(); i < batch.size(); i = next.getAndIncrement()) {
+                if (batch.pending(i) == null) {
+                  continue;
+                }
+                try {
+                  task.accept(i);
+                } catch (RuntimeException e) {
+                  log.error("Bulk signup row {} failed", i, e);
+                  batch.fail(i, "INTERNAL_ERROR", "Unexpected error");
+                }
+              }
+            });
+      }
+    } // close() waits for every worker
+  }
+
+  /** Wait for a signup step, rethrowing its own exception rather than the executor's wrapper */
+  private static <T> T join(CompletableFuture<T> step) {
+    try {
+      return step.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Undo a signup that failed after Cognito accepted it, so that the signup can be tried again:
+   * delete the Cognito user and, once the save has finished, the row and its guards if they were
+   * saved.
+   */
+  private void undoSignup(CompletableFuture<User> persisted, User user) {
+    deleteCognitoUser(user.getUsername());
+    try {
+      join(persisted);
+    } catch (RuntimeException notSaved) {
+      return;
+    }
+    try {
+      userService.deleteUser(user.getUserId());
+      log.info("Deleted user {} of a failed signup", user.getUserId());
+    } catch (RuntimeException e) {
+      log.error("User {} of a failed signup could not be deleted", user.getUserId(), e);
+    }
+  }
+
+  /** Delete a Cognito user that must not outlive a failed signup; a failure is logged */
+  private void deleteCognitoUser(String username) {
+    try {
+      deleteUserCall.run(
+          () ->
+              cognitoClient.adminDeleteUser(
+                  new AdminDeleteUserRequest().withUserPoolId(userPoolId).withUsername(username)));
+      log.info("Deleted Cognito user {} of a failed signup", username);
+    } catch (RuntimeException e) {
+      log.error("Cognito user {} of a failed signup could not be deleted", username, e);
+    }
+  }
+
+  /** The same error a single signup would report for a Cognito failure */
+  private static AuthException toSignupError(Exception e) {
+    if (e instanceof AuthException auth) {
+      return auth;
+    }
+    if (e instanceof UsernameExistsException) {
+      return AuthException.userExists();
+    }
+    if (e instanceof TooManyRequestsException) {
+      return AuthException.serviceUnavailable(); // still throttled after CognitoGuard's retries
+    }
+    if (e instanceof InvalidPasswordException) {
+      return AuthException.invalidPassword("Password does not meet requirements");
+    }
+    if (e instanceof InvalidParameterException) {
+      return AuthException.validationError(e.getMessage());
+    }
+    if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+    }
+    return AuthException.cognitoError("Signup failed", e);
+  }
+
+  /** Verify an access token and that it belongs to a coach */
+  private void requireCoach(String accessToken) {
+    if (accessToken == null || !jwtUtil.validateToken(accessToken)) {
+      throw AuthException.invalidToken();
+    }
+    User caller =
+        userService
+            .getUserByCognitoSub(jwtUtil.getUserIdFromToken(accessToken))
+            .orElseThrow(AuthException::invalidToken);
+    if (!"COACH".equals(caller.getUserType())) {
+      throw AuthException.forbidden("Only coaches can enroll users");
+    }
+  }
+
+  /** Cognito SignUp call for a validated signup request */
+  private SignUpRequest toCognitoSignUpRequest(SignupRequest signupRequest) {
+    // NOTE: Consider using email as username for better UX in future:
+    // .withUsername(signupRequest.getEmail()) instead of signupRequest.getUsername()
+    SignUpRequest cognitoSignupRequest =
+        new SignUpRequest()
+            .withClientId(clientId)
+            .withUsername(signupRequest.getUsername())
+            .withPassword(signupRequest.getPassword())
+            .withSecretHash(calculateSecretHash(signupRequest.getUsername()))
+            .withUserAttributes(
+                new AttributeType().withName("email").withValue(signupRequest.getEmail()),
+                new AttributeType().withName("name").withValue(signupRequest.getName()),
+                new AttributeType()
+                    .withName("phone_number")
+                    .withValue(signupRequest.getPhoneNumber()),
+                new AttributeType()
+                    .withName("custom:user_type")
+                    .withValue(signupRequest.getUserType()));
+
+    // Add student-specific attributes
+    if ("STUDENT".equals(signupRequest.getUserType())) {
+      if (signupRequest.getGuardianName() != null) {
+        cognitoSignupRequest
+            .getUserAttributes()
+            .add(
+                new AttributeType()
+                    .withName("custom:guardian_name")
+                    .withValue(signupRequest.getGuardianName()));
+      }
+      if (signupRequest.getGuardianPhone() != null) {
+        cognitoSignupRequest
+            .getUserAttributes()
+            .add(
+                new AttributeType()
+                    .withName("custom:guardian_phone")
+                    .withValue(signupRequest.getGuardianPhone()));
+      }
+    }
+
+    // Add coach-specific attributes
+    if ("COACH".equals(signupRequest.getUserType())) {
+      cognitoSignupRequest
+          .getUserAttributes()
+          .add(
+              new AttributeType()
+                  .withName("custom:is_admin")
+                  .withValue(signupRequest.getIsAdmin().toString()));
+    }
+    return cognitoSignupRequest;
+  }
+
+  /** User row for a signup request that Cognito accepted */
+  private User toUser(SignupRequest signupRequest, String cognitoSub) {
+    User user = new User();
+    user.setUserId(userService.generateUserId(signupRequest.getUserType()));
+    user.setUserType(signupRequest.getUserType());
+    user.setEmail(signupRequest.getEmail());
+    user.setName(signupRequest.getName());
+    user.setPhoneNumber(signupRequest.getPhoneNumber());
+    user.setUsername(signupRequest.getUsername()); // ✅ Store Cognito username
+    user.setCognitoSub(cognitoSub);
+    user.setIsActive(true);
+    user.setCreatedAt(LocalDateTime.now());
+    user.setUpdatedAt(LocalDateTime.now());
+
+    if ("STUDENT".equals(signupRequest.getUserType())) {
+      user.setGuardianName(signupRequest.getGuardianName());
+      user.setGuardianPhone(signupRequest.getGuardianPhone());
+      user.setJoiningDate(LocalDateTime.now());
+    } else if ("COACH".equals(signupRequest.getUserType())) {
+      user.setIsAdmin(signupRequest.getIsAdmin());
+    }
+    return user;
+  }
+
   @Override
   public AuthResponse login(AuthRequest authRequest) {
     log.info(
@@ -316,13 +763,11 @@ public class AuthServiceImpl implements AuthService {
       // ✅ STEP 1: Find user in our system first to get the Cognito username
       log.debug("Retrieving user information from our system for: {}", authRequest.getLogin());
       User user =
-          userService
-              .getUserByUsername(authRequest.getLogin())
-              .or(() -> userService.getUserByEmail(authRequest.getLogin()))
-              .or(() -> userService.getUserByPhone(authRequest.getLogin()))
+          loginIdentifierResolver
+              .resolve(authRequest.getLogin())
               .orElseThrow(
                   () -> {
-                    log.error("User not found in our system for login: {}", authRequest.getLogin());
+                    log.debug("User not found in our system for login: {}", authRequest.getLogin());
                     return AuthException.invalidCredentials();
                   });
 
@@ -332,80 +777,18 @@ public class AuthServiceImpl implements AuthService {
           user.getUsername(),
           authRequest.getLogin());
 
-      // ✅ STEP 2: Use the stored Cognito username for authentication
-      String cognitoUsername = user.getUsername();
-      if (cognitoUsername == null || cognitoUsername.trim().isEmpty()) {
-        log.error("Cognito username not found for user: {}", authRequest.getLogin());
-        throw AuthException.invalidCredentials();
-      }
-
-      // ✅ STEP 3: Prepare authentication parameters with correct username
-      log.debug(
-          "Preparing authentication parameters for Cognito with username: {}", cognitoUsername);
-      Map<String, String> authParameters = new HashMap<>();
-      authParameters.put("USERNAME", cognitoUsername);
-      authParameters.put("PASSWORD", authRequest.getPassword());
-      authParameters.put(
-          "SECRET_HASH", calculateSecretHash(cognitoUsername));
-
-      // ✅ STEP 4: Initiate authentication with Cognito
-      log.debug("Initiating authentication with Cognito for username: {}", cognitoUsername);
-      AdminInitiateAuthRequest initiateAuthRequest =
-          new AdminInitiateAuthRequest()
-              .withUserPoolId(userPoolId)
-              .withClientId(clientId)
-              .withAuthFlow(AuthFlowType.ADMIN_USER_PASSWORD_AUTH)
-              .withAuthParameters(authParameters);
-
-      AdminInitiateAuthResult authResult = cognitoClient.adminInitiateAuth(initiateAuthRequest);
-
-      // Handle any authentication challenges
-      if (authResult.getChallengeName() != null) {
-        log.error(
-            "Authentication challenge required for user: {} - Challenge: {}",
-            authRequest.getLogin(),
-            authResult.getChallengeName());
-        throw new RuntimeException(
-            "Authentication challenge required: " + authResult.getChallengeName());
-      }
-
-      // Get authentication result
-      AuthenticationResultType authenticationResult = authResult.getAuthenticationResult();
-
-      if (authenticationResult == null) {
-        log.error(
-            "Authentication failed - no result returned from Cognito for user: {}",
-            authRequest.getLogin());
-        throw new RuntimeException("Authentication failed - no result returned");
-      }
-
-      log.info("Cognito authentication successful for user: {}", authRequest.getLogin());
-
-      // Build response with real JWT tokens from Cognito
-      AuthResponse response = new AuthResponse();
-      response.setAccessToken(authenticationResult.getAccessToken());
-      response.setRefreshToken(authenticationResult.getRefreshToken());
-      response.setIdToken(authenticationResult.getIdToken());
-      response.setTokenType(authenticationResult.getTokenType());
-      response.setExpiresIn(authenticationResult.getExpiresIn());
-
-      // Set user information using separate UserInfo class
-      UserInfo userInfo = new UserInfo();
-      userInfo.setUserId(user.getUserId());
-      userInfo.setEmail(user.getEmail());
-      userInfo.setName(user.getName());
-      userInfo.setUserType(user.getUserType());
-      userInfo.setPhoneNumber(user.getPhoneNumber());
-      response.setUserInfo(userInfo);
-
+      AuthResponse response = authenticate(user, authRequest.getPassword());
       log.info("Login process completed successfully for user: {}", authRequest.getLogin());
       return response;
 
+    } catch (AuthException e) {
+      throw e; // Validation and unknown-user failures are already the right response
     } catch (NotAuthorizedException e) {
-      log.error("Login failed: Invalid credentials for user: {}", authRequest.getLogin(), e);
+      // Expected under a failed-login burst; GlobalExceptionHandler logs these sampled
+      log.debug("Login failed: Invalid credentials for user: {}", authRequest.getLogin());
       throw AuthException.invalidCredentials();
     } catch (UserNotConfirmedException e) {
-      log.error("Login failed: Email not confirmed for user: {}", authRequest.getLogin(), e);
+      log.debug("Login failed: Email not confirmed for user: {}", authRequest.getLogin());
       throw AuthException.emailNotConfirmed();
     } catch (Exception e) {
       log.error("Login failed: Unexpected error for user: {}", authRequest.getLogin(), e);
@@ -417,6 +800,77 @@ public class AuthServiceImpl implements AuthService {
     }
   }
 
+  /**
+   * Authenticate a user we already hold against Cognito and build the response. Cognito errors are
+   * left to the caller to translate.
+   */
+  private AuthResponse authenticate(User user, String password) {
+    String cognitoUsername = user.getUsername();
+    if (cognitoUsername == null || cognitoUsername.trim().isEmpty()) {
+      log.error("Cognito username not found for userId: {}", user.getUserId());
+      throw AuthException.invalidCredentials();
+    }
+
+    // Prepare authentication parameters with correct username
+    log.debug("Preparing authentication parameters for Cognito with username: {}", cognitoUsername);
+    Map<String, String> authParameters = new HashMap<>();
+    authParameters.put("USERNAME", cognitoUsername);
+    authParameters.put("PASSWORD", password);
+    authParameters.put("SECRET_HASH", calculateSecretHash(cognitoUsername));
+
+    // Initiate authentication with Cognito
+    log.debug("Initiating authentication with Cognito for username: {}", cognitoUsername);
+    AdminInitiateAuthRequest initiateAuthRequest =
+        new AdminInitiateAuthRequest()
+            .withUserPoolId(userPoolId)
+            .withClientId(clientId)
+            .withAuthFlow(AuthFlowType.ADMIN_USER_PASSWORD_AUTH)
+            .withAuthParameters(authParameters);
+
+    AdminInitiateAuthResult authResult =
+        initiateAuthCall.time(() -> cognitoClient.adminInitiateAuth(initiateAuthRequest));
+
+    // Handle any authentication challenges
+    if (authResult.getChallengeName() != null) {
+      log.error(
+          "Authentication challenge required for user: {} - Challenge: {}",
+          user.getUsername(),
+          authResult.getChallengeName());
+      throw new RuntimeException(
+          "Authentication challenge required: " + authResult.getChallengeName());
+    }
+
+    // Get authentication result
+    AuthenticationResultType authenticationResult = authResult.getAuthenticationResult();
+
+    if (authenticationResult == null) {
+      log.error(
+          "Authentication failed - no result returned from Cognito for user: {}",
+          user.getUsername());
+      throw new RuntimeException("Authentication failed - no result returned");
+    }
+
+    log.info("Cognito authentication successful for user: {}", user.getUsername());
+
+    // Build response with real JWT tokens from Cognito
+    AuthResponse response = new AuthResponse();
+    response.setAccessToken(authenticationResult.getAccessToken());
+    response.setRefreshToken(authenticationResult.getRefreshToken());
+    response.setIdToken(authenticationResult.getIdToken());
+    response.setTokenType(authenticationResult.getTokenType());
+    response.setExpiresIn(authenticationResult.getExpiresIn());
+
+    // Set user information using separate UserInfo class
+    UserInfo userInfo = new UserInfo();
+    userInfo.setUserId(user.getUserId());
+    userInfo.setEmail(user.getEmail());
+    userInfo.setName(user.getName());
+    userInfo.setUserType(user.getUserType());
+    userInfo.setPhoneNumber(user.getPhoneNumber());
+    response.setUserInfo(userInfo);
+    return response;
+  }
+
   @Override
   public AuthResponse refreshToken(String refreshToken) {
     log.info("Starting token refresh process");
@@ -426,42 +880,14 @@ public class AuthServiceImpl implements AuthService {
         throw new RuntimeException("Refresh token is required");
       }
 
-      // Prepare authentication parameters for refresh
-      Map<String, String> authParameters = new HashMap<>();
-      authParameters.put("REFRESH_TOKEN", refreshToken);
-
-      // Initiate auth with refresh token
-      AdminInitiateAuthRequest initiateAuthRequest =
-          new AdminInitiateAuthRequest()
-              .withUserPoolId(userPoolId)
-              .withClientId(clientId)
-              .withAuthFlow(AuthFlowType.REFRESH_TOKEN_AUTH)
-              .withAuthParameters(authParameters);
-
-      AdminInitiateAuthResult authResult = cognitoClient.adminInitiateAuth(initiateAuthRequest);
-      AuthenticationResultType authenticationResult = authResult.getAuthenticationResult();
-
-      if (authenticationResult == null) {
-        throw new RuntimeException("Token refresh failed - no result returned");
-      }
-
-      // Build response with new tokens
-      AuthResponse response = new AuthResponse();
-      response.setAccessToken(authenticationResult.getAccessToken());
-      response.setIdToken(authenticationResult.getIdToken());
-      response.setTokenType(authenticationResult.getTokenType());
-      response.setExpiresIn(authenticationResult.getExpiresIn());
-
-      // Refresh token might not be returned in refresh operation
-      if (authenticationResult.getRefreshToken() != null) {
-        response.setRefreshToken(authenticationResult.getRefreshToken());
-      } else {
-        response.setRefreshToken(refreshToken); // Use the original refresh token
-      }
-
+      // Retries of the same refresh share one Cognito call, keyed by a digest of the token
+      AuthResponse response =
+          tokenRefreshes.execute(refreshKey(refreshToken), () -> requestRefresh(refreshToken));
       log.info("Token refresh completed successfully");
       return response;
 
+    } catch (AuthException e) {
+      throw e; // Cognito is unavailable
     } catch (NotAuthorizedException e) {
       log.error("Token refresh failed: Invalid refresh token", e);
       throw new RuntimeException("Invalid refresh token");
@@ -471,6 +897,55 @@ public class AuthServiceImpl implements AuthService {
     }
   }
 
+  /** Exchange a refresh token with Cognito; Cognito errors are left to the caller */
+  private AuthResponse requestRefresh(String refreshToken) {
+    // Prepare authentication parameters for refresh
+    Map<String, String> authParameters = new HashMap<>();
+    authParameters.put("REFRESH_TOKEN", refreshToken);
+
+    // Initiate auth with refresh token
+    AdminInitiateAuthRequest initiateAuthRequest =
+        new AdminInitiateAuthRequest()
+            .withUserPoolId(userPoolId)
+            .withClientId(clientId)
+            .withAuthFlow(AuthFlowType.REFRESH_TOKEN_AUTH)
+            .withAuthParameters(authParameters);
+
+    AdminInitiateAuthResult authResult =
+        initiateAuthCall.time(() -> cognitoClient.adminInitiateAuth(initiateAuthRequest));
+    AuthenticationResultType authenticationResult = authResult.getAuthenticationResult();
+
+    if (authenticationResult == null) {
+      throw new RuntimeException("Token refresh failed - no result returned");
+    }
+
+    // Build response with new tokens
+    AuthResponse response = new AuthResponse();
+    response.setAccessToken(authenticationResult.getAccessToken());
+    response.setIdToken(authenticationResult.getIdToken());
+    response.setTokenType(authenticationResult.getTokenType());
+    response.setExpiresIn(authenticationResult.getExpiresIn());
+
+    // Refresh token might not be returned in refresh operation
+    if (authenticationResult.getRefreshToken() != null) {
+      response.setRefreshToken(authenticationResult.getRefreshToken());
+    } else {
+      response.setRefreshToken(refreshToken); // Use the original refresh token
+    }
+
+    return response;
+  }
+
+  /** Key for coalescing refreshes: SHA-256 of the token, so the token itself is never held */
+  static String refreshKey(String refreshToken) {
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(sha256.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
   @Override
   public void logout(String accessToken) {
     log.info("Starting logout process");
@@ -484,9 +959,11 @@ public class AuthServiceImpl implements AuthService {
       log.debug("Initiating global sign out with Cognito");
       GlobalSignOutRequest signOutRequest = new GlobalSignOutRequest().withAccessToken(accessToken);
 
-      cognitoClient.globalSignOut(signOutRequest);
+      globalSignOutCall.time(() -> cognitoClient.globalSignOut(signOutRequest));
       log.info("Logout completed successfully");
 
+    } catch (AuthException e) {
+      throw e; // Cognito is unavailable
     } catch (Exception e) {
       log.error("Logout failed: Unexpected error", e);
       throw new RuntimeException("Error during logout: " + e.getMessage(), e);
@@ -519,9 +996,11 @@ public class AuthServiceImpl implements AuthService {
               .withPreviousPassword(oldPassword)
               .withProposedPassword(newPassword);
 
-      cognitoClient.changePassword(changePasswordRequest);
+      changePasswordCall.time(() -> cognitoClient.changePassword(changePasswordRequest));
       log.info("Password change completed successfully");
 
+    } catch (AuthException e) {
+      throw e; // Cognito is unavailable
     } catch (InvalidPasswordException e) {
       log.error("Password change failed: New password does not meet Cognito requirements", e);
       throw new RuntimeException("New password does not meet requirements");
@@ -546,10 +1025,8 @@ public class AuthServiceImpl implements AuthService {
       // ✅ Find user to get Cognito username
       log.debug("Retrieving user information from our system for: {}", login);
       User user =
-          userService
-              .getUserByUsername(login)
-              .or(() -> userService.getUserByEmail(login))
-              .or(() -> userService.getUserByPhone(login))
+          loginIdentifierResolver
+              .resolve(login)
               .orElseThrow(
                   () -> {
                     log.error("User not found in our system for login: {}", login);
@@ -570,9 +1047,11 @@ public class AuthServiceImpl implements AuthService {
               .withSecretHash(
                   calculateSecretHash(cognitoUsername)); // ✅ Calculate with correct username
 
-      cognitoClient.forgotPassword(forgotPasswordRequest);
+      forgotPasswordCall.time(() -> cognitoClient.forgotPassword(forgotPasswordRequest));
       log.info("Forgot password initiated successfully for user: {}", login);
 
+    } catch (AuthException e) {
+      throw e; // Cognito is unavailable
     } catch (UserNotFoundException e) {
       log.error("Forgot password failed: User not found for: {}", login, e);
       throw new RuntimeException("User not found");
@@ -606,10 +1085,8 @@ public class AuthServiceImpl implements AuthService {
       // ✅ Find user to get Cognito username
       log.debug("Retrieving user information from our system for: {}", login);
       User user =
-          userService
-              .getUserByUsername(login)
-              .or(() -> userService.getUserByEmail(login))
-              .or(() -> userService.getUserByPhone(login))
+          loginIdentifierResolver
+              .resolve(login)
               .orElseThrow(
                   () -> {
                     log.error("User not found in our system for login: {}", login);
@@ -632,9 +1109,11 @@ public class AuthServiceImpl implements AuthService {
               .withSecretHash(
                   calculateSecretHash(cognitoUsername)); // ✅ Calculate with correct username
 
-      cognitoClient.confirmForgotPassword(confirmRequest);
+      confirmForgotPasswordCall.time(() -> cognitoClient.confirmForgotPassword(confirmRequest));
       log.info("Password reset completed successfully for user: {}", login);
 
+    } catch (AuthException e) {
+      throw e; // Cognito is unavailable
     } catch (InvalidPasswordException e) {
       log.error(
           "Password reset failed: New password does not meet Cognito requirements for user: {}",
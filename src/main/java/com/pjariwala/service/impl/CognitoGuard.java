@@ -0,0 +1,290 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.services.cognitoidp.AWSCognitoIdentityProvider;
+import com.amazonaws.services.cognitoidp.model.TooManyRequestsException;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.util.AimdLimiter;
+import com.pjariwala.util.CircuitBreaker;
+import com.pjariwala.util.Jitter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for the calls {@link AuthServiceImpl} makes to Cognito, so a slow or throttling
+ * user pool makes requests fail fast with 503 instead of piling up behind it.
+ *
+ * <p>{@link #wrap} returns a proxy of the client. Each call on it:
+ *
+ * <ul>
+ *   <li>takes a permit from an {@link AimdLimiter}, whose limit shrinks when Cognito throttles,
+ *       times out or answers slower than {@code app.cognito.limit.latencyThreshold}, and grows back
+ *       while it keeps up; with no permit free the call fails at once;
+ *   <li>is refused while the {@link CircuitBreaker} is open, after {@code
+ *       app.cognito.breaker.failureThreshold} calls in a row failed;
+ *   <li>runs with the SDK execution timeout of its operation, {@code app.cognito.timeouts} (e.g.
+ *       {@code adminInitiateAuth=PT2S}) or else {@code app.cognito.timeout};
+ *   <li>is retried on throttling and 5xx answers with jittered exponential backoff, up to {@code
+ *       app.cognito.maxAttempts} attempts, holding its permit. Timeouts are not retried: the
+ *       caller's time is already spent.
+ * </ul>
+ *
+ * <p>Cognito's 4xx answers (wrong password, user exists) are the service working and pass through
+ * untouched. The SDK's own retries are turned off for the wrapped client, so every attempt is seen
+ * here. Limiter and breaker state is published as {@code dependency.limit}, {@code
+ * dependency.inflight}, {@code dependency.circuit.state} (0 closed, 1 half-open, 2 open), {@code
+ * dependency.rejected} by reason and {@code dependency.retries}, tagged {@code dependency=cognito}.
+ */
+@Component
+@Slf4j
+public class CognitoGuard implements MeterBinder {
+
+  @Value("${app.cognito.guard.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.cognito.limit.initial:20}")
+  private int initialLimit;
+
+  @Value("${app.cognito.limit.min:2}")
+  private int minLimit;
+
+  @Value("${app.cognito.limit.max:200}")
+  private int maxLimit;
+
+  @Value("${app.cognito.limit.backoffRatio:0.9}")
+  private double backoffRatio;
+
+  @Value("${app.cognito.limit.latencyThreshold:PT1S}")
+  private Duration latencyThreshold;
+
+  @Value("${app.cognito.timeout:PT3S}")
+  private Duration defaultTimeout;
+
+  @Value("${app.cognito.timeouts:}")
+  private String timeouts;
+
+  @Value("${app.cognito.maxAttempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.cognito.backoff:PT0.1S}")
+  private Duration backoff;
+
+  @Value("${app.cognito.breaker.failureThreshold:5}")
+  private int failureThreshold;
+
+  @Value("${app.cognito.breaker.openDuration:PT10S}")
+  private Duration openDuration;
+
+  private AimdLimiter limiter;
+  private CircuitBreaker breaker;
+  private final Map<String, Duration> operationTimeouts = new HashMap<>();
+
+  private final AtomicLong rejectedByLimit = new AtomicLong();
+  private final AtomicLong rejectedByBreaker = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+
+  /** How an attempt ended, as far as the limiter, breaker and retries are concerned */
+  private enum Outcome {
+    /** Cognito answered with a client error; the service is fine */
+    ANSWERED,
+    /** Throttled or a 5xx answer; worth another attempt */
+    RETRYABLE,
+    /** Timed out or could not reach Cognito */
+    FAILED
+  }
+
+  @PostConstruct
+  void init() {
+    limiter = new AimdLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold);
+    breaker = new CircuitBreaker(failureThreshold, openDuration);
+    for (String entry : timeouts.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      int eq = entry.indexOf('=');
+      if (eq < 0) {
+        throw new IllegalArgumentException("Expected operation=duration in: " + entry);
+      }
+      operationTimeouts.put(
+          entry.substring(0, eq).trim(), Duration.parse(entry.substring(eq + 1).trim()));
+    }
+    log.info(
+        "Cognito guard: enabled={}, limit={} [{}, {}], timeout={} {}, attempts={}, breaker={}/{}",
+        enabled,
+        initialLimit,
+        minLimit,
+        maxLimit,
+        defaultTimeout,
+        operationTimeouts,
+        maxAttempts,
+        failureThreshold,
+        openDuration);
+  }
+
+  /** A proxy of {@code client} whose requests go through the limiter and breaker */
+  public AWSCognitoIdentityProvider wrap(AWSCognitoIdentityProvider client) {
+    if (!enabled) {
+      return client;
+    }
+    return (AWSCognitoIdentityProvider)
+        Proxy.newProxyInstance(
+            AWSCognitoIdentityProvider.class.getClassLoader(),
+            new Class<?>[] {AWSCognitoIdentityProvider.class},
+            (proxy, method, args) -> {
+              if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  default -> "CognitoGuard[" + client + "]";
+                };
+              }
+              if (args == null
+                  || args.length != 1
+                  || !(args[0] instanceof AmazonWebServiceRequest request)) {
+                return invoke(client, method, args); // shutdown, setRegion and the like
+              }
+              return call(method.getName(), request, () -> invoke(client, method, args));
+            });
+  }
+
+  /** Run one Cognito request under the limiter, breaker, timeout and retry policy */
+  <T> T call(String operation, AmazonWebServiceRequest request, Attempt<T> attempt) {
+    if (!limiter.tryAcquire()) {
+      rejectedByLimit.incrementAndGet();
+      log.debug("Cognito {} rejected: {} calls in flight", operation, limiter.limit());
+      throw AuthException.serviceUnavailable();
+    }
+    try {
+      if (!breaker.tryAcquire()) {
+        rejectedByBreaker.incrementAndGet();
+        log.debug("Cognito {} rejected: circuit open", operation);
+        throw AuthException.serviceUnavailable();
+      }
+      if (request.getSdkClientExecutionTimeout() == null) {
+        request.setSdkClientExecutionTimeout(
+            Math.toIntExact(operationTimeouts.getOrDefault(operation, defaultTimeout).toMillis()));
+      }
+      for (int n = 1; ; n++) {
+        long startedAt = System.nanoTime();
+        try {
+          T result = attempt.run();
+          limiter.onSample(System.nanoTime() - startedAt, false);
+          breaker.onSuccess();
+          return result;
+        } catch (RuntimeException e) {
+          Outcome outcome = classify(e);
+          limiter.onSample(System.nanoTime() - startedAt, outcome != Outcome.ANSWERED);
+          if (outcome == Outcome.ANSWERED) {
+            breaker.onSuccess();
+            throw e;
+          }
+          if (outcome == Outcome.FAILED || n >= maxAttempts || !sleepBeforeRetry(n)) {
+            breaker.onFailure();
+            throw e;
+          }
+          retries.incrementAndGet();
+          log.debug("Retrying Cognito {} after attempt {}: {}", operation, n, e.getMessage());
+        }
+      }
+    } finally {
+      limiter.release();
+    }
+  }
+
+  /** One attempt of a Cognito request */
+  @FunctionalInterface
+  interface Attempt<T> {
+    T run();
+  }
+
+  /** Back off before attempt {@code n + 1}; false if interrupted */
+  private boolean sleepBeforeRetry(int n) {
+    long delay = backoff.toMillis() << (n - 1);
+    try {
+      Thread.sleep(delay + Jitter.upTo(delay));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static Outcome classify(RuntimeException e) {
+    if (e instanceof TooManyRequestsException) {
+      return Outcome.RETRYABLE;
+    }
+    if (e instanceof AmazonServiceException service) {
+      int status = service.getStatusCode();
+      return status >= 500 || status == 429 ? Outcome.RETRYABLE : Outcome.ANSWERED;
+    }
+    return Outcome.FAILED;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T invoke(Object client, Method method, Object[] args) {
+    try {
+      return (T) method.invoke(client, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  AimdLimiter limiter() {
+    return limiter;
+  }
+
+  CircuitBreaker breaker() {
+    return breaker;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String dependency = DependencyMetrics.COGNITO;
+    Gauge.builder("dependency.limit", this, guard -> guard.limiter.limit())
+        .tag("dependency", dependency)
+        .description("Concurrent calls the adaptive limiter currently allows")
+        .register(registry);
+    Gauge.builder("dependency.inflight", this, guard -> guard.limiter.inFlight())
+        .tag("dependency", dependency)
+        .description("Calls holding a limiter permit")
+        .register(registry);
+    Gauge.builder("dependency.circuit.state", this, guard -> guard.breaker.state().ordinal())
+        .tag("dependency", dependency)
+        .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+        .register(registry);
+    FunctionCounter.builder("dependency.rejected", rejectedByLimit, AtomicLong::get)
+        .tags("dependency", dependency, "reason", "limit")
+        .description("Calls failed fast with 503 without reaching the dependency")
+        .register(registry);
+    FunctionCounter.builder("dependency.rejected", rejectedByBreaker, AtomicLong::get)
+        .tags("dependency", dependency, "reason", "open")
+        .description("Calls failed fast with 503 without reaching the dependency")
+        .register(registry);
+    FunctionCounter.builder("dependency.retries", retries, AtomicLong::get)
+        .tag("dependency", dependency)
+        .description("Attempts retried after throttling or a server error")
+        .register(registry);
+  }
+}
@@ -0,0 +1,182 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.AmazonServiceException;
+import com.pjariwala.util.InvocationMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency timers for the calls {@link UserServiceImpl} and {@link AuthServiceImpl} make to DynamoDB
+ * and Cognito, published as {@value #METRIC} with percentile histograms.
+ *
+ * <p>Tags are the dependency ({@code dynamodb} or {@code cognito}), the client method, the GSI
+ * ({@code none} if the call uses no index) and the outcome: {@code hit} or {@code miss} for
+ * lookups, {@code success} for other calls, otherwise the AWS error code or exception name. Callers
+ * create a {@link Call} per operation once and keep it, so recording a call is a clock read and a
+ * histogram update. A call registers only the outcomes it can have up front, so that no empty
+ * histograms are exported; an error timer is registered the first time that error type is seen.
+ *
+ * <p>Each call is also added to the {@link InvocationMetrics} record of the Lambda invocation in
+ * progress, as {@code dependency.operation[.index]}.
+ */
+@Component
+public class DependencyMetrics {
+
+  public static final String METRIC = "dependency.calls";
+
+  static final String DYNAMODB = "dynamodb";
+  static final String COGNITO = "cognito";
+
+  private static final String NO_INDEX = "none";
+
+  /** Error outcomes per call; anything past this is recorded as "other" */
+  private static final int MAX_ERROR_TYPES = 16;
+
+  private static final String OTHER_ERROR = "other";
+
+  private final MeterRegistry registry;
+
+  public DependencyMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  public Call dynamoDb(String operation) {
+    return new Call(DYNAMODB, operation, NO_INDEX, false);
+  }
+
+  public Call dynamoDb(String operation, String index) {
+    return new Call(DYNAMODB, operation, index, false);
+  }
+
+  /** A call timed as a lookup, with {@code hit} and {@code miss} outcomes */
+  public Call dynamoDbLookup(String operation) {
+    return new Call(DYNAMODB, operation, NO_INDEX, true);
+  }
+
+  /** A call timed as a lookup, with {@code hit} and {@code miss} outcomes */
+  public Call dynamoDbLookup(String operation, String index) {
+    return new Call(DYNAMODB, operation, index, true);
+  }
+
+  public Call cognito(String operation) {
+    return new Call(COGNITO, operation, NO_INDEX, false);
+  }
+
+  /** Timers of one operation on one dependency */
+  public final class Call {
+    private final String dependency;
+    private final String operation;
+    private final String index;
+    // success for other calls, hit and miss for lookups; the others are null
+    private final Timer success;
+    private final Timer hit;
+    private final Timer miss;
+    private final Map<String, Timer> errors = new ConcurrentHashMap<>();
+    private final AtomicInteger errorTypes = new AtomicInteger();
+    private final int invocationSlot;
+
+    private Call(String dependency, String operation, String index, boolean lookup) {
+      this.dependency = dependency;
+      this.operation = operation;
+      this.index = index;
+      this.success = lookup ? null : timer("success");
+      this.hit = lookup ? timer("hit") : null;
+      this.miss = lookup ? timer("miss") : null;
+      this.invocationSlot =
+          InvocationMetrics.register(
+              dependency + "." + operation + (NO_INDEX.equals(index) ? "" : "." + index));
+    }
+
+    public String index() {
+      return index;
+    }
+
+    /** Time a call whose result is not a lookup */
+    public <T> T time(Supplier<T> call) {
+      if (success == null) {
+        throw new IllegalStateException(operation + " is a lookup; time it with a found test");
+      }
+      long startedAt = System.nanoTime();
+      T result;
+      try {
+        result = call.get();
+      } catch (RuntimeException e) {
+        record(error(e), startedAt, true);
+        throw e;
+      }
+      record(success, startedAt, false);
+      return result;
+    }
+
+    /** Time a lookup; {@code found} tells a hit from a miss */
+    public <T> T time(Supplier<T> call, Predicate<? super T> found) {
+      if (hit == null) {
+        throw new IllegalStateException(operation + " is not a lookup; time it without a test");
+      }
+      long startedAt = System.nanoTime();
+      T result;
+      try {
+        result = call.get();
+      } catch (RuntimeException e) {
+        record(error(e), startedAt, true);
+        throw e;
+      }
+      record(found.test(result) ? hit : miss, startedAt, false);
+      return result;
+    }
+
+    public void run(Runnable call) {
+      time(
+          () -> {
+            call.run();
+            return null;
+          });
+    }
+
+    private void record(Timer timer, long startedAt, boolean failed) {
+      long nanos = System.nanoTime() - startedAt;
+      timer.record(nanos, TimeUnit.NANOSECONDS);
+      InvocationMetrics.recordCall(invocationSlot, nanos, failed);
+    }
+
+    private Timer error(RuntimeException e) {
+      String type = errorType(e);
+      Timer timer = errors.get(type);
+      if (timer != null) {
+        return timer;
+      }
+      // Each new type takes a slot inside the mapping function, which runs once per type added,
+      // so concurrent first-seen types cannot pass the cap together; a refused type is "other"
+      timer =
+          errors.computeIfAbsent(
+              type, t -> errorTypes.incrementAndGet() > MAX_ERROR_TYPES ? null : timer(t));
+      return timer != null ? timer : errors.computeIfAbsent(OTHER_ERROR, this::timer);
+    }
+
+    private Timer timer(String outcome) {
+      return Timer.builder(METRIC)
+          .description("Calls to " + dependency)
+          .tags("dependency", dependency, "operation", operation, "index", index)
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(Duration.ofMillis(1))
+          .maximumExpectedValue(Duration.ofSeconds(10))
+          .register(registry);
+    }
+  }
+
+  private static String errorType(RuntimeException e) {
+    if (e instanceof AmazonServiceException service && service.getErrorCode() != null) {
+      return service.getErrorCode();
+    }
+    return e.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,397 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.UniqueIdentifier;
+import com.pjariwala.model.User;
+import com.pjariwala.util.BloomFilter;
+import com.pjariwala.util.PhoneNumberUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-container {@link BloomFilter} of every username, email and phone number in GCA_Users, so
+ * that {@link LoginIdentifierResolver} can answer a login with an unknown identifier without
+ * querying DynamoDB.
+ *
+ * <p>The filter is sized from {@code expectedIdentifiers} and {@code falsePositiveRate}. It is
+ * loaded from the {@code snapshot} file if there is one. Otherwise it is filled in the background
+ * from a parallel scan of {@code scanSegments} segments (and then written to {@code snapshot}),
+ * but only before a SnapStart snapshot is taken or if {@code scanOnStartup} is set, since every
+ * container that scans reads the whole table. Until the filter is filled, and for good if it never
+ * is, every identifier is reported as possibly known. {@link UserServiceImpl} adds users it writes.
+ *
+ * <p>Other containers create users and change identifiers in place, so the filter alone cannot
+ * prove an identifier absent. An identifier it does not hold is checked with one consistent read
+ * of its {@link UniqueIdentifier} guard: only a missing guard makes it unknown, and a guard that
+ * exists adds the identifier to the filter. An unknown identifier therefore costs one point read
+ * instead of the index queries and the phone lookup, and a stale filter (an old snapshot, or a
+ * copy restored from SnapStart) is never wrong, only slower.
+ */
+@Component
+@Slf4j
+public class KnownIdentifierFilter implements MeterBinder, Resource {
+
+  enum Kind {
+    USERNAME('u'),
+    EMAIL('e'),
+    PHONE('p');
+
+    private final char prefix;
+
+    Kind(char prefix) {
+      this.prefix = prefix;
+    }
+  }
+
+  private static final String PROJECTION = "username, email, phoneNumber";
+  private static final int SCAN_PAGE_SIZE = 1_000;
+  private static final int SNAPSHOT_FORMAT = 2;
+
+  // A guard written by another container must be seen as soon as its transaction commits
+  private static final DynamoDBMapperConfig CONSISTENT_READ =
+      DynamoDBMapperConfig.builder()
+          .withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT)
+          .build();
+
+  @Value("${app.loginFilter.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.loginFilter.expectedIdentifiers:300000}")
+  private long expectedIdentifiers;
+
+  @Value("${app.loginFilter.falsePositiveRate:0.01}")
+  private double falsePositiveRate;
+
+  @Value("${app.loginFilter.scanSegments:4}")
+  private int scanSegments;
+
+  @Value("${app.loginFilter.snapshot:}")
+  private String snapshot;
+
+  @Value("${app.loginFilter.scanOnStartup:false}")
+  private boolean scanOnStartup;
+
+  /** {@code snap-start} while Lambda initializes the copy it will snapshot */
+  @Value("${AWS_LAMBDA_INITIALIZATION_TYPE:}")
+  private String initializationType;
+
+  @Value("${app.phone.defaultCountryCode:91}")
+  private String defaultCountryCode;
+
+  @Autowired private DynamoDBMapper dynamoDBMapper;
+
+  private volatile BloomFilter filter;
+  private volatile boolean ready;
+  private CompletableFuture<Void> build = CompletableFuture.completedFuture(null);
+
+  private final AtomicLong absent = new AtomicLong();
+  private final AtomicLong present = new AtomicLong();
+  private final AtomicLong claimed = new AtomicLong();
+  private final AtomicLong unavailable = new AtomicLong();
+
+  private ExecutorService scanExecutor;
+
+  private DependencyMetrics.Call scanCall;
+  private DependencyMetrics.Call guardLoadCall;
+
+  @Autowired
+  void setDependencyMetrics(DependencyMetrics metrics) {
+    scanCall = metrics.dynamoDb("scanPage");
+    guardLoadCall = metrics.dynamoDbLookup("loadGuard");
+  }
+
+  @PostConstruct
+  void init() {
+    if (!enabled) {
+      log.info("Known identifier filter disabled");
+      return;
+    }
+    Core.getGlobalContext().register(this);
+    scanExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    Path snapshotFile = snapshot.isBlank() ? null : Path.of(snapshot);
+    if (snapshotFile != null && Files.exists(snapshotFile)) {
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotFile))) {
+        load(in);
+        log.info(
+            "Known identifier filter loaded from {}: {} KiB",
+            snapshotFile,
+            filter.sizeBytes() / 1024);
+        return;
+      } catch (IOException | RuntimeException e) {
+        log.warn("Could not load known identifier snapshot {}", snapshotFile, e);
+      }
+    }
+    if (!scanOnStartup && !"snap-start".equals(initializationType)) {
+      log.info("Known identifier filter not built: no snapshot and the startup scan is off");
+      return;
+    }
+
+    filter = BloomFilter.create(expectedIdentifiers, falsePositiveRate);
+    log.info(
+        "Known identifier filter: expected={}, falsePositiveRate={}, {} KiB, {} hashes",
+        expectedIdentifiers,
+        falsePositiveRate,
+        filter.sizeBytes() / 1024,
+        filter.hashCount());
+    build =
+        CompletableFuture.runAsync(() -> buildFromScan(snapshotFile), scanExecutor)
+            .exceptionally(
+                e -> {
+                  log.warn("Known identifier filter build failed, lookups go to DynamoDB", e);
+                  return null;
+                });
+  }
+
+  /**
+   * False only if no user has this identifier: it is not in the filter and has no guard. Phone
+   * numbers are compared in E.164.
+   */
+  boolean mightExist(Kind kind, String value) {
+    if (!enabled) {
+      return true;
+    }
+    if (!ready) {
+      unavailable.incrementAndGet();
+      return true;
+    }
+    String normalized = normalize(kind, value);
+    if (normalized == null || filter.mightContain(kind.prefix + normalized)) {
+      present.incrementAndGet();
+      return true;
+    }
+    UniqueIdentifier guard;
+    try {
+      guard =
+          guardLoadCall.time(
+              () -> dynamoDBMapper.load(guard(kind, normalized), CONSISTENT_READ),
+              Objects::nonNull);
+    } catch (RuntimeException e) {
+      log.warn("Could not read the guard of a login identifier, looking it up", e);
+      unavailable.incrementAndGet();
+      return true;
+    }
+    if (guard != null) {
+      // Created or changed by another container since the filter was built
+      filter.put(kind.prefix + normalized);
+      claimed.incrementAndGet();
+      return true;
+    }
+    absent.incrementAndGet();
+    return false;
+  }
+
+  /** Add the identifiers of a user that was just written */
+  void add(User user) {
+    BloomFilter current = filter;
+    if (!enabled || current == null || user == null) {
+      return;
+    }
+    put(current, user);
+  }
+
+  /** Write the filter, for a later {@code init} to load */
+  void writeSnapshot(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(SNAPSHOT_FORMAT);
+    filter.writeTo(data);
+    data.flush();
+  }
+
+  void load(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    int format = data.readInt();
+    if (format != SNAPSHOT_FORMAT) {
+      throw new IOException("Unsupported known identifier snapshot format: " + format);
+    }
+    filter = BloomFilter.readFrom(data);
+    ready = true;
+  }
+
+  boolean isReady() {
+    return ready;
+  }
+
+  /** Wait for the initial build, if one is running */
+  void awaitBuild() {
+    build.join();
+  }
+
+  private void buildFromScan(Path snapshotFile) {
+    long startedAt = System.nanoTime();
+    BloomFilter building = filter;
+    List<CompletableFuture<Long>> segments = new ArrayList<>();
+    for (int segment = 0; segment < scanSegments; segment++) {
+      int current = segment;
+      segments.add(
+          CompletableFuture.supplyAsync(() -> scanSegment(building, current), scanExecutor));
+    }
+    long rows = 0;
+    for (CompletableFuture<Long> segment : segments) {
+      rows += segment.join();
+    }
+    ready = true;
+    log.info(
+        "Known identifier filter built from {} rows in {} ms, ~{} identifiers, fpp {}",
+        rows,
+        (System.nanoTime() - startedAt) / 1_000_000,
+        building.approximateCount(),
+        String.format("%.4f", building.expectedFalsePositiveRate()));
+
+    if (snapshotFile != null) {
+      try {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+          writeSnapshot(out);
+        }
+        Files.move(
+            tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        log.warn("Could not write known identifier snapshot {}", snapshotFile, e);
+      }
+    }
+  }
+
+  private long scanSegment(BloomFilter building, int segment) {
+    long rows = 0;
+    Map<String, AttributeValue> startKey = null;
+    do {
+      DynamoDBScanExpression scanExpression =
+          new DynamoDBScanExpression()
+              .withSegment(segment)
+              .withTotalSegments(scanSegments)
+              .withLimit(SCAN_PAGE_SIZE)
+              .withProjectionExpression(PROJECTION)
+              .withExclusiveStartKey(startKey);
+      ScanResultPage<User> page =
+          scanCall.time(() -> dynamoDBMapper.scanPage(User.class, scanExpression));
+      for (User user : page.getResults()) {
+        put(building, user);
+        rows++;
+      }
+      startKey = page.getLastEvaluatedKey();
+    } while (startKey != null);
+    return rows;
+  }
+
+  private void put(BloomFilter target, User user) {
+    putKey(target, key(Kind.USERNAME, user.getUsername()));
+    putKey(target, key(Kind.EMAIL, user.getEmail()));
+    putKey(target, key(Kind.PHONE, user.getPhoneNumber()));
+  }
+
+  private static void putKey(BloomFilter target, String key) {
+    if (key != null) {
+      target.put(key);
+    }
+  }
+
+  private String key(Kind kind, String value) {
+    String normalized = normalize(kind, value);
+    return normalized == null ? null : kind.prefix + normalized;
+  }
+
+  /** Phone numbers in E.164 where they parse; a raw legacy value is kept as it is */
+  private String normalize(Kind kind, String value) {
+    if (value == null || kind != Kind.PHONE) {
+      return value;
+    }
+    String e164 = PhoneNumberUtil.toE164(value, defaultCountryCode);
+    return e164 != null ? e164 : value;
+  }
+
+  private static UniqueIdentifier guard(Kind kind, String value) {
+    return switch (kind) {
+      case USERNAME -> UniqueIdentifier.username(value, null);
+      case EMAIL -> UniqueIdentifier.email(value, null);
+      case PHONE -> UniqueIdentifier.phone(value, null);
+    };
+  }
+
+  @Override
+  public void beforeCheckpoint(Context<? extends Resource> context) {
+    // The snapshot should hold a complete filter, not a scan cut off mid-page
+    awaitBuild();
+  }
+
+  @Override
+  public void afterRestore(Context<? extends Resource> context) {
+    // Users created or changed since the snapshot are found through their guards
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String name = "knownIdentifiers";
+    FunctionCounter.builder("bloom.checks", absent, AtomicLong::get)
+        .tags("filter", name, "result", "absent")
+        .description("Login identifiers rejected after one guard read instead of a user lookup")
+        .register(registry);
+    FunctionCounter.builder("bloom.checks", present, AtomicLong::get)
+        .tags("filter", name, "result", "present")
+        .description("Login identifiers that may exist and were looked up")
+        .register(registry);
+    FunctionCounter.builder("bloom.checks", claimed, AtomicLong::get)
+        .tags("filter", name, "result", "claimed")
+        .description("Login identifiers missing from the filter but claimed by a guard")
+        .register(registry);
+    FunctionCounter.builder("bloom.checks", unavailable, AtomicLong::get)
+        .tags("filter", name, "result", "unavailable")
+        .description("Login identifiers looked up because the filter or the guard was unavailable")
+        .register(registry);
+    Gauge.builder("bloom.size.bytes", this, f -> f.filter == null ? 0 : f.filter.sizeBytes())
+        .tags("filter", name)
+        .description("Memory held by the filter's bits")
+        .register(registry);
+    Gauge.builder(
+            "bloom.false.positive.rate",
+            this,
+            f -> f.filter == null ? 0 : f.filter.expectedFalsePositiveRate())
+        .tags("filter", name)
+        .description("Expected false-positive rate at the current fill")
+        .register(registry);
+    Gauge.builder(
+            "bloom.identifiers", this, f -> f.filter == null ? 0 : f.filter.approximateCount())
+        .tags("filter", name)
+        .description("Distinct identifiers in the filter, estimated")
+        .register(registry);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (scanExecutor != null) {
+      scanExecutor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.pjariwala.service.impl;
+
+import com.pjariwala.model.User;
+import com.pjariwala.service.UserService;
+import com.pjariwala.service.impl.KnownIdentifierFilter.Kind;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the free-form login identifier (username, email or phone number) used by login, forgot
+ * password and reset password to a {@link User}.
+ *
+ * <p>The identifier is classified by shape so that only the matching index is queried. Inputs that
+ * could be either a username or a phone number (digits only, no leading {@code +}) are looked up
+ * both ways concurrently on virtual threads and the first hit wins. Signup rejects usernames with
+ * {@code @}, but users created before that may have one, so an email-shaped identifier that matches
+ * no email is then tried as a username. Lookups that {@link KnownIdentifierFilter} rules out are
+ * skipped, so an unknown identifier usually costs no DynamoDB call at all.
+ */
+@Component
+@Slf4j
+public class LoginIdentifierResolver {
+
+  private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+  private static final Pattern PHONE = Pattern.compile("^\\+?[0-9 ().-]+$");
+  private static final int MIN_PHONE_DIGITS = 7;
+
+  enum IdentifierType {
+    EMAIL,
+    PHONE,
+    USERNAME,
+    USERNAME_OR_PHONE
+  }
+
+  @Autowired private UserService userService;
+
+  @Autowired private KnownIdentifierFilter knownIdentifiers;
+
+  private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  /** Find the user for a login identifier */
+  public Optional<User> resolve(String login) {
+    String identifier = login.trim();
+    IdentifierType type = classify(identifier);
+    log.debug("Resolving login identifier: {} as {}", identifier, type);
+
+    return switch (type) {
+      case EMAIL -> {
+        Optional<User> user =
+            knownIdentifiers.mightExist(Kind.EMAIL, identifier)
+                ? userService.getUserByEmail(identifier)
+                : Optional.empty();
+        yield user.isEmpty() && knownIdentifiers.mightExist(Kind.USERNAME, identifier)
+            ? userService.getUserByUsername(identifier)
+            : user;
+      }
+      case PHONE ->
+          knownIdentifiers.mightExist(Kind.PHONE, identifier)
+              ? userService.getUserByPhone(identifier)
+              : Optional.empty();
+      case USERNAME ->
+          knownIdentifiers.mightExist(Kind.USERNAME, identifier)
+              ? userService.getUserByUsername(identifier)
+              : Optional.empty();
+      case USERNAME_OR_PHONE -> {
+        List<Callable<User>> lookups = new ArrayList<>(2);
+        if (knownIdentifiers.mightExist(Kind.USERNAME, identifier)) {
+          lookups.add(() -> userService.getUserByUsername(identifier).orElseThrow());
+        }
+        if (knownIdentifiers.mightExist(Kind.PHONE, identifier)) {
+          lookups.add(() -> userService.getUserByPhone(identifier).orElseThrow());
+        }
+        yield lookups.isEmpty() ? Optional.empty() : firstHit(lookups);
+      }
+    };
+  }
+
+  static IdentifierType classify(String identifier) {
+    if (EMAIL.matcher(identifier).matches()) {
+      return IdentifierType.EMAIL;
+    }
+    if (!PHONE.matcher(identifier).matches() || countDigits(identifier) < MIN_PHONE_DIGITS) {
+      return IdentifierType.USERNAME;
+    }
+    return identifier.charAt(0) == '+' ? IdentifierType.PHONE : IdentifierType.USERNAME_OR_PHONE;
+  }
+
+  /** Run the lookups concurrently; a lookup signals a miss by throwing */
+  private Optional<User> firstHit(List<Callable<User>> lookups) {
+    try {
+      return Optional.of(lookupExecutor.invokeAny(lookups));
+    } catch (ExecutionException e) {
+      if (!(e.getCause() instanceof NoSuchElementException)) {
+        log.error("Concurrent login identifier lookup failed", e.getCause());
+      }
+      return Optional.empty();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    }
+  }
+
+  private static int countDigits(String value) {
+    int digits = 0;
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.isDigit(value.charAt(i))) {
+        digits++;
+      }
+    }
+    return digits;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    lookupExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,139 @@
+package com.pjariwala.service.impl;
+
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.util.PhoneNumberUtil;
+import com.pjariwala.util.SlidingWindowSketch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-container limit on login, forgot-password and reset-password attempts, checked before the
+ * request reaches {@link AuthServiceImpl}, so a rejected attempt costs no GSI query, phone lookup
+ * or Cognito call.
+ *
+ * <p>Attempts are counted over a sliding {@code app.throttle.window} per login identifier and per
+ * source IP, separately for each operation; past {@code identifierLimit} or {@code ipLimit} the
+ * request fails with 429. The identifier is normalized first (trimmed, lower-cased, phone numbers
+ * in E.164), so spelling one login differently does not buy more attempts. Counts are kept in
+ * {@link SlidingWindowSketch}es of {@code sketchWidth} counters per row, so memory stays fixed
+ * under an attack from many identifiers or addresses. The IP is counted first: an address that
+ * keeps trying a blocked login still uses up its own budget.
+ */
+@Component
+@Slf4j
+public class LoginThrottle implements MeterBinder {
+
+  public enum Operation {
+    LOGIN("login"),
+    FORGOT_PASSWORD("forgot-password"),
+    RESET_PASSWORD("reset-password");
+
+    private final String tag;
+
+    Operation(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private static final int SKETCH_DEPTH = 4;
+
+  @Value("${app.throttle.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.throttle.window:PT5M}")
+  private Duration window;
+
+  @Value("${app.throttle.identifierLimit:10}")
+  private int identifierLimit;
+
+  @Value("${app.throttle.ipLimit:100}")
+  private int ipLimit;
+
+  @Value("${app.throttle.sketchWidth:32768}")
+  private int sketchWidth;
+
+  @Value("${app.phone.defaultCountryCode:91}")
+  private String defaultCountryCode;
+
+  private SlidingWindowSketch identifierAttempts;
+  private SlidingWindowSketch ipAttempts;
+
+  // Rejections per operation, identifier limit at 2 * ordinal and IP limit at 2 * ordinal + 1
+  private final AtomicLongArray rejections = new AtomicLongArray(Operation.values().length * 2);
+
+  @PostConstruct
+  void init() {
+    identifierAttempts = new SlidingWindowSketch(window, sketchWidth, SKETCH_DEPTH);
+    ipAttempts = new SlidingWindowSketch(window, sketchWidth, SKETCH_DEPTH);
+    log.info(
+        "Login throttle: enabled={}, window={}, identifierLimit={}, ipLimit={}, sketch={} KiB",
+        enabled,
+        window,
+        identifierLimit,
+        ipLimit,
+        (identifierAttempts.sizeBytes() + ipAttempts.sizeBytes()) / 1024);
+  }
+
+  /**
+   * Count an attempt at {@code operation} for {@code login} from {@code sourceIp}; either may be
+   * null, and is then not counted.
+   *
+   * @throws AuthException with status 429 if either limit is reached
+   */
+  public void check(Operation operation, String login, String sourceIp) {
+    if (!enabled) {
+      return;
+    }
+    if (sourceIp != null && !ipAttempts.tryAcquire(operation.tag + '|' + sourceIp, ipLimit)) {
+      rejections.incrementAndGet(operation.ordinal() * 2 + 1);
+      log.debug("Throttled {} from IP: {}", operation.tag, sourceIp);
+      throw AuthException.tooManyRequests();
+    }
+    String identifier = normalize(login);
+    if (identifier != null
+        && !identifierAttempts.tryAcquire(operation.tag + '|' + identifier, identifierLimit)) {
+      rejections.incrementAndGet(operation.ordinal() * 2);
+      log.debug("Throttled {} for login: {}", operation.tag, login);
+      throw AuthException.tooManyRequests();
+    }
+  }
+
+  /** The key of a login identifier: every spelling of one login maps to the same key */
+  String normalize(String login) {
+    if (login == null || login.isBlank()) {
+      return null;
+    }
+    String identifier = login.trim();
+    if (LoginIdentifierResolver.classify(identifier)
+        != LoginIdentifierResolver.IdentifierType.USERNAME) {
+      String e164 = PhoneNumberUtil.toE164(identifier, defaultCountryCode);
+      if (e164 != null) {
+        return e164;
+      }
+    }
+    return identifier.toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (Operation operation : Operation.values()) {
+      int index = operation.ordinal() * 2;
+      FunctionCounter.builder("auth.throttled", rejections, r -> r.get(index))
+          .tags("operation", operation.tag, "limit", "identifier")
+          .description("Attempts rejected with 429 before reaching Cognito")
+          .register(registry);
+      FunctionCounter.builder("auth.throttled", rejections, r -> r.get(index + 1))
+          .tags("operation", operation.tag, "limit", "ip")
+          .description("Attempts rejected with 429 before reaching Cognito")
+          .register(registry);
+    }
+  }
+}
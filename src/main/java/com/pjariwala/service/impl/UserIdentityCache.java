@@ -0,0 +1,279 @@
+package com.pjariwala.service.impl;
+
+import com.pjariwala.model.User;
+import com.pjariwala.util.BoundedLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-container read-through cache of {@link User} rows in front of {@link UserServiceImpl}'s
+ * lookups.
+ *
+ * <p>A user is cached under every identity it can be looked up by (userId, username, email, phone
+ * and cognitoSub); all aliases point at the same entry. Misses are cached too, with a shorter TTL,
+ * so repeated logins with an unknown identifier do not keep querying the GSIs. Writes invalidate
+ * every alias of the user, including the ones it had before the write. Callers always get a copy,
+ * so mutating a returned user cannot change the cached one.
+ */
+@Component
+@Slf4j
+public class UserIdentityCache implements MeterBinder {
+
+  enum Alias {
+    ID,
+    USERNAME,
+    EMAIL,
+    PHONE,
+    COGNITO_SUB
+  }
+
+  /** Loads a user from DynamoDB; throws on errors so that failures are never cached */
+  @FunctionalInterface
+  interface Loader {
+    Optional<User> load() throws Exception;
+  }
+
+  /** Loads users by id; ids that do not exist are left out of the result */
+  @FunctionalInterface
+  interface BatchLoader {
+    Map<String, User> load(Collection<String> userIds) throws Exception;
+  }
+
+  @Value("${app.cache.user.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.cache.user.maxEntries:2000}")
+  private int maxEntries;
+
+  @Value("${app.cache.user.ttl:PT5M}")
+  private Duration ttl;
+
+  @Value("${app.cache.user.negativeTtl:PT30S}")
+  private Duration negativeTtl;
+
+  private BoundedLruCache<AliasKey, Entry> entries;
+
+  // Bumped on every invalidation; a load that raced with a write is not cached
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+
+  private record AliasKey(Alias alias, String value) {}
+
+  /** A cached user, or a cached miss when {@code user} is null */
+  private record Entry(User user, long expiresAtNanos) {}
+
+  @PostConstruct
+  void init() {
+    entries = new BoundedLruCache<>(maxEntries);
+    log.info(
+        "User identity cache: enabled={}, maxEntries={}, ttl={}, negativeTtl={}",
+        enabled,
+        maxEntries,
+        ttl,
+        negativeTtl);
+  }
+
+  /** Cached user for an alias, loading (and caching) it on a miss */
+  Optional<User> get(Alias alias, String value, Loader loader) throws Exception {
+    if (!enabled || value == null) {
+      return loader.load();
+    }
+
+    AliasKey key = new AliasKey(alias, value);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      if (System.nanoTime() - entry.expiresAtNanos() < 0) {
+        hits.incrementAndGet();
+        return Optional.ofNullable(entry.user()).map(UserIdentityCache::copy);
+      }
+      entries.remove(key);
+      expirations.incrementAndGet();
+    }
+
+    misses.incrementAndGet();
+    long loadGeneration = generation.get();
+    Optional<User> loaded = loader.load();
+    if (generation.get() == loadGeneration) {
+      if (loaded.isPresent()) {
+        put(loaded.get());
+      } else {
+        entries.put(key, new Entry(null, System.nanoTime() + negativeTtl.toNanos()));
+      }
+    }
+    return loaded.map(UserIdentityCache::copy);
+  }
+
+  /**
+   * Users for a set of ids, in the order given. Cached ids (and cached misses) are served from the
+   * cache; the rest are loaded with a single call to {@code loader}.
+   */
+  Map<String, User> getAll(Collection<String> userIds, BatchLoader loader) throws Exception {
+    Map<String, User> users = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    long now = System.nanoTime();
+    for (String userId : new LinkedHashSet<>(userIds)) {
+      Entry entry = enabled ? entries.get(new AliasKey(Alias.ID, userId)) : null;
+      if (entry != null && now - entry.expiresAtNanos() < 0) {
+        hits.incrementAndGet();
+        if (entry.user() != null) {
+          users.put(userId, copy(entry.user()));
+        }
+      } else {
+        misses.incrementAndGet();
+        users.put(userId, null); // keeps the caller's order
+        missing.add(userId);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      long loadGeneration = generation.get();
+      Map<String, User> loaded = loader.load(missing);
+      boolean cacheable = enabled && generation.get() == loadGeneration;
+      for (String userId : missing) {
+        User user = loaded.get(userId);
+        if (user != null) {
+          users.put(userId, copy(user));
+          if (cacheable) {
+            put(user);
+          }
+        } else if (cacheable) {
+          entries.put(
+              new AliasKey(Alias.ID, userId),
+              new Entry(null, System.nanoTime() + negativeTtl.toNanos()));
+        }
+      }
+    }
+    users.values().removeIf(Objects::isNull);
+    return users;
+  }
+
+  /** Cache a user under all of its aliases */
+  void put(User user) {
+    if (!enabled) {
+      return;
+    }
+    Entry entry = new Entry(copy(user), System.nanoTime() + ttl.toNanos());
+    for (AliasKey key : aliases(user)) {
+      if (key.value() != null) {
+        entries.put(key, entry);
+      }
+    }
+  }
+
+  /**
+   * Drop every alias of {@code user}: its current ones, and the ones of the cached copy (which
+   * differ when the write changed the email, username or phone number). This also drops cached
+   * misses for the new values.
+   */
+  void invalidate(User user) {
+    if (!enabled || user == null) {
+      return;
+    }
+    generation.incrementAndGet();
+    if (user.getUserId() != null) {
+      Entry cached = entries.get(new AliasKey(Alias.ID, user.getUserId()));
+      if (cached != null && cached.user() != null) {
+        removeAll(cached.user());
+      }
+    }
+    removeAll(user);
+  }
+
+  /** Drop every alias of the cached user with this id */
+  void invalidateById(String userId) {
+    User user = new User();
+    user.setUserId(userId);
+    invalidate(user);
+  }
+
+  public long hitCount() {
+    return hits.get();
+  }
+
+  public long missCount() {
+    return misses.get();
+  }
+
+  /** Entries dropped because the cache was full */
+  public long evictionCount() {
+    return entries.evictionCount();
+  }
+
+  /** Entries dropped because their TTL had passed */
+  public long expirationCount() {
+    return expirations.get();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    String cache = "userIdentity";
+    FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+        .tags("cache", cache, "result", "hit")
+        .description("User identity lookups served from the cache")
+        .register(registry);
+    FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+        .tags("cache", cache, "result", "miss")
+        .description("User identity lookups that went to DynamoDB")
+        .register(registry);
+    FunctionCounter.builder("cache.evictions", this, UserIdentityCache::evictionCount)
+        .tags("cache", cache)
+        .description("Entries evicted because the cache was full")
+        .register(registry);
+    FunctionCounter.builder("cache.expirations", expirations, AtomicLong::get)
+        .tags("cache", cache)
+        .description("Entries dropped after their TTL")
+        .register(registry);
+    Gauge.builder("cache.size", this, UserIdentityCache::size)
+        .tags("cache", cache)
+        .description("Alias entries currently cached")
+        .register(registry);
+  }
+
+  private void removeAll(User user) {
+    for (AliasKey key : aliases(user)) {
+      if (key.value() != null) {
+        entries.remove(key);
+      }
+    }
+  }
+
+  private static AliasKey[] aliases(User user) {
+    return new AliasKey[] {
+      new AliasKey(Alias.ID, user.getUserId()),
+      new AliasKey(Alias.USERNAME, user.getUsername()),
+      new AliasKey(Alias.EMAIL, user.getEmail()),
+      new AliasKey(Alias.PHONE, user.getPhoneNumber()),
+      new AliasKey(Alias.COGNITO_SUB, user.getCognitoSub())
+    };
+  }
+
+  static User copy(User user) {
+    User copy = new User();
+    BeanUtils.copyProperties(user, copy);
+    return copy;
+  }
+}
@@ -1,42 +1,170 @@
 package com.pjariwala.service.impl;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperTableModel;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTransactionWriteExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.datamodeling.TransactionWriteRequest;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.Delete;
+import com.amazonaws.services.dynamodbv2.model.Put;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.Update;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.pjariwala.dto.UserInfo;
+import com.pjariwala.dto.UserPageResponse;
 import com.pjariwala.exception.UserException;
+import com.pjariwala.model.UniqueIdentifier;
 import com.pjariwala.model.User;
 import com.pjariwala.service.UserService;
+import com.pjariwala.service.impl.UserIdentityCache.Alias;
+import com.pjariwala.util.Jitter;
+import com.pjariwala.util.PageCursorCodec;
+import com.pjariwala.util.PhoneNumberUtil;
+import com.pjariwala.util.SingleFlight;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+  // Typed ids carry the sort key (userType), e.g. USER_C_1a2b3c4d5e6f7a8b for a coach
+  private static final String COACH_ID_PREFIX = "USER_C_";
+  private static final String STUDENT_ID_PREFIX = "USER_S_";
+  private static final int TYPED_ID_LENGTH = COACH_ID_PREFIX.length() + 16;
+
+  private static final String USER_TYPE_INDEX = "userType-createdAt-index";
+
+  // A transaction takes at most 100 items: 25 users with up to three uniqueness guards each.
+  // Transactions cancelled by conflicts with concurrent ones are retried with jittered backoff
+  private static final int BATCH_WRITE_SIZE = 25;
+  private static final int BATCH_WRITE_ATTEMPTS = 4;
+  private static final long BATCH_WRITE_BACKOFF_MILLIS = 100;
+
+  private static final String TABLE_NAME =
+      User.class.getAnnotation(DynamoDBTable.class).tableName();
+
+  // Attributes an update does not diff: the key, and the ones every update sets itself
+  private static final Set<String> UNTRACKED_ATTRIBUTES =
+      Set.of("userId", "userType", "updatedAt", "version");
+
+  // An update that loses the race with another one reads the row again and is applied again
+  private static final int UPDATE_ATTEMPTS = 4;
+  private static final long UPDATE_BACKOFF_MILLIS = 20;
+
+  // Condition on deleting a guard: it is gone already, or still claims the identifier for the
+  // user whose row is written, so an identifier another user has claimed since stays claimed
+  private static final String GUARD_OWNED =
+      "attribute_not_exists(userId) OR ownerUserId = :ownerUserId";
+
+  private static final DynamoDBMapperConfig CONSISTENT_READ =
+      DynamoDBMapperConfig.builder()
+          .withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT)
+          .build();
+
   @Autowired private DynamoDBMapper dynamoDBMapper;
 
+  @Autowired private AmazonDynamoDB amazonDynamoDB;
+
+  @Autowired private UserIdentityCache userIdentityCache;
+
+  @Autowired private KnownIdentifierFilter knownIdentifiers;
+
+  @Autowired private PageCursorCodec pageCursorCodec;
+
+  @Value("${app.phone.defaultCountryCode:91}")
+  private String defaultCountryCode;
+
+  // Concurrent misses for the same identity share one DynamoDB call; joiners get their own copy
+  private final SingleFlight<String, Optional<User>> lookups =
+      new SingleFlight<>(user -> user.map(UserIdentityCache::copy));
+
+  private DependencyMetrics.Call updateCall;
+  private DependencyMetrics.Call transactionWriteCall;
+  private DependencyMetrics.Call loadCall;
+  private DependencyMetrics.Call batchLoadCall;
+  private DependencyMetrics.Call guardLoadCall;
+  private DependencyMetrics.Call usernameQuery;
+  private DependencyMetrics.Call emailQuery;
+  private DependencyMetrics.Call phoneQuery;
+  private DependencyMetrics.Call cognitoSubQuery;
+  private DependencyMetrics.Call userTypeListCall;
+  private DependencyMetrics.Call userTypePageCall;
+
+  /** Creates the DynamoDB call timers once, so that recording a call does not look them up */
+  @Autowired
+  void setDependencyMetrics(DependencyMetrics metrics) {
+    updateCall = metrics.dynamoDb("update");
+    transactionWriteCall = metrics.dynamoDb("transactionWrite");
+    loadCall = metrics.dynamoDbLookup("load");
+    batchLoadCall = metrics.dynamoDb("batchLoad");
+    guardLoadCall = metrics.dynamoDb("batchLoadGuards");
+    usernameQuery = metrics.dynamoDbLookup("query", "username-index");
+    emailQuery = metrics.dynamoDbLookup("query", "email-index");
+    phoneQuery = metrics.dynamoDbLookup("query", "phoneNumber-index");
+    cognitoSubQuery = metrics.dynamoDbLookup("query", "cognitoSub-index");
+    userTypeListCall = metrics.dynamoDb("query", USER_TYPE_INDEX);
+    userTypePageCall = metrics.dynamoDb("queryPage", USER_TYPE_INDEX);
+  }
+
   @Override
   public User createUser(User user) {
     log.info(
         "Creating new user with email: {} and userType: {}", user.getEmail(), user.getUserType());
     user.setCreatedAt(LocalDateTime.now());
     user.setUpdatedAt(LocalDateTime.now());
+    user.setPhoneNumber(normalizePhone(user.getPhoneNumber()));
+    user.setVersion(1L);
 
+    // The row and its uniqueness guards are written together, each only if it does not exist yet
+    List<Object> items = new ArrayList<>();
+    items.add(user);
+    items.addAll(UniqueIdentifier.of(user));
     try {
-      dynamoDBMapper.save(user);
+      int taken = transactionWrite(items, List.of(), List.of());
+      if (taken >= 0) {
+        log.info(
+            "User not created for email: {} - {} is taken",
+            user.getEmail(),
+            describe(items, taken));
+        throw UserException.userExists(describe(items, taken));
+      }
+      userIdentityCache.invalidate(user);
+      knownIdentifiers.add(user);
       log.info(
           "User created successfully with userId: {} for email: {}",
           user.getUserId(),
           user.getEmail());
       return user;
+    } catch (UserException e) {
+      throw e;
     } catch (Exception e) {
       log.error("Failed to create user for email: {}", user.getEmail(), e);
       throw UserException.databaseError("Failed to create user", e);
@@ -44,19 +172,202 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
-  public Optional<User> getUserById(String userId) {
+  public Map<String, UserException> createUsers(List<User> users) {
+    log.info("Creating {} users with transactional writes", users.size());
+    LocalDateTime now = LocalDateTime.now();
+    for (User user : users) {
+      user.setCreatedAt(now);
+      user.setUpdatedAt(now);
+      user.setPhoneNumber(normalizePhone(user.getPhoneNumber()));
+      user.setVersion(1L);
+    }
+
+    Map<String, UserException> unsaved = new HashMap<>();
+    for (int from = 0; from < users.size(); from += BATCH_WRITE_SIZE) {
+      List<User> chunk = users.subList(from, Math.min(from + BATCH_WRITE_SIZE, users.size()));
+      Map<String, UserException> chunkUnsaved = transactSave(chunk);
+      unsaved.putAll(chunkUnsaved);
+      for (User user : chunk) {
+        if (!chunkUnsaved.containsKey(user.getUserId())) {
+          userIdentityCache.invalidate(user);
+          knownIdentifiers.add(user);
+        }
+      }
+    }
+    if (!unsaved.isEmpty()) {
+      log.error("Failed to create {} of {} users", unsaved.size(), users.size());
+    }
+    return unsaved;
+  }
+
+  /**
+   * Save up to 25 users and their uniqueness guards in one transaction. Users with an identifier
+   * that is taken, in the table or by an earlier user of the chunk, are left out and the rest is
+   * written again; returns why each user not saved was not, by user id.
+   */
+  private Map<String, UserException> transactSave(List<User> chunk) {
+    List<User> pending = new ArrayList<>();
+    Map<String, UserException> unsaved = new HashMap<>();
+    Set<String> claimed = new HashSet<>();
+    for (User user : chunk) {
+      List<UniqueIdentifier> guards = UniqueIdentifier.of(user);
+      Optional<UniqueIdentifier> repeated =
+          guards.stream().filter(guard -> claimed.contains(guard.getIdentifier())).findFirst();
+      if (repeated.isEmpty()) {
+        guards.forEach(guard -> claimed.add(guard.getIdentifier()));
+        pending.add(user);
+      } else {
+        log.warn("User not saved, an identifier is repeated in its batch: {}", user.getUserId());
+        unsaved.put(user.getUserId(), UserException.userExists(describe(repeated.get())));
+      }
+    }
+
+    while (!pending.isEmpty()) {
+      List<Object> items = new ArrayList<>();
+      List<User> owners = new ArrayList<>();
+      for (User user : pending) {
+        items.add(user);
+        owners.add(user);
+        for (UniqueIdentifier guard : UniqueIdentifier.of(user)) {
+          items.add(guard);
+          owners.add(user);
+        }
+      }
+      int taken;
+      try {
+        taken = transactionWrite(items, List.of(), List.of());
+      } catch (Exception e) {
+        log.error("Transactional write of {} users failed", pending.size(), e);
+        UserException error = UserException.databaseError("Failed to create user", e);
+        pending.forEach(user -> unsaved.put(user.getUserId(), error));
+        break;
+      }
+      if (taken < 0) {
+        break;
+      }
+      User owner = owners.get(taken);
+      log.warn("User not saved: {} - {} is taken", owner.getUserId(), describe(items, taken));
+      pending.remove(owner);
+      unsaved.put(owner.getUserId(), UserException.userExists(describe(items, taken)));
+    }
+    return unsaved;
+  }
+
+  /**
+   * Write {@code creates}, each on the condition that nothing is stored under its key yet, save
+   * {@code saves} and delete {@code deletes}, all in one transaction. Guards among the deletes are
+   * only deleted if they are gone or still owned by their user, never once another user claimed
+   * the identifier; otherwise the transaction fails. A transaction cancelled only by conflicts with
+   * concurrent transactions is retried with jittered backoff.
+   *
+   * @return -1 once written, otherwise the index in {@code creates} of the first item that exists
+   */
+  private int transactionWrite(List<?> creates, List<?> saves, List<?> deletes) {
+    for (int attempt = 1; ; attempt++) {
+      TransactionWriteRequest write = new TransactionWriteRequest();
+      for (Object item : creates) {
+        write.addPut(
+            item,
+            new DynamoDBTransactionWriteExpression()
+                .withConditionExpression("attribute_not_exists(userId)"));
+      }
+      saves.forEach(write::addPut);
+      for (Object item : deletes) {
+        if (item instanceof UniqueIdentifier guard) {
+          write.addDelete(
+              guard,
+              new DynamoDBTransactionWriteExpression()
+                  .withConditionExpression(GUARD_OWNED)
+                  .withExpressionAttributeValues(
+                      Map.of(":ownerUserId", new AttributeValue(guard.getOwnerUserId()))));
+        } else {
+          write.addDelete(item);
+        }
+      }
+      try {
+        transactionWriteCall.run(() -> dynamoDBMapper.transactionWrite(write));
+        return -1;
+      } catch (TransactionCanceledException e) {
+        // Reasons are in request order, so the first ones are those of the creates
+        List<CancellationReason> reasons = e.getCancellationReasons();
+        for (int i = 0; reasons != null && i < Math.min(creates.size(), reasons.size()); i++) {
+          if ("ConditionalCheckFailed".equals(reasons.get(i).getCode())) {
+            return i;
+          }
+        }
+        boolean guardTaken =
+            reasons != null
+                && reasons.stream()
+                    .anyMatch(reason -> "ConditionalCheckFailed".equals(reason.getCode()));
+        if (guardTaken || attempt == BATCH_WRITE_ATTEMPTS) {
+          throw e;
+        }
+        log.debug("Transaction cancelled (attempt {}): {}", attempt, reasons);
+        long backoff = BATCH_WRITE_BACKOFF_MILLIS << (attempt - 1);
+        try {
+          Thread.sleep(backoff + Jitter.upTo(backoff));
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  /** The identifier a guard claims, or the user id of a row, for messages */
+  private static String describe(List<?> items, int index) {
+    if (items.get(index) instanceof UniqueIdentifier guard) {
+      return describe(guard);
+    }
+    return "userId " + ((User) items.get(index)).getUserId();
+  }
+
+  private static String describe(UniqueIdentifier guard) {
+    String kind = guard.kind();
+    String value = guard.getIdentifier().substring(kind.length() + 1);
+    return kind.toLowerCase(Locale.ROOT) + " " + value;
+  }
+
+  @Override
+  public Set<String> findTakenIdentifiers(Collection<UniqueIdentifier> guards) {
+    log.debug("Checking {} identifiers for existing claims", guards.size());
+    if (guards.isEmpty()) {
+      return Set.of();
+    }
     try {
-      // Query by primary key (userId + userType)
-      // Since we don't know the userType, we need to scan or query both possible values
-      User coach = dynamoDBMapper.load(User.class, userId, "COACH");
-      if (coach != null) {
-        return Optional.of(coach);
+      // The mapper splits the keys into pages of 100 and retries unprocessed keys
+      Set<String> taken = new HashSet<>();
+      for (List<Object> items :
+          guardLoadCall.time(() -> dynamoDBMapper.batchLoad(guards, CONSISTENT_READ)).values()) {
+        for (Object item : items) {
+          taken.add(((UniqueIdentifier) item).getIdentifier());
+        }
       }
+      return taken;
+    } catch (Exception e) {
+      log.error("Error checking {} identifiers for existing claims", guards.size(), e);
+      throw UserException.databaseError("Failed to check identifiers", e);
+    }
+  }
 
-      User student = dynamoDBMapper.load(User.class, userId, "STUDENT");
-      return Optional.ofNullable(student);
+  @Override
+  public Optional<User> getUserById(String userId) {
+    try {
+      return lookup(Alias.ID, userId, () -> loadById(userId));
     } catch (Exception e) {
-      return Optional.empty();
+      log.error("Error loading user by id: {}", userId, e);
+      throw UserException.databaseError("Failed to load user: " + userId, e);
+    }
+  }
+
+  @Override
+  public Map<String, User> getUsersByIds(Collection<String> userIds) {
+    log.debug("Loading {} users by id", userIds.size());
+    try {
+      return userIdentityCache.getAll(userIds, this::batchLoadByIds);
+    } catch (Exception e) {
+      log.error("Error loading {} users by id", userIds.size(), e);
+      throw UserException.databaseError("Failed to load users by id", e);
     }
   }
 
@@ -64,21 +375,10 @@ public class UserServiceImpl implements UserService {
   public Optional<User> getUserByUsername(String username) {
     log.debug("Searching for user by username: {}", username);
     try {
-      // Use GSI for username lookup
-      Map<String, AttributeValue> eav = new HashMap<>();
-      eav.put(":username", new AttributeValue().withS(username));
-
-      DynamoDBQueryExpression<User> queryExpression =
-          new DynamoDBQueryExpression<User>()
-              .withIndexName("username-index")
-              .withConsistentRead(false)
-              .withKeyConditionExpression("username = :username")
-              .withExpressionAttributeValues(eav);
-
-      List<User> users = dynamoDBMapper.query(User.class, queryExpression);
-      boolean found = !users.isEmpty();
-      log.debug("User search by username '{}' - Found: {}", username, found);
-      return found ? Optional.of(users.get(0)) : Optional.empty();
+      Optional<User> user =
+          lookup(Alias.USERNAME, username, () -> queryIndex(usernameQuery, "username", username));
+      log.debug("User search by username '{}' - Found: {}", username, user.isPresent());
+      return user;
     } catch (Exception e) {
       log.error("Error searching for user by username: {}", username, e);
       return Optional.empty();
@@ -89,21 +389,10 @@ public class UserServiceImpl implements UserService {
   public Optional<User> getUserByEmail(String email) {
     log.debug("Searching for user by email: {}", email);
     try {
-      // Use GSI for email lookup
-      Map<String, AttributeValue> eav = new HashMap<>();
-      eav.put(":email", new AttributeValue().withS(email));
-
-      DynamoDBQueryExpression<User> queryExpression =
-          new DynamoDBQueryExpression<User>()
-              .withIndexName("email-index")
-              .withConsistentRead(false)
-              .withKeyConditionExpression("email = :email")
-              .withExpressionAttributeValues(eav);
-
-      List<User> users = dynamoDBMapper.query(User.class, queryExpression);
-      boolean found = !users.isEmpty();
-      log.debug("User search by email '{}' - Found: {}", email, found);
-      return found ? Optional.of(users.get(0)) : Optional.empty();
+      Optional<User> user =
+          lookup(Alias.EMAIL, email, () -> queryIndex(emailQuery, "email", email));
+      log.debug("User search by email '{}' - Found: {}", email, user.isPresent());
+      return user;
     } catch (Exception e) {
       log.error("Error searching for user by email: {}", email, e);
       return Optional.empty();
@@ -112,19 +401,21 @@ public class UserServiceImpl implements UserService {
 
   @Override
   public Optional<User> getUserByPhone(String phoneNumber) {
-    try {
-      // Scan for phone number (no GSI for phone in current schema)
-      Map<String, AttributeValue> eav = new HashMap<>();
-      eav.put(":phoneNumber", new AttributeValue().withS(phoneNumber));
-
-      DynamoDBScanExpression scanExpression =
-          new DynamoDBScanExpression()
-              .withFilterExpression("phoneNumber = :phoneNumber")
-              .withExpressionAttributeValues(eav);
+    String e164 = PhoneNumberUtil.toE164(phoneNumber, defaultCountryCode);
+    if (e164 == null) {
+      log.debug("Skipping phone lookup, not a valid phone number: {}", phoneNumber);
+      return Optional.empty();
+    }
 
-      List<User> users = dynamoDBMapper.scan(User.class, scanExpression);
-      return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+    log.debug("Searching for user by phone: {}", e164);
+    try {
+      // Values are stored in E.164 form
+      Optional<User> user =
+          lookup(Alias.PHONE, e164, () -> queryIndex(phoneQuery, "phoneNumber", e164));
+      log.debug("User search by phone '{}' - Found: {}", e164, user.isPresent());
+      return user;
     } catch (Exception e) {
+      log.error("Error searching for user by phone: {}", e164, e);
       return Optional.empty();
     }
   }
@@ -132,47 +423,387 @@ public class UserServiceImpl implements UserService {
   @Override
   public Optional<User> getUserByCognitoSub(String cognitoSub) {
     try {
-      // Use GSI for cognitoSub lookup
-      Map<String, AttributeValue> eav = new HashMap<>();
-      eav.put(":cognitoSub", new AttributeValue().withS(cognitoSub));
-
-      DynamoDBQueryExpression<User> queryExpression =
-          new DynamoDBQueryExpression<User>()
-              .withIndexName("cognitoSub-index")
-              .withConsistentRead(false)
-              .withKeyConditionExpression("cognitoSub = :cognitoSub")
-              .withExpressionAttributeValues(eav);
-
-      List<User> users = dynamoDBMapper.query(User.class, queryExpression);
-      return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+      return lookup(
+          Alias.COGNITO_SUB,
+          cognitoSub,
+          () -> queryIndex(cognitoSubQuery, "cognitoSub", cognitoSub));
     } catch (Exception e) {
       return Optional.empty();
     }
   }
 
+  /** Cached lookup of one identity; concurrent misses for it share one load */
+  private Optional<User> lookup(Alias alias, String value, Supplier<Optional<User>> load)
+      throws Exception {
+    return userIdentityCache.get(alias, value, () -> lookups.execute(alias + ":" + value, load));
+  }
+
+  private Optional<User> loadById(String userId) {
+    String userType = userTypeOf(userId);
+    if (userType != null) {
+      return Optional.ofNullable(
+          loadCall.time(() -> dynamoDBMapper.load(User.class, userId, userType), Objects::nonNull));
+    }
+    return Optional.ofNullable(batchLoadByIds(List.of(userId)).get(userId));
+  }
+
+  /**
+   * Load users by primary key in BatchGetItem round trips. Typed ids need one key; legacy ids do
+   * not encode the sort key, so both the COACH and STUDENT keys are requested. The mapper splits
+   * the keys into pages of 100 and retries unprocessed keys with jittered backoff.
+   */
+  private Map<String, User> batchLoadByIds(Collection<String> userIds) {
+    List<User> keys = new ArrayList<>();
+    for (String userId : userIds) {
+      String userType = userTypeOf(userId);
+      if (userType != null) {
+        keys.add(key(userId, userType));
+      } else {
+        keys.add(key(userId, "COACH"));
+        keys.add(key(userId, "STUDENT"));
+      }
+    }
+
+    Map<String, User> users = new HashMap<>();
+    for (List<Object> items : batchLoadCall.time(() -> dynamoDBMapper.batchLoad(keys)).values()) {
+      for (Object item : items) {
+        User user = (User) item;
+        // A legacy id should only exist under one type; prefer COACH as the old lookup did
+        users.merge(user.getUserId(), user, (a, b) -> "COACH".equals(a.getUserType()) ? a : b);
+      }
+    }
+    return users;
+  }
+
+  private static User key(String userId, String userType) {
+    User key = new User();
+    key.setUserId(userId);
+    key.setUserType(userType);
+    return key;
+  }
+
+  /** User type encoded in a typed id (see {@link #generateUserId(String)}), or null */
+  static String userTypeOf(String userId) {
+    if (userId == null || userId.length() != TYPED_ID_LENGTH) {
+      return null;
+    }
+    if (userId.startsWith(COACH_ID_PREFIX)) {
+      return "COACH";
+    }
+    if (userId.startsWith(STUDENT_ID_PREFIX)) {
+      return "STUDENT";
+    }
+    return null;
+  }
+
+  /** Look up a user through a GSI whose hash key is {@code attribute} */
+  private Optional<User> queryIndex(DependencyMetrics.Call query, String attribute, String value) {
+    Map<String, AttributeValue> eav = new HashMap<>();
+    eav.put(":" + attribute, new AttributeValue().withS(value));
+
+    DynamoDBQueryExpression<User> queryExpression =
+        new DynamoDBQueryExpression<User>()
+            .withIndexName(query.index())
+            .withConsistentRead(false)
+            .withKeyConditionExpression(attribute + " = :" + attribute)
+            .withExpressionAttributeValues(eav);
+
+    // The first page is fetched when the list is created, so it is inside the timed call
+    List<User> users =
+        query.time(
+            () -> dynamoDBMapper.query(User.class, queryExpression), list -> !list.isEmpty());
+    return users.isEmpty() ? Optional.empty() : Optional.of(users.get(0));
+  }
+
   @Override
   public List<User> getUsersByType(String userType) {
     try {
-      // Scan with filter for userType
-      Map<String, AttributeValue> eav = new HashMap<>();
-      eav.put(":userType", new AttributeValue().withS(userType));
+      // The mapper's list fetches further pages from the index only as it is iterated; only the
+      // first page is timed
+      return userTypeListCall.time(() -> dynamoDBMapper.query(User.class, userTypeQuery(userType)));
+    } catch (Exception e) {
+      throw UserException.databaseError("Failed to retrieve users by type: " + userType, e);
+    }
+  }
+
+  @Override
+  public UserPageResponse getUsersByType(String userType, int pageSize, String cursor) {
+    if (!"COACH".equals(userType) && !"STUDENT".equals(userType)) {
+      throw UserException.validationError("userType must be COACH or STUDENT");
+    }
+    if (pageSize < 1) {
+      throw UserException.validationError("Page size must be at least 1");
+    }
 
-      DynamoDBScanExpression scanExpression =
-          new DynamoDBScanExpression()
-              .withFilterExpression("userType = :userType")
-              .withExpressionAttributeValues(eav);
+    Map<String, AttributeValue> exclusiveStartKey;
+    try {
+      exclusiveStartKey = pageCursorCodec.decode(USER_TYPE_INDEX + "/" + userType, cursor);
+    } catch (IllegalArgumentException e) {
+      log.warn("Rejected page cursor for userType {}: {}", userType, e.getMessage());
+      throw UserException.validationError("Invalid page cursor");
+    }
 
-      return dynamoDBMapper.scan(User.class, scanExpression);
+    log.debug("Listing {} users, pageSize: {}, continued: {}", userType, pageSize, cursor != null);
+    try {
+      // One Query of at most pageSize items, so memory and read units are bounded per request
+      QueryResultPage<User> page =
+          userTypePageCall.time(
+              () ->
+                  dynamoDBMapper.queryPage(
+                      User.class,
+                      userTypeQuery(userType)
+                          .withLimit(pageSize)
+                          .withExclusiveStartKey(exclusiveStartKey)));
+
+      List<UserInfo> users = new ArrayList<>(page.getResults().size());
+      for (User user : page.getResults()) {
+        users.add(
+            new UserInfo(
+                user.getUserId(),
+                user.getEmail(),
+                user.getName(),
+                user.getUserType(),
+                user.getPhoneNumber()));
+      }
+      return new UserPageResponse(
+          users,
+          pageCursorCodec.encode(USER_TYPE_INDEX + "/" + userType, page.getLastEvaluatedKey()));
     } catch (Exception e) {
+      log.error("Error listing {} users", userType, e);
       throw UserException.databaseError("Failed to retrieve users by type: " + userType, e);
     }
   }
 
+  /** Users of a type from userType-createdAt-index, newest first */
+  private static DynamoDBQueryExpression<User> userTypeQuery(String userType) {
+    Map<String, AttributeValue> eav = new HashMap<>();
+    eav.put(":userType", new AttributeValue().withS(userType));
+
+    return new DynamoDBQueryExpression<User>()
+        .withIndexName(USER_TYPE_INDEX)
+        .withConsistentRead(false)
+        .withScanIndexForward(false)
+        .withKeyConditionExpression("userType = :userType")
+        .withExpressionAttributeValues(eav);
+  }
+
   @Override
   public User updateUser(User user) {
-    user.setUpdatedAt(LocalDateTime.now());
-    dynamoDBMapper.save(user);
-    return user;
+    // A user built by the caller, or read before rows had versions, has no version to check; its
+    // changes are applied to whatever is stored
+    Long readVersion = user.getVersion();
+    return update(
+        user.getUserId(),
+        user.getUserType(),
+        stored -> {
+          if (readVersion != null && !readVersion.equals(stored.getVersion())) {
+            log.info(
+                "User {} not updated: read at version {}, stored at version {}",
+                user.getUserId(),
+                readVersion,
+                stored.getVersion());
+            throw UserException.conflict(user.getUserId());
+          }
+          return user;
+        });
+  }
+
+  @Override
+  public User updateUser(String userId, Consumer<User> changes) {
+    User current = getUserById(userId).orElseThrow(() -> UserException.userNotFound(userId));
+    return update(
+        userId,
+        current.getUserType(),
+        user -> {
+          changes.accept(user);
+          return user;
+        });
+  }
+
+  /**
+   * Read the row, let {@code change} turn a copy of it into the new state and write the difference.
+   * If the row is updated by someone else in between, start over from a fresh read.
+   */
+  private User update(String userId, String userType, UnaryOperator<User> change) {
+    for (int attempt = 1; ; attempt++) {
+      User stored =
+          loadCall.time(
+              () -> dynamoDBMapper.load(User.class, userId, userType, CONSISTENT_READ),
+              Objects::nonNull);
+      if (stored == null) {
+        throw UserException.userNotFound(userId);
+      }
+      User updated = change.apply(UserIdentityCache.copy(stored));
+      if (write(stored, updated)) {
+        return updated;
+      }
+      if (attempt == UPDATE_ATTEMPTS) {
+        log.warn("User {} not updated: it kept changing ({} attempts)", userId, attempt);
+        throw UserException.conflict(userId);
+      }
+      log.debug("User {} changed while being updated (attempt {}), retrying", userId, attempt);
+      long backoff = UPDATE_BACKOFF_MILLIS << (attempt - 1);
+      try {
+        Thread.sleep(backoff + Jitter.upTo(backoff));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw UserException.conflict(userId);
+      }
+    }
+  }
+
+  /**
+   * Write the attributes of {@code updated} that differ from {@code stored} with one UpdateItem, on
+   * the condition that the row is still at the version read. Nothing is written if no attribute
+   * differs. A changed username, email or phone moves its guard: the new one is claimed and the old
+   * one released in the same transaction as the update.
+   *
+   * @return false if the row was updated since {@code stored} was read
+   */
+  private boolean write(User stored, User updated) {
+    updated.setUserId(stored.getUserId());
+    updated.setUserType(stored.getUserType());
+    updated.setPhoneNumber(normalizePhone(updated.getPhoneNumber()));
+    updated.setUpdatedAt(stored.getUpdatedAt());
+    updated.setVersion(stored.getVersion());
+
+    DynamoDBMapperTableModel<User> model = dynamoDBMapper.getTableModel(User.class);
+    Map<String, AttributeValue> before = model.convert(stored);
+    Map<String, AttributeValue> after = model.convert(updated);
+    Set<String> changed = new TreeSet<>();
+    after.forEach(
+        (name, value) -> {
+          if (!value.equals(before.get(name))) {
+            changed.add(name);
+          }
+        });
+    for (String name : before.keySet()) {
+      if (!after.containsKey(name)) {
+        changed.add(name);
+      }
+    }
+    changed.removeAll(UNTRACKED_ATTRIBUTES);
+    if (changed.isEmpty()) {
+      return true;
+    }
+
+    updated.setUpdatedAt(LocalDateTime.now());
+    Map<String, AttributeValue> item = model.convert(updated);
+    Long expected = stored.getVersion();
+    long next = expected == null ? 1 : expected + 1;
+
+    Map<String, String> names = new HashMap<>();
+    Map<String, AttributeValue> values = new HashMap<>();
+    names.put("#updatedAt", "updatedAt");
+    names.put("#version", "version");
+    values.put(":updatedAt", item.get("updatedAt"));
+    values.put(":version", new AttributeValue().withN(Long.toString(next)));
+    List<String> set = new ArrayList<>(List.of("#updatedAt = :updatedAt", "#version = :version"));
+    List<String> remove = new ArrayList<>();
+    int placeholder = 0;
+    for (String name : changed) {
+      String alias = "a" + placeholder++;
+      names.put("#" + alias, name);
+      if (item.containsKey(name)) {
+        set.add("#" + alias + " = :" + alias);
+        values.put(":" + alias, item.get(name));
+      } else {
+        remove.add("#" + alias);
+      }
+    }
+    String removeClause = remove.isEmpty() ? "" : " REMOVE " + String.join(", ", remove);
+    String updateExpression = "SET " + String.join(", ", set) + removeClause;
+    String condition;
+    if (expected == null) {
+      condition = "attribute_exists(userId) AND attribute_not_exists(#version)";
+    } else {
+      condition = "#version = :expected";
+      values.put(":expected", new AttributeValue().withN(Long.toString(expected)));
+    }
+    Map<String, AttributeValue> key = model.convertKey(stored);
+
+    List<UniqueIdentifier> claimed = UniqueIdentifier.of(updated);
+    List<UniqueIdentifier> released = UniqueIdentifier.of(stored);
+    Set<String> claimedBefore = new HashSet<>();
+    released.forEach(guard -> claimedBefore.add(guard.getIdentifier()));
+    Set<String> claimedAfter = new HashSet<>();
+    claimed.forEach(guard -> claimedAfter.add(guard.getIdentifier()));
+    claimed.removeIf(guard -> claimedBefore.contains(guard.getIdentifier()));
+    released.removeIf(guard -> claimedAfter.contains(guard.getIdentifier()));
+
+    if (claimed.isEmpty() && released.isEmpty()) {
+      try {
+        updateCall.run(
+            () ->
+                amazonDynamoDB.updateItem(
+                    new UpdateItemRequest()
+                        .withTableName(TABLE_NAME)
+                        .withKey(key)
+                        .withUpdateExpression(updateExpression)
+                        .withConditionExpression(condition)
+                        .withExpressionAttributeNames(names)
+                        .withExpressionAttributeValues(values)));
+      } catch (ConditionalCheckFailedException e) {
+        return false;
+      }
+    } else {
+      DynamoDBMapperTableModel<UniqueIdentifier> guards =
+          dynamoDBMapper.getTableModel(UniqueIdentifier.class);
+      List<TransactWriteItem> writes = new ArrayList<>();
+      writes.add(
+          new TransactWriteItem()
+              .withUpdate(
+                  new Update()
+                      .withTableName(TABLE_NAME)
+                      .withKey(key)
+                      .withUpdateExpression(updateExpression)
+                      .withConditionExpression(condition)
+                      .withExpressionAttributeNames(names)
+                      .withExpressionAttributeValues(values)));
+      for (UniqueIdentifier guard : claimed) {
+        writes.add(
+            new TransactWriteItem()
+                .withPut(
+                    new Put()
+                        .withTableName(TABLE_NAME)
+                        .withItem(guards.convert(guard))
+                        .withConditionExpression("attribute_not_exists(userId)")));
+      }
+      for (UniqueIdentifier guard : released) {
+        writes.add(
+            new TransactWriteItem()
+                .withDelete(
+                    new Delete()
+                        .withTableName(TABLE_NAME)
+                        .withKey(guards.convertKey(guard))
+                        .withConditionExpression(GUARD_OWNED)
+                        .withExpressionAttributeValues(
+                            Map.of(":ownerUserId", new AttributeValue(stored.getUserId())))));
+      }
+      try {
+        transactionWriteCall.run(
+            () ->
+                amazonDynamoDB.transactWriteItems(
+                    new TransactWriteItemsRequest().withTransactItems(writes)));
+      } catch (TransactionCanceledException e) {
+        // Reasons are in request order: the update, then the claimed guards
+        List<CancellationReason> reasons = e.getCancellationReasons();
+        for (int i = 1; reasons != null && i < reasons.size() && i <= claimed.size(); i++) {
+          if ("ConditionalCheckFailed".equals(reasons.get(i).getCode())) {
+            throw UserException.userExists(describe(claimed, i - 1));
+          }
+        }
+        // The version check failed, a released guard has another owner, or a concurrent
+        // transaction got in the way
+        return false;
+      }
+    }
+
+    updated.setVersion(next);
+    userIdentityCache.invalidate(updated);
+    userIdentityCache.invalidate(stored);
+    knownIdentifiers.add(updated);
+    return true;
   }
 
   @Override
@@ -181,7 +812,18 @@ public class UserServiceImpl implements UserService {
       // We need to find the user first to get the userType for proper deletion
       Optional<User> userOpt = getUserById(userId);
       if (userOpt.isPresent()) {
-        dynamoDBMapper.delete(userOpt.get());
+        // Releases the user's identifiers with the row
+        List<Object> items = new ArrayList<>();
+        items.add(userOpt.get());
+        items.addAll(UniqueIdentifier.of(userOpt.get()));
+        try {
+          transactionWrite(List.of(), List.of(), items);
+        } catch (TransactionCanceledException e) {
+          // The row was read before a change of its identifiers, or a write kept conflicting
+          userIdentityCache.invalidate(userOpt.get());
+          throw UserException.conflict(userId);
+        }
+        userIdentityCache.invalidate(userOpt.get());
       } else {
         throw UserException.userNotFound(userId);
       }
@@ -197,8 +839,31 @@ public class UserServiceImpl implements UserService {
     return getUserByEmail(email).isPresent();
   }
 
+  /** Store phone numbers in E.164 so they match phoneNumber-index lookups; keep raw if invalid */
+  private String normalizePhone(String phoneNumber) {
+    String e164 = PhoneNumberUtil.toE164(phoneNumber, defaultCountryCode);
+    if (e164 == null && phoneNumber != null) {
+      log.warn("Phone number could not be normalized to E.164, storing as given: {}", phoneNumber);
+      return phoneNumber;
+    }
+    return e164;
+  }
+
   @Override
   public String generateUserId() {
-    return "USER_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    return "USER_" + randomIdSuffix();
+  }
+
+  @Override
+  public String generateUserId(String userType) {
+    return switch (userType == null ? "" : userType) {
+      case "COACH" -> COACH_ID_PREFIX + randomIdSuffix();
+      case "STUDENT" -> STUDENT_ID_PREFIX + randomIdSuffix();
+      default -> generateUserId();
+    };
+  }
+
+  private static String randomIdSuffix() {
+    return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
   }
 }
@@ -0,0 +1,74 @@
+package com.pjariwala.util;
+
+import java.time.Duration;
+
+/**
+ * Concurrency limit for calls to a dependency that adapts to how the dependency is coping, by
+ * additive increase and multiplicative decrease (AIMD).
+ *
+ * <p>A call takes a permit with {@link #tryAcquire()}, which fails at once when {@link #limit()}
+ * calls are already in flight, and gives it back with {@link #release()}. Every attempt the call
+ * makes is reported with {@link #onSample}: an attempt that was throttled, timed out or took longer
+ * than {@code latencyThreshold} multiplies the limit by {@code backoffRatio}; any other attempt
+ * made while at least half the limit was in use raises it by {@code 1 / limit}, so the limit grows
+ * by about one per round of calls that fill it.
+ */
+public class AimdLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyThresholdNanos;
+
+  private double limit;
+  private int inFlight;
+
+  public AimdLimiter(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double backoffRatio,
+      Duration latencyThreshold) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.limit = initialLimit;
+  }
+
+  /** Take a permit if fewer than {@link #limit()} calls are in flight */
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  public synchronized void release() {
+    inFlight--;
+  }
+
+  /** Adjust the limit for one attempt of a call that holds a permit */
+  public synchronized void onSample(long latencyNanos, boolean dropped) {
+    if (dropped || latencyNanos > latencyThresholdNanos) {
+      limit = Math.max(minLimit, limit * backoffRatio);
+    } else if (inFlight * 2 >= limit) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+
+  public synchronized int limit() {
+    return (int) limit;
+  }
+
+  public synchronized int inFlight() {
+    return inFlight;
+  }
+}
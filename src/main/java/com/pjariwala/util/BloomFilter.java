@@ -0,0 +1,152 @@
+package com.pjariwala.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set membership of strings in a fixed number of bits: {@link #mightContain} is never false for a
+ * string that was {@link #put}, and is true for a string that was not with about the false-positive
+ * rate the filter was sized for, once it holds the expected number of strings.
+ *
+ * <p>Each string sets {@code hashes} bits chosen by double hashing of two seeded 64-bit hashes.
+ * Bits are set with compare-and-set on the words holding them, so puts and lookups take no lock.
+ * The seed is random, so the strings that collide cannot be chosen in advance; it is written out
+ * with the bits by {@link #writeTo}, so a filter read back with {@link #readFrom} answers the same.
+ */
+public class BloomFilter {
+
+  private static final int FORMAT = 1;
+
+  private final long bits;
+  private final int hashes;
+  private final long seed;
+  private final AtomicLongArray words;
+  private final AtomicLong bitsSet = new AtomicLong();
+
+  private BloomFilter(long bits, int hashes, long seed) {
+    this.bits = bits;
+    this.hashes = hashes;
+    this.seed = seed;
+    this.words = new AtomicLongArray(Math.toIntExact(bits / Long.SIZE));
+  }
+
+  /** A filter with a false-positive rate of about {@code falsePositiveRate} at {@code expected} */
+  public static BloomFilter create(long expected, double falsePositiveRate) {
+    if (expected < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException(
+          "expected must be positive and falsePositiveRate between 0 and 1");
+    }
+    double ln2 = Math.log(2);
+    long bits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (ln2 * ln2));
+    bits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+    int hashes = Math.max(1, (int) Math.round((double) bits / expected * ln2));
+    return new BloomFilter(bits, hashes, new SecureRandom().nextLong());
+  }
+
+  /**
+   * Add a string.
+   *
+   * @return true if any of its bits was not set yet
+   */
+  public boolean put(String value) {
+    long h1 = hash(value, seed);
+    long h2 = hash(value, ~seed) | 1;
+    boolean changed = false;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long old = words.getAndUpdate(word, w -> w | mask);
+      if ((old & mask) == 0) {
+        bitsSet.incrementAndGet();
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /** False if {@code value} was definitely never {@link #put} */
+  public boolean mightContain(String value) {
+    long h1 = hash(value, seed);
+    long h2 = hash(value, ~seed) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long sizeBytes() {
+    return bits / Byte.SIZE;
+  }
+
+  public int hashCount() {
+    return hashes;
+  }
+
+  /** Chance that a string never put is reported present, given the bits set so far */
+  public double expectedFalsePositiveRate() {
+    return Math.pow((double) bitsSet.get() / bits, hashes);
+  }
+
+  /** Distinct strings put, estimated from the bits set */
+  public long approximateCount() {
+    double fill = (double) bitsSet.get() / bits;
+    if (fill >= 1) {
+      return Long.MAX_VALUE;
+    }
+    return Math.round(-(double) bits / hashes * Math.log1p(-fill));
+  }
+
+  /** Write the seed and bits; puts made while writing may or may not be included */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(FORMAT);
+    out.writeLong(bits);
+    out.writeInt(hashes);
+    out.writeLong(seed);
+    for (int i = 0; i < words.length(); i++) {
+      out.writeLong(words.get(i));
+    }
+  }
+
+  /** Read a filter written by {@link #writeTo} */
+  public static BloomFilter readFrom(DataInput in) throws IOException {
+    int format = in.readInt();
+    if (format != FORMAT) {
+      throw new IOException("Unsupported Bloom filter format: " + format);
+    }
+    long bits = in.readLong();
+    int hashes = in.readInt();
+    if (bits < Long.SIZE || bits % Long.SIZE != 0 || hashes < 1) {
+      throw new IOException("Corrupt Bloom filter header");
+    }
+    BloomFilter filter = new BloomFilter(bits, hashes, in.readLong());
+    long set = 0;
+    for (int i = 0; i < filter.words.length(); i++) {
+      long word = in.readLong();
+      filter.words.set(i, word);
+      set += Long.bitCount(word);
+    }
+    filter.bitsSet.set(set);
+    return filter;
+  }
+
+  /** Seeded 64-bit FNV-1a over the chars of the value, with a final avalanche */
+  private static long hash(String value, long seed) {
+    long h = seed ^ 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+}
@@ -0,0 +1,90 @@
+package com.pjariwala.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe LRU map with a fixed capacity. Meant for per-container memoization of cheap to
+ * recompute values, where a lock around a {@link LinkedHashMap} is faster than anything cleverer.
+ */
+public class BoundedLruCache<K, V> {
+
+  private final int capacity;
+  private final AtomicLong evictions = new AtomicLong();
+  private final LinkedHashMap<K, V> entries;
+
+  public BoundedLruCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > BoundedLruCache.this.capacity) {
+              evictions.incrementAndGet();
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** Cached value, or {@code null} */
+  public V get(K key) {
+    synchronized (entries) {
+      return entries.get(key);
+    }
+  }
+
+  public void put(K key, V value) {
+    synchronized (entries) {
+      entries.put(key, value);
+    }
+  }
+
+  /**
+   * Cached value, computing and caching it on a miss. The function runs outside the lock, so two
+   * threads missing on the same key may both compute it; the last one wins.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+    V value = get(key);
+    if (value == null) {
+      value = loader.apply(key);
+      if (value != null) {
+        put(key, value);
+      }
+    }
+    return value;
+  }
+
+  public void remove(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /** Entries dropped because the cache was full */
+  public long evictionCount() {
+    return evictions.get();
+  }
+}
@@ -0,0 +1,82 @@
+package com.pjariwala.util;
+
+import java.time.Duration;
+
+/**
+ * Fails calls to a dependency fast while it is down, instead of letting every caller wait for its
+ * own timeout.
+ *
+ * <p>After {@code failureThreshold} failures in a row the breaker opens and {@link #tryAcquire()}
+ * refuses calls for {@code openDuration}. Then it lets a single probe call through (half-open): if
+ * the probe succeeds the breaker closes, otherwise it opens again for another {@code openDuration}.
+ * Every call {@link #tryAcquire()} let through must report {@link #onSuccess()} or {@link
+ * #onFailure()}.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    HALF_OPEN,
+    OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+  private boolean probing;
+
+  public CircuitBreaker(int failureThreshold, Duration openDuration) {
+    if (failureThreshold < 1 || openDuration.isNegative()) {
+      throw new IllegalArgumentException("failureThreshold and openDuration must be positive");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+  }
+
+  /** Whether a call may go ahead now */
+  public synchronized boolean tryAcquire() {
+    return switch (state) {
+      case CLOSED -> true;
+      case OPEN -> {
+        if (System.nanoTime() - openedAtNanos < openNanos) {
+          yield false;
+        }
+        state = State.HALF_OPEN;
+        probing = true;
+        yield true;
+      }
+      case HALF_OPEN -> {
+        if (probing) {
+          yield false;
+        }
+        probing = true;
+        yield true;
+      }
+    };
+  }
+
+  public synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    probing = false;
+    state = State.CLOSED;
+  }
+
+  public synchronized void onFailure() {
+    probing = false;
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAtNanos = System.nanoTime();
+    }
+  }
+
+  public synchronized State state() {
+    if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+}
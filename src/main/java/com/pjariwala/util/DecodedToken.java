@@ -0,0 +1,270 @@
+package com.pjariwala.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Header and payload of a JWT, decoded once into typed fields.
+ *
+ * <p>Parsing streams over the Base64url-decoded bytes with Jackson's {@link JsonParser}; no
+ * intermediate {@code String} or tree is built. Instances are immutable apart from remembering a
+ * successful signature check, so they can be cached and shared between threads (see {@link
+ * JwtUtil#decode(String)}).
+ */
+public final class DecodedToken {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final String alg;
+  private final String kid;
+  private final String sub;
+  private final String email;
+  private final String userType;
+  private final String tokenUse;
+  private final String clientId;
+  private final String aud;
+  private final String iss;
+  private final Long exp;
+  private final Long nbf;
+  private final Map<String, String> claims;
+
+  // Kept only until the signature has been verified once
+  private volatile byte[] signingInput;
+  private volatile byte[] signature;
+  private volatile boolean signatureVerified;
+
+  private DecodedToken(Header header, Payload payload, byte[] signingInput, byte[] signature) {
+    this.alg = header.alg;
+    this.kid = header.kid;
+    this.sub = payload.sub;
+    this.email = payload.email;
+    this.userType = payload.userType;
+    this.tokenUse = payload.tokenUse;
+    this.clientId = payload.clientId;
+    this.aud = payload.aud;
+    this.iss = payload.iss;
+    this.exp = payload.exp;
+    this.nbf = payload.nbf;
+    this.claims = Collections.unmodifiableMap(payload.claims);
+    this.signingInput = signingInput;
+    this.signature = signature;
+  }
+
+  /**
+   * Decode a compact JWS ({@code header.payload.signature})
+   *
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static DecodedToken parse(String token) {
+    return parse(token.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  static DecodedToken parse(byte[] token) {
+    int firstDot = indexOf(token, 0);
+    int secondDot = firstDot < 0 ? -1 : indexOf(token, firstDot + 1);
+    if (firstDot <= 0 || secondDot < 0 || indexOf(token, secondDot + 1) >= 0) {
+      throw new IllegalArgumentException("Invalid JWT token format");
+    }
+
+    try {
+      Header header = new Header();
+      readObject(decode(token, 0, firstDot), header::accept);
+      Payload payload = new Payload();
+      readObject(decode(token, firstDot + 1, secondDot), payload::accept);
+
+      byte[] signingInput = new byte[secondDot];
+      System.arraycopy(token, 0, signingInput, 0, secondDot);
+      ByteBuffer signature = decode(token, secondDot + 1, token.length);
+      byte[] signatureBytes = new byte[signature.remaining()];
+      signature.get(signatureBytes);
+      return new DecodedToken(header, payload, signingInput, signatureBytes);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid JWT token: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Verify the RS256 signature with {@code key}. A successful result is remembered, so a cached
+   * token is only checked once.
+   */
+  boolean verifySignature(Signature verifier, PublicKey key) throws GeneralSecurityException {
+    if (signatureVerified) {
+      return true;
+    }
+    byte[] input = signingInput;
+    byte[] expected = signature;
+    if (input == null || expected == null) {
+      return signatureVerified;
+    }
+
+    verifier.initVerify(key);
+    verifier.update(input);
+    if (!verifier.verify(expected)) {
+      return false;
+    }
+    signatureVerified = true;
+    signingInput = null;
+    signature = null;
+    return true;
+  }
+
+  public String getAlg() {
+    return alg;
+  }
+
+  public String getKid() {
+    return kid;
+  }
+
+  public String getSub() {
+    return sub;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  /** The {@code custom:user_type} claim */
+  public String getUserType() {
+    return userType;
+  }
+
+  public String getTokenUse() {
+    return tokenUse;
+  }
+
+  public String getClientId() {
+    return clientId;
+  }
+
+  public String getAud() {
+    return aud;
+  }
+
+  public String getIss() {
+    return iss;
+  }
+
+  /** Expiry in epoch seconds, or {@code null} if absent */
+  public Long getExp() {
+    return exp;
+  }
+
+  /** Not-before in epoch seconds, or {@code null} if absent */
+  public Long getNbf() {
+    return nbf;
+  }
+
+  /**
+   * All payload claims as text. Nested objects and arrays map to an empty string, as {@code
+   * JsonNode.asText()} would.
+   */
+  public Map<String, String> getClaims() {
+    return claims;
+  }
+
+  public boolean isExpired(long nowEpochSeconds) {
+    return exp == null || nowEpochSeconds > exp;
+  }
+
+  private static ByteBuffer decode(byte[] token, int from, int to) {
+    return DECODER.decode(ByteBuffer.wrap(token, from, to - from));
+  }
+
+  private static int indexOf(byte[] token, int from) {
+    for (int i = from; i < token.length; i++) {
+      if (token[i] == '.') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private interface FieldHandler {
+    void accept(String name, JsonParser parser) throws IOException;
+  }
+
+  private static void readObject(ByteBuffer json, FieldHandler handler) throws IOException {
+    try (JsonParser parser =
+        JSON_FACTORY.createParser(
+            json.array(), json.arrayOffset() + json.position(), json.remaining())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("expected a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          handler.accept(name, null);
+        } else {
+          handler.accept(name, parser);
+        }
+      }
+    }
+  }
+
+  private static final class Header implements FieldHandler {
+    String alg;
+    String kid;
+
+    @Override
+    public void accept(String name, JsonParser parser) throws IOException {
+      if (parser == null) {
+        return;
+      }
+      switch (name) {
+        case "alg" -> alg = parser.getText();
+        case "kid" -> kid = parser.getText();
+        default -> {}
+      }
+    }
+  }
+
+  private static final class Payload implements FieldHandler {
+    final Map<String, String> claims = new LinkedHashMap<>();
+    String sub;
+    String email;
+    String userType;
+    String tokenUse;
+    String clientId;
+    String aud;
+    String iss;
+    Long exp;
+    Long nbf;
+
+    @Override
+    public void accept(String name, JsonParser parser) throws IOException {
+      if (parser == null) {
+        claims.put(name, "");
+        return;
+      }
+      String text = parser.getText();
+      claims.put(name, text);
+      switch (name) {
+        case "sub" -> sub = text;
+        case "email" -> email = text;
+        case "custom:user_type" -> userType = text;
+        case "token_use" -> tokenUse = text;
+        case "client_id" -> clientId = text;
+        case "aud" -> aud = text;
+        case "iss" -> iss = text;
+        case "exp" -> exp = parser.getValueAsLong();
+        case "nbf" -> nbf = parser.getValueAsLong();
+        default -> {}
+      }
+    }
+  }
+}
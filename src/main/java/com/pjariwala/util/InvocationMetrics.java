@@ -0,0 +1,261 @@
+package com.pjariwala.util;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates one Lambda invocation into a single CloudWatch Embedded Metric Format (EMF) record,
+ * written as a JSON line to {@code System.out}. CloudWatch extracts the metrics from the log, so
+ * there is no {@code PutMetricData} call and nothing to scrape.
+ *
+ * <p>The record has the request method, path, status, request id and cold-start flag, the duration
+ * of the invocation and, for every downstream call made during it, the number of calls, the time
+ * spent in them and the number that failed. Downstream calls are registered once with {@link
+ * #register} and recorded with {@link #recordCall} from any thread; outside of an invocation
+ * recording does nothing.
+ *
+ * <p>Lambda runs one invocation at a time per container, so one instance serves all of them. The
+ * record is built into a reused byte buffer from metric names encoded up front; emitting it
+ * allocates nothing per metric. {@code System.out} is looked up on every emit, so a test can
+ * capture it.
+ */
+public class InvocationMetrics {
+
+  /** Downstream calls that can be registered; later ones are not recorded */
+  static final int MAX_CALLS = 64;
+
+  private static final String[] callNames = new String[MAX_CALLS];
+  private static final byte[][] callMetricNames = new byte[MAX_CALLS][];
+  private static int callCount;
+
+  private static volatile InvocationMetrics active;
+
+  private final byte[] namespace;
+  private final String service;
+
+  private final AtomicLongArray calls = new AtomicLongArray(MAX_CALLS);
+  private final AtomicLongArray callNanos = new AtomicLongArray(MAX_CALLS);
+  private final AtomicLongArray callErrors = new AtomicLongArray(MAX_CALLS);
+
+  private long startedAt;
+  private boolean coldStart;
+  private String method;
+  private String path;
+  private int status;
+
+  private byte[] buffer = new byte[2048];
+  private int length;
+
+  public InvocationMetrics(String namespace, String service) {
+    this.namespace = namespace.getBytes(StandardCharsets.UTF_8);
+    this.service = service;
+  }
+
+  /**
+   * Slot of a downstream call such as {@code dynamodb.query.email-index}, for {@link #recordCall};
+   * -1 once {@value #MAX_CALLS} calls are registered. Registering a name again returns its slot.
+   */
+  public static synchronized int register(String name) {
+    for (int slot = 0; slot < callCount; slot++) {
+      if (callNames[slot].equals(name)) {
+        return slot;
+      }
+    }
+    if (callCount == MAX_CALLS) {
+      return -1;
+    }
+    callNames[callCount] = name;
+    // Encoded once; a record copies these definitions of the call's metrics
+    callMetricNames[callCount] =
+        ("{\"Name\":\""
+                + name
+                + ".calls\",\"Unit\":\"Count\"},"
+                + "{\"Name\":\""
+                + name
+                + ".millis\",\"Unit\":\"Milliseconds\"},"
+                + "{\"Name\":\""
+                + name
+                + ".errors\",\"Unit\":\"Count\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    return callCount++;
+  }
+
+  /** Add a downstream call to the invocation in progress, if there is one */
+  public static void recordCall(int slot, long nanos, boolean failed) {
+    InvocationMetrics metrics = active;
+    if (metrics == null || slot < 0) {
+      return;
+    }
+    metrics.calls.incrementAndGet(slot);
+    metrics.callNanos.addAndGet(slot, nanos);
+    if (failed) {
+      metrics.callErrors.incrementAndGet(slot);
+    }
+  }
+
+  /** Start aggregating an invocation; counts left from the previous one are cleared */
+  public synchronized void start(boolean coldStart) {
+    for (int slot = 0; slot < MAX_CALLS; slot++) {
+      calls.set(slot, 0);
+      callNanos.set(slot, 0);
+      callErrors.set(slot, 0);
+    }
+    this.coldStart = coldStart;
+    method = null;
+    path = null;
+    status = 0;
+    startedAt = System.nanoTime();
+    active = this;
+  }
+
+  /** The request and its response status, once the container has handled it */
+  public void response(String method, String path, int status) {
+    this.method = method;
+    this.path = path;
+    this.status = status;
+  }
+
+  /** Stop aggregating and write the record of the invocation */
+  public synchronized void finish(String requestId) {
+    long durationNanos = System.nanoTime() - startedAt;
+    active = null;
+    length = 0;
+
+    int registered;
+    synchronized (InvocationMetrics.class) {
+      registered = callCount;
+    }
+
+    ascii("{\"_aws\":{\"Timestamp\":");
+    number(System.currentTimeMillis());
+    ascii(",\"CloudWatchMetrics\":[{\"Namespace\":\"");
+    bytes(namespace);
+    ascii("\",\"Dimensions\":[[\"Service\"],[\"Service\",\"ColdStart\"]],\"Metrics\":[");
+    ascii("{\"Name\":\"Duration\",\"Unit\":\"Milliseconds\"}");
+    for (int slot = 0; slot < registered; slot++) {
+      if (calls.get(slot) > 0) {
+        ascii(",");
+        bytes(callMetricNames[slot]);
+      }
+    }
+    ascii("]}]},\"Service\":");
+    string(service);
+    ascii(",\"ColdStart\":");
+    ascii(coldStart ? "\"true\"" : "\"false\"");
+    ascii(",\"RequestId\":");
+    string(requestId);
+    ascii(",\"Method\":");
+    string(method);
+    ascii(",\"Path\":");
+    string(path);
+    ascii(",\"Status\":");
+    number(status);
+    ascii(",\"Duration\":");
+    millis(durationNanos);
+    for (int slot = 0; slot < registered; slot++) {
+      long count = calls.get(slot);
+      if (count > 0) {
+        String name = callNames[slot];
+        ascii(",\"");
+        ascii(name);
+        ascii(".calls\":");
+        number(count);
+        ascii(",\"");
+        ascii(name);
+        ascii(".millis\":");
+        millis(callNanos.get(slot));
+        ascii(",\"");
+        ascii(name);
+        ascii(".errors\":");
+        number(callErrors.get(slot));
+      }
+    }
+    ascii("}\n");
+
+    PrintStream out = System.out;
+    out.write(buffer, 0, length);
+    out.flush();
+  }
+
+  private void ascii(String value) {
+    ensure(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      buffer[length++] = (byte) value.charAt(i);
+    }
+  }
+
+  private void bytes(byte[] value) {
+    ensure(value.length);
+    System.arraycopy(value, 0, buffer, length, value.length);
+    length += value.length;
+  }
+
+  /** A JSON string; anything outside printable ASCII is escaped, so it stays one byte per char */
+  private void string(String value) {
+    if (value == null) {
+      ascii("null");
+      return;
+    }
+    ensure(value.length() * 6 + 2);
+    buffer[length++] = '"';
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer[length++] = '\\';
+        buffer[length++] = (byte) c;
+      } else if (c < 0x20 || c > 0x7e) {
+        buffer[length++] = '\\';
+        buffer[length++] = 'u';
+        for (int shift = 12; shift >= 0; shift -= 4) {
+          buffer[length++] = (byte) Character.forDigit((c >> shift) & 0xf, 16);
+        }
+      } else {
+        buffer[length++] = (byte) c;
+      }
+    }
+    buffer[length++] = '"';
+  }
+
+  private void number(long value) {
+    ensure(20);
+    if (value < 0) {
+      buffer[length++] = '-';
+      value = -value;
+    }
+    int end = length + digits(value);
+    for (int i = end - 1; i >= length; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    length = end;
+  }
+
+  /** Milliseconds with three decimals */
+  private void millis(long nanos) {
+    long micros = nanos / 1_000;
+    number(micros / 1_000);
+    ensure(4);
+    long fraction = micros % 1_000;
+    buffer[length++] = '.';
+    buffer[length++] = (byte) ('0' + fraction / 100);
+    buffer[length++] = (byte) ('0' + fraction / 10 % 10);
+    buffer[length++] = (byte) ('0' + fraction % 10);
+  }
+
+  private static int digits(long value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private void ensure(int bytes) {
+    if (length + bytes > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+    }
+  }
+}
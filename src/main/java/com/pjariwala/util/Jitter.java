@@ -0,0 +1,28 @@
+package com.pjariwala.util;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Random jitter for retry backoff.
+ *
+ * <p>{@code ThreadLocalRandom} seeds new threads from a counter that is part of a SnapStart
+ * snapshot, so every environment restored from the same snapshot would draw the same delays and
+ * retry in lockstep. This generator is reseeded from {@link SecureRandom} after each restore.
+ */
+public final class Jitter {
+
+  private static final Random RANDOM = new Random();
+
+  private Jitter() {}
+
+  /** A random delay in {@code [0, boundMillis)} */
+  public static long upTo(long boundMillis) {
+    return boundMillis <= 0 ? 0 : (RANDOM.nextLong() & Long.MAX_VALUE) % boundMillis;
+  }
+
+  /** Start a new random sequence; called after a restore */
+  public static void reseed() {
+    RANDOM.setSeed(new SecureRandom().nextLong());
+  }
+}
@@ -0,0 +1,46 @@
+package com.pjariwala.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Where {@link JwksKeyStore} gets its JSON Web Key Set from. In production this is the Cognito user
+ * pool's {@code /.well-known/jwks.json}; tests and local runs can point it at a file or a stub
+ * server instead.
+ */
+@FunctionalInterface
+public interface JwksKeySource {
+
+  /** Fetch the raw JWKS document */
+  byte[] fetch() throws IOException;
+
+  /** Source for an {@code https://}, {@code http://} or {@code file:} URI */
+  static JwksKeySource fromUri(URI uri, Duration timeout) {
+    if ("file".equalsIgnoreCase(uri.getScheme())) {
+      Path path = Path.of(uri);
+      return () -> Files.readAllBytes(path);
+    }
+
+    HttpClient httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+    return () -> {
+      try {
+        HttpResponse<byte[]> response =
+            httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+          throw new IOException("JWKS endpoint returned HTTP " + response.statusCode());
+        }
+        return response.body();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while fetching JWKS", e);
+      }
+    };
+  }
+}
@@ -0,0 +1,199 @@
+package com.pjariwala.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the user pool's RSA signing keys, keyed by {@code kid}.
+ *
+ * <p>Lookups of known keys are a plain read of an immutable map and never touch the network. The
+ * key set is refreshed ahead of time on a background thread. A token signed with an unknown {@code
+ * kid} (e.g. right after Cognito rotates keys) triggers one refetch that concurrent callers share;
+ * further unknown-kid refetches are suppressed for a cooldown period so that garbage tokens cannot
+ * turn into a stream of JWKS requests.
+ */
+@Slf4j
+public class JwksKeyStore implements AutoCloseable {
+
+  private static final Duration RETRY_AFTER_FAILURE = Duration.ofSeconds(30);
+
+  private final JwksKeySource source;
+  private final Duration refreshInterval;
+  private final Duration unknownKidCooldown;
+  private final Duration fetchWait;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ScheduledExecutorService scheduler;
+
+  private volatile Map<String, PublicKey> keys = Map.of();
+  private final AtomicReference<CompletableFuture<Void>> inFlight = new AtomicReference<>();
+  private final AtomicReference<UnknownKidRefresh> lastUnknownKidRefresh = new AtomicReference<>();
+  private final AtomicLong fetchCount = new AtomicLong();
+
+  public JwksKeyStore(
+      JwksKeySource source,
+      Duration refreshInterval,
+      Duration unknownKidCooldown,
+      Duration fetchWait) {
+    this.source = source;
+    this.refreshInterval = refreshInterval;
+    this.unknownKidCooldown = unknownKidCooldown;
+    this.fetchWait = fetchWait;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "jwks-refresh");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Load the key set in the background and keep it refreshed */
+  public void start() {
+    scheduleRefresh(Duration.ZERO);
+  }
+
+  /**
+   * Public key for a {@code kid}. Known keys are returned immediately; an unknown kid waits (at
+   * most the configured fetch wait) for a shared refetch, unless one ran within the cooldown.
+   *
+   * @return the key, or {@code null} if the kid is not in the key set
+   */
+  public PublicKey getKey(String kid) {
+    PublicKey key = keys.get(kid);
+    if (key != null) {
+      return key;
+    }
+
+    CompletableFuture<Void> refresh = unknownKidRefresh(kid);
+    try {
+      refresh.get(fetchWait.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (TimeoutException e) {
+      log.warn("Timed out waiting for JWKS refetch for kid: {}", kid);
+    } catch (Exception e) {
+      log.warn("JWKS refetch failed for kid: {}", kid, e);
+    }
+    return keys.get(kid);
+  }
+
+  /**
+   * The refetch an unknown kid should wait on: the one started within the cooldown if there is one
+   * (already complete once it has finished), otherwise a new one. Concurrent callers all end up
+   * with the same future.
+   */
+  private CompletableFuture<Void> unknownKidRefresh(String kid) {
+    while (true) {
+      UnknownKidRefresh current = lastUnknownKidRefresh.get();
+      long now = System.nanoTime();
+      if (current != null && now - current.startedAt() < unknownKidCooldown.toNanos()) {
+        log.debug("Unknown JWKS kid: {} (sharing refetch started within cooldown)", kid);
+        return current.done();
+      }
+      UnknownKidRefresh next = new UnknownKidRefresh(now, new CompletableFuture<>());
+      if (lastUnknownKidRefresh.compareAndSet(current, next)) {
+        log.info("Unknown JWKS kid: {}, refetching key set", kid);
+        refreshAsync()
+            .whenComplete(
+                (ignored, error) -> {
+                  if (error == null) {
+                    next.done().complete(null);
+                  } else {
+                    next.done().completeExceptionally(error);
+                  }
+                });
+        return next.done();
+      }
+    }
+  }
+
+  private record UnknownKidRefresh(long startedAt, CompletableFuture<Void> done) {}
+
+  /** Number of JWKS fetches made so far */
+  public long getFetchCount() {
+    return fetchCount.get();
+  }
+
+  /** Start a refresh unless one is already running; callers share the same future */
+  CompletableFuture<Void> refreshAsync() {
+    while (true) {
+      CompletableFuture<Void> current = inFlight.get();
+      if (current != null) {
+        return current;
+      }
+      CompletableFuture<Void> refresh = new CompletableFuture<>();
+      if (inFlight.compareAndSet(null, refresh)) {
+        scheduler.execute(() -> runRefresh(refresh));
+        return refresh;
+      }
+    }
+  }
+
+  private void runRefresh(CompletableFuture<Void> refresh) {
+    try {
+      keys = parse(source.fetch());
+      fetchCount.incrementAndGet();
+      log.info("Loaded {} JWKS signing keys", keys.size());
+      inFlight.compareAndSet(refresh, null);
+      refresh.complete(null);
+    } catch (Exception e) {
+      fetchCount.incrementAndGet();
+      log.warn("Failed to load JWKS signing keys: {}", e.getMessage());
+      inFlight.compareAndSet(refresh, null);
+      refresh.completeExceptionally(e);
+    }
+  }
+
+  private void scheduleRefresh(Duration delay) {
+    scheduler.schedule(
+        () ->
+            refreshAsync()
+                .whenComplete(
+                    (ignored, error) ->
+                        scheduleRefresh(error == null ? refreshInterval : RETRY_AFTER_FAILURE)),
+        delay.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  private Map<String, PublicKey> parse(byte[] jwks) throws Exception {
+    JsonNode keyNodes = objectMapper.readTree(jwks).get("keys");
+    if (keyNodes == null || !keyNodes.isArray()) {
+      throw new IllegalArgumentException("JWKS document has no keys array");
+    }
+
+    KeyFactory factory = KeyFactory.getInstance("RSA");
+    Map<String, PublicKey> parsed = new HashMap<>();
+    for (JsonNode key : keyNodes) {
+      if (!"RSA".equals(key.path("kty").asText())
+          || key.hasNonNull("use") && !"sig".equals(key.get("use").asText())) {
+        continue;
+      }
+      BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(key.get("n").asText()));
+      BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(key.get("e").asText()));
+      parsed.put(
+          key.get("kid").asText(), factory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+    }
+    return Map.copyOf(parsed);
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
@@ -1,22 +1,27 @@
 package com.pjariwala.util;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.math.BigInteger;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.security.KeyFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.spec.RSAPublicKeySpec;
-import java.util.Base64;
+import java.security.Signature;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
+@Slf4j
 public class JwtUtil {
 
   @Value("${aws.cognito.userPoolId}")
@@ -25,196 +30,263 @@ public class JwtUtil {
   @Value("${aws.region:us-east-1}")
   private String awsRegion;
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
-  private Map<String, PublicKey> jwksKeys = new HashMap<>();
-
-  /** Extract user ID (sub) from JWT token */
-  public String getUserIdFromToken(String token) {
-    try {
-      // Decode JWT payload without validation (for development)
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
-        throw new RuntimeException("Invalid JWT token format");
-      }
-
-      Base64.Decoder decoder = Base64.getUrlDecoder();
-      String payload = new String(decoder.decode(chunks[1]));
-
-      JsonNode jsonNode = objectMapper.readTree(payload);
-      return jsonNode.get("sub").asText();
+  @Value("${aws.cognito.clientId}")
+  private String clientId;
+
+  /** Defaults to the user pool's well-known JWKS URL; may be a file: URI for local runs */
+  @Value("${aws.cognito.jwks.uri:}")
+  private String jwksUri;
+
+  @Value("${aws.cognito.jwks.refreshInterval:PT6H}")
+  private Duration jwksRefreshInterval;
+
+  @Value("${aws.cognito.jwks.unknownKidCooldown:PT1M}")
+  private Duration jwksUnknownKidCooldown;
+
+  @Value("${aws.cognito.jwks.fetchTimeout:PT2S}")
+  private Duration jwksFetchTimeout;
+
+  @Value("${aws.cognito.jwt.clockSkew:PT1M}")
+  private Duration clockSkew;
+
+  /** Idle verifiers and digests kept for reuse; more are created on demand under load */
+  private static final int MAX_POOLED = 64;
+
+  private final Pool<Signature> signatures = new Pool<>(JwtUtil::newVerifier);
+  private final Pool<MessageDigest> digests = new Pool<>(JwtUtil::newDigest);
+
+  @Value("${aws.cognito.jwt.decodedCacheSize:1024}")
+  private int decodedCacheSize;
+
+  private String issuer;
+  private BoundedLruCache<TokenDigest, DecodedToken> decodedTokens;
+  private JwksKeyStore jwksKeyStore;
+
+  @PostConstruct
+  void init() {
+    issuer = String.format("https://cognito-idp.%s.amazonaws.com/%s", awsRegion, userPoolId);
+    decodedTokens = new BoundedLruCache<>(decodedCacheSize);
+    URI uri =
+        URI.create(
+            jwksUri == null || jwksUri.isEmpty() ? issuer + "/.well-known/jwks.json" : jwksUri);
+    log.info("Initializing JWKS key store from: {}", uri);
+    jwksKeyStore =
+        new JwksKeyStore(
+            JwksKeySource.fromUri(uri, jwksFetchTimeout),
+            jwksRefreshInterval,
+            jwksUnknownKidCooldown,
+            jwksFetchTimeout);
+    jwksKeyStore.start();
+  }
 
-    } catch (Exception e) {
-      throw new RuntimeException("Error extracting user ID from token: " + e.getMessage(), e);
+  @PreDestroy
+  void shutdown() {
+    if (jwksKeyStore != null) {
+      jwksKeyStore.close();
     }
   }
 
-  /** Extract email from JWT token */
-  public String getEmailFromToken(String token) {
+  /**
+   * Decode a token once. Results are cached per container by SHA-256 of the token, so repeated
+   * claim lookups within a request, and hot tokens across requests, skip parsing (and, once
+   * verified, the signature check).
+   *
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public DecodedToken decode(String token) {
+    byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+    MessageDigest sha256 = digests.borrow();
+    TokenDigest digest;
     try {
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
-        throw new RuntimeException("Invalid JWT token format");
-      }
-
-      Base64.Decoder decoder = Base64.getUrlDecoder();
-      String payload = new String(decoder.decode(chunks[1]));
+      digest = TokenDigest.of(sha256.digest(bytes));
+    } finally {
+      digests.release(sha256);
+    }
+    DecodedToken decoded = decodedTokens.get(digest);
+    if (decoded == null) {
+      decoded = DecodedToken.parse(bytes);
+      decodedTokens.put(digest, decoded);
+    }
+    return decoded;
+  }
 
-      JsonNode jsonNode = objectMapper.readTree(payload);
-      return jsonNode.get("email").asText();
+  /** Extract user ID (sub) from JWT token */
+  public String getUserIdFromToken(String token) {
+    return requireClaim(token, DecodedToken::getSub, "user ID", "sub");
+  }
 
-    } catch (Exception e) {
-      throw new RuntimeException("Error extracting email from token: " + e.getMessage(), e);
-    }
+  /** Extract email from JWT token */
+  public String getEmailFromToken(String token) {
+    return requireClaim(token, DecodedToken::getEmail, "email", "email");
   }
 
   /** Extract user type from JWT token */
   public String getUserTypeFromToken(String token) {
-    try {
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
-        throw new RuntimeException("Invalid JWT token format");
-      }
-
-      Base64.Decoder decoder = Base64.getUrlDecoder();
-      String payload = new String(decoder.decode(chunks[1]));
-
-      JsonNode jsonNode = objectMapper.readTree(payload);
-      return jsonNode.get("custom:user_type").asText();
-
-    } catch (Exception e) {
-      throw new RuntimeException("Error extracting user type from token: " + e.getMessage(), e);
-    }
+    return requireClaim(token, DecodedToken::getUserType, "user type", "custom:user_type");
   }
 
   /** Check if token is expired (basic check without signature validation) */
   public boolean isTokenExpired(String token) {
     try {
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
-        throw new RuntimeException("Invalid JWT token format");
-      }
-
-      Base64.Decoder decoder = Base64.getUrlDecoder();
-      String payload = new String(decoder.decode(chunks[1]));
-
-      JsonNode jsonNode = objectMapper.readTree(payload);
-      long exp = jsonNode.get("exp").asLong();
-      long currentTime = System.currentTimeMillis() / 1000;
-
-      return currentTime > exp;
-
+      return decode(token).isExpired(System.currentTimeMillis() / 1000);
     } catch (Exception e) {
       return true; // Consider expired if we can't parse
     }
   }
 
   /**
-   * Validate JWT token signature (simplified version) In production with API Gateway, this
-   * validation is done by API Gateway itself
+   * Verify a Cognito-issued token locally: RS256 signature against the user pool's JWKS keys,
+   * issuer, token_use, audience/client_id and expiry. Signing keys are cached in memory, so the
+   * common path does not touch the network.
    */
   public boolean validateToken(String token) {
     try {
-      // Basic format validation
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
+      DecodedToken decoded = decode(token);
+      if (!"RS256".equals(decoded.getAlg())) {
+        log.debug("Token rejected: unsupported alg {}", decoded.getAlg());
         return false;
       }
 
-      // Check if token is expired
-      if (isTokenExpired(token)) {
+      PublicKey publicKey = jwksKeyStore.getKey(decoded.getKid());
+      if (publicKey == null) {
+        log.debug("Token rejected: unknown signing key {}", decoded.getKid());
         return false;
       }
 
-      // In a real implementation, you would:
-      // 1. Download JWKS from Cognito
-      // 2. Verify the signature using the appropriate public key
-      // 3. Validate issuer, audience, and other claims
-
-      // For now, we'll do basic validation
-      return true;
+      Signature verifier = signatures.borrow();
+      boolean verified;
+      try {
+        verified = decoded.verifySignature(verifier, publicKey);
+      } finally {
+        signatures.release(verifier);
+      }
+      if (!verified) {
+        log.debug("Token rejected: bad signature");
+        return false;
+      }
+      return validateClaims(decoded);
 
     } catch (Exception e) {
+      log.debug("Token rejected: {}", e.getMessage());
       return false;
     }
   }
 
-  /** Extract all claims from token */
-  public Map<String, Object> getClaimsFromToken(String token) {
-    try {
-      String[] chunks = token.split("\\.");
-      if (chunks.length != 3) {
-        throw new RuntimeException("Invalid JWT token format");
-      }
-
-      Base64.Decoder decoder = Base64.getUrlDecoder();
-      String payload = new String(decoder.decode(chunks[1]));
-
-      JsonNode jsonNode = objectMapper.readTree(payload);
-      Map<String, Object> claims = new HashMap<>();
+  private boolean validateClaims(DecodedToken claims) {
+    if (!issuer.equals(claims.getIss())) {
+      log.debug("Token rejected: wrong issuer {}", claims.getIss());
+      return false;
+    }
 
-      jsonNode
-          .fields()
-          .forEachRemaining(
-              entry -> {
-                claims.put(entry.getKey(), entry.getValue().asText());
-              });
+    String tokenUse = claims.getTokenUse();
+    String audience =
+        switch (tokenUse == null ? "" : tokenUse) {
+          case "access" -> claims.getClientId();
+          case "id" -> claims.getAud();
+          default -> null;
+        };
+    if (!clientId.equals(audience)) {
+      log.debug("Token rejected: token_use {} not issued for this client", tokenUse);
+      return false;
+    }
 
-      return claims;
+    long now = System.currentTimeMillis() / 1000;
+    long skew = clockSkew.toSeconds();
+    if (claims.getExp() == null || now > claims.getExp() + skew) {
+      log.debug("Token rejected: expired");
+      return false;
+    }
+    if (claims.getNbf() != null && now + skew < claims.getNbf()) {
+      log.debug("Token rejected: not yet valid");
+      return false;
+    }
+    return true;
+  }
 
+  /** Extract all claims from token */
+  public Map<String, Object> getClaimsFromToken(String token) {
+    try {
+      return new HashMap<>(decode(token).getClaims());
     } catch (Exception e) {
       throw new RuntimeException("Error extracting claims from token: " + e.getMessage(), e);
     }
   }
 
+  private String requireClaim(
+      String token, Function<DecodedToken, String> claim, String description, String name) {
+    String value;
+    try {
+      value = claim.apply(decode(token));
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Error extracting " + description + " from token: " + e.getMessage(), e);
+    }
+    if (value == null) {
+      throw new RuntimeException(
+          "Error extracting " + description + " from token: missing " + name + " claim");
+    }
+    return value;
+  }
+
+  /** Cache key: the token's SHA-256, so cached entries do not retain the bearer token itself */
+  private record TokenDigest(long a, long b, long c, long d) {
+    static TokenDigest of(byte[] sha256) {
+      ByteBuffer buffer = ByteBuffer.wrap(sha256);
+      return new TokenDigest(
+          buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+  }
+
   /** Get the Cognito User Pool issuer URL */
   public String getCognitoIssuer() {
-    return String.format("https://cognito-idp.%s.amazonaws.com/%s", awsRegion, userPoolId);
+    return issuer;
   }
 
-  /** Download and cache JWKS keys from Cognito (for future implementation) */
-  private void loadJwksKeys() {
+  private static Signature newVerifier() {
     try {
-      String jwksUrl = getCognitoIssuer() + "/.well-known/jwks.json";
-
-      URL url = new URL(jwksUrl);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod("GET");
-
-      BufferedReader reader =
-          new BufferedReader(new InputStreamReader(connection.getInputStream()));
-      StringBuilder response = new StringBuilder();
-      String line;
-
-      while ((line = reader.readLine()) != null) {
-        response.append(line);
-      }
-      reader.close();
-
-      // Parse JWKS and extract public keys
-      JsonNode jwks = objectMapper.readTree(response.toString());
-      JsonNode keys = jwks.get("keys");
-
-      for (JsonNode key : keys) {
-        String kid = key.get("kid").asText();
-        String n = key.get("n").asText();
-        String e = key.get("e").asText();
+      return Signature.getInstance("SHA256withRSA");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 
-        // Convert to PublicKey
-        byte[] nBytes = Base64.getUrlDecoder().decode(n);
-        byte[] eBytes = Base64.getUrlDecoder().decode(e);
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
 
-        BigInteger modulus = new BigInteger(1, nBytes);
-        BigInteger exponent = new BigInteger(1, eBytes);
+  /**
+   * Lock-free pool of stateful JCA engines, each used by one caller at a time. Unlike a {@code
+   * ThreadLocal} it is not thread-bound, so it still reuses engines on virtual threads, where each
+   * request runs on a new thread.
+   */
+  private static final class Pool<T> {
+    private final Supplier<T> factory;
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
 
-        RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
-        KeyFactory factory = KeyFactory.getInstance("RSA");
-        PublicKey publicKey = factory.generatePublic(spec);
+    Pool(Supplier<T> factory) {
+      this.factory = factory;
+    }
 
-        jwksKeys.put(kid, publicKey);
+    T borrow() {
+      T engine = idle.poll();
+      if (engine != null) {
+        idleCount.decrementAndGet();
+        return engine;
       }
+      return factory.get();
+    }
 
-    } catch (Exception e) {
-      System.err.println("Error loading JWKS keys: " + e.getMessage());
+    void release(T engine) {
+      if (idleCount.incrementAndGet() <= MAX_POOLED) {
+        idle.offer(engine);
+      } else {
+        idleCount.decrementAndGet();
+      }
     }
   }
 }
@@ -0,0 +1,44 @@
+package com.pjariwala.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one occurrence per key and interval through to the log and counts the ones it holds back, so
+ * a burst of the same event costs one log line per interval instead of one per event.
+ */
+public class LogSampler {
+
+  private final long intervalNanos;
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+  private static final class Window {
+    private final AtomicLong nextAt;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private Window(long now) {
+      nextAt = new AtomicLong(now);
+    }
+  }
+
+  public LogSampler(Duration interval) {
+    this.intervalNanos = interval.toNanos();
+  }
+
+  /**
+   * Whether to log this occurrence of {@code key}: -1 if not, otherwise the number of occurrences
+   * held back since the last one that was logged.
+   */
+  public long sample(String key) {
+    long now = System.nanoTime();
+    Window window = windows.computeIfAbsent(key, k -> new Window(now));
+    long nextAt = window.nextAt.get();
+    if (now - nextAt >= 0 && window.nextAt.compareAndSet(nextAt, now + intervalNanos)) {
+      return window.suppressed.getAndSet(0);
+    }
+    window.suppressed.incrementAndGet();
+    return -1;
+  }
+}
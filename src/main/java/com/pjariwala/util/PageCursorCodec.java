@@ -0,0 +1,147 @@
+package com.pjariwala.util;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opaque pagination cursors: a DynamoDB {@code LastEvaluatedKey} serialized as JSON, Base64url
+ * encoded and signed with HMAC-SHA256.
+ *
+ * <p>The signature also covers a caller-chosen scope (e.g. the query being paged), so a cursor
+ * cannot be edited to start at an arbitrary key, nor replayed against a different query. Only
+ * string and number key attributes are supported, which covers every key of the users table.
+ */
+@Component
+public class PageCursorCodec {
+
+  private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_LENGTH = 16;
+  private static final byte[] KEY_CONTEXT =
+      "pjariwala/page-cursor/v1".getBytes(StandardCharsets.UTF_8);
+  private static final TypeReference<LinkedHashMap<String, Map<String, String>>> KEY_TYPE =
+      new TypeReference<>() {};
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  // Defaults to the Cognito client secret; the signing key is derived from it, never used as is
+  @Value("${app.pagination.cursorSecret:${aws.cognito.clientSecret}}")
+  private String cursorSecret;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private Mac prototype;
+
+  @PostConstruct
+  public void init() {
+    try {
+      Mac derive = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+      derive.init(
+          new SecretKeySpec(cursorSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+      byte[] key = derive.doFinal(KEY_CONTEXT);
+      prototype = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+      prototype.init(new SecretKeySpec(key, HMAC_SHA256_ALGORITHM));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot initialize " + HMAC_SHA256_ALGORITHM, e);
+    }
+  }
+
+  /** Cursor for the page after {@code lastEvaluatedKey}, or null when there is no next page */
+  public String encode(String scope, Map<String, AttributeValue> lastEvaluatedKey) {
+    if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+      return null;
+    }
+
+    Map<String, Map<String, String>> key = new LinkedHashMap<>();
+    for (Map.Entry<String, AttributeValue> attribute : lastEvaluatedKey.entrySet()) {
+      AttributeValue value = attribute.getValue();
+      if (value.getS() != null) {
+        key.put(attribute.getKey(), Map.of("S", value.getS()));
+      } else if (value.getN() != null) {
+        key.put(attribute.getKey(), Map.of("N", value.getN()));
+      } else {
+        throw new IllegalArgumentException("Unsupported key attribute type: " + attribute.getKey());
+      }
+    }
+
+    byte[] payload;
+    try {
+      payload = objectMapper.writeValueAsBytes(key);
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot serialize page cursor", e);
+    }
+    return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(scope, payload));
+  }
+
+  /**
+   * The {@code ExclusiveStartKey} a cursor stands for, or null for a blank cursor (the first page).
+   *
+   * @throws IllegalArgumentException if the cursor is malformed, was tampered with or was issued
+   *     for a different scope
+   */
+  public Map<String, AttributeValue> decode(String scope, String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+
+    int dot = cursor.indexOf('.');
+    if (dot <= 0 || dot != cursor.lastIndexOf('.')) {
+      throw new IllegalArgumentException("Malformed page cursor");
+    }
+    byte[] payload;
+    byte[] signature;
+    try {
+      payload = DECODER.decode(cursor.substring(0, dot));
+      signature = DECODER.decode(cursor.substring(dot + 1));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed page cursor", e);
+    }
+    if (!MessageDigest.isEqual(signature, sign(scope, payload))) {
+      throw new IllegalArgumentException("Page cursor signature does not match");
+    }
+
+    Map<String, Map<String, String>> key;
+    try {
+      key = objectMapper.readValue(payload, KEY_TYPE);
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Malformed page cursor", e);
+    }
+    Map<String, AttributeValue> exclusiveStartKey = new LinkedHashMap<>();
+    for (Map.Entry<String, Map<String, String>> attribute : key.entrySet()) {
+      Map<String, String> value = attribute.getValue();
+      if (value.containsKey("S")) {
+        exclusiveStartKey.put(attribute.getKey(), new AttributeValue().withS(value.get("S")));
+      } else if (value.containsKey("N")) {
+        exclusiveStartKey.put(attribute.getKey(), new AttributeValue().withN(value.get("N")));
+      } else {
+        throw new IllegalArgumentException("Malformed page cursor");
+      }
+    }
+    return exclusiveStartKey;
+  }
+
+  /** Truncated HMAC over scope and payload; a NUL separates them so the split is unambiguous */
+  private byte[] sign(String scope, byte[] payload) {
+    Mac mac;
+    try {
+      mac = (Mac) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Cannot clone " + HMAC_SHA256_ALGORITHM, e);
+    }
+    mac.update(scope.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) 0);
+    return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_LENGTH);
+  }
+}
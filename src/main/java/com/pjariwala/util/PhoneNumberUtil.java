@@ -0,0 +1,90 @@
+package com.pjariwala.util;
+
+/**
+ * Normalizes user-entered phone numbers to E.164 (e.g. {@code +919876543210}) so that the value
+ * stored on {@code User} and the value used for lookups always match the same {@code
+ * phoneNumber-index} key.
+ */
+public final class PhoneNumberUtil {
+
+  private static final int MIN_DIGITS = 8;
+  private static final int MAX_DIGITS = 15;
+  private static final int NATIONAL_NUMBER_DIGITS = 10;
+
+  private PhoneNumberUtil() {}
+
+  /**
+   * Convert a phone number to E.164.
+   *
+   * <p>Spaces, dashes, dots and parentheses are ignored. A leading {@code 00} is treated as the
+   * international prefix. Numbers without a country code (optionally with a trunk {@code 0}) get
+   * {@code defaultCountryCode} prepended; longer numbers without {@code +} are accepted only if they
+   * already start with {@code defaultCountryCode}.
+   *
+   * @return the E.164 form, or {@code null} if the input cannot be a valid phone number
+   */
+  public static String toE164(String raw, String defaultCountryCode) {
+    if (raw == null) {
+      return null;
+    }
+    StringBuilder digits = new StringBuilder(raw.length());
+    boolean international = false;
+    for (int i = 0; i < raw.length(); i++) {
+      char c = raw.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits.append(c);
+      } else if (c == '+' && digits.length() == 0 && !international) {
+        international = true;
+      } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+        return null;
+      }
+    }
+
+    if (!international
+        && digits.length() > 2
+        && digits.charAt(0) == '0'
+        && digits.charAt(1) == '0') {
+      digits.delete(0, 2);
+      international = true;
+    }
+
+    if (!international) {
+      while (digits.length() > 0 && digits.charAt(0) == '0') {
+        digits.deleteCharAt(0);
+      }
+      if (defaultCountryCode == null || defaultCountryCode.isEmpty()) {
+        return null;
+      }
+      if (digits.length() <= NATIONAL_NUMBER_DIGITS) {
+        digits.insert(0, defaultCountryCode);
+      } else if (digits.indexOf(defaultCountryCode) != 0) {
+        // Too long for a national number, and not one of ours with the country code written
+        // without '+': prefixing would invent a number
+        return null;
+      }
+    }
+
+    if (digits.length() < MIN_DIGITS || digits.length() > MAX_DIGITS || digits.charAt(0) == '0') {
+      return null;
+    }
+    return digits.insert(0, '+').toString();
+  }
+
+  /** Whether the value is already in E.164 form. */
+  public static boolean isE164(String value) {
+    if (value == null
+        || value.length() < MIN_DIGITS + 1
+        || value.length() > MAX_DIGITS + 1
+        || value.charAt(0) != '+'
+        || value.charAt(1) == '0') {
+      return false;
+    }
+    for (int i = 1; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,174 @@
+package com.pjariwala.util;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cognito {@code SECRET_HASH}: Base64(HMAC-SHA256(clientSecret, username + clientId)).
+ *
+ * <p>The HMAC key is set up once; callers borrow a pre-initialized {@link Mac} (cloned from that
+ * prototype) together with its encode buffers from a lock-free pool, so nothing is looked up or
+ * allocated per call beyond the result. The pool is not thread-bound, which keeps it effective on
+ * virtual threads where a {@code ThreadLocal} would be created per request. Recent results are
+ * memoized per username.
+ */
+@Component
+public class SecretHashCalculator {
+
+  private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+
+  @Value("${aws.cognito.clientId}")
+  private String clientId;
+
+  @Value("${aws.cognito.clientSecret}")
+  private String clientSecret;
+
+  @Value("${aws.cognito.secretHash.cacheSize:1024}")
+  private int cacheSize;
+
+  @Value("${aws.cognito.secretHash.maxPooledMacs:64}")
+  private int maxPooledMacs;
+
+  private Mac prototype;
+  private byte[] clientIdBytes;
+  private BoundedLruCache<String, String> recentHashes;
+  private final ConcurrentLinkedQueue<Engine> pool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  @PostConstruct
+  public void init() {
+    try {
+      prototype = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+      prototype.init(
+          new SecretKeySpec(clientSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot initialize " + HMAC_SHA256_ALGORITHM, e);
+    }
+    clientIdBytes = clientId.getBytes(StandardCharsets.UTF_8);
+    recentHashes = new BoundedLruCache<>(cacheSize);
+  }
+
+  /** SECRET_HASH for a Cognito username */
+  public String calculate(String username) {
+    String hash = recentHashes.get(username);
+    if (hash != null) {
+      return hash;
+    }
+
+    Engine engine = borrow();
+    try {
+      hash = engine.hash(username, clientIdBytes);
+    } finally {
+      release(engine);
+    }
+    recentHashes.put(username, hash);
+    return hash;
+  }
+
+  /** Macs currently idle in the pool */
+  int pooledCount() {
+    return pooled.get();
+  }
+
+  private Engine borrow() {
+    Engine engine = pool.poll();
+    if (engine != null) {
+      pooled.decrementAndGet();
+      return engine;
+    }
+    return new Engine(newMac());
+  }
+
+  private void release(Engine engine) {
+    if (pooled.incrementAndGet() <= maxPooledMacs) {
+      pool.offer(engine);
+    } else {
+      pooled.decrementAndGet();
+    }
+  }
+
+  private Mac newMac() {
+    try {
+      // The prototype is only ever cloned, never updated, so this needs no lock
+      return (Mac) prototype.clone();
+    } catch (CloneNotSupportedException e) {
+      // Provider without clone support: initialize a fresh instance instead
+      try {
+        Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+        mac.init(
+            new SecretKeySpec(
+                clientSecret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+        return mac;
+      } catch (GeneralSecurityException ex) {
+        throw new IllegalStateException("Cannot initialize " + HMAC_SHA256_ALGORITHM, ex);
+      }
+    }
+  }
+
+  /** A keyed Mac plus the buffers it writes into; used by one caller at a time */
+  private static final class Engine {
+    private final Mac mac;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final byte[] digest;
+    private byte[] input = new byte[128];
+
+    Engine(Mac mac) {
+      this.mac = mac;
+      this.digest = new byte[mac.getMacLength()];
+    }
+
+    String hash(String username, byte[] clientIdBytes) {
+      int length = encode(username);
+      mac.update(input, 0, length);
+      mac.update(clientIdBytes);
+      try {
+        mac.doFinal(digest, 0);
+      } catch (GeneralSecurityException e) {
+        mac.reset();
+        throw new IllegalStateException("Error calculating secret hash", e);
+      }
+      return Base64.getEncoder().encodeToString(digest);
+    }
+
+    /** UTF-8 encode into {@link #input}, growing it if needed; returns the byte count */
+    private int encode(String value) {
+      CharBuffer chars = CharBuffer.wrap(value);
+      while (true) {
+        ByteBuffer bytes = ByteBuffer.wrap(input);
+        encoder.reset();
+        CoderResult result = encoder.encode(chars, bytes, true);
+        if (result.isUnderflow()) {
+          result = encoder.flush(bytes);
+        }
+        if (result.isOverflow()) {
+          input = Arrays.copyOf(input, input.length * 2);
+          chars.rewind();
+          continue;
+        }
+        if (result.isError()) {
+          // Unpaired surrogates: match String.getBytes, which substitutes them
+          byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+          if (encoded.length > input.length) {
+            input = new byte[encoded.length];
+          }
+          System.arraycopy(encoded, 0, input, 0, encoded.length);
+          return encoded.length;
+        }
+        return bytes.position();
+      }
+    }
+  }
+}
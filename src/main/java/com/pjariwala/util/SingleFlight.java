@@ -0,0 +1,78 @@
+package com.pjariwala.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the call, and callers that
+ * arrive while it is running wait on its {@link CompletableFuture} and get its result, or its
+ * exception, instead of making the call again. Nothing is kept once the call returns, so a later
+ * caller runs it afresh; this is not a cache.
+ *
+ * <p>Callers that joined get their result through {@code shareAs}, so a mutable result can be
+ * copied rather than handed to several threads at once.
+ */
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final UnaryOperator<V> shareAs;
+  private final AtomicLong shared = new AtomicLong();
+
+  public SingleFlight() {
+    this(UnaryOperator.identity());
+  }
+
+  public SingleFlight(UnaryOperator<V> shareAs) {
+    this.shareAs = shareAs;
+  }
+
+  /** Run {@code call}, or wait for the one already running for {@code key} */
+  public V execute(K key, Supplier<V> call) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+    if (running != null) {
+      shared.incrementAndGet();
+      return shareAs.apply(await(running));
+    }
+
+    try {
+      V value = call.get();
+      flight.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /** Calls answered by a call another caller was already running */
+  public long sharedCount() {
+    return shared.get();
+  }
+
+  /** Keys with a call running */
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  /** The running call's own exception, so joined callers handle it as the leader does */
+  private static <V> V await(CompletableFuture<V> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.pjariwala.util;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate per-key counts over a sliding window, in a fixed amount of memory however many
+ * distinct keys are seen: a count-min sketch of {@code depth} rows of {@code width} counters for
+ * the current window and one for the previous window. A key's count is the current window's count
+ * plus the previous window's, weighted by how much of the previous window still overlaps the
+ * sliding one.
+ *
+ * <p>Counters are updated with atomic increments; a new window replaces the older sketch with a
+ * fresh one. Attempts on one key are serialized by one of a few striped locks, so that concurrent
+ * attempts cannot each find a different row under the limit and be admitted past it together. An
+ * estimate is never below the true count; keys that share a counter in every row inflate each
+ * other's counts by about {@code e / width} of the occurrences in the window. Rejected occurrences
+ * are not counted, so traffic past the limit does not add to that error. Keys are hashed with
+ * random seeds, so the keys that collide cannot be chosen in advance.
+ */
+public class SlidingWindowSketch {
+
+  private final long windowNanos;
+  private final int width;
+  private final int depth;
+  private final long seed1;
+  private final long seed2;
+
+  private static final int LOCK_STRIPES = 64;
+
+  private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+  /** Sketches of the current and previous windows, at index {@code window % 2} */
+  private final AtomicReferenceArray<Counts> windows = new AtomicReferenceArray<>(2);
+
+  private record Counts(long window, AtomicIntegerArray counters) {}
+
+  public SlidingWindowSketch(Duration window, int width, int depth) {
+    this(window, width, depth, new SecureRandom());
+  }
+
+  SlidingWindowSketch(Duration window, int width, int depth, Random seeds) {
+    if (window.isZero() || window.isNegative() || width < 1 || depth < 1) {
+      throw new IllegalArgumentException("window, width and depth must be positive");
+    }
+    this.windowNanos = window.toNanos();
+    // A power of two, so a hash picks its counter with a mask
+    int rounded = Integer.highestOneBit(width);
+    this.width = rounded == width ? width : rounded << 1;
+    this.depth = depth;
+    this.seed1 = seeds.nextLong();
+    this.seed2 = seeds.nextLong() | 1;
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  /** Counters held, current and previous window together */
+  public long sizeBytes() {
+    return 2L * depth * width * Integer.BYTES;
+  }
+
+  /**
+   * Count one occurrence of {@code key} if that keeps its count over the sliding window within
+   * {@code limit}; otherwise count nothing and return false.
+   */
+  public boolean tryAcquire(String key, int limit) {
+    return tryAcquire(key, limit, System.nanoTime());
+  }
+
+  boolean tryAcquire(String key, int limit, long nowNanos) {
+    long window = Math.floorDiv(nowNanos, windowNanos);
+    AtomicIntegerArray current = counters(window);
+    AtomicIntegerArray previous = previousCounters(window);
+    double previousWeight =
+        previous == null ? 0 : 1 - (double) Math.floorMod(nowNanos, windowNanos) / windowNanos;
+
+    long h1 = hash(key, seed1);
+    long h2 = hash(key, seed2) | 1;
+    int[] cells = new int[depth];
+    // A ReentrantLock rather than a monitor: a virtual thread waiting for it does not pin its
+    // carrier
+    ReentrantLock lock = locks[(int) (h1 & (LOCK_STRIPES - 1))];
+    lock.lock();
+    try {
+      int estimate = Integer.MAX_VALUE;
+      for (int row = 0; row < depth; row++) {
+        int cell = row * width + ((int) ((h1 + row * h2) >>> 33) & (width - 1));
+        cells[row] = cell;
+        int count = current.incrementAndGet(cell);
+        if (previous != null) {
+          count += (int) (previous.get(cell) * previousWeight);
+        }
+        estimate = Math.min(estimate, count);
+      }
+      if (estimate <= limit) {
+        return true;
+      }
+      // Counts are sums, so taking this occurrence back out is exact
+      for (int cell : cells) {
+        current.decrementAndGet(cell);
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private AtomicIntegerArray counters(long window) {
+    int index = (int) Math.floorMod(window, 2L);
+    while (true) {
+      Counts counts = windows.get(index);
+      if (counts != null && counts.window() >= window) {
+        return counts.counters();
+      }
+      Counts fresh = new Counts(window, new AtomicIntegerArray(depth * width));
+      if (windows.compareAndSet(index, counts, fresh)) {
+        return fresh.counters();
+      }
+    }
+  }
+
+  private AtomicIntegerArray previousCounters(long window) {
+    Counts counts = windows.get((int) Math.floorMod(window - 1, 2L));
+    return counts != null && counts.window() == window - 1 ? counts.counters() : null;
+  }
+
+  /** Seeded 64-bit FNV-1a over the chars of the key, with a final avalanche */
+  private static long hash(String key, long seed) {
+    long h = seed ^ 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      h = (h ^ key.charAt(i)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+}
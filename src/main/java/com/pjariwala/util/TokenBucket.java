@@ -0,0 +1,44 @@
+package com.pjariwala.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe token bucket that paces calls to at most {@code permitsPerSecond}, with bursts of up
+ * to {@code burst} calls after an idle period.
+ *
+ * <p>{@link #acquire()} reserves the next free slot under the lock and then sleeps outside of it,
+ * so waiting callers are served in the order they arrived and never hold the lock while blocked.
+ */
+public class TokenBucket {
+
+  private final double capacity;
+  private final double nanosPerPermit;
+  private double available;
+  private long refilledAtNanos;
+
+  public TokenBucket(double permitsPerSecond, int burst) {
+    if (permitsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+    }
+    this.capacity = burst;
+    this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.available = burst;
+    this.refilledAtNanos = System.nanoTime();
+  }
+
+  /** Take one permit, waiting until it is available */
+  public void acquire() throws InterruptedException {
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      available = Math.min(capacity, available + (now - refilledAtNanos) / nanosPerPermit);
+      refilledAtNanos = now;
+      // A negative balance is a queue of reservations; each waits for its own slot
+      available -= 1;
+      waitNanos = available >= 0 ? 0 : (long) (-available * nanosPerPermit);
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.pjariwala.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.crac.Resource;
+import org.junit.jupiter.api.Test;
+
+public class RestorableAwsClientTest {
+
+  private final List<InMemoryDynamoDB> built = new ArrayList<>();
+  private final List<AmazonDynamoDB> closed = new ArrayList<>();
+
+  @Test
+  public void checkpoint_closesTheClientAndRestoreBuildsANewOne() throws Exception {
+    AmazonDynamoDB client = create();
+    Resource resource = (Resource) Proxy.getInvocationHandler(client);
+    client.getItem(get());
+    assertEquals(1, built.size());
+
+    resource.beforeCheckpoint(null);
+    assertEquals(List.of(built.get(0)), closed);
+
+    resource.afterRestore(null);
+    assertEquals(2, built.size());
+    client.getItem(get());
+    assertEquals(1, built.get(1).requestCount("GetItem"));
+  }
+
+  @Test
+  public void callsWithoutAClient_buildOneOnDemand() throws Exception {
+    AmazonDynamoDB client = create();
+    ((Resource) Proxy.getInvocationHandler(client)).beforeCheckpoint(null);
+
+    client.getItem(get());
+
+    assertEquals(2, built.size());
+    assertEquals(1, built.get(1).requestCount("GetItem"));
+  }
+
+  @Test
+  public void clientExceptions_areThrownUnwrapped() {
+    AmazonDynamoDB client = create();
+
+    // the fake table does not implement DescribeTable
+    assertThrows(UnsupportedOperationException.class, () -> client.describeTable("GCA_Users"));
+    assertEquals(client, client);
+    assertTrue(client.toString().contains("DynamoDB"));
+  }
+
+  private AmazonDynamoDB create() {
+    return RestorableAwsClient.create(
+        AmazonDynamoDB.class,
+        "DynamoDB",
+        () -> {
+          InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+          built.add(db);
+          return db;
+        },
+        closed::add);
+  }
+
+  private static GetItemRequest get() {
+    return new GetItemRequest(
+        "GCA_Users",
+        Map.of("userId", new AttributeValue("USER_1"), "userType", new AttributeValue("COACH")));
+  }
+}
@@ -0,0 +1,88 @@
+package com.pjariwala.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+public class StartupProfilerTest {
+
+  private static final long INIT_MILLIS = 40;
+  private static final long BUILD_MILLIS = 60;
+
+  @Test
+  public void nestedBeans_splitOwnTimeFromTheirDependencies() {
+    StartupProfiler profiler = start();
+
+    StartupProfiler.Timing slowInit = profiler.timing("slowInit");
+    assertTrue(millis(slowInit.initNanos()) >= INIT_MILLIS, "init: " + slowInit);
+
+    StartupProfiler.Timing client = profiler.timing("amazonDynamoDB");
+    assertTrue(millis(client.selfNanos()) >= BUILD_MILLIS, "client: " + client);
+
+    // The consumer's creation includes both dependencies; it does nothing itself
+    StartupProfiler.Timing consumer = profiler.timing("consumer");
+    assertTrue(millis(consumer.totalNanos()) >= INIT_MILLIS + BUILD_MILLIS, "total: " + consumer);
+    assertTrue(millis(consumer.selfNanos()) < INIT_MILLIS, "self: " + consumer);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void report_listsTheCalledOutAndSlowestBeans() {
+    StartupProfiler profiler = start();
+
+    Map<String, Object> report = profiler.report(1_500_000_000L, 250_000_000L);
+
+    assertEquals(1500.0, report.get("handlerInitMillis"));
+    assertEquals(250.0, report.get("firstInvocationMillis"));
+    List<Map<String, Object>> calledOut = (List<Map<String, Object>>) report.get("calledOut");
+    assertEquals(List.of("amazonDynamoDB"), calledOut.stream().map(b -> b.get("bean")).toList());
+    List<Map<String, Object>> slowest = (List<Map<String, Object>>) report.get("slowestBeans");
+    assertEquals("amazonDynamoDB", slowest.get(0).get("bean"));
+    assertEquals("slowInit", slowest.get(1).get("bean"));
+  }
+
+  private static StartupProfiler start() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.register(StartupProfiler.class, Beans.class);
+      context.refresh();
+      return context.getBean(StartupProfiler.class);
+    }
+  }
+
+  private static long millis(long nanos) {
+    return nanos / 1_000_000;
+  }
+
+  // Not a @Configuration: component scanning of the application would pick it up
+  static class Beans {
+
+    // Declared first, so its dependencies are created while it is
+    @Bean
+    String consumer(SlowInit slowInit, Object amazonDynamoDB) {
+      return "consumer";
+    }
+
+    @Bean
+    SlowInit slowInit() {
+      return new SlowInit();
+    }
+
+    @Bean
+    Object amazonDynamoDB() throws InterruptedException {
+      Thread.sleep(BUILD_MILLIS);
+      return new Object();
+    }
+  }
+
+  static class SlowInit {
+    @PostConstruct
+    void init() throws InterruptedException {
+      Thread.sleep(INIT_MILLIS);
+    }
+  }
+}
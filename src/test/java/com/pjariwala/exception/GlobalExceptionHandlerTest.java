@@ -0,0 +1,114 @@
+package com.pjariwala.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.pjariwala.dto.ErrorResponse;
+import com.pjariwala.support.TestFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+public class GlobalExceptionHandlerTest {
+
+  private static final HttpServletRequest LOGIN =
+      (HttpServletRequest)
+          Proxy.newProxyInstance(
+              HttpServletRequest.class.getClassLoader(),
+              new Class<?>[] {HttpServletRequest.class},
+              (proxy, method, args) ->
+                  "getRequestURI".equals(method.getName()) ? "/api/v1/auth/login" : null);
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final Logger logger = (Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class);
+  private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+  private GlobalExceptionHandler handler;
+
+  @BeforeEach
+  public void setUp() {
+    logged.start();
+    logger.addAppender(logged);
+    handler = TestFields.defaults(new GlobalExceptionHandler());
+    TestFields.set(handler, "meterRegistry", registry);
+    TestFields.set(handler, "clientErrorLogInterval", Duration.ofHours(1));
+    handler.init();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    logger.detachAppender(logged);
+  }
+
+  @Test
+  public void clientErrors_haveNoStackTrace_serverErrorsKeepIt() {
+    assertEquals(0, AuthException.invalidCredentials().getStackTrace().length);
+    assertEquals(0, UserException.userNotFound("USER_S_1").getStackTrace().length);
+    assertTrue(AuthException.invalidCredentials().isClientError());
+
+    AuthException fault = AuthException.cognitoError("Login failed", new IllegalStateException());
+    assertFalse(fault.isClientError());
+    assertTrue(fault.getStackTrace().length > 0);
+    assertTrue(UserException.databaseError("Failed", null).getStackTrace().length > 0);
+  }
+
+  @Test
+  public void failedLoginBurst_isCountedEveryTimeAndLoggedOnce() {
+    for (int i = 0; i < 1000; i++) {
+      ResponseEntity<ErrorResponse> response =
+          handler.handleAuthException(AuthException.invalidCredentials(), LOGIN);
+      assertEquals(401, response.getStatusCode().value());
+      assertEquals("INVALID_CREDENTIALS", response.getBody().getError());
+    }
+
+    assertEquals(
+        1000.0,
+        registry
+            .get("api.errors")
+            .tags("code", "INVALID_CREDENTIALS", "status", "401")
+            .counter()
+            .count());
+    List<ILoggingEvent> events = logged.list;
+    assertEquals(1, events.size());
+    assertEquals(Level.WARN, events.get(0).getLevel());
+    assertNull(events.get(0).getThrowableProxy());
+  }
+
+  @Test
+  public void serverErrors_areLoggedEveryTimeWithTheirTrace() {
+    for (int i = 0; i < 3; i++) {
+      handler.handleAuthException(
+          AuthException.cognitoError("Login failed", new IllegalStateException("down")), LOGIN);
+    }
+    handler.handleRuntimeException(new IllegalStateException("bug"), LOGIN);
+
+    assertEquals(4, logged.list.size());
+    for (ILoggingEvent event : logged.list) {
+      assertEquals(Level.ERROR, event.getLevel());
+      assertNotNull(event.getThrowableProxy());
+    }
+    assertEquals(3.0, registry.get("api.errors").tag("code", "COGNITO_ERROR").counter().count());
+    assertEquals(1.0, registry.get("api.errors").tag("code", "INTERNAL_ERROR").counter().count());
+  }
+
+  @Test
+  public void sampledLog_reportsHowManyWereHeldBack() {
+    TestFields.set(handler, "clientErrorLogInterval", Duration.ZERO);
+    handler.init();
+
+    handler.handleUserException(UserException.userNotFound("USER_S_1"), LOGIN);
+    handler.handleUserException(UserException.userNotFound("USER_S_2"), LOGIN);
+
+    assertEquals(2, logged.list.size());
+    assertEquals(0L, logged.list.get(1).getArgumentArray()[4]);
+  }
+}
@@ -0,0 +1,66 @@
+package com.pjariwala.job;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PhoneNumberBackfillJobTest {
+
+  private static final int ROWS = 1_050;
+
+  @TempDir Path tempDir;
+
+  @Test
+  public void run_killedMidway_resumesFromCheckpointAndNormalizesEveryRow() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    for (int i = 0; i < ROWS; i++) {
+      Map<String, AttributeValue> item = new HashMap<>();
+      item.put("userId", new AttributeValue(String.format("USER_%05d", i)));
+      item.put("userType", new AttributeValue("STUDENT"));
+      item.put("phoneNumber", new AttributeValue(String.format("98765 %05d", i)));
+      db.seed(item);
+    }
+    DynamoDBMapper mapper = new DynamoDBMapper(db);
+    Path checkpoint = tempDir.resolve("backfill.json");
+
+    PhoneNumberBackfillJob crashing =
+        new PhoneNumberBackfillJob(mapper, checkpoint, "91") {
+          private int processed;
+
+          @Override
+          protected boolean process(User user) {
+            if (++processed == 450) {
+              throw new IllegalStateException("simulated crash");
+            }
+            return super.process(user);
+          }
+        };
+    assertThrows(IllegalStateException.class, crashing::run);
+
+    db.resetCounters();
+    ResumableScanJob.Checkpoint result = new PhoneNumberBackfillJob(mapper, checkpoint, "91").run();
+
+    assertTrue(result.isComplete());
+    assertEquals(ROWS, result.getScanned());
+    // the first four pages were checkpointed before the crash and are not scanned again
+    assertEquals(ROWS - 400, db.itemsRead());
+    for (int i = 0; i < ROWS; i++) {
+      assertEquals(
+          String.format("+9198765%05d", i),
+          db.rawItem(String.format("USER_%05d", i), "STUDENT").get("phoneNumber").getS());
+    }
+
+    // a finished job does not scan again
+    db.resetCounters();
+    new PhoneNumberBackfillJob(mapper, checkpoint, "91").run();
+    assertEquals(0, db.requestCount("Scan"));
+  }
+}
@@ -0,0 +1,65 @@
+package com.pjariwala.job;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.UniqueIdentifier;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UniqueIdentifierBackfillJobTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  public void run_claimsTheIdentifiersOfExistingUsers_andKeepsTheFirstOwnerOfADuplicate() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    db.seed(user("USER_S_0000000000000001", "alice", "Alice@Example.com", "+919876500001"));
+    db.seed(user("USER_S_0000000000000002", "bob", "alice@example.com", null));
+    DynamoDBMapper mapper = new DynamoDBMapper(db);
+
+    ResumableScanJob.Checkpoint result =
+        new UniqueIdentifierBackfillJob(mapper, tempDir.resolve("guards.json")).run();
+
+    // Guards are not users: only the two rows are scanned as users
+    assertEquals(2, result.getScanned());
+    assertEquals(2 + 4, db.size());
+    assertEquals("USER_S_0000000000000001", owner(db, "USERNAME#alice"));
+    assertEquals("USER_S_0000000000000001", owner(db, "PHONE#+919876500001"));
+    assertEquals("USER_S_0000000000000002", owner(db, "USERNAME#bob"));
+    // Both rows use one email; whichever was scanned first holds it
+    assertNotNull(owner(db, "EMAIL#alice@example.com"));
+
+    // Running it again over a fresh checkpoint changes nothing
+    ResumableScanJob.Checkpoint again =
+        new UniqueIdentifierBackfillJob(mapper, tempDir.resolve("again.json")).run();
+    assertEquals(0, again.getUpdated());
+    assertEquals(2 + 4, db.size());
+  }
+
+  private static String owner(InMemoryDynamoDB db, String identifier) {
+    Map<String, AttributeValue> guard = db.rawItem(identifier, UniqueIdentifier.ITEM_TYPE);
+    return guard == null ? null : guard.get("ownerUserId").getS();
+  }
+
+  private static Map<String, AttributeValue> user(
+      String userId, String username, String email, String phoneNumber) {
+    Map<String, AttributeValue> item =
+        new HashMap<>(
+            Map.of(
+                "userId", new AttributeValue(userId),
+                "userType", new AttributeValue("STUDENT"),
+                "username", new AttributeValue(username),
+                "email", new AttributeValue(email)));
+    if (phoneNumber != null) {
+      item.put("phoneNumber", new AttributeValue(phoneNumber));
+    }
+    return item;
+  }
+}
@@ -0,0 +1,117 @@
+package com.pjariwala.job;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UserExportJobTest {
+
+  private static final int ROWS = 100_000;
+  private static final int SEGMENTS = 8;
+
+  @TempDir Path tempDir;
+
+  @Test
+  public void run_killedMidway_resumesPerSegmentAndExportsEveryRowOnce() throws Exception {
+    AtomicInteger scansUntilCrash = new AtomicInteger(Integer.MAX_VALUE);
+    InMemoryDynamoDB db =
+        new InMemoryDynamoDB(
+            new DynamoDBMapper(new AbstractAmazonDynamoDB() {})
+                .generateCreateTableRequest(User.class)) {
+          @Override
+          public ScanResult scan(ScanRequest request) {
+            if (scansUntilCrash.decrementAndGet() < 0) {
+              throw new IllegalStateException("simulated crash");
+            }
+            return super.scan(request);
+          }
+        };
+    for (int i = 0; i < ROWS; i++) {
+      Map<String, AttributeValue> item = new HashMap<>();
+      item.put("userId", new AttributeValue(String.format("USER_S_%016x", i)));
+      item.put("userType", new AttributeValue("STUDENT"));
+      item.put("username", new AttributeValue("student_" + i));
+      item.put("createdAt", new AttributeValue("2025-01-01T10:00:00"));
+      db.seed(item);
+    }
+    DynamoDBMapper mapper = new DynamoDBMapper(db);
+    Path output = tempDir.resolve("users.ndjson.gz");
+
+    scansUntilCrash.set(40);
+    assertThrows(
+        IllegalStateException.class, () -> new UserExportJob(mapper, output, SEGMENTS, 4).run());
+    assertFalse(Files.exists(output));
+
+    // A page that was being written when the process died, past the checkpointed offset
+    UserExportJob job = new UserExportJob(mapper, output, SEGMENTS, 4);
+    Files.write(
+        job.partFile(0), new byte[] {0x1f, (byte) 0x8b, 8, 0, 42}, StandardOpenOption.APPEND);
+
+    scansUntilCrash.set(Integer.MAX_VALUE);
+    db.resetCounters();
+    UserExportJob.Checkpoint result = job.run();
+
+    assertTrue(result.isComplete());
+    assertEquals(ROWS, result.getExported());
+    // pages checkpointed before the crash are not scanned again
+    assertTrue(db.itemsRead() < ROWS, "items read on resume: " + db.itemsRead());
+    for (int segment = 0; segment < SEGMENTS; segment++) {
+      assertFalse(Files.exists(job.partFile(segment)));
+    }
+
+    Set<String> userIds = new HashSet<>();
+    ObjectMapper objectMapper = new ObjectMapper();
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(output)), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        JsonNode row = objectMapper.readTree(line);
+        assertEquals("STUDENT", row.get("userType").asText());
+        assertEquals("2025-01-01T10:00:00", row.get("createdAt").asText());
+        assertTrue(userIds.add(row.get("userId").asText()), "duplicate row: " + line);
+      }
+    }
+    assertEquals(ROWS, userIds.size());
+
+    // a finished export does not scan again
+    db.resetCounters();
+    new UserExportJob(mapper, output, SEGMENTS, 4).run();
+    assertEquals(0, db.requestCount("Scan"));
+  }
+
+  @Test
+  public void run_resumeWithDifferentSegmentCount_isRejected() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    db.seed(
+        Map.of("userId", new AttributeValue("USER_1"), "userType", new AttributeValue("COACH")));
+    DynamoDBMapper mapper = new DynamoDBMapper(db);
+    Path output = tempDir.resolve("users.ndjson.gz");
+    new UserExportJob(mapper, output, 2, 2).run();
+
+    assertThrows(IllegalStateException.class, () -> new UserExportJob(mapper, output, 4, 2).run());
+  }
+}
@@ -0,0 +1,81 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.TestFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncUserServiceImplTest {
+
+  private static final int USERS = 64;
+  private static final long LATENCY_MILLIS = 50;
+
+  private InMemoryDynamoDB db;
+  private AsyncUserServiceImpl asyncUserService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    for (int i = 0; i < USERS; i++) {
+      db.seed(
+          Map.of(
+              "userId", new AttributeValue(userId(i)),
+              "userType", new AttributeValue("STUDENT"),
+              "username", new AttributeValue("student_" + i)));
+    }
+
+    UserServiceImpl userService = TestServices.userService(db, TestServices.identityCache(true));
+    asyncUserService = new AsyncUserServiceImpl();
+    TestFields.set(asyncUserService, "userService", userService);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    asyncUserService.shutdown();
+  }
+
+  @Test
+  public void lookups_returnAtOnceAndOverlap() {
+    db.setLatencyMillis(LATENCY_MILLIS);
+
+    long startedAt = System.nanoTime();
+    List<CompletableFuture<Optional<User>>> lookups = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      lookups.add(asyncUserService.getUserById(userId(i)));
+    }
+    long startMillis = (System.nanoTime() - startedAt) / 1_000_000;
+    for (int i = 0; i < USERS; i++) {
+      assertEquals("student_" + i, lookups.get(i).join().orElseThrow().getUsername());
+    }
+    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+    assertTrue(startMillis < LATENCY_MILLIS, "starting took: " + startMillis);
+    // 64 sequential round trips would take 3.2 s
+    assertTrue(elapsedMillis < 10 * LATENCY_MILLIS, "elapsed: " + elapsedMillis);
+  }
+
+  @Test
+  public void failures_completeWithTheServiceException() {
+    CompletableFuture<?> page = asyncUserService.getUsersByType("ADMIN", 10, null);
+
+    CompletionException e = assertThrows(CompletionException.class, page::join);
+    UserException cause = assertInstanceOf(UserException.class, e.getCause());
+    assertEquals("VALIDATION_ERROR", cause.getErrorCode());
+  }
+
+  private static String userId(int i) {
+    return String.format("USER_S_%016x", i);
+  }
+}
@@ -0,0 +1,265 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.cognitoidp.model.AWSCognitoIdentityProviderException;
+import com.amazonaws.services.cognitoidp.model.AdminConfirmSignUpRequest;
+import com.amazonaws.services.cognitoidp.model.AdminConfirmSignUpResult;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.pjariwala.dto.BulkSignupResponse;
+import com.pjariwala.dto.BulkSignupResult;
+import com.pjariwala.dto.SignupRequest;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import com.pjariwala.util.JwtUtil;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AuthServiceImplBulkSignupTest {
+
+  private static final String COACH_TOKEN = "coach-token";
+  private static final String STUDENT_TOKEN = "student-token";
+
+  private InMemoryDynamoDB db;
+  private StubCognito cognito;
+  private UserServiceImpl userService;
+  private AuthServiceImpl authService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    cognito = new StubCognito();
+
+    userService = TestServices.userService(db, TestServices.identityCache(true));
+    userService.createUser(user("USER_C_0000000000000001", "COACH", "coach"));
+    userService.createUser(user("USER_S_0000000000000001", "STUDENT", "existing"));
+
+    // Bulk signup relies on CognitoGuard to retry throttled calls
+    CognitoGuard guard = TestFields.defaults(new CognitoGuard());
+    TestFields.set(guard, "backoff", Duration.ofMillis(1));
+    guard.init();
+
+    authService = TestServices.authService(guard.wrap(cognito), userService);
+    TestFields.set(authService, "jwtUtil", tokens());
+    TestFields.set(authService, "bulkCognitoConcurrency", 4);
+    TestFields.set(authService, "bulkCognitoRatePerSecond", 200.0);
+    db.resetCounters();
+  }
+
+  @Test
+  public void bulkSignup_reportsEveryRowAndSavesInChunks() {
+    List<SignupRequest> rows = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      SignupRequest row = signup("student" + i);
+      row.setPhoneNumber(String.format("+9198765%05d", i));
+      rows.add(row);
+    }
+    rows.get(3).setPassword(null); // invalid
+    rows.get(5).setEmail(rows.get(4).getEmail()); // duplicate within the batch
+    rows.get(7).setEmail("existing@example.com"); // already in our table
+    cognito.seed("student9", "Password1!"); // already in Cognito only
+    cognito.injectThrottles(2);
+
+    long startedAt = System.nanoTime();
+    BulkSignupResponse response = authService.bulkSignup(COACH_TOKEN, rows);
+    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+    assertEquals(56, response.getCreated());
+    assertEquals(4, response.getFailed());
+    assertEquals(60, response.getResults().size());
+    for (int i = 0; i < 60; i++) {
+      assertEquals(i, response.getResults().get(i).getIndex());
+    }
+    assertFailed(response.getResults().get(3), "INVALID_PASSWORD");
+    assertFailed(response.getResults().get(5), "VALIDATION_ERROR");
+    assertFailed(response.getResults().get(7), "USER_EXISTS");
+    assertFailed(response.getResults().get(9), "USER_EXISTS");
+
+    BulkSignupResult created = response.getResults().get(0);
+    assertEquals("CREATED", created.getStatus());
+    User saved = userService.getUserById(created.getUserId()).orElseThrow();
+    assertEquals("student0", saved.getUsername());
+    assertEquals(StubCognito.sub("student0"), saved.getCognitoSub());
+    assertTrue(cognito.isConfirmed("student0"));
+    // each row with its guards: username and email for the seeded users, also phone for the new
+    assertEquals(2 * 3 + 56 * 4, db.size());
+
+    // no auto-login, bounded and paced Cognito calls, transactions of 25 users
+    assertEquals(0, cognito.requestCount("AdminInitiateAuth"));
+    assertEquals(56, cognito.requestCount("AdminConfirmSignUp"));
+    assertTrue(cognito.peakInFlight() <= 4, "peak: " + cognito.peakInFlight());
+    assertTrue(elapsedMillis >= 500, "elapsed: " + elapsedMillis);
+    assertEquals(3, db.requestCount("TransactWriteItems"));
+    assertEquals(0, db.requestCount("PutItem"));
+    // taken usernames and emails: 116 guard keys read in two batches; the only index query
+    // finds the coach
+    assertEquals(2, db.requestCount("BatchGetItem"));
+    assertEquals(1, db.requestCount("Query"));
+  }
+
+  @Test
+  public void bulkSignup_readsTheGuardsConsistently() {
+    List<Boolean> consistentReads = new ArrayList<>();
+    InMemoryDynamoDB recording =
+        new InMemoryDynamoDB(
+            new DynamoDBMapper(new AbstractAmazonDynamoDB() {})
+                .generateCreateTableRequest(User.class)) {
+          @Override
+          public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+            request
+                .getRequestItems()
+                .values()
+                .forEach(keys -> consistentReads.add(keys.getConsistentRead()));
+            return super.batchGetItem(request);
+          }
+        };
+    TestFields.set(userService, "dynamoDBMapper", new DynamoDBMapper(recording));
+    userService.createUser(user("USER_C_0000000000000001", "COACH", "coach"));
+    recording.seed(
+        Map.of(
+            "userId", new AttributeValue("USERNAME#taken"),
+            "userType", new AttributeValue("UNIQUE"),
+            "ownerUserId", new AttributeValue("USER_S_0000000000000002")));
+
+    BulkSignupResponse response =
+        authService.bulkSignup(COACH_TOKEN, List.of(signup("student0"), signup("Taken")));
+
+    assertEquals(List.of(true), consistentReads);
+    assertEquals("CREATED", response.getResults().get(0).getStatus());
+    assertFailed(response.getResults().get(1), "USER_EXISTS");
+    assertEquals(0, cognito.requestCount("AdminDeleteUser"));
+    assertEquals(1, cognito.requestCount("SignUp"));
+  }
+
+  @Test
+  public void bulkSignup_takenPhoneNumber_isUserExists() {
+    authService.bulkSignup(COACH_TOKEN, List.of(signup("student0")));
+    SignupRequest samePhone = signup("student1");
+    samePhone.setPhoneNumber("98765 43210"); // the same number once normalized
+
+    BulkSignupResponse response = authService.bulkSignup(COACH_TOKEN, List.of(samePhone));
+
+    assertFailed(response.getResults().get(0), "USER_EXISTS");
+    assertEquals(1, cognito.requestCount("AdminDeleteUser"));
+    assertEquals(1, cognito.userCount());
+  }
+
+  @Test
+  public void bulkSignup_failedConfirmation_deletesTheCognitoUser() {
+    StubCognito failingConfirm =
+        new StubCognito() {
+          @Override
+          public AdminConfirmSignUpResult adminConfirmSignUp(AdminConfirmSignUpRequest request) {
+            if ("student1".equals(request.getUsername())) {
+              throw new AWSCognitoIdentityProviderException("Cognito is down");
+            }
+            return super.adminConfirmSignUp(request);
+          }
+        };
+    TestFields.set(authService, "cognitoClient", failingConfirm);
+
+    BulkSignupResponse response =
+        authService.bulkSignup(COACH_TOKEN, List.of(signup("student0"), signup("student1")));
+
+    assertEquals(1, response.getCreated());
+    assertFailed(response.getResults().get(1), "COGNITO_ERROR");
+    assertEquals(1, failingConfirm.requestCount("AdminDeleteUser"));
+    assertEquals(1, failingConfirm.userCount());
+  }
+
+  @Test
+  public void bulkSignup_overloadedUserPool_failsTheRestWithoutCallingCognito() {
+    List<SignupRequest> rows = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      SignupRequest row = signup("student" + i);
+      row.setPhoneNumber(String.format("+9198765%05d", i));
+      rows.add(row);
+    }
+    cognito.injectThrottles(1_000);
+
+    BulkSignupResponse response = authService.bulkSignup(COACH_TOKEN, rows);
+
+    assertEquals(0, response.getCreated());
+    response.getResults().forEach(result -> assertFailed(result, "SERVICE_UNAVAILABLE"));
+    // the rows in flight when the guard gave up, three attempts each, and no more
+    long signUps = cognito.requestCount("SignUp");
+    assertTrue(signUps <= 4 * 3, "SignUp: " + signUps);
+    assertEquals(0, cognito.userCount());
+  }
+
+  @Test
+  public void bulkSignup_requiresACoach() {
+    List<SignupRequest> rows = List.of(signup("student0"));
+
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.bulkSignup(STUDENT_TOKEN, rows));
+    assertEquals(403, e.getHttpStatus());
+    e = assertThrows(AuthException.class, () -> authService.bulkSignup("forged", rows));
+    assertEquals(401, e.getHttpStatus());
+    assertEquals(0, cognito.requestCount("SignUp"));
+  }
+
+  @Test
+  public void bulkSignup_rejectsOversizedBatches() {
+    TestFields.set(authService, "bulkMaxBatchSize", 2);
+    List<SignupRequest> rows = List.of(signup("a1"), signup("a2"), signup("a3"));
+
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.bulkSignup(COACH_TOKEN, rows));
+    assertEquals("VALIDATION_ERROR", e.getErrorCode());
+  }
+
+  private static void assertFailed(BulkSignupResult result, String errorCode) {
+    assertEquals("FAILED", result.getStatus());
+    assertEquals(errorCode, result.getErrorCode());
+    assertNull(result.getUserId());
+  }
+
+  private static SignupRequest signup(String username) {
+    SignupRequest request = new SignupRequest();
+    request.setUsername(username);
+    request.setEmail(username + "@example.com");
+    request.setPassword("Password1!");
+    request.setName("Student " + username);
+    request.setPhoneNumber("+919876543210");
+    request.setUserType("STUDENT");
+    request.setGuardianName("Guardian");
+    return request;
+  }
+
+  private static User user(String userId, String userType, String username) {
+    User user = new User();
+    user.setUserId(userId);
+    user.setUserType(userType);
+    user.setUsername(username);
+    user.setEmail(username + "@example.com");
+    user.setCognitoSub(StubCognito.sub(username));
+    return user;
+  }
+
+  /** Access tokens are opaque here: the coach and student tokens map to the seeded users */
+  private static JwtUtil tokens() {
+    return new JwtUtil() {
+      @Override
+      public boolean validateToken(String token) {
+        return COACH_TOKEN.equals(token) || STUDENT_TOKEN.equals(token);
+      }
+
+      @Override
+      public String getUserIdFromToken(String token) {
+        return StubCognito.sub(COACH_TOKEN.equals(token) ? "coach" : "existing");
+      }
+    };
+  }
+}
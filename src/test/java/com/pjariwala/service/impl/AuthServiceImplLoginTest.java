@@ -0,0 +1,130 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.dto.AuthRequest;
+import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AuthServiceImplLoginTest {
+
+  private final StubCognito cognito = new StubCognito();
+  private AuthServiceImpl authService;
+
+  @BeforeEach
+  public void setUp() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    db.seed(
+        Map.of(
+            "userId", new AttributeValue("USER_S_0000000000000001"),
+            "userType", new AttributeValue("STUDENT"),
+            "username", new AttributeValue("alice_student"),
+            "email", new AttributeValue("alice@example.com")));
+    cognito.seed("alice_student", "Password1!");
+    authService = wire(db, cognito);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    authService.shutdown();
+  }
+
+  @Test
+  public void wrongPassword_isInvalidCredentialsWithoutStackTrace() {
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.login(login("alice_student", "wrong")));
+
+    assertEquals("INVALID_CREDENTIALS", e.getErrorCode());
+    assertEquals(401, e.getHttpStatus());
+    assertEquals(0, e.getStackTrace().length);
+  }
+
+  @Test
+  public void unknownUser_isInvalidCredentials_notWrappedAsAServiceError() {
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.login(login("nobody", "Password1!")));
+
+    assertEquals("INVALID_CREDENTIALS", e.getErrorCode());
+    assertEquals(401, e.getHttpStatus());
+    assertEquals(0, cognito.requestCount("AdminInitiateAuth"));
+  }
+
+  @Test
+  public void missingPassword_isAValidationError() {
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.login(login("alice_student", " ")));
+
+    assertEquals("VALIDATION_ERROR", e.getErrorCode());
+    assertEquals(400, e.getHttpStatus());
+  }
+
+  @Test
+  public void concurrentRefreshesOfOneToken_shareOneCognitoCall() throws Exception {
+    cognito.setLatencyMillis(200);
+    int callers = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<AuthResponse>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  return authService.refreshToken("refresh-token-of-alice");
+                }));
+      }
+      start.countDown();
+      for (Future<AuthResponse> result : results) {
+        assertNotNull(result.get(10, TimeUnit.SECONDS).getAccessToken());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, cognito.requestCount("AdminInitiateAuth"));
+
+    // Nothing is kept once the call returns
+    authService.refreshToken("refresh-token-of-alice");
+    assertEquals(2, cognito.requestCount("AdminInitiateAuth"));
+  }
+
+  @Test
+  public void refreshKey_isADigestOfTheToken() {
+    String key = AuthServiceImpl.refreshKey("refresh-token-of-alice");
+
+    assertEquals(64, key.length());
+    assertFalse(key.contains("alice"));
+    assertEquals(key, AuthServiceImpl.refreshKey("refresh-token-of-alice"));
+    assertNotEquals(key, AuthServiceImpl.refreshKey("refresh-token-of-bob"));
+  }
+
+  static AuthServiceImpl wire(InMemoryDynamoDB db, StubCognito cognito) {
+    UserServiceImpl userService = TestServices.userService(db, TestServices.identityCache(true));
+    AuthServiceImpl authService = TestServices.authService(cognito, userService);
+    TestFields.set(authService, "loginIdentifierResolver", TestServices.resolver(userService));
+    return authService;
+  }
+
+  static AuthRequest login(String login, String password) {
+    AuthRequest request = new AuthRequest();
+    request.setLogin(login);
+    request.setPassword(password);
+    return request;
+  }
+}
@@ -0,0 +1,201 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.cognitoidp.model.AWSCognitoIdentityProviderException;
+import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthRequest;
+import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthResult;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.pjariwala.dto.AuthResponse;
+import com.pjariwala.dto.SignupRequest;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class AuthServiceImplSignupTest {
+
+  private static final long LATENCY_MILLIS = 150;
+
+  private final StubCognito cognito = new StubCognito();
+  private AuthServiceImpl authService;
+
+  @AfterEach
+  public void tearDown() {
+    authService.shutdown();
+  }
+
+  @Test
+  public void signup_overlapsPersistWithConfirmAndSkipsTheReLookup() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    UserServiceImpl userService = wire(db);
+    db.setLatencyMillis(LATENCY_MILLIS);
+    cognito.setLatencyMillis(LATENCY_MILLIS);
+
+    long startedAt = System.nanoTime();
+    AuthResponse response = authService.signup(signup("student1"));
+    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+    assertEquals("access-" + StubCognito.sub("student1"), response.getAccessToken());
+    String userId = response.getUserInfo().getUserId();
+    assertEquals("student1", userService.getUserById(userId).orElseThrow().getUsername());
+    assertTrue(cognito.isConfirmed("student1"));
+
+    // no email lookup: the row and its guards go in one transaction that fails if one is taken;
+    // auto-login authenticates the user it just built
+    assertEquals(0, db.requestCount("Query"));
+    assertEquals(1, db.requestCount("TransactWriteItems"));
+    assertEquals(1, cognito.requestCount("AdminInitiateAuth"));
+    // signUp, max(persist, confirm), then authenticate: three round trips, not four
+    assertTrue(elapsedMillis < 4 * LATENCY_MILLIS, "elapsed: " + elapsedMillis);
+  }
+
+  @Test
+  public void signup_succeedsWhileTheNewRowIsNotYetVisibleInTheIndexes() {
+    InMemoryDynamoDB db =
+        new InMemoryDynamoDB(
+            new DynamoDBMapper(new AbstractAmazonDynamoDB() {})
+                .generateCreateTableRequest(User.class)) {
+          @Override
+          public QueryResult query(QueryRequest request) {
+            QueryResult result = super.query(request);
+            // GSIs are eventually consistent: a freshly written row is not returned yet
+            return request.getIndexName() == null ? result : result.withItems(List.of());
+          }
+        };
+    wire(db);
+
+    AuthResponse response = authService.signup(signup("student2"));
+
+    assertNotNull(response.getAccessToken());
+    assertEquals("student2@example.com", response.getUserInfo().getEmail());
+    // the user row and the guards on its username, email and phone
+    assertEquals(4, db.size());
+  }
+
+  @Test
+  public void signup_usernameTakenInCognito_failsBeforeAnyWrite() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    wire(db);
+    cognito.seed("student3", "Password1!");
+
+    AuthException e =
+        assertThrows(AuthException.class, () -> authService.signup(signup("student3")));
+    assertEquals("USER_EXISTS", e.getErrorCode());
+    assertEquals(0, cognito.requestCount("AdminInitiateAuth"));
+    assertEquals(0, db.size());
+  }
+
+  @Test
+  public void signup_emailTaken_failsAndDeletesTheCognitoUser() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    wire(db);
+    authService.signup(signup("student4"));
+
+    SignupRequest sameEmail = signup("student5");
+    sameEmail.setEmail("Student4@example.com");
+    sameEmail.setPhoneNumber("+919876500005");
+    AuthException e = assertThrows(AuthException.class, () -> authService.signup(sameEmail));
+
+    assertEquals("USER_EXISTS", e.getErrorCode());
+    // no tokens are issued for the duplicate: only the first signup authenticated
+    assertEquals(1, cognito.requestCount("AdminInitiateAuth"));
+    assertEquals(1, cognito.requestCount("AdminDeleteUser"));
+    assertEquals(1, cognito.userCount());
+    assertEquals(4, db.size());
+  }
+
+  @Test
+  public void signup_failedAutoLogin_deletesTheRowAndTheCognitoUser() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    wire(db);
+    StubCognito failingLogin =
+        new StubCognito() {
+          @Override
+          public AdminInitiateAuthResult adminInitiateAuth(AdminInitiateAuthRequest request) {
+            throw new AWSCognitoIdentityProviderException("Cognito is down");
+          }
+        };
+    TestFields.set(authService, "cognitoClient", failingLogin);
+
+    assertThrows(RuntimeException.class, () -> authService.signup(signup("student6")));
+
+    assertEquals(1, failingLogin.requestCount("AdminDeleteUser"));
+    assertEquals(0, failingLogin.userCount());
+    // the row and its guards are gone, so the signup can be tried again
+    assertEquals(0, db.size());
+  }
+
+  @Test
+  public void signup_concurrentSignupsWithOneEmail_onlyOneSucceeds() throws Exception {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    wire(db);
+    int signups = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(signups);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<AuthResponse>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < signups; i++) {
+        SignupRequest request = signup("racer" + i);
+        request.setEmail("racer@example.com");
+        request.setPhoneNumber("+91987650000" + i);
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return authService.signup(request);
+                }));
+      }
+      start.countDown();
+
+      int succeeded = 0;
+      for (Future<AuthResponse> result : results) {
+        try {
+          result.get();
+          succeeded++;
+        } catch (ExecutionException e) {
+          AuthException error = assertInstanceOf(AuthException.class, e.getCause());
+          assertEquals("USER_EXISTS", error.getErrorCode());
+        }
+      }
+      assertEquals(1, succeeded);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, cognito.userCount());
+    assertEquals(signups - 1, cognito.requestCount("AdminDeleteUser"));
+    assertEquals(4, db.size());
+  }
+
+  private UserServiceImpl wire(InMemoryDynamoDB db) {
+    UserServiceImpl userService = TestServices.userService(db, TestServices.identityCache(true));
+    // No login resolver: signup must not need to find the new user again
+    authService = TestServices.authService(cognito, userService);
+    return userService;
+  }
+
+  private static SignupRequest signup(String username) {
+    SignupRequest request = new SignupRequest();
+    request.setUsername(username);
+    request.setEmail(username + "@example.com");
+    request.setPassword("Password1!");
+    request.setName("Student " + username);
+    request.setPhoneNumber("+919876543210");
+    request.setUserType("STUDENT");
+    request.setGuardianName("Guardian");
+    return request;
+  }
+}
@@ -0,0 +1,187 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.cognitoidp.AWSCognitoIdentityProvider;
+import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthRequest;
+import com.amazonaws.services.cognitoidp.model.NotAuthorizedException;
+import com.amazonaws.services.cognitoidp.model.SignUpRequest;
+import com.amazonaws.services.cognitoidp.model.TooManyRequestsException;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import com.pjariwala.util.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CognitoGuardTest {
+
+  private final StubCognito cognito = new StubCognito();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private CognitoGuard guard;
+
+  @BeforeEach
+  public void setUp() {
+    guard = TestFields.defaults(new CognitoGuard());
+    TestFields.set(guard, "initialLimit", 4);
+    TestFields.set(guard, "minLimit", 1);
+    TestFields.set(guard, "maxLimit", 8);
+    TestFields.set(guard, "latencyThreshold", Duration.ofMillis(100));
+    TestFields.set(guard, "timeouts", "signUp=PT1.5S");
+    TestFields.set(guard, "backoff", Duration.ofMillis(1));
+    TestFields.set(guard, "failureThreshold", 2);
+    TestFields.set(guard, "openDuration", Duration.ofMinutes(1));
+    guard.init();
+    guard.bindTo(registry);
+  }
+
+  @Test
+  public void throttledAttempts_areRetried_andShrinkTheLimit() {
+    cognito.injectThrottles(2);
+
+    guard.wrap(cognito).signUp(signUp("alice"));
+
+    assertEquals(3, cognito.requestCount("SignUp"));
+    assertEquals(2, registry.get("dependency.retries").functionCounter().count());
+    assertTrue(guard.limiter().limit() < 4);
+    assertEquals(CircuitBreaker.State.CLOSED, guard.breaker().state());
+  }
+
+  @Test
+  public void requests_getTheTimeoutOfTheirOperation() {
+    cognito.seed("alice", "Password1!");
+    SignUpRequest request = signUp("bob");
+    AdminInitiateAuthRequest auth =
+        new AdminInitiateAuthRequest().withAuthParameters(Map.of("USERNAME", "alice"));
+
+    AWSCognitoIdentityProvider client = guard.wrap(cognito);
+    client.signUp(request);
+    client.adminInitiateAuth(auth);
+
+    assertEquals(1500, request.getSdkClientExecutionTimeout());
+    assertEquals(3000, auth.getSdkClientExecutionTimeout());
+  }
+
+  @Test
+  public void persistentThrottling_opensTheCircuit_andLaterCallsFailFastWith503() {
+    cognito.injectThrottles(100);
+    AWSCognitoIdentityProvider client = guard.wrap(cognito);
+
+    assertThrows(TooManyRequestsException.class, () -> client.signUp(signUp("a")));
+    assertThrows(TooManyRequestsException.class, () -> client.signUp(signUp("b")));
+    long requests = cognito.requestCount("SignUp");
+
+    AuthException e = assertThrows(AuthException.class, () -> client.signUp(signUp("c")));
+    assertEquals("SERVICE_UNAVAILABLE", e.getErrorCode());
+    assertEquals(503, e.getHttpStatus());
+    assertEquals(requests, cognito.requestCount("SignUp"));
+    assertEquals(2, registry.get("dependency.circuit.state").gauge().value());
+    assertEquals(
+        1, registry.get("dependency.rejected").tag("reason", "open").functionCounter().count());
+  }
+
+  @Test
+  public void clientErrors_passThrough_andKeepTheCircuitClosed() {
+    cognito.seed("alice", "Password1!");
+    AWSCognitoIdentityProvider client = guard.wrap(cognito);
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(
+          NotAuthorizedException.class,
+          () ->
+              client.adminInitiateAuth(
+                  new AdminInitiateAuthRequest()
+                      .withAuthParameters(Map.of("USERNAME", "alice", "PASSWORD", "wrong"))));
+    }
+
+    assertEquals(5, cognito.requestCount("AdminInitiateAuth"));
+    assertEquals(CircuitBreaker.State.CLOSED, guard.breaker().state());
+    assertEquals(0, registry.get("dependency.retries").functionCounter().count());
+  }
+
+  @Test
+  public void slowCognito_boundsConcurrency_andTheExcessFailsWith503() throws Exception {
+    cognito.setLatencyMillis(200);
+    AWSCognitoIdentityProvider client = guard.wrap(cognito);
+    int callers = 16;
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        String username = "user" + i;
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  try {
+                    client.signUp(signUp(username));
+                  } catch (AuthException e) {
+                    assertEquals(503, e.getHttpStatus());
+                    rejected.incrementAndGet();
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(cognito.peakInFlight() <= 4);
+    assertEquals(callers - cognito.requestCount("SignUp"), rejected.get());
+    // Every call was slower than the threshold, so the limit backed off
+    assertTrue(guard.limiter().limit() < 4);
+    assertEquals(0, registry.get("dependency.inflight").gauge().value());
+  }
+
+  @Test
+  public void login_failsWith503_whileTheCircuitIsOpen() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    db.seed(
+        Map.of(
+            "userId", new AttributeValue("USER_S_0000000000000001"),
+            "userType", new AttributeValue("STUDENT"),
+            "username", new AttributeValue("alice_student")));
+    cognito.seed("alice_student", "Password1!");
+    AuthServiceImpl authService = AuthServiceImplLoginTest.wire(db, cognito);
+    TestFields.set(authService, "cognitoClient", guard.wrap(cognito));
+    try {
+      guard.breaker().onFailure();
+      guard.breaker().onFailure();
+
+      AuthException e =
+          assertThrows(
+              AuthException.class,
+              () ->
+                  authService.login(AuthServiceImplLoginTest.login("alice_student", "Password1!")));
+
+      assertEquals("SERVICE_UNAVAILABLE", e.getErrorCode());
+      assertEquals(0, cognito.requestCount("AdminInitiateAuth"));
+    } finally {
+      authService.shutdown();
+    }
+  }
+
+  private static SignUpRequest signUp(String username) {
+    return new SignUpRequest().withUsername(username).withPassword("Password1!");
+  }
+}
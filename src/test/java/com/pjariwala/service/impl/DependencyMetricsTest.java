@@ -0,0 +1,186 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.AmazonServiceException;
+import com.pjariwala.dto.SignupRequest;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class DependencyMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final DependencyMetrics metrics = new DependencyMetrics(registry);
+  private final InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+  private final StubCognito cognito = new StubCognito();
+  private UserServiceImpl userService;
+  private AuthServiceImpl authService;
+
+  @AfterEach
+  public void tearDown() {
+    if (authService != null) {
+      authService.shutdown();
+    }
+  }
+
+  @Test
+  public void timers_arePublishedWithHistogramsBeforeTheFirstCall() {
+    PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    new UserServiceImpl().setDependencyMetrics(new DependencyMetrics(prometheus));
+    new AuthServiceImpl().setDependencyMetrics(new DependencyMetrics(prometheus));
+
+    String scrape = prometheus.scrape();
+
+    assertTrue(
+        scrape.contains(
+            "dependency_calls_seconds_bucket{dependency=\"dynamodb\",index=\"phoneNumber-index\","
+                + "operation=\"query\",outcome=\"hit\",le=\"0.001\"} 0"),
+        scrape);
+    assertTrue(
+        scrape.contains(
+            "dependency_calls_seconds_count{dependency=\"cognito\",index=\"none\","
+                + "operation=\"adminInitiateAuth\",outcome=\"success\"} 0"),
+        scrape);
+    // Only the outcomes a call can have are registered
+    assertFalse(
+        scrape.contains("index=\"phoneNumber-index\",operation=\"query\",outcome=\"success\""),
+        scrape);
+    assertFalse(scrape.contains("operation=\"adminInitiateAuth\",outcome=\"hit\""), scrape);
+  }
+
+  @Test
+  public void indexLookups_areTaggedWithTheIndexAndHitOrMiss() {
+    wire();
+    userService.createUser(user());
+
+    userService.getUserByEmail("alice@example.com");
+    userService.getUserByPhone("9876543210");
+    userService.getUserByUsername("nobody");
+
+    assertEquals(1, timer("dynamodb", "transactionWrite", "none", "success").count());
+    assertEquals(1, timer("dynamodb", "query", "email-index", "hit").count());
+    // The email lookup cached the user under its phone too; cache hits are not dependency calls
+    assertEquals(0, timer("dynamodb", "query", "phoneNumber-index", "hit").count());
+    assertEquals(1, timer("dynamodb", "query", "username-index", "miss").count());
+    assertEquals(0, timer("dynamodb", "query", "username-index", "hit").count());
+  }
+
+  @Test
+  public void cognitoCalls_areTimedAndFailuresTaggedWithTheErrorType() {
+    wire();
+
+    authService.signup(signup("student1"));
+    SignupRequest taken = signup("student1");
+    taken.setEmail("other@example.com");
+    assertThrows(AuthException.class, () -> authService.signup(taken));
+
+    assertEquals(1, timer("cognito", "signUp", "none", "success").count());
+    assertEquals(1, timer("cognito", "signUp", "none", "UsernameExistsException").count());
+    assertEquals(1, timer("cognito", "adminConfirmSignUp", "none", "success").count());
+    assertEquals(1, timer("cognito", "adminInitiateAuth", "none", "success").count());
+  }
+
+  @Test
+  public void errorTypes_areCapped() {
+    DependencyMetrics.Call call = metrics.dynamoDb("load");
+
+    for (int i = 0; i < 40; i++) {
+      AmazonServiceException error = new AmazonServiceException("failed");
+      error.setErrorCode("Error" + i);
+      assertThrows(
+          AmazonServiceException.class,
+          () ->
+              call.run(
+                  () -> {
+                    throw error;
+                  }));
+    }
+
+    // success, then sixteen error types and "other"
+    assertEquals(1 + 16 + 1, registry.find(DependencyMetrics.METRIC).timers().size());
+    assertEquals(24, timer("dynamodb", "load", "none", "other").count());
+  }
+
+  @Test
+  public void errorTypes_areCappedWhenFirstSeenConcurrently() throws Exception {
+    DependencyMetrics.Call call = metrics.dynamoDbLookup("load");
+    CountDownLatch start = new CountDownLatch(1);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 64; i++) {
+        AmazonServiceException error = new AmazonServiceException("failed");
+        error.setErrorCode("Error" + i);
+        executor.submit(
+            () -> {
+              start.await();
+              return call.time(
+                  () -> {
+                    throw error;
+                  },
+                  result -> true);
+            });
+      }
+      start.countDown();
+    }
+
+    // hit and miss, then sixteen error types and "other"
+    assertEquals(2 + 16 + 1, registry.find(DependencyMetrics.METRIC).timers().size());
+    assertEquals(48, timer("dynamodb", "load", "none", "other").count());
+  }
+
+  @Test
+  public void lookupCalls_mustBeTimedAsLookups() {
+    DependencyMetrics.Call lookup = metrics.dynamoDbLookup("load");
+    DependencyMetrics.Call write = metrics.dynamoDb("update");
+
+    assertThrows(IllegalStateException.class, () -> lookup.time(() -> "user"));
+    assertThrows(IllegalStateException.class, () -> write.time(() -> "ok", result -> true));
+  }
+
+  private Timer timer(String dependency, String operation, String index, String outcome) {
+    return registry
+        .get(DependencyMetrics.METRIC)
+        .tags("dependency", dependency, "operation", operation, "index", index)
+        .tag("outcome", outcome)
+        .timer();
+  }
+
+  private void wire() {
+    userService = TestServices.userService(db, TestServices.identityCache(true));
+    userService.setDependencyMetrics(metrics);
+    authService = TestServices.authService(cognito, userService);
+    authService.setDependencyMetrics(metrics);
+  }
+
+  private static User user() {
+    User user = new User();
+    user.setUserId("USER_S_0000000000000001");
+    user.setUserType("STUDENT");
+    user.setUsername("alice_student");
+    user.setEmail("alice@example.com");
+    user.setPhoneNumber("+919876543210");
+    user.setName("Alice");
+    return user;
+  }
+
+  private static SignupRequest signup(String username) {
+    SignupRequest request = new SignupRequest();
+    request.setUsername(username);
+    request.setEmail(username + "@example.com");
+    request.setPassword("Password1!");
+    request.setName("Student " + username);
+    request.setPhoneNumber("+919876543210");
+    request.setUserType("STUDENT");
+    return request;
+  }
+}
@@ -0,0 +1,245 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.pjariwala.dto.AuthRequest;
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.model.User;
+import com.pjariwala.service.impl.KnownIdentifierFilter.Kind;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.StubCognito;
+import com.pjariwala.support.TestFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class KnownIdentifierFilterTest {
+
+  private final StubCognito cognito = new StubCognito();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private InMemoryDynamoDB db;
+  private KnownIdentifierFilter filter;
+  private AuthServiceImpl authService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    for (int i = 0; i < 200; i++) {
+      seed(
+          String.format("USER_S_%016x", i),
+          "player" + i,
+          "player" + i + "@example.com",
+          String.format("+9198765%05d", i),
+          "2025-01-01T10:00:00");
+    }
+    cognito.seed("player7", "Password1!");
+
+    filter = newFilter(db);
+    filter.init();
+    filter.awaitBuild();
+    filter.bindTo(registry);
+
+    authService = AuthServiceImplLoginTest.wire(db, cognito);
+    UserServiceImpl userService = TestServices.userService(db, TestServices.identityCache(false));
+    LoginIdentifierResolver resolver = TestServices.resolver(userService);
+    TestFields.set(resolver, "knownIdentifiers", filter);
+    TestFields.set(authService, "loginIdentifierResolver", resolver);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    authService.shutdown();
+    filter.shutdown();
+  }
+
+  @Test
+  public void unknownIdentifier_isInvalidCredentialsAfterOnlyGuardReads() {
+    assertTrue(filter.isReady());
+    db.resetCounters();
+
+    String[] logins = {"nobody", "nobody@example.com", "+919999999999", "98989898"};
+    for (String login : logins) {
+      AuthException e =
+          assertThrows(
+              AuthException.class,
+              () -> authService.login(AuthServiceImplLoginTest.login(login, "Password1!")));
+      assertEquals("INVALID_CREDENTIALS", e.getErrorCode());
+    }
+
+    assertEquals(0, db.requestCount("Query"));
+    assertEquals(0, db.requestCount("Scan"));
+    assertEquals(0, cognito.requestCount("AdminInitiateAuth"));
+    // The email is also ruled out as a username, and the digits as both; one guard read each
+    assertEquals(6, db.requestCount("GetItem"));
+    assertEquals(6.0, checks("absent"));
+  }
+
+  @Test
+  public void knownIdentifiers_stillLogIn() {
+    for (String login : new String[] {"player7", "player7@example.com", "+91 98765 00007"}) {
+      assertNotNull(
+          authService.login(AuthServiceImplLoginTest.login(login, "Password1!")).getAccessToken());
+    }
+    assertEquals(0.0, checks("absent"));
+  }
+
+  @Test
+  public void usersCreatedElsewhere_areFoundByTheirGuards() {
+    UserServiceImpl elsewhere = TestServices.userService(db, TestServices.identityCache(false));
+    User newcomer = new User();
+    newcomer.setUserId("USER_S_00000000000000ff");
+    newcomer.setUserType("STUDENT");
+    newcomer.setUsername("newcomer");
+    newcomer.setEmail("newcomer@example.com");
+    elsewhere.createUser(newcomer);
+    db.resetCounters();
+
+    assertTrue(filter.mightExist(Kind.USERNAME, "newcomer"));
+    assertTrue(filter.mightExist(Kind.EMAIL, "newcomer@example.com"));
+    assertEquals(2.0, checks("claimed"));
+
+    // A guard that was found adds its identifier, so it is not read again
+    assertTrue(filter.mightExist(Kind.USERNAME, "newcomer"));
+    assertEquals(2, db.requestCount("GetItem"));
+  }
+
+  @Test
+  public void emailChangedByAnotherContainer_logsInOnThisOne() {
+    UserServiceImpl elsewhere = TestServices.userService(db, TestServices.identityCache(false));
+    elsewhere.updateUser(
+        String.format("USER_S_%016x", 7), user -> user.setEmail("grandmaster@example.com"));
+
+    AuthRequest login = AuthServiceImplLoginTest.login("grandmaster@example.com", "Password1!");
+    assertNotNull(authService.login(login).getAccessToken());
+    assertEquals(1.0, checks("claimed"));
+    assertEquals(0.0, checks("absent"));
+  }
+
+  @Test
+  public void failedGuardRead_isPossiblyKnown() {
+    InMemoryDynamoDB failing =
+        new InMemoryDynamoDB(
+            new DynamoDBMapper(new AbstractAmazonDynamoDB() {})
+                .generateCreateTableRequest(User.class)) {
+          @Override
+          public GetItemResult getItem(GetItemRequest request) {
+            throw new AmazonServiceException("Internal server error");
+          }
+        };
+    KnownIdentifierFilter failingFilter = newFilter(failing);
+    failingFilter.init();
+    failingFilter.awaitBuild();
+    try {
+      assertTrue(failingFilter.mightExist(Kind.USERNAME, "nobody"));
+    } finally {
+      failingFilter.shutdown();
+    }
+  }
+
+  @Test
+  public void usersCreatedHere_areAddedOnWrite() {
+    User user = new User();
+    user.setUsername("local");
+    user.setEmail("local@example.com");
+    user.setPhoneNumber("+919000000001");
+    filter.add(user);
+
+    assertTrue(filter.mightExist(Kind.USERNAME, "local"));
+    assertTrue(filter.mightExist(Kind.PHONE, "09000000001"));
+  }
+
+  @Test
+  public void snapshot_isLoadedInsteadOfScanning() throws Exception {
+    ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+    filter.writeSnapshot(snapshot);
+
+    db.resetCounters();
+    KnownIdentifierFilter loaded = newFilter(db);
+    loaded.load(new ByteArrayInputStream(snapshot.toByteArray()));
+
+    assertEquals(0, db.requestCount("Scan"));
+    assertTrue(loaded.mightExist(Kind.EMAIL, "player42@example.com"));
+    // A miss is confirmed by its guard, however old the snapshot
+    assertFalse(loaded.mightExist(Kind.EMAIL, "nobody@example.com"));
+    assertEquals(1, db.requestCount("GetItem"));
+    assertEquals(0, db.requestCount("Query"));
+  }
+
+  @Test
+  public void noSnapshot_scansOnlyWhenAllowed() {
+    db.resetCounters();
+    KnownIdentifierFilter unbuilt = TestFields.defaults(new KnownIdentifierFilter());
+    TestFields.set(unbuilt, "dynamoDBMapper", new DynamoDBMapper(db));
+    unbuilt.setDependencyMetrics(TestServices.metrics());
+    unbuilt.init();
+    unbuilt.awaitBuild();
+    try {
+      assertEquals(0, db.requestCount("Scan"));
+      assertFalse(unbuilt.isReady());
+      assertTrue(unbuilt.mightExist(Kind.USERNAME, "nobody"));
+    } finally {
+      unbuilt.shutdown();
+    }
+
+    KnownIdentifierFilter snapStart = newFilter(db);
+    TestFields.set(snapStart, "scanOnStartup", false);
+    TestFields.set(snapStart, "initializationType", "snap-start");
+    snapStart.init();
+    snapStart.awaitBuild();
+    try {
+      assertTrue(snapStart.isReady());
+      assertFalse(snapStart.mightExist(Kind.USERNAME, "nobody"));
+    } finally {
+      snapStart.shutdown();
+    }
+  }
+
+  @Test
+  public void metrics_reportSizeAndFalsePositiveRate() {
+    double bytes = registry.get("bloom.size.bytes").gauge().value();
+    assertTrue(bytes > 0 && bytes < 16_000, "bytes: " + bytes);
+    assertTrue(registry.get("bloom.false.positive.rate").gauge().value() < 0.01);
+    assertEquals(600, registry.get("bloom.identifiers").gauge().value(), 30);
+  }
+
+  private static KnownIdentifierFilter newFilter(InMemoryDynamoDB db) {
+    KnownIdentifierFilter filter = TestFields.defaults(new KnownIdentifierFilter());
+    filter.setDependencyMetrics(TestServices.metrics());
+    TestFields.set(filter, "dynamoDBMapper", new DynamoDBMapper(db));
+    TestFields.set(filter, "expectedIdentifiers", 10_000L);
+    TestFields.set(filter, "scanOnStartup", true);
+    return filter;
+  }
+
+  private void seed(String userId, String username, String email, String phone, String createdAt) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put("userId", new AttributeValue(userId));
+    item.put("userType", new AttributeValue("STUDENT"));
+    item.put("username", new AttributeValue(username));
+    item.put("email", new AttributeValue(email));
+    if (phone != null) {
+      item.put("phoneNumber", new AttributeValue(phone));
+    }
+    item.put("createdAt", new AttributeValue(createdAt));
+    db.seed(item);
+  }
+
+  private double checks(String result) {
+    return registry
+        .get("bloom.checks")
+        .tags("filter", "knownIdentifiers", "result", result)
+        .functionCounter()
+        .count();
+  }
+}
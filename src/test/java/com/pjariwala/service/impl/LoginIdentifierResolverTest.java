@@ -0,0 +1,158 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.model.User;
+import com.pjariwala.service.UserService;
+import com.pjariwala.service.impl.LoginIdentifierResolver.IdentifierType;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class LoginIdentifierResolverTest {
+
+  @Test
+  public void classify_byShape() {
+    assertEquals(IdentifierType.EMAIL, LoginIdentifierResolver.classify("coach@chessacademy.com"));
+    assertEquals(IdentifierType.PHONE, LoginIdentifierResolver.classify("+91 98765 43210"));
+    assertEquals(IdentifierType.USERNAME_OR_PHONE, LoginIdentifierResolver.classify("9876543210"));
+    assertEquals(IdentifierType.USERNAME, LoginIdentifierResolver.classify("johndoe_coach"));
+    assertEquals(IdentifierType.USERNAME, LoginIdentifierResolver.classify("12345"));
+    assertEquals(IdentifierType.USERNAME, LoginIdentifierResolver.classify("not@an-email"));
+  }
+
+  @Test
+  public void resolve_issuesOneLookupPerUnambiguousIdentifier() {
+    AtomicInteger lookups = new AtomicInteger();
+    LoginIdentifierResolver resolver = resolver(lookups);
+
+    assertTrue(resolver.resolve("alice@example.com").isPresent());
+    assertEquals(1, lookups.getAndSet(0));
+    assertTrue(resolver.resolve("+919876543210").isPresent());
+    assertEquals(1, lookups.getAndSet(0));
+    assertTrue(resolver.resolve("alice_student").isPresent());
+    assertEquals(1, lookups.getAndSet(0));
+    assertTrue(resolver.resolve("nobody").isEmpty());
+    assertEquals(1, lookups.getAndSet(0));
+  }
+
+  @Test
+  public void resolve_emailShapedIdentifierWithNoEmailMatch_isTriedAsAUsername() {
+    AtomicInteger lookups = new AtomicInteger();
+    LoginIdentifierResolver resolver = resolver(lookups);
+
+    assertEquals("USER_bob", resolver.resolve("bob@chess.club").orElseThrow().getUserId());
+    assertEquals(2, lookups.getAndSet(0));
+    assertTrue(resolver.resolve("nobody@example.com").isEmpty());
+    assertEquals(2, lookups.getAndSet(0));
+  }
+
+  @Test
+  public void resolve_ambiguousIdentifier_takesFirstHit() {
+    LoginIdentifierResolver resolver = resolver(new AtomicInteger());
+
+    assertEquals("USER_alice", resolver.resolve("9876543210").orElseThrow().getUserId());
+    assertTrue(resolver.resolve("1234567").isEmpty());
+  }
+
+  @Test
+  public void resolve_ambiguousIdentifier_runsBothLookupsAtOnce() {
+    AtomicInteger lookups = new AtomicInteger();
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    AtomicInteger overlapped = new AtomicInteger();
+    LoginIdentifierResolver resolver =
+        TestServices.resolver(
+            userService(
+                lookups,
+                () -> {
+                  // Each lookup waits for the other one to start, which a sequential lookup
+                  // never would
+                  bothStarted.countDown();
+                  if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                    overlapped.incrementAndGet();
+                  }
+                }));
+
+    assertTrue(resolver.resolve("1234567").isEmpty());
+
+    assertEquals(2, lookups.get());
+    assertEquals(2, overlapped.get());
+  }
+
+  @Test
+  public void resolve_issuesNoMoreLookupsThanTheSequentialChain() {
+    AtomicInteger lookups = new AtomicInteger();
+    UserService userService = userService(lookups, () -> {});
+    LoginIdentifierResolver resolver = resolver(lookups);
+    List<String> identifiers =
+        List.of("alice_student", "alice@example.com", "+919876543210", "9876543210", "nobody");
+
+    identifiers.forEach(
+        identifier -> {
+          lookups.set(0);
+          Optional<User> chained =
+              userService
+                  .getUserByUsername(identifier)
+                  .or(() -> userService.getUserByEmail(identifier))
+                  .or(() -> userService.getUserByPhone(identifier));
+          int chainLookups = lookups.getAndSet(0);
+
+          Optional<User> resolved = resolver.resolve(identifier);
+
+          assertEquals(chained.isPresent(), resolved.isPresent(), identifier);
+          assertTrue(lookups.get() <= chainLookups, identifier);
+        });
+  }
+
+  private static LoginIdentifierResolver resolver(AtomicInteger lookups) {
+    return TestServices.resolver(userService(lookups, () -> {}));
+  }
+
+  /**
+   * Stub with two users: alice, and bob whose username looks like an email. Every lookup runs
+   * {@code onLookup} before answering
+   */
+  private static UserService userService(AtomicInteger lookups, Lookup onLookup) {
+    User alice = new User();
+    alice.setUserId("USER_alice");
+    alice.setUsername("alice_student");
+    alice.setEmail("alice@example.com");
+    alice.setPhoneNumber("+919876543210");
+    User bob = new User();
+    bob.setUserId("USER_bob");
+    bob.setUsername("bob@chess.club");
+    bob.setEmail("bob@example.com");
+    List<User> users = List.of(alice, bob);
+
+    return (UserService)
+        Proxy.newProxyInstance(
+            UserService.class.getClassLoader(),
+            new Class<?>[] {UserService.class},
+            (proxy, method, args) -> {
+              lookups.incrementAndGet();
+              onLookup.run();
+              String value = (String) args[0];
+              return users.stream()
+                  .filter(
+                      user ->
+                          switch (method.getName()) {
+                            case "getUserByUsername" -> value.equals(user.getUsername());
+                            case "getUserByEmail" -> value.equals(user.getEmail());
+                            case "getUserByPhone" ->
+                                user == alice
+                                    && (value.equals(user.getPhoneNumber())
+                                        || value.equals("9876543210"));
+                            default -> throw new UnsupportedOperationException(method.getName());
+                          })
+                  .findFirst();
+            });
+  }
+
+  private interface Lookup {
+    void run() throws InterruptedException;
+  }
+}
@@ -0,0 +1,151 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.exception.AuthException;
+import com.pjariwala.service.impl.LoginThrottle.Operation;
+import com.pjariwala.support.TestFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LoginThrottleTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private LoginThrottle throttle;
+
+  @BeforeEach
+  public void setUp() {
+    throttle = TestFields.defaults(new LoginThrottle());
+    TestFields.set(throttle, "identifierLimit", 3);
+    TestFields.set(throttle, "ipLimit", 20);
+    throttle.init();
+    throttle.bindTo(registry);
+  }
+
+  @Test
+  public void identifierLimit_coversEverySpellingOfTheLogin() {
+    throttle.check(Operation.LOGIN, "+91 98765 43210", "10.0.0.1");
+    throttle.check(Operation.LOGIN, "09876543210", "10.0.0.2");
+    throttle.check(Operation.LOGIN, " 9876543210 ", "10.0.0.3");
+
+    AuthException e =
+        assertThrows(
+            AuthException.class,
+            () -> throttle.check(Operation.LOGIN, "+919876543210", "10.0.0.4"));
+    assertEquals("TOO_MANY_REQUESTS", e.getErrorCode());
+    assertEquals(429, e.getHttpStatus());
+    assertEquals(0, e.getStackTrace().length);
+
+    // Other operations and other logins have their own budgets
+    throttle.check(Operation.FORGOT_PASSWORD, "+919876543210", "10.0.0.4");
+    throttle.check(Operation.LOGIN, "Alice@Example.com", "10.0.0.4");
+    throttle.check(Operation.LOGIN, "alice@example.com ", "10.0.0.4");
+    throttle.check(Operation.LOGIN, "ALICE@EXAMPLE.COM", "10.0.0.4");
+    assertThrows(
+        AuthException.class,
+        () -> throttle.check(Operation.LOGIN, "alice@example.com", "10.0.0.4"));
+
+    assertEquals(2.0, throttled("login", "identifier"));
+  }
+
+  @Test
+  public void ipLimit_coversEveryLoginFromTheAddress() {
+    for (int i = 0; i < 20; i++) {
+      throttle.check(Operation.RESET_PASSWORD, "user" + i, "203.0.113.7");
+    }
+    assertThrows(
+        AuthException.class,
+        () -> throttle.check(Operation.RESET_PASSWORD, "someone-else", "203.0.113.7"));
+    throttle.check(Operation.RESET_PASSWORD, "someone-else", "203.0.113.8");
+
+    assertEquals(1.0, throttled("reset-password", "ip"));
+    assertEquals(0.0, throttled("reset-password", "identifier"));
+  }
+
+  @Test
+  public void missingIdentifierOrAddress_isNotCounted() {
+    for (int i = 0; i < 50; i++) {
+      throttle.check(Operation.LOGIN, null, "10.0.0." + i);
+      throttle.check(Operation.LOGIN, " ", "10.0.1." + i);
+      throttle.check(Operation.LOGIN, "user" + i, null);
+    }
+  }
+
+  @Test
+  public void disabled_letsEverythingThrough() {
+    TestFields.set(throttle, "enabled", false);
+    for (int i = 0; i < 50; i++) {
+      throttle.check(Operation.LOGIN, "alice", "10.0.0.1");
+    }
+  }
+
+  @Test
+  public void credentialStuffingStorm_admitsNoMoreThanTheLimits() throws Exception {
+    TestFields.set(throttle, "identifierLimit", 10);
+    TestFields.set(throttle, "ipLimit", 1_000);
+    int threads = 32;
+    int attemptsPerThread = 5_000;
+    AtomicInteger victimAdmitted = new AtomicInteger();
+    AtomicInteger ipAdmitted = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        workers.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < attemptsPerThread; i++) {
+                    // One victim from rotating addresses, and one address trying many logins
+                    try {
+                      throttle.check(
+                          Operation.LOGIN, "victim@example.com", "10.1." + thread + "." + i);
+                      victimAdmitted.incrementAndGet();
+                    } catch (AuthException e) {
+                      rejected.incrementAndGet();
+                    }
+                    try {
+                      throttle.check(Operation.LOGIN, "user" + thread + "-" + i, "198.51.100.1");
+                      ipAdmitted.incrementAndGet();
+                    } catch (AuthException e) {
+                      rejected.incrementAndGet();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(victimAdmitted.get() <= 10, "victim admitted: " + victimAdmitted.get());
+    assertTrue(ipAdmitted.get() <= 1_000, "address admitted: " + ipAdmitted.get());
+    // Short of the limit only by concurrent rejections and the sketch's collisions
+    assertTrue(ipAdmitted.get() >= 900, "address admitted: " + ipAdmitted.get());
+    assertEquals(rejected.get(), throttled("login", "identifier") + throttled("login", "ip"), 0.0);
+  }
+
+  private double throttled(String operation, String limit) {
+    return registry
+        .get("auth.throttled")
+        .tags("operation", operation, "limit", limit)
+        .functionCounter()
+        .count();
+  }
+}
@@ -0,0 +1,74 @@
+package com.pjariwala.service.impl;
+
+import com.amazonaws.services.cognitoidp.AWSCognitoIdentityProvider;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.pjariwala.service.UserService;
+import com.pjariwala.support.TestFields;
+import com.pjariwala.util.SecretHashCalculator;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Services built by hand the way Spring builds them when no properties are set: {@code @Value}
+ * fields take their defaults, metrics go nowhere and the known identifier filter is off. Tests and
+ * benchmarks set anything else with {@link TestFields}.
+ */
+final class TestServices {
+
+  private TestServices() {}
+
+  static DependencyMetrics metrics() {
+    return new DependencyMetrics(new CompositeMeterRegistry());
+  }
+
+  static UserIdentityCache identityCache(boolean enabled) {
+    UserIdentityCache cache = TestFields.defaults(new UserIdentityCache());
+    TestFields.set(cache, "enabled", enabled);
+    cache.init();
+    return cache;
+  }
+
+  static UserServiceImpl userService(AmazonDynamoDB db, UserIdentityCache cache) {
+    UserServiceImpl userService = TestFields.defaults(new UserServiceImpl());
+    userService.setDependencyMetrics(metrics());
+    TestFields.set(userService, "dynamoDBMapper", new DynamoDBMapper(db));
+    TestFields.set(userService, "amazonDynamoDB", db);
+    TestFields.set(userService, "userIdentityCache", cache);
+    TestFields.set(userService, "knownIdentifiers", knownIdentifiersOff());
+    return userService;
+  }
+
+  /** A filter that reports every identifier as possibly known */
+  static KnownIdentifierFilter knownIdentifiersOff() {
+    KnownIdentifierFilter filter = TestFields.defaults(new KnownIdentifierFilter());
+    TestFields.set(filter, "enabled", false);
+    return filter;
+  }
+
+  static LoginIdentifierResolver resolver(UserService userService) {
+    LoginIdentifierResolver resolver = new LoginIdentifierResolver();
+    TestFields.set(resolver, "userService", userService);
+    TestFields.set(resolver, "knownIdentifiers", knownIdentifiersOff());
+    return resolver;
+  }
+
+  static SecretHashCalculator secretHash() {
+    SecretHashCalculator secretHash = TestFields.defaults(new SecretHashCalculator());
+    TestFields.set(secretHash, "clientId", "client");
+    TestFields.set(secretHash, "clientSecret", "secret");
+    secretHash.init();
+    return secretHash;
+  }
+
+  /** No login resolver or token utility; tests that need them set their own */
+  static AuthServiceImpl authService(AWSCognitoIdentityProvider cognito, UserService userService) {
+    AuthServiceImpl authService = TestFields.defaults(new AuthServiceImpl());
+    authService.setDependencyMetrics(metrics());
+    TestFields.set(authService, "cognitoClient", cognito);
+    TestFields.set(authService, "userService", userService);
+    TestFields.set(authService, "secretHashCalculator", secretHash());
+    TestFields.set(authService, "clientId", "client");
+    TestFields.set(authService, "userPoolId", "pool");
+    return authService;
+  }
+}
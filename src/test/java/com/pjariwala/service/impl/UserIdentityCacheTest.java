@@ -0,0 +1,177 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.TestFields;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UserIdentityCacheTest {
+
+  private InMemoryDynamoDB db;
+  private UserIdentityCache cache;
+  private UserServiceImpl userService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    cache = TestFields.defaults(new UserIdentityCache());
+    TestFields.set(cache, "maxEntries", 100);
+    TestFields.set(cache, "negativeTtl", Duration.ofMillis(100));
+    cache.init();
+
+    userService = TestServices.userService(db, cache);
+    userService.createUser(user("USER_1", "alice_student", "alice@example.com", "+919876543210"));
+    db.resetCounters();
+  }
+
+  @Test
+  public void lookups_anyAliasWarmsAllOthers() {
+    assertTrue(userService.getUserByUsername("alice_student").isPresent());
+    long reads = requests();
+
+    assertEquals(
+        "USER_1", userService.getUserByEmail("alice@example.com").orElseThrow().getUserId());
+    assertTrue(userService.getUserByPhone("09876543210").isPresent());
+    assertTrue(userService.getUserByCognitoSub("sub-USER_1").isPresent());
+    assertTrue(userService.getUserById("USER_1").isPresent());
+    assertTrue(userService.getUserByUsername("alice_student").isPresent());
+
+    assertEquals(1, reads);
+    assertEquals(reads, requests());
+    assertEquals(1, cache.missCount());
+    assertEquals(5, cache.hitCount());
+  }
+
+  @Test
+  public void lookups_missesAreCachedForTheNegativeTtl() throws Exception {
+    assertTrue(userService.getUserByEmail("nobody@example.com").isEmpty());
+    assertTrue(userService.getUserByEmail("nobody@example.com").isEmpty());
+    assertEquals(1, requests());
+
+    Thread.sleep(150);
+    assertTrue(userService.getUserByEmail("nobody@example.com").isEmpty());
+    assertEquals(2, requests());
+    assertEquals(1, cache.expirationCount());
+  }
+
+  @Test
+  public void createUser_invalidatesCachedMisses() {
+    assertTrue(userService.getUserByUsername("bob_coach").isEmpty());
+
+    userService.createUser(user("USER_2", "bob_coach", "bob@example.com", null));
+
+    assertTrue(userService.getUserByUsername("bob_coach").isPresent());
+  }
+
+  @Test
+  public void updateUser_invalidatesOldAndNewAliases() {
+    User alice = userService.getUserByEmail("alice@example.com").orElseThrow();
+    assertTrue(userService.getUserByEmail("alice@new.example.com").isEmpty());
+
+    alice.setEmail("alice@new.example.com");
+    userService.updateUser(alice);
+
+    assertTrue(userService.getUserByEmail("alice@example.com").isEmpty());
+    assertEquals(
+        "USER_1", userService.getUserByEmail("alice@new.example.com").orElseThrow().getUserId());
+    assertEquals(
+        "alice@new.example.com", userService.getUserByUsername("alice_student").get().getEmail());
+  }
+
+  @Test
+  public void deleteUser_invalidatesEveryAlias() {
+    assertTrue(userService.getUserByUsername("alice_student").isPresent());
+
+    userService.deleteUser("USER_1");
+
+    assertTrue(userService.getUserById("USER_1").isEmpty());
+    assertTrue(userService.getUserByUsername("alice_student").isEmpty());
+    assertTrue(userService.getUserByPhone("+919876543210").isEmpty());
+  }
+
+  @Test
+  public void lookups_returnCopies() {
+    userService.getUserByUsername("alice_student").orElseThrow().setName("Mallory");
+
+    assertEquals("Alice", userService.getUserByUsername("alice_student").orElseThrow().getName());
+  }
+
+  @Test
+  public void concurrentMisses_shareOneQuery_andEachGetsItsOwnCopy() throws Exception {
+    db.setLatencyMillis(200);
+    int callers = 16;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<User>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  return userService.getUserByUsername("alice_student").orElseThrow();
+                }));
+      }
+      start.countDown();
+      Set<User> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Future<User> result : results) {
+        User user = result.get(10, TimeUnit.SECONDS);
+        assertEquals("USER_1", user.getUserId());
+        distinct.add(user);
+      }
+      assertEquals(callers, distinct.size());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertEquals(1, requests());
+  }
+
+  @Test
+  public void full_evictsLeastRecentlyUsedAndCountsIt() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cache.bindTo(registry);
+
+    for (int i = 0; i < 150; i++) {
+      userService.getUserByUsername("missing_" + i);
+    }
+
+    assertEquals(100, cache.size());
+    assertEquals(50, cache.evictionCount());
+    assertEquals(
+        50.0,
+        registry.get("cache.evictions").tag("cache", "userIdentity").functionCounter().count());
+    assertEquals(150.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+  }
+
+  private long requests() {
+    return db.requestCount("Query") + db.requestCount("GetItem");
+  }
+
+  private static User user(String userId, String username, String email, String phone) {
+    User user = new User();
+    user.setUserId(userId);
+    user.setUserType("STUDENT");
+    user.setUsername(username);
+    user.setEmail(email);
+    user.setPhoneNumber(phone);
+    user.setCognitoSub("sub-" + userId);
+    user.setName("Alice");
+    return user;
+  }
+}
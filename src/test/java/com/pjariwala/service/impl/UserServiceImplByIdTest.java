@@ -0,0 +1,171 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UserServiceImplByIdTest {
+
+  private InMemoryDynamoDB db;
+  private UserServiceImpl userService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    userService = userService(db, false);
+  }
+
+  @Test
+  public void generateUserId_encodesUserType() {
+    String coachId = userService.generateUserId("COACH");
+    String studentId = userService.generateUserId("STUDENT");
+
+    assertTrue(coachId.matches("USER_C_[0-9a-f]{16}"), coachId);
+    assertTrue(studentId.matches("USER_S_[0-9a-f]{16}"), studentId);
+    assertEquals("COACH", UserServiceImpl.userTypeOf(coachId));
+    assertEquals("STUDENT", UserServiceImpl.userTypeOf(studentId));
+    assertNull(UserServiceImpl.userTypeOf(userService.generateUserId()));
+    assertNull(UserServiceImpl.userTypeOf("USER_C_short"));
+  }
+
+  @Test
+  public void getUserById_typedId_isOneGetItem() {
+    seed("USER_S_00000000000000aa", "STUDENT");
+
+    assertEquals(
+        "STUDENT", userService.getUserById("USER_S_00000000000000aa").orElseThrow().getUserType());
+    assertEquals(1, db.requestCount("GetItem"));
+    assertEquals(0, db.requestCount("BatchGetItem"));
+  }
+
+  @Test
+  public void getUserById_legacyId_isOneBatchGet() {
+    seed("USER_0123456789abcdef", "STUDENT");
+    seed("USER_fedcba9876543210", "COACH");
+
+    assertEquals(
+        "STUDENT", userService.getUserById("USER_0123456789abcdef").orElseThrow().getUserType());
+    assertEquals(
+        "COACH", userService.getUserById("USER_fedcba9876543210").orElseThrow().getUserType());
+    assertTrue(userService.getUserById("USER_missing").isEmpty());
+
+    assertEquals(3, db.requestCount("BatchGetItem"));
+    assertEquals(0, db.requestCount("GetItem"));
+  }
+
+  @Test
+  public void getUsersByIds_pagesAndRetriesUnprocessedKeys() {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      String id = String.format("USER_S_%016x", i);
+      seed(id, "STUDENT");
+      ids.add(id);
+    }
+    for (int i = 0; i < 30; i++) {
+      String id = String.format("USER_%016x", i);
+      seed(id, i % 2 == 0 ? "COACH" : "STUDENT");
+      ids.add(id);
+    }
+    ids.add("USER_S_ffffffffffffffff"); // does not exist
+    ids.add(ids.get(0)); // duplicate
+    db.injectUnprocessed(20);
+
+    Map<String, User> users = userService.getUsersByIds(ids);
+
+    assertEquals(180, users.size());
+    assertEquals(ids.subList(0, 180), new ArrayList<>(users.keySet()));
+    assertEquals("COACH", users.get(String.format("USER_%016x", 0)).getUserType());
+    // 210 keys -> three pages, plus at least one retry for the unprocessed keys
+    assertTrue(db.requestCount("BatchGetItem") >= 4);
+    assertEquals(0, db.requestCount("GetItem"));
+  }
+
+  @Test
+  public void getUsersByIds_servesCachedIdsWithoutDynamoDB() {
+    UserServiceImpl cached = userService(db, true);
+    seed("USER_S_0000000000000001", "STUDENT");
+    seed("USER_S_0000000000000002", "STUDENT");
+    cached.getUserById("USER_S_0000000000000001");
+    db.resetCounters();
+
+    assertEquals(
+        2,
+        cached.getUsersByIds(List.of("USER_S_0000000000000001", "USER_S_0000000000000002")).size());
+    assertEquals(1, db.requestCount("BatchGetItem"));
+
+    assertEquals(
+        2,
+        cached.getUsersByIds(List.of("USER_S_0000000000000001", "USER_S_0000000000000002")).size());
+    assertEquals(1, db.requestCount("BatchGetItem"));
+  }
+
+  @Test
+  public void getUserById_databaseError_isNotSwallowed() {
+    UserServiceImpl broken = userService(new AbstractAmazonDynamoDB() {}, false);
+
+    UserException e =
+        assertThrows(UserException.class, () -> broken.getUserById("USER_0123456789abcdef"));
+    assertEquals("DATABASE_ERROR", e.getErrorCode());
+    assertThrows(
+        UserException.class, () -> broken.getUsersByIds(List.of("USER_S_0000000000000001")));
+    assertThrows(UserException.class, () -> broken.deleteUser("USER_S_0000000000000001"));
+  }
+
+  @Test
+  public void deleteUser_releasesItsIdentifiers() {
+    userService.createUser(user("USER_S_0000000000000001", "alice"));
+
+    userService.deleteUser("USER_S_0000000000000001");
+
+    assertEquals(0, db.size());
+  }
+
+  @Test
+  public void deleteUser_keepsAnIdentifierAnotherUserClaimed() {
+    userService.createUser(user("USER_S_0000000000000001", "alice"));
+    // Alice changed her email and Bob claimed the old one after her row was read
+    db.seed(
+        Map.of(
+            "userId", new AttributeValue("EMAIL#alice@example.com"),
+            "userType", new AttributeValue("UNIQUE"),
+            "ownerUserId", new AttributeValue("USER_S_0000000000000002")));
+
+    UserException e =
+        assertThrows(UserException.class, () -> userService.deleteUser("USER_S_0000000000000001"));
+
+    assertEquals("CONFLICT", e.getErrorCode());
+    assertEquals(3, db.size());
+  }
+
+  private static User user(String userId, String username) {
+    User user = new User();
+    user.setUserId(userId);
+    user.setUserType("STUDENT");
+    user.setUsername(username);
+    user.setEmail(username + "@example.com");
+    return user;
+  }
+
+  private void seed(String userId, String userType) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put("userId", new AttributeValue(userId));
+    item.put("userType", new AttributeValue(userType));
+    item.put("username", new AttributeValue("user_" + userId));
+    db.seed(item);
+  }
+
+  private static UserServiceImpl userService(AmazonDynamoDB db, boolean cacheEnabled) {
+    return TestServices.userService(db, TestServices.identityCache(cacheEnabled));
+  }
+}
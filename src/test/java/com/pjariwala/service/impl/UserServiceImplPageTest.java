@@ -0,0 +1,103 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.dto.UserInfo;
+import com.pjariwala.dto.UserPageResponse;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import com.pjariwala.support.TestFields;
+import com.pjariwala.util.PageCursorCodec;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UserServiceImplPageTest {
+
+  private InMemoryDynamoDB db;
+  private UserServiceImpl userService;
+
+  @BeforeEach
+  public void setUp() {
+    db = InMemoryDynamoDB.forModel(User.class);
+    for (int i = 0; i < 45; i++) {
+      seed(String.format("USER_S_%016x", i), "STUDENT", String.format("2025-01-01T10:%02d:00", i));
+    }
+    for (int i = 0; i < 5; i++) {
+      seed(String.format("USER_C_%016x", i), "COACH", String.format("2025-02-01T10:%02d:00", i));
+    }
+    seed("USER_legacy", "STUDENT", null); // predates createdAt, so not in the index
+
+    PageCursorCodec codec = TestFields.set(new PageCursorCodec(), "cursorSecret", "secret");
+    codec.init();
+    userService = TestServices.userService(db, TestServices.identityCache(false));
+    TestFields.set(userService, "pageCursorCodec", codec);
+  }
+
+  @Test
+  public void getUsersByType_pagesNewestFirstReadingOnlyOnePagePerCall() {
+    List<String> ids = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      db.resetCounters();
+      UserPageResponse page = userService.getUsersByType("STUDENT", 20, cursor);
+      assertEquals(1, db.requestCount("Query"));
+      assertTrue(db.itemsRead() <= 20);
+      assertTrue(page.getUsers().size() <= 20);
+      page.getUsers().stream().map(UserInfo::getUserId).forEach(ids::add);
+      cursor = page.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(3, pages);
+    assertEquals(45, ids.size());
+    assertEquals(String.format("USER_S_%016x", 44), ids.get(0));
+    assertEquals(String.format("USER_S_%016x", 0), ids.get(44));
+    assertEquals(0, db.requestCount("Scan"));
+  }
+
+  @Test
+  public void getUsersByType_cursorIsBoundToTheUserType() {
+    String cursor = userService.getUsersByType("STUDENT", 10, null).getNextCursor();
+    assertNotNull(cursor);
+
+    UserException e =
+        assertThrows(UserException.class, () -> userService.getUsersByType("COACH", 10, cursor));
+    assertEquals("VALIDATION_ERROR", e.getErrorCode());
+    assertThrows(
+        UserException.class, () -> userService.getUsersByType("STUDENT", 10, cursor + "x"));
+    assertEquals(10, userService.getUsersByType("STUDENT", 10, cursor).getUsers().size());
+  }
+
+  @Test
+  public void getUsersByType_rejectsBadArguments() {
+    assertThrows(UserException.class, () -> userService.getUsersByType("ADMIN", 10, null));
+    assertThrows(UserException.class, () -> userService.getUsersByType("STUDENT", 0, null));
+  }
+
+  @Test
+  public void getUsersByType_unpagedQueriesTheIndex() {
+    List<User> coaches = userService.getUsersByType("COACH");
+
+    assertEquals(5, coaches.size());
+    assertEquals(String.format("USER_C_%016x", 4), coaches.get(0).getUserId());
+    assertEquals(0, db.requestCount("Scan"));
+  }
+
+  private void seed(String userId, String userType, String createdAt) {
+    Map<String, AttributeValue> item = new HashMap<>();
+    item.put("userId", new AttributeValue(userId));
+    item.put("userType", new AttributeValue(userType));
+    item.put("username", new AttributeValue("user_" + userId));
+    if (createdAt != null) {
+      item.put("createdAt", new AttributeValue(createdAt));
+    }
+    db.seed(item);
+  }
+}
@@ -0,0 +1,91 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class UserServiceImplPhoneLookupTest {
+
+  private static final int LOOKUPS = 500;
+
+  @Test
+  public void getUserByPhone_normalizesInputAndQueriesIndex() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    seed(db, 10);
+    UserServiceImpl userService = userService(db);
+
+    Optional<User> user = userService.getUserByPhone("098765 00007");
+
+    assertTrue(user.isPresent());
+    assertEquals("USER_7", user.get().getUserId());
+    assertEquals(1, db.requestCount("Query"));
+    assertEquals(0, db.requestCount("Scan"));
+  }
+
+  @Test
+  public void getUserByPhone_notAPhoneNumber_skipsDynamoDB() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    UserServiceImpl userService = userService(db);
+
+    assertTrue(userService.getUserByPhone("johndoe_coach").isEmpty());
+    assertEquals(0, db.requestCount("Query"));
+  }
+
+  @Test
+  public void createUser_storesE164PhoneNumber() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    UserServiceImpl userService = userService(db);
+    User user = new User();
+    user.setUserId("USER_new");
+    user.setUserType("STUDENT");
+    user.setPhoneNumber("+91 98765-43210");
+
+    userService.createUser(user);
+
+    assertEquals("+919876543210", db.rawItem("USER_new", "STUDENT").get("phoneNumber").getS());
+    assertTrue(userService.getUserByPhone("9876543210").isPresent());
+  }
+
+  @Test
+  public void getUserByPhone_readsOnlyTheMatchingItem() {
+    InMemoryDynamoDB db = InMemoryDynamoDB.forModel(User.class);
+    seed(db, 2_000);
+    UserServiceImpl userService = userService(db);
+
+    for (int i = 0; i < LOOKUPS; i++) {
+      assertTrue(userService.getUserByPhone(phone((i * 7919) % 2_000)).isPresent());
+    }
+
+    // One keyed query per lookup that reads only the matching item, not the other 1,999 rows
+    assertEquals(LOOKUPS, db.requestCount("Query"));
+    assertEquals(0, db.requestCount("Scan"));
+    assertEquals(LOOKUPS, db.itemsRead());
+  }
+
+  private static void seed(InMemoryDynamoDB db, int rows) {
+    for (int i = 0; i < rows; i++) {
+      Map<String, AttributeValue> item = new HashMap<>();
+      item.put("userId", new AttributeValue("USER_" + i));
+      item.put("userType", new AttributeValue(i % 10 == 0 ? "COACH" : "STUDENT"));
+      item.put("username", new AttributeValue("user" + i));
+      item.put("email", new AttributeValue("user" + i + "@example.com"));
+      item.put("phoneNumber", new AttributeValue(phone(i)));
+      db.seed(item);
+    }
+  }
+
+  private static String phone(int i) {
+    return String.format("+91987650%04d", i);
+  }
+
+  private static UserServiceImpl userService(InMemoryDynamoDB db) {
+    // These tests measure the index queries themselves, so lookups bypass the identity cache
+    return TestServices.userService(db, TestServices.identityCache(false));
+  }
+}
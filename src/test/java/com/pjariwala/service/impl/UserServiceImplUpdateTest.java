@@ -0,0 +1,266 @@
+package com.pjariwala.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.pjariwala.exception.UserException;
+import com.pjariwala.model.UniqueIdentifier;
+import com.pjariwala.model.User;
+import com.pjariwala.support.InMemoryDynamoDB;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UserServiceImplUpdateTest {
+
+  private static final String USER_ID = "USER_S_0000000000000001";
+
+  private RecordingDynamoDB db;
+  private DynamoDBMapper mapper;
+  private UserServiceImpl userService;
+
+  @BeforeEach
+  public void setUp() {
+    db = new RecordingDynamoDB();
+    mapper = new DynamoDBMapper(db);
+    userService = TestServices.userService(db, TestServices.identityCache(true));
+    userService.createUser(student());
+    db.resetCounters();
+  }
+
+  @Test
+  public void updateUser_writesOnlyTheChangedAttributesAndBumpsTheVersion() {
+    User alice = userService.getUserById(USER_ID).orElseThrow();
+    assertEquals(1L, alice.getVersion());
+    alice.setName("Alice Smith");
+    db.attributesWritten.set(0);
+
+    User updated = userService.updateUser(alice);
+
+    assertEquals(2L, updated.getVersion());
+    assertEquals(1, db.requestCount("UpdateItem"));
+    assertEquals(0, db.requestCount("PutItem"));
+    assertEquals(0, db.requestCount("TransactWriteItems"));
+    // name, plus the updatedAt and version every update sets
+    assertEquals(3, db.attributesWritten.get());
+    Map<String, AttributeValue> row = db.rawItem(USER_ID, "STUDENT");
+    assertEquals("Alice Smith", row.get("name").getS());
+    assertEquals("Guardian", row.get("guardianName").getS());
+    assertEquals("2", row.get("version").getN());
+  }
+
+  @Test
+  public void updateUser_nothingChanged_writesNothing() {
+    User alice = userService.getUserById(USER_ID).orElseThrow();
+
+    User updated = userService.updateUser(alice);
+
+    assertEquals(1L, updated.getVersion());
+    assertEquals(0, db.requestCount("UpdateItem"));
+    assertEquals(0, db.writeUnits());
+  }
+
+  @Test
+  public void updateUser_clearedAttribute_isRemoved() {
+    userService.updateUser(USER_ID, user -> user.setGuardianPhone(null));
+
+    assertFalse(db.rawItem(USER_ID, "STUDENT").containsKey("guardianPhone"));
+  }
+
+  @Test
+  public void updateUser_staleCopy_failsWithConflictAndKeepsTheOtherEdit() {
+    User first = userService.getUserById(USER_ID).orElseThrow();
+    User second = UserIdentityCache.copy(first);
+    first.setName("Alice Smith");
+    second.setIsActive(false);
+
+    userService.updateUser(first);
+    UserException e = assertThrows(UserException.class, () -> userService.updateUser(second));
+
+    assertEquals("CONFLICT", e.getErrorCode());
+    assertEquals(409, e.getHttpStatus());
+    User stored = mapper.load(User.class, USER_ID, "STUDENT");
+    assertEquals("Alice Smith", stored.getName());
+    assertTrue(stored.getIsActive());
+  }
+
+  @Test
+  public void updateUser_patchThatLosesARace_isAppliedAgainOnTheNewRow() {
+    AtomicInteger applied = new AtomicInteger();
+
+    User updated =
+        userService.updateUser(
+            USER_ID,
+            user -> {
+              if (applied.incrementAndGet() == 1) {
+                // Another request updates the row between this patch's read and its write
+                userService.updateUser(USER_ID, other -> other.setIsActive(false));
+              }
+              user.setName("Alice Smith");
+            });
+
+    assertEquals(2, applied.get());
+    assertEquals(3L, updated.getVersion());
+    User stored = mapper.load(User.class, USER_ID, "STUDENT");
+    assertEquals("Alice Smith", stored.getName());
+    assertFalse(stored.getIsActive());
+  }
+
+  @Test
+  public void updateUser_rowWithoutVersion_getsItsFirstVersion() {
+    Map<String, AttributeValue> legacy = new HashMap<>(db.rawItem(USER_ID, "STUDENT"));
+    legacy.remove("version");
+    db.seed(legacy);
+
+    User updated = userService.updateUser(USER_ID, user -> user.setName("Alice Smith"));
+
+    assertEquals(1L, updated.getVersion());
+    assertEquals("1", db.rawItem(USER_ID, "STUDENT").get("version").getN());
+  }
+
+  @Test
+  public void updateUser_changedEmail_movesItsGuard() {
+    userService.updateUser(USER_ID, user -> user.setEmail("alice@new.example.com"));
+
+    assertEquals(1, db.requestCount("TransactWriteItems"));
+    assertNull(db.rawItem("EMAIL#alice@example.com", UniqueIdentifier.ITEM_TYPE));
+    assertEquals(
+        USER_ID,
+        db.rawItem("EMAIL#alice@new.example.com", UniqueIdentifier.ITEM_TYPE)
+            .get("ownerUserId")
+            .getS());
+  }
+
+  @Test
+  public void updateUser_changedEmail_keepsTheOldGuardIfAnotherUserClaimedIt() {
+    // Bob holds the guard on Alice's old email, as after a lost race or a repair by hand
+    db.seed(
+        Map.of(
+            "userId", new AttributeValue("EMAIL#alice@example.com"),
+            "userType", new AttributeValue(UniqueIdentifier.ITEM_TYPE),
+            "ownerUserId", new AttributeValue("USER_S_0000000000000002")));
+
+    UserException e =
+        assertThrows(
+            UserException.class,
+            () -> userService.updateUser(USER_ID, user -> user.setEmail("alice@new.example.com")));
+
+    assertEquals("CONFLICT", e.getErrorCode());
+    assertEquals(
+        "USER_S_0000000000000002",
+        db.rawItem("EMAIL#alice@example.com", UniqueIdentifier.ITEM_TYPE)
+            .get("ownerUserId")
+            .getS());
+    assertNull(db.rawItem("EMAIL#alice@new.example.com", UniqueIdentifier.ITEM_TYPE));
+  }
+
+  @Test
+  public void updateUser_emailOfAnotherUser_failsWithUserExists() {
+    User bob = student();
+    bob.setUserId("USER_S_0000000000000002");
+    bob.setUsername("bob");
+    bob.setEmail("bob@example.com");
+    bob.setPhoneNumber("+919876500002");
+    userService.createUser(bob);
+
+    UserException e =
+        assertThrows(
+            UserException.class,
+            () -> userService.updateUser(USER_ID, user -> user.setEmail("bob@example.com")));
+
+    assertEquals("USER_EXISTS", e.getErrorCode());
+    assertEquals("alice@example.com", db.rawItem(USER_ID, "STUDENT").get("email").getS());
+    assertEquals("1", db.rawItem(USER_ID, "STUDENT").get("version").getN());
+  }
+
+  @Test
+  public void updateUser_typicalProfileEdits_writeCapacityAndAttributesBeforeAndAfter() {
+    Map<String, Consumer<User>> edits = new LinkedHashMap<>();
+    edits.put("rename", user -> user.setName("Alice Smith"));
+    edits.put("deactivate", user -> user.setIsActive(false));
+    edits.put("unchanged form", user -> {});
+
+    for (Map.Entry<String, Consumer<User>> edit : edits.entrySet()) {
+      setUp();
+      // Before: the whole row went back through DynamoDBMapper.save
+      User user = mapper.load(User.class, USER_ID, "STUDENT");
+      edit.getValue().accept(user);
+      user.setUpdatedAt(LocalDateTime.now());
+      db.resetCounters();
+      db.attributesWritten.set(0);
+      mapper.save(user);
+      long saveUnits = db.writeUnits();
+      int saveAttributes = db.attributesWritten.get();
+
+      setUp();
+      db.attributesWritten.set(0);
+      userService.updateUser(USER_ID, edit.getValue());
+      long updateUnits = db.writeUnits();
+      int updateAttributes = db.attributesWritten.get();
+
+      String report =
+          String.format(
+              "%s: WCU / attributes written: save %d / %d -> update %d / %d",
+              edit.getKey(), saveUnits, saveAttributes, updateUnits, updateAttributes);
+      assertTrue(updateUnits <= saveUnits, report);
+      assertTrue(updateAttributes < saveAttributes, report);
+    }
+
+    // An unchanged form is not written at all
+    assertEquals(0, db.writeUnits());
+  }
+
+  private static User student() {
+    User user = new User();
+    user.setUserId(USER_ID);
+    user.setUserType("STUDENT");
+    user.setUsername("alice_student");
+    user.setEmail("alice@example.com");
+    user.setName("Alice");
+    user.setPhoneNumber("+919876543210");
+    user.setCognitoSub("sub-alice");
+    user.setIsActive(true);
+    user.setGuardianName("Guardian");
+    user.setGuardianPhone("+919876500000");
+    user.setJoiningDate(LocalDateTime.of(2024, 6, 1, 0, 0));
+    return user;
+  }
+
+  /** Table that counts the attributes each single-item write carries, keys left out */
+  private static class RecordingDynamoDB extends InMemoryDynamoDB {
+
+    final AtomicInteger attributesWritten = new AtomicInteger();
+
+    RecordingDynamoDB() {
+      super(
+          new DynamoDBMapper(new AbstractAmazonDynamoDB() {})
+              .generateCreateTableRequest(User.class));
+    }
+
+    @Override
+    public PutItemResult putItem(PutItemRequest request) {
+      attributesWritten.addAndGet(request.getItem().size() - 2);
+      return super.putItem(request);
+    }
+
+    @Override
+    public UpdateItemResult updateItem(UpdateItemRequest request) {
+      attributesWritten.addAndGet(
+          request.getAttributeUpdates() != null
+              ? request.getAttributeUpdates().size()
+              : request.getExpressionAttributeNames().size());
+      return super.updateItem(request);
+    }
+  }
+}
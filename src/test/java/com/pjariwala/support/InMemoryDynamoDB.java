@@ -0,0 +1,778 @@
+package com.pjariwala.support;
+
+import com.amazonaws.services.dynamodbv2.AbstractAmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CancellationReason;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndex;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItem;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsRequest;
+import com.amazonaws.services.dynamodbv2.model.TransactWriteItemsResult;
+import com.amazonaws.services.dynamodbv2.model.TransactionCanceledException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-memory stand-in for a single DynamoDB table, good enough for {@link DynamoDBMapper}
+ * round trips in tests. The key schema and GSIs are taken from the mapper's generated {@link
+ * CreateTableRequest}, so new index annotations on a model show up here automatically.
+ *
+ * <p>Only the expression forms this codebase issues are understood: comparisons and {@code
+ * attribute_exists}/{@code attribute_not_exists} joined by {@code AND} and {@code OR} (AND binding
+ * tighter, parentheses allowed), and {@code SET}/{@code REMOVE} update clauses. Every request is
+ * counted per operation and every item the table has to touch is counted as a read, so tests can
+ * assert on request counts, read cost and write units.
+ */
+public class InMemoryDynamoDB extends AbstractAmazonDynamoDB {
+
+  private static final Pattern COMPARISON =
+      Pattern.compile("^(#?[\\w.]+)\\s*(=|<>|<=|>=|<|>)\\s*(:\\w+|#?[\\w.]+)$");
+  private static final Pattern FUNCTION =
+      Pattern.compile("^(attribute_exists|attribute_not_exists)\\s*\\((.*)\\)$");
+  private static final Pattern UPDATE_SECTION =
+      Pattern.compile("(SET|REMOVE)\\s+(.*?)(?=\\s+(?:SET|REMOVE)\\s+|$)");
+
+  private final String tableName;
+  private final String hashKey;
+  private final String rangeKey;
+  private final Map<String, String[]> indexes = new HashMap<>();
+  private final Set<String> indexedAttributes = new HashSet<>();
+  private final NavigableMap<String, Map<String, AttributeValue>> items =
+      new ConcurrentSkipListMap<>();
+  private final Map<String, Map<String, Set<String>>> hashIndex = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+  private final AtomicLong itemsRead = new AtomicLong();
+  private final AtomicLong writeUnits = new AtomicLong();
+  private final AtomicInteger unprocessedToInject = new AtomicInteger();
+  private volatile long latencyMillis;
+
+  public InMemoryDynamoDB(CreateTableRequest table) {
+    this.tableName = table.getTableName();
+    this.hashKey = keyOf(table.getKeySchema(), KeyType.HASH);
+    this.rangeKey = keyOf(table.getKeySchema(), KeyType.RANGE);
+    if (table.getGlobalSecondaryIndexes() != null) {
+      for (GlobalSecondaryIndex gsi : table.getGlobalSecondaryIndexes()) {
+        indexes.put(
+            gsi.getIndexName(),
+            new String[] {
+              keyOf(gsi.getKeySchema(), KeyType.HASH), keyOf(gsi.getKeySchema(), KeyType.RANGE)
+            });
+      }
+    }
+    indexedAttributes.add(hashKey);
+    for (String[] keys : indexes.values()) {
+      indexedAttributes.add(keys[0]);
+    }
+  }
+
+  /** Table stand-in whose schema is derived from a mapper-annotated model class. */
+  public static InMemoryDynamoDB forModel(Class<?> modelClass) {
+    CreateTableRequest table =
+        new DynamoDBMapper(new AbstractAmazonDynamoDB() {}).generateCreateTableRequest(modelClass);
+    return new InMemoryDynamoDB(table);
+  }
+
+  // ---------------------------------------------------------------- test knobs and counters
+
+  /** Number of requests of the given operation (e.g. {@code "Query"}, {@code "Scan"}). */
+  public long requestCount(String operation) {
+    AtomicLong count = requests.get(operation);
+    return count == null ? 0 : count.get();
+  }
+
+  /** Items the table had to read (examined, not just returned) since the last reset. */
+  public long itemsRead() {
+    return itemsRead.get();
+  }
+
+  /** Write capacity units consumed since the last reset (1 WCU per started KB per item). */
+  public long writeUnits() {
+    return writeUnits.get();
+  }
+
+  public void resetCounters() {
+    requests.clear();
+    itemsRead.set(0);
+    writeUnits.set(0);
+  }
+
+  /** Adds a fixed delay to every request, to emulate network round trips. */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /** The next batch request reports this many of its keys/items as unprocessed. */
+  public void injectUnprocessed(int count) {
+    unprocessedToInject.set(count);
+  }
+
+  /** Loads an item directly, bypassing counters. */
+  public void seed(Map<String, AttributeValue> item) {
+    store(keyString(item), new HashMap<>(item));
+  }
+
+  public int size() {
+    return items.size();
+  }
+
+  public Map<String, AttributeValue> rawItem(String hash, String range) {
+    Map<String, AttributeValue> item = items.get(hash + "|" + range);
+    return item == null ? null : new HashMap<>(item);
+  }
+
+  // ---------------------------------------------------------------- single item operations
+
+  @Override
+  public GetItemResult getItem(GetItemRequest request) {
+    begin("GetItem");
+    Map<String, AttributeValue> item = items.get(keyString(request.getKey()));
+    if (item != null) {
+      itemsRead.incrementAndGet();
+    }
+    return new GetItemResult().withItem(item == null ? null : new HashMap<>(item));
+  }
+
+  @Override
+  public PutItemResult putItem(PutItemRequest request) {
+    begin("PutItem");
+    synchronized (items) {
+      String key = keyString(request.getItem());
+      checkCondition(
+          items.get(key),
+          request.getConditionExpression(),
+          request.getExpected(),
+          request.getExpressionAttributeNames(),
+          request.getExpressionAttributeValues());
+      store(key, new HashMap<>(request.getItem()));
+      long units = chargeWrite(request.getItem());
+      return new PutItemResult().withConsumedCapacity(capacity(units));
+    }
+  }
+
+  @Override
+  public UpdateItemResult updateItem(UpdateItemRequest request) {
+    begin("UpdateItem");
+    synchronized (items) {
+      String key = keyString(request.getKey());
+      Map<String, AttributeValue> existing = items.get(key);
+      checkCondition(
+          existing,
+          request.getConditionExpression(),
+          request.getExpected(),
+          request.getExpressionAttributeNames(),
+          request.getExpressionAttributeValues());
+      Map<String, AttributeValue> updated =
+          existing == null ? new HashMap<>(request.getKey()) : new HashMap<>(existing);
+      if (request.getAttributeUpdates() != null) {
+        for (Map.Entry<String, AttributeValueUpdate> e : request.getAttributeUpdates().entrySet()) {
+          String action = e.getValue().getAction();
+          if (AttributeAction.DELETE.toString().equals(action)) {
+            updated.remove(e.getKey());
+          } else {
+            updated.put(e.getKey(), e.getValue().getValue());
+          }
+        }
+      }
+      if (request.getUpdateExpression() != null) {
+        applyUpdateExpression(
+            updated,
+            request.getUpdateExpression(),
+            request.getExpressionAttributeNames(),
+            request.getExpressionAttributeValues());
+      }
+      store(key, updated);
+      long units =
+          chargeWrite(existing == null || size(updated) > size(existing) ? updated : existing);
+      return new UpdateItemResult().withConsumedCapacity(capacity(units));
+    }
+  }
+
+  @Override
+  public DeleteItemResult deleteItem(DeleteItemRequest request) {
+    begin("DeleteItem");
+    synchronized (items) {
+      String key = keyString(request.getKey());
+      checkCondition(
+          items.get(key),
+          request.getConditionExpression(),
+          request.getExpected(),
+          request.getExpressionAttributeNames(),
+          request.getExpressionAttributeValues());
+      Map<String, AttributeValue> removed = remove(key);
+      if (removed != null) {
+        writeUnits.addAndGet(units(removed));
+      }
+      return new DeleteItemResult();
+    }
+  }
+
+  // ---------------------------------------------------------------- batch and transactions
+
+  @Override
+  public BatchGetItemResult batchGetItem(BatchGetItemRequest request) {
+    begin("BatchGetItem");
+    Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+    Map<String, KeysAndAttributes> unprocessed = new HashMap<>();
+    for (Map.Entry<String, KeysAndAttributes> entry : request.getRequestItems().entrySet()) {
+      List<Map<String, AttributeValue>> found = new ArrayList<>();
+      List<Map<String, AttributeValue>> skipped = new ArrayList<>();
+      for (Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+        if (unprocessedToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+          skipped.add(key);
+          continue;
+        }
+        Map<String, AttributeValue> item = items.get(keyString(key));
+        if (item != null) {
+          itemsRead.incrementAndGet();
+          found.add(new HashMap<>(item));
+        }
+      }
+      responses.put(entry.getKey(), found);
+      if (!skipped.isEmpty()) {
+        unprocessed.put(entry.getKey(), new KeysAndAttributes().withKeys(skipped));
+      }
+    }
+    return new BatchGetItemResult().withResponses(responses).withUnprocessedKeys(unprocessed);
+  }
+
+  @Override
+  public BatchWriteItemResult batchWriteItem(BatchWriteItemRequest request) {
+    begin("BatchWriteItem");
+    Map<String, List<WriteRequest>> unprocessed = new HashMap<>();
+    synchronized (items) {
+      for (Map.Entry<String, List<WriteRequest>> entry : request.getRequestItems().entrySet()) {
+        if (entry.getValue().size() > 25) {
+          throw new IllegalArgumentException("Too many items in BatchWriteItem");
+        }
+        List<WriteRequest> skipped = new ArrayList<>();
+        for (WriteRequest write : entry.getValue()) {
+          if (unprocessedToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            skipped.add(write);
+          } else if (write.getPutRequest() != null) {
+            Map<String, AttributeValue> item = write.getPutRequest().getItem();
+            store(keyString(item), new HashMap<>(item));
+            chargeWrite(item);
+          } else if (write.getDeleteRequest() != null) {
+            remove(keyString(write.getDeleteRequest().getKey()));
+          }
+        }
+        if (!skipped.isEmpty()) {
+          unprocessed.put(entry.getKey(), skipped);
+        }
+      }
+    }
+    return new BatchWriteItemResult().withUnprocessedItems(unprocessed);
+  }
+
+  @Override
+  public TransactWriteItemsResult transactWriteItems(TransactWriteItemsRequest request) {
+    begin("TransactWriteItems");
+    synchronized (items) {
+      List<CancellationReason> reasons = new ArrayList<>();
+      boolean failed = false;
+      for (TransactWriteItem write : request.getTransactItems()) {
+        try {
+          if (write.getPut() != null) {
+            checkCondition(
+                items.get(keyString(write.getPut().getItem())),
+                write.getPut().getConditionExpression(),
+                null,
+                write.getPut().getExpressionAttributeNames(),
+                write.getPut().getExpressionAttributeValues());
+          } else if (write.getDelete() != null) {
+            checkCondition(
+                items.get(keyString(write.getDelete().getKey())),
+                write.getDelete().getConditionExpression(),
+                null,
+                write.getDelete().getExpressionAttributeNames(),
+                write.getDelete().getExpressionAttributeValues());
+          } else if (write.getUpdate() != null) {
+            checkCondition(
+                items.get(keyString(write.getUpdate().getKey())),
+                write.getUpdate().getConditionExpression(),
+                null,
+                write.getUpdate().getExpressionAttributeNames(),
+                write.getUpdate().getExpressionAttributeValues());
+          }
+          reasons.add(new CancellationReason().withCode("None"));
+        } catch (ConditionalCheckFailedException e) {
+          failed = true;
+          reasons.add(new CancellationReason().withCode("ConditionalCheckFailed"));
+        }
+      }
+      if (failed) {
+        TransactionCanceledException e =
+            new TransactionCanceledException(
+                "Transaction cancelled, please refer cancellation reasons");
+        e.setCancellationReasons(reasons);
+        throw e;
+      }
+      for (TransactWriteItem write : request.getTransactItems()) {
+        if (write.getPut() != null) {
+          Map<String, AttributeValue> item = write.getPut().getItem();
+          store(keyString(item), new HashMap<>(item));
+          writeUnits.addAndGet(2 * units(item));
+        } else if (write.getDelete() != null) {
+          remove(keyString(write.getDelete().getKey()));
+        } else if (write.getUpdate() != null) {
+          String key = keyString(write.getUpdate().getKey());
+          Map<String, AttributeValue> updated =
+              new HashMap<>(items.getOrDefault(key, write.getUpdate().getKey()));
+          applyUpdateExpression(
+              updated,
+              write.getUpdate().getUpdateExpression(),
+              write.getUpdate().getExpressionAttributeNames(),
+              write.getUpdate().getExpressionAttributeValues());
+          store(key, updated);
+          writeUnits.addAndGet(2 * units(updated));
+        }
+      }
+      return new TransactWriteItemsResult();
+    }
+  }
+
+  // ---------------------------------------------------------------- query and scan
+
+  @Override
+  public QueryResult query(QueryRequest request) {
+    begin("Query");
+    String[] keys =
+        request.getIndexName() == null
+            ? new String[] {hashKey, rangeKey}
+            : indexes.get(request.getIndexName());
+    if (keys == null) {
+      throw new IllegalArgumentException("Unknown index: " + request.getIndexName());
+    }
+    Map<String, String> names = request.getExpressionAttributeNames();
+    Map<String, AttributeValue> values = request.getExpressionAttributeValues();
+    List<Map<String, AttributeValue>> matched = new ArrayList<>();
+    for (Map<String, AttributeValue> item : candidates(keys[0], request)) {
+      if (item.containsKey(keys[0])
+          && (keys[1] == null || item.containsKey(keys[1]))
+          && matches(item, request.getKeyConditionExpression(), names, values)) {
+        matched.add(item);
+      }
+    }
+    Comparator<Map<String, AttributeValue>> order =
+        Comparator.comparing(item -> keys[1] == null ? "" : scalar(item.get(keys[1])));
+    order = order.thenComparing(this::keyString);
+    if (Boolean.FALSE.equals(request.getScanIndexForward())) {
+      order = order.reversed();
+    }
+    matched.sort(order);
+    int start = 0;
+    if (request.getExclusiveStartKey() != null) {
+      String after = keyString(request.getExclusiveStartKey());
+      while (start < matched.size() && !keyString(matched.get(start)).equals(after)) {
+        start++;
+      }
+      start++;
+    }
+    int limit = request.getLimit() == null ? Integer.MAX_VALUE : request.getLimit();
+    List<Map<String, AttributeValue>> page = new ArrayList<>();
+    Map<String, AttributeValue> last = null;
+    int examined = 0;
+    for (int i = start; i < matched.size() && examined < limit; i++) {
+      Map<String, AttributeValue> item = matched.get(i);
+      examined++;
+      last = item;
+      if (matches(item, request.getFilterExpression(), names, values)) {
+        page.add(project(item, request.getProjectionExpression(), names));
+      }
+    }
+    itemsRead.addAndGet(examined);
+    QueryResult result =
+        new QueryResult().withItems(page).withCount(page.size()).withScannedCount(examined);
+    if (last != null && start + examined < matched.size()) {
+      result.setLastEvaluatedKey(lastKey(last, keys));
+    }
+    return result;
+  }
+
+  /** Items sharing the queried partition key, looked up by hash like a real partition. */
+  private List<Map<String, AttributeValue>> candidates(String partitionKey, QueryRequest request) {
+    AttributeValue wanted = null;
+    for (String clause : splitTopLevel(request.getKeyConditionExpression(), " AND ")) {
+      Matcher cmp = COMPARISON.matcher(clause.trim());
+      if (cmp.matches()
+          && "=".equals(cmp.group(2))
+          && partitionKey.equals(name(cmp.group(1), request.getExpressionAttributeNames()))) {
+        wanted = request.getExpressionAttributeValues().get(cmp.group(3));
+      }
+    }
+    if (wanted == null) {
+      throw new IllegalArgumentException("Query must specify the partition key " + partitionKey);
+    }
+    Set<String> keys =
+        hashIndex.getOrDefault(partitionKey, Map.of()).getOrDefault(scalar(wanted), Set.of());
+    List<Map<String, AttributeValue>> found = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      Map<String, AttributeValue> item = items.get(key);
+      if (item != null) {
+        found.add(item);
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public ScanResult scan(ScanRequest request) {
+    begin("Scan");
+    int segment = request.getSegment() == null ? 0 : request.getSegment();
+    int totalSegments = request.getTotalSegments() == null ? 1 : request.getTotalSegments();
+    int limit = request.getLimit() == null ? Integer.MAX_VALUE : request.getLimit();
+    NavigableMap<String, Map<String, AttributeValue>> range =
+        request.getExclusiveStartKey() == null
+            ? items
+            : items.tailMap(keyString(request.getExclusiveStartKey()), false);
+    List<Map<String, AttributeValue>> page = new ArrayList<>();
+    String lastKey = null;
+    int examined = 0;
+    for (Map.Entry<String, Map<String, AttributeValue>> entry : range.entrySet()) {
+      if (Math.floorMod(entry.getKey().hashCode(), totalSegments) != segment) {
+        continue;
+      }
+      if (examined == limit) {
+        ScanResult result = scanResult(page, examined);
+        result.setLastEvaluatedKey(lastKey(items.get(lastKey), new String[] {null, null}));
+        return result;
+      }
+      examined++;
+      lastKey = entry.getKey();
+      Map<String, AttributeValue> item = entry.getValue();
+      if (matches(
+          item,
+          request.getFilterExpression(),
+          request.getExpressionAttributeNames(),
+          request.getExpressionAttributeValues())) {
+        page.add(
+            project(
+                item, request.getProjectionExpression(), request.getExpressionAttributeNames()));
+      }
+    }
+    return scanResult(page, examined);
+  }
+
+  private ScanResult scanResult(List<Map<String, AttributeValue>> page, int examined) {
+    itemsRead.addAndGet(examined);
+    return new ScanResult().withItems(page).withCount(page.size()).withScannedCount(examined);
+  }
+
+  // ---------------------------------------------------------------- expression evaluation
+
+  private void checkCondition(
+      Map<String, AttributeValue> existing,
+      String expression,
+      Map<String, ExpectedAttributeValue> expected,
+      Map<String, String> names,
+      Map<String, AttributeValue> values) {
+    boolean ok =
+        expression == null
+            || matches(existing == null ? Map.of() : existing, expression, names, values);
+    if (ok && expected != null) {
+      for (Map.Entry<String, ExpectedAttributeValue> e : expected.entrySet()) {
+        AttributeValue actual = existing == null ? null : existing.get(e.getKey());
+        ExpectedAttributeValue want = e.getValue();
+        if (Boolean.FALSE.equals(want.getExists())) {
+          ok &= actual == null;
+        } else if (want.getValue() != null) {
+          ok &= actual != null && scalar(actual).equals(scalar(want.getValue()));
+        }
+      }
+    }
+    if (!ok) {
+      throw new ConditionalCheckFailedException("The conditional request failed");
+    }
+  }
+
+  private boolean matches(
+      Map<String, AttributeValue> item,
+      String expression,
+      Map<String, String> names,
+      Map<String, AttributeValue> values) {
+    if (expression == null || expression.isBlank()) {
+      return true;
+    }
+    for (String disjunct : splitTopLevel(expression, " OR ")) {
+      boolean all = true;
+      for (String clause : splitTopLevel(disjunct, " AND ")) {
+        all &= matchesClause(item, clause.trim(), names, values);
+      }
+      if (all) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean matchesClause(
+      Map<String, AttributeValue> item,
+      String clause,
+      Map<String, String> names,
+      Map<String, AttributeValue> values) {
+    if (parenthesized(clause)) {
+      return matches(item, clause.substring(1, clause.length() - 1), names, values);
+    }
+    Matcher fn = FUNCTION.matcher(clause);
+    if (fn.matches()) {
+      AttributeValue actual = item.get(name(fn.group(2).trim(), names));
+      return "attribute_exists".equals(fn.group(1)) ? actual != null : actual == null;
+    }
+    Matcher cmp = COMPARISON.matcher(clause);
+    if (!cmp.matches()) {
+      throw new IllegalArgumentException("Unsupported expression: " + clause);
+    }
+    AttributeValue actual = item.get(name(cmp.group(1), names));
+    String operand = cmp.group(3);
+    AttributeValue wanted =
+        operand.startsWith(":") ? values.get(operand) : item.get(name(operand, names));
+    if (actual == null || wanted == null) {
+      return "<>".equals(cmp.group(2)) && (actual == null) != (wanted == null);
+    }
+    int c = compare(actual, wanted);
+    return switch (cmp.group(2)) {
+      case "=" -> c == 0;
+      case "<>" -> c != 0;
+      case "<" -> c < 0;
+      case "<=" -> c <= 0;
+      case ">" -> c > 0;
+      default -> c >= 0;
+    };
+  }
+
+  private void applyUpdateExpression(
+      Map<String, AttributeValue> item,
+      String expression,
+      Map<String, String> names,
+      Map<String, AttributeValue> values) {
+    Matcher section = UPDATE_SECTION.matcher(expression.trim());
+    while (section.find()) {
+      for (String part : splitTopLevel(section.group(2), ",")) {
+        String action = part.trim();
+        if ("REMOVE".equals(section.group(1))) {
+          item.remove(name(action, names));
+        } else {
+          String[] sides = action.split("=", 2);
+          item.put(name(sides[0].trim(), names), values.get(sides[1].trim()));
+        }
+      }
+    }
+  }
+
+  /** Whether the whole clause is in one pair of parentheses, as in {@code (a OR b)} */
+  private static boolean parenthesized(String clause) {
+    int depth = 0;
+    for (int i = 0; i < clause.length(); i++) {
+      char c = clause.charAt(i);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return clause.charAt(0) == '(' && i == clause.length() - 1;
+      }
+    }
+    return false;
+  }
+
+  private static List<String> splitTopLevel(String expression, String separator) {
+    List<String> parts = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i < expression.length(); i++) {
+      char c = expression.charAt(i);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0
+          && expression.regionMatches(true, i, separator, 0, separator.length())) {
+        parts.add(expression.substring(start, i));
+        start = i + separator.length();
+        i = start - 1;
+      }
+    }
+    parts.add(expression.substring(start));
+    return parts;
+  }
+
+  private static String name(String token, Map<String, String> names) {
+    return token.startsWith("#") && names != null ? names.get(token) : token;
+  }
+
+  private static Map<String, AttributeValue> project(
+      Map<String, AttributeValue> item, String projection, Map<String, String> names) {
+    if (projection == null) {
+      return new HashMap<>(item);
+    }
+    Map<String, AttributeValue> projected = new LinkedHashMap<>();
+    for (String attr : projection.split(",")) {
+      String resolved = name(attr.trim(), names);
+      if (item.containsKey(resolved)) {
+        projected.put(resolved, item.get(resolved));
+      }
+    }
+    return projected;
+  }
+
+  private static int compare(AttributeValue a, AttributeValue b) {
+    if (a.getN() != null && b.getN() != null) {
+      return new BigDecimal(a.getN()).compareTo(new BigDecimal(b.getN()));
+    }
+    return scalar(a).compareTo(scalar(b));
+  }
+
+  private static String scalar(AttributeValue value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.getS() != null) {
+      return value.getS();
+    }
+    if (value.getN() != null) {
+      return value.getN();
+    }
+    if (value.getBOOL() != null) {
+      return value.getBOOL().toString();
+    }
+    return String.valueOf(value);
+  }
+
+  // ---------------------------------------------------------------- keys and capacity
+
+  private Map<String, AttributeValue> lastKey(
+      Map<String, AttributeValue> item, String[] indexKeys) {
+    Map<String, AttributeValue> key = new HashMap<>();
+    key.put(hashKey, item.get(hashKey));
+    if (rangeKey != null) {
+      key.put(rangeKey, item.get(rangeKey));
+    }
+    for (String indexKey : indexKeys) {
+      if (indexKey != null) {
+        key.put(indexKey, item.get(indexKey));
+      }
+    }
+    return key;
+  }
+
+  private void store(String key, Map<String, AttributeValue> item) {
+    unindex(key, items.put(key, item));
+    for (String attr : indexedAttributes) {
+      AttributeValue value = item.get(attr);
+      if (value != null) {
+        hashIndex
+            .computeIfAbsent(attr, a -> new ConcurrentHashMap<>())
+            .computeIfAbsent(scalar(value), v -> ConcurrentHashMap.newKeySet())
+            .add(key);
+      }
+    }
+  }
+
+  private Map<String, AttributeValue> remove(String key) {
+    Map<String, AttributeValue> removed = items.remove(key);
+    unindex(key, removed);
+    return removed;
+  }
+
+  private void unindex(String key, Map<String, AttributeValue> old) {
+    if (old == null) {
+      return;
+    }
+    for (String attr : indexedAttributes) {
+      AttributeValue value = old.get(attr);
+      if (value != null) {
+        Set<String> keys = hashIndex.getOrDefault(attr, Map.of()).get(scalar(value));
+        if (keys != null) {
+          keys.remove(key);
+        }
+      }
+    }
+  }
+
+  private String keyString(Map<String, AttributeValue> item) {
+    return scalar(item.get(hashKey)) + "|" + (rangeKey == null ? "" : scalar(item.get(rangeKey)));
+  }
+
+  private long chargeWrite(Map<String, AttributeValue> item) {
+    long units = units(item);
+    writeUnits.addAndGet(units);
+    return units;
+  }
+
+  private static long units(Map<String, AttributeValue> item) {
+    return Math.max(1, (size(item) + 1023) / 1024);
+  }
+
+  private static int size(Map<String, AttributeValue> item) {
+    int size = 0;
+    for (Map.Entry<String, AttributeValue> e : item.entrySet()) {
+      size += e.getKey().length() + scalar(e.getValue()).length();
+    }
+    return size;
+  }
+
+  private ConsumedCapacity capacity(long units) {
+    return new ConsumedCapacity().withTableName(tableName).withCapacityUnits((double) units);
+  }
+
+  private void begin(String operation) {
+    requests.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+    long delay = latencyMillis;
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static String keyOf(List<KeySchemaElement> schema, KeyType type) {
+    for (KeySchemaElement element : schema) {
+      if (type.toString().equals(element.getKeyType())) {
+        return element.getAttributeName();
+      }
+    }
+    return null;
+  }
+}
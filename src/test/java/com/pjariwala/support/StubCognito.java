@@ -0,0 +1,164 @@
+package com.pjariwala.support;
+
+import com.amazonaws.services.cognitoidp.AbstractAWSCognitoIdentityProvider;
+import com.amazonaws.services.cognitoidp.model.AdminConfirmSignUpRequest;
+import com.amazonaws.services.cognitoidp.model.AdminConfirmSignUpResult;
+import com.amazonaws.services.cognitoidp.model.AdminDeleteUserRequest;
+import com.amazonaws.services.cognitoidp.model.AdminDeleteUserResult;
+import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthRequest;
+import com.amazonaws.services.cognitoidp.model.AdminInitiateAuthResult;
+import com.amazonaws.services.cognitoidp.model.AuthenticationResultType;
+import com.amazonaws.services.cognitoidp.model.NotAuthorizedException;
+import com.amazonaws.services.cognitoidp.model.SignUpRequest;
+import com.amazonaws.services.cognitoidp.model.SignUpResult;
+import com.amazonaws.services.cognitoidp.model.TooManyRequestsException;
+import com.amazonaws.services.cognitoidp.model.UserNotConfirmedException;
+import com.amazonaws.services.cognitoidp.model.UsernameExistsException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stand-in for the Cognito user pool: sign-up, confirmation, password auth and
+ * deletion.
+ *
+ * <p>Calls not implemented here throw {@link UnsupportedOperationException}. Each call can be
+ * slowed down and a number of calls can be throttled, and calls in flight are tracked so tests can
+ * check how much concurrency reached Cognito.
+ */
+public class StubCognito extends AbstractAWSCognitoIdentityProvider {
+
+  private final Map<String, String> passwords = new ConcurrentHashMap<>();
+  private final Set<String> confirmed = ConcurrentHashMap.newKeySet();
+  private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+  private final AtomicInteger throttlesToInject = new AtomicInteger();
+  private volatile long latencyMillis;
+
+  // ---------------------------------------------------------------- test knobs and counters
+
+  /** Number of requests of the given operation (e.g. {@code "SignUp"}). */
+  public long requestCount(String operation) {
+    AtomicLong count = requests.get(operation);
+    return count == null ? 0 : count.get();
+  }
+
+  /** Most calls that were in progress at the same time. */
+  public int peakInFlight() {
+    return peakInFlight.get();
+  }
+
+  /** Delay every call by {@code latencyMillis}. */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /** Reject the next {@code count} calls with {@link TooManyRequestsException}. */
+  public void injectThrottles(int count) {
+    throttlesToInject.set(count);
+  }
+
+  /** Register an existing, confirmed user. */
+  public void seed(String username, String password) {
+    passwords.put(username, password);
+    confirmed.add(username);
+  }
+
+  public boolean isConfirmed(String username) {
+    return confirmed.contains(username);
+  }
+
+  public int userCount() {
+    return passwords.size();
+  }
+
+  // ---------------------------------------------------------------- user pool operations
+
+  @Override
+  public SignUpResult signUp(SignUpRequest request) {
+    return call(
+        "SignUp",
+        () -> {
+          if (passwords.putIfAbsent(request.getUsername(), request.getPassword()) != null) {
+            throw new UsernameExistsException("User already exists");
+          }
+          return new SignUpResult().withUserSub(sub(request.getUsername()));
+        });
+  }
+
+  @Override
+  public AdminConfirmSignUpResult adminConfirmSignUp(AdminConfirmSignUpRequest request) {
+    return call(
+        "AdminConfirmSignUp",
+        () -> {
+          confirmed.add(request.getUsername());
+          return new AdminConfirmSignUpResult();
+        });
+  }
+
+  @Override
+  public AdminDeleteUserResult adminDeleteUser(AdminDeleteUserRequest request) {
+    return call(
+        "AdminDeleteUser",
+        () -> {
+          passwords.remove(request.getUsername());
+          confirmed.remove(request.getUsername());
+          return new AdminDeleteUserResult();
+        });
+  }
+
+  @Override
+  public AdminInitiateAuthResult adminInitiateAuth(AdminInitiateAuthRequest request) {
+    return call(
+        "AdminInitiateAuth",
+        () -> {
+          String username = request.getAuthParameters().get("USERNAME");
+          String password = request.getAuthParameters().get("PASSWORD");
+          if (password != null && !password.equals(passwords.get(username))) {
+            throw new NotAuthorizedException("Incorrect username or password.");
+          }
+          if (username != null && !confirmed.contains(username)) {
+            throw new UserNotConfirmedException("User is not confirmed.");
+          }
+          return new AdminInitiateAuthResult()
+              .withAuthenticationResult(
+                  new AuthenticationResultType()
+                      .withAccessToken("access-" + sub(username))
+                      .withIdToken("id-" + sub(username))
+                      .withRefreshToken("refresh-" + sub(username))
+                      .withTokenType("Bearer")
+                      .withExpiresIn(3600));
+        });
+  }
+
+  public static String sub(String username) {
+    return "sub-" + username;
+  }
+
+  private <T> T call(String operation, Supplier<T> body) {
+    requests.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+    int now = inFlight.incrementAndGet();
+    peakInFlight.accumulateAndGet(now, Math::max);
+    try {
+      if (throttlesToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+        throw new TooManyRequestsException("Rate exceeded");
+      }
+      long delay = latencyMillis;
+      if (delay > 0) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+      return body.get();
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.pjariwala.support;
+
+import java.lang.reflect.Field;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+
+/** Sets {@code @Autowired}/{@code @Value} fields on beans built by hand in tests. */
+public final class TestFields {
+
+  /** {@code ${key:default}} with a literal default */
+  private static final Pattern DEFAULTED = Pattern.compile("\\$\\{[^:${}]+:([^${}]*)}");
+
+  private TestFields() {}
+
+  public static <T> T set(T target, String fieldName, Object value) {
+    Class<?> type = target.getClass();
+    while (type != null) {
+      try {
+        write(target, type.getDeclaredField(fieldName), value);
+        return target;
+      } catch (NoSuchFieldException e) {
+        type = type.getSuperclass();
+      }
+    }
+    throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass());
+  }
+
+  /**
+   * Sets every {@code @Value("${key:default}")} field to its default, converted as Spring Boot
+   * would when the property is not set, so tests do not repeat the defaults.
+   */
+  public static <T> T defaults(T target) {
+    for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+      for (Field field : type.getDeclaredFields()) {
+        Value value = field.getAnnotation(Value.class);
+        Matcher matcher = value == null ? null : DEFAULTED.matcher(value.value());
+        if (matcher != null && matcher.matches()) {
+          Object converted =
+              ApplicationConversionService.getSharedInstance()
+                  .convert(matcher.group(1), new TypeDescriptor(field));
+          write(target, field, converted);
+        }
+      }
+    }
+    return target;
+  }
+
+  private static void write(Object target, Field field, Object value) {
+    try {
+      field.setAccessible(true);
+      field.set(target, value);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.pjariwala.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** RS256 signing keys and Cognito-shaped tokens for tests. */
+public final class TestTokens {
+
+  public static final String REGION = "ap-south-1";
+  public static final String USER_POOL_ID = "ap-south-1_TestPool";
+  public static final String CLIENT_ID = "test-client-id";
+  public static final String ISSUER =
+      "https://cognito-idp." + REGION + ".amazonaws.com/" + USER_POOL_ID;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+  private final String kid;
+  private final KeyPair keyPair;
+
+  public TestTokens(String kid) {
+    this.kid = kid;
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      this.keyPair = generator.generateKeyPair();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** JWKS document containing the public keys of the given signers */
+  public static String jwks(TestTokens... signers) {
+    List<Map<String, String>> keys = Arrays.stream(signers).map(TestTokens::jwk).toList();
+    try {
+      return MAPPER.writeValueAsString(Map.of("keys", keys));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Claims of a valid access token for {@code sub} */
+  public static Map<String, Object> accessClaims(String sub) {
+    Map<String, Object> claims = new LinkedHashMap<>();
+    claims.put("sub", sub);
+    claims.put("iss", ISSUER);
+    claims.put("client_id", CLIENT_ID);
+    claims.put("token_use", "access");
+    claims.put("scope", "aws.cognito.signin.user.admin");
+    claims.put("username", "user_" + sub);
+    claims.put("iat", System.currentTimeMillis() / 1000);
+    claims.put("exp", System.currentTimeMillis() / 1000 + 3600);
+    return claims;
+  }
+
+  /** Claims of a valid id token for {@code sub} */
+  public static Map<String, Object> idClaims(String sub, String email, String userType) {
+    Map<String, Object> claims = accessClaims(sub);
+    claims.remove("client_id");
+    claims.remove("scope");
+    claims.put("aud", CLIENT_ID);
+    claims.put("token_use", "id");
+    claims.put("email", email);
+    claims.put("custom:user_type", userType);
+    return claims;
+  }
+
+  public String sign(Map<String, Object> claims) {
+    try {
+      String header =
+          B64.encodeToString(
+              MAPPER.writeValueAsBytes(Map.of("alg", "RS256", "kid", kid, "typ", "JWT")));
+      String payload = B64.encodeToString(MAPPER.writeValueAsBytes(claims));
+      Signature signer = Signature.getInstance("SHA256withRSA");
+      signer.initSign(keyPair.getPrivate());
+      signer.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+      return header + "." + payload + "." + B64.encodeToString(signer.sign());
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Map<String, String> jwk() {
+    RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+    Map<String, String> jwk = new LinkedHashMap<>();
+    jwk.put("kid", kid);
+    jwk.put("kty", "RSA");
+    jwk.put("alg", "RS256");
+    jwk.put("use", "sig");
+    jwk.put("n", B64.encodeToString(unsigned(publicKey.getModulus())));
+    jwk.put("e", B64.encodeToString(unsigned(publicKey.getPublicExponent())));
+    return jwk;
+  }
+
+  private static byte[] unsigned(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+  }
+}
@@ -0,0 +1,51 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AimdLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+  private final AimdLimiter limiter = new AimdLimiter(10, 2, 12, 0.5, Duration.ofSeconds(1));
+
+  @Test
+  public void permits_stopAtTheLimit_andComeBackOnRelease() {
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+    assertFalse(limiter.tryAcquire());
+
+    limiter.release();
+    assertTrue(limiter.tryAcquire());
+    assertEquals(10, limiter.inFlight());
+  }
+
+  @Test
+  public void drops_andSlowCalls_halveTheLimit_downToTheMinimum() {
+    limiter.onSample(FAST, true);
+    assertEquals(5, limiter.limit());
+    limiter.onSample(SLOW, false);
+    assertEquals(2, limiter.limit());
+    limiter.onSample(SLOW, true);
+    assertEquals(2, limiter.limit());
+  }
+
+  @Test
+  public void fastCalls_growTheLimit_onlyWhileItIsInUse() {
+    limiter.onSample(FAST, false);
+    assertEquals(10, limiter.limit(), "an idle limiter does not grow");
+
+    for (int i = 0; i < 8; i++) {
+      limiter.tryAcquire();
+    }
+    for (int i = 0; i < 100; i++) {
+      limiter.onSample(FAST, false);
+    }
+    assertEquals(12, limiter.limit());
+  }
+}
@@ -0,0 +1,60 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+  @Test
+  public void everyPutValueIsFound_andUnknownValuesAreRareAtTheExpectedSize() {
+    BloomFilter filter = BloomFilter.create(100_000, 0.01);
+    for (int i = 0; i < 100_000; i++) {
+      filter.put("e:user" + i + "@example.com");
+    }
+    for (int i = 0; i < 100_000; i++) {
+      assertTrue(filter.mightContain("e:user" + i + "@example.com"));
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("e:stranger" + i + "@example.com")) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+    assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    assertEquals(100_000, filter.approximateCount(), 2_000);
+    // About 9.6 bits per value at 1%
+    assertTrue(filter.sizeBytes() < 125_000, "bytes: " + filter.sizeBytes());
+  }
+
+  @Test
+  public void snapshotRoundTrip_answersTheSame() throws Exception {
+    BloomFilter filter = BloomFilter.create(1_000, 0.001);
+    for (int i = 0; i < 500; i++) {
+      filter.put("u:player" + i);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    filter.writeTo(new DataOutputStream(bytes));
+
+    BloomFilter read =
+        BloomFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    for (int i = 0; i < 2_000; i++) {
+      assertEquals(filter.mightContain("u:player" + i), read.mightContain("u:player" + i));
+    }
+    assertEquals(filter.approximateCount(), read.approximateCount());
+    assertEquals(filter.sizeBytes(), read.sizeBytes());
+  }
+
+  @Test
+  public void put_reportsWhetherAnyBitChanged() {
+    BloomFilter filter = BloomFilter.create(1_000, 0.01);
+    assertTrue(filter.put("p:+919876543210"));
+    assertFalse(filter.put("p:+919876543210"));
+  }
+}
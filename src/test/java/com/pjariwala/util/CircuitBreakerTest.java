@@ -0,0 +1,47 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.util.CircuitBreaker.State;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+  @Test
+  public void opensAfterConsecutiveFailures_andASuccessResetsTheCount() {
+    CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+    breaker.onFailure();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    breaker.onFailure();
+    assertEquals(State.CLOSED, breaker.state());
+    assertTrue(breaker.tryAcquire());
+
+    breaker.onFailure();
+    assertEquals(State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  public void afterTheOpenDuration_oneProbeDecides() throws InterruptedException {
+    CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(20));
+    breaker.onFailure();
+    Thread.sleep(30);
+
+    assertEquals(State.HALF_OPEN, breaker.state());
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire(), "only one probe at a time");
+
+    breaker.onFailure();
+    assertEquals(State.OPEN, breaker.state());
+    Thread.sleep(30);
+
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess();
+    assertEquals(State.CLOSED, breaker.state());
+    assertTrue(breaker.tryAcquire());
+  }
+}
@@ -0,0 +1,51 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.support.TestTokens;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class DecodedTokenTest {
+
+  private final TestTokens signer = new TestTokens("key-1");
+
+  @Test
+  public void parse_readsHeaderAndTypedClaims() {
+    Map<String, Object> claims = TestTokens.idClaims("sub-1", "coach@chessacademy.com", "COACH");
+    claims.put("cognito:groups", List.of("coaches"));
+    claims.put("email_verified", true);
+
+    DecodedToken token = DecodedToken.parse(signer.sign(claims));
+
+    assertEquals("RS256", token.getAlg());
+    assertEquals("key-1", token.getKid());
+    assertEquals("sub-1", token.getSub());
+    assertEquals("coach@chessacademy.com", token.getEmail());
+    assertEquals("COACH", token.getUserType());
+    assertEquals("id", token.getTokenUse());
+    assertEquals(TestTokens.CLIENT_ID, token.getAud());
+    assertNull(token.getClientId());
+    assertEquals(TestTokens.ISSUER, token.getIss());
+    assertEquals(((Number) claims.get("exp")).longValue(), token.getExp());
+    assertNull(token.getNbf());
+    assertFalse(token.isExpired(System.currentTimeMillis() / 1000));
+
+    assertEquals("true", token.getClaims().get("email_verified"));
+    assertEquals("", token.getClaims().get("cognito:groups"));
+    assertEquals(String.valueOf(claims.get("exp")), token.getClaims().get("exp"));
+  }
+
+  @Test
+  public void parse_rejectsMalformedTokens() {
+    String token = signer.sign(TestTokens.accessClaims("sub-1"));
+    String header = token.substring(0, token.indexOf('.'));
+
+    assertThrows(IllegalArgumentException.class, () -> DecodedToken.parse("not-a-token"));
+    assertThrows(IllegalArgumentException.class, () -> DecodedToken.parse(token + ".extra"));
+    assertThrows(IllegalArgumentException.class, () -> DecodedToken.parse(".payload.sig"));
+    assertThrows(IllegalArgumentException.class, () -> DecodedToken.parse(header + ".***.sig"));
+    assertThrows(IllegalArgumentException.class, () -> DecodedToken.parse(header + ".W10.sig"));
+  }
+}
@@ -0,0 +1,193 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pjariwala.service.impl.DependencyMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InvocationMetricsTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final InvocationMetrics metrics = new InvocationMetrics("TestNamespace", "test-service");
+  private final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+  private PrintStream originalOut;
+
+  @BeforeEach
+  public void captureStdout() {
+    originalOut = System.out;
+    System.setOut(new PrintStream(stdout, true, StandardCharsets.UTF_8));
+  }
+
+  @AfterEach
+  public void restoreStdout() {
+    System.setOut(originalOut);
+  }
+
+  @Test
+  public void invocation_isWrittenAsOneEmfRecord() throws Exception {
+    int query = InvocationMetrics.register("dynamodb.query.test-index");
+    int signUp = InvocationMetrics.register("cognito.testSignUp");
+
+    metrics.start(true);
+    InvocationMetrics.recordCall(query, 2_000_000, false);
+    // Downstream calls may run on other threads
+    CompletableFuture.runAsync(() -> InvocationMetrics.recordCall(query, 3_500_000, true)).join();
+    InvocationMetrics.recordCall(signUp, 120_250_000, false);
+    metrics.response("POST", "/api/auth/signup", 201);
+    metrics.finish("request-1");
+
+    List<JsonNode> records = records();
+    assertEquals(1, records.size());
+    JsonNode record = records.get(0);
+
+    JsonNode directive = record.path("_aws").path("CloudWatchMetrics").get(0);
+    assertEquals("TestNamespace", directive.path("Namespace").asText());
+    assertEquals(
+        "[[\"Service\"],[\"Service\",\"ColdStart\"]]", directive.path("Dimensions").toString());
+    List<String> metricNames = new ArrayList<>();
+    directive.path("Metrics").forEach(metric -> metricNames.add(metric.path("Name").asText()));
+    assertEquals(
+        List.of(
+            "Duration",
+            "dynamodb.query.test-index.calls",
+            "dynamodb.query.test-index.millis",
+            "dynamodb.query.test-index.errors",
+            "cognito.testSignUp.calls",
+            "cognito.testSignUp.millis",
+            "cognito.testSignUp.errors"),
+        metricNames);
+    assertTrue(record.path("_aws").path("Timestamp").asLong() > 0);
+
+    assertEquals("test-service", record.path("Service").asText());
+    assertEquals("true", record.path("ColdStart").asText());
+    assertEquals("request-1", record.path("RequestId").asText());
+    assertEquals("POST", record.path("Method").asText());
+    assertEquals("/api/auth/signup", record.path("Path").asText());
+    assertEquals(201, record.path("Status").asInt());
+    assertTrue(record.path("Duration").isNumber());
+    assertEquals(2, record.path("dynamodb.query.test-index.calls").asLong());
+    assertEquals(5.5, record.path("dynamodb.query.test-index.millis").asDouble());
+    assertEquals(1, record.path("dynamodb.query.test-index.errors").asLong());
+    assertEquals(1, record.path("cognito.testSignUp.calls").asLong());
+    assertEquals(120.25, record.path("cognito.testSignUp.millis").asDouble());
+    assertEquals(0, record.path("cognito.testSignUp.errors").asLong());
+  }
+
+  @Test
+  public void nextInvocation_startsFromZero() throws Exception {
+    int load = InvocationMetrics.register("dynamodb.testLoad");
+
+    metrics.start(true);
+    InvocationMetrics.recordCall(load, 1_000_000, false);
+    metrics.finish("request-1");
+    metrics.start(false);
+    metrics.finish("request-2");
+
+    List<JsonNode> records = records();
+    assertEquals(2, records.size());
+    assertEquals(1, records.get(0).path("dynamodb.testLoad.calls").asLong());
+    JsonNode warm = records.get(1);
+    assertEquals("false", warm.path("ColdStart").asText());
+    assertTrue(warm.path("dynamodb.testLoad.calls").isMissingNode());
+    assertEquals(1, warm.path("_aws").path("CloudWatchMetrics").get(0).path("Metrics").size());
+  }
+
+  @Test
+  public void callsOutsideAnInvocation_areIgnored() throws Exception {
+    int load = InvocationMetrics.register("dynamodb.testIgnored");
+    InvocationMetrics.recordCall(load, 1_000_000, false);
+
+    metrics.start(false);
+    metrics.finish("request-1");
+
+    assertTrue(records().get(0).path("dynamodb.testIgnored.calls").isMissingNode());
+  }
+
+  @Test
+  public void dependencyCalls_areAddedToTheInvocation() throws Exception {
+    DependencyMetrics.Call query =
+        new DependencyMetrics(new SimpleMeterRegistry())
+            .dynamoDbLookup("query", "invocation-index");
+
+    metrics.start(false);
+    query.time(() -> List.of("user"), users -> !users.isEmpty());
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            query.time(
+                () -> {
+                  throw new IllegalStateException("throttled");
+                },
+                users -> true));
+    metrics.finish("request-1");
+
+    JsonNode record = records().get(0);
+    assertEquals(2, record.path("dynamodb.query.invocation-index.calls").asLong());
+    assertEquals(1, record.path("dynamodb.query.invocation-index.errors").asLong());
+  }
+
+  @Test
+  public void pathAndRequestId_areEscaped() throws Exception {
+    metrics.start(false);
+    metrics.response("GET", "/api/users/\"ü\"\\x", 404);
+    metrics.finish(null);
+
+    JsonNode record = records().get(0);
+    assertEquals("/api/users/\"ü\"\\x", record.path("Path").asText());
+    assertTrue(record.path("RequestId").isNull());
+  }
+
+  @Test
+  public void emitting_allocatesNothingPerMetric() {
+    int[] slots = new int[20];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = InvocationMetrics.register("dynamodb.allocation" + i);
+    }
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    invoke(slots, 20_000);
+    long before = threads.getCurrentThreadAllocatedBytes();
+    invoke(slots, 20_000);
+    long perRecord = (threads.getCurrentThreadAllocatedBytes() - before) / 20_000;
+
+    // Sixty metric values per record; formatting any of them into a String would exceed this
+    assertTrue(perRecord < 64, "bytes allocated per record: " + perRecord);
+  }
+
+  private void invoke(int[] slots, int invocations) {
+    for (int n = 0; n < invocations; n++) {
+      metrics.start(false);
+      for (int slot : slots) {
+        InvocationMetrics.recordCall(slot, 1_234_567, false);
+      }
+      metrics.response("GET", "/api/users/USER_S_0123456789abcdef", 200);
+      metrics.finish("4b7d5e51-91a6-4c3e-a3e4-6d3c0b1f2a9e");
+    }
+  }
+
+  private List<JsonNode> records() throws Exception {
+    List<JsonNode> records = new ArrayList<>();
+    for (String line : stdout.toString(StandardCharsets.UTF_8).split("\n")) {
+      if (line.startsWith("{\"_aws\"")) {
+        records.add(MAPPER.readTree(line));
+      }
+    }
+    return records;
+  }
+}
@@ -0,0 +1,164 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.support.TestFields;
+import com.pjariwala.support.TestTokens;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JwtUtilTest {
+
+  @TempDir Path tempDir;
+
+  private final TestTokens signer = new TestTokens("key-1");
+  private Path jwksFile;
+  private JwtUtil jwtUtil;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    jwksFile = tempDir.resolve("jwks.json");
+    Files.writeString(jwksFile, TestTokens.jwks(signer));
+    jwtUtil = jwtUtil(jwksFile, Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    jwtUtil.shutdown();
+  }
+
+  @Test
+  public void validateToken_acceptsAccessAndIdTokens() {
+    assertTrue(jwtUtil.validateToken(signer.sign(TestTokens.accessClaims("sub-1"))));
+    assertTrue(
+        jwtUtil.validateToken(
+            signer.sign(TestTokens.idClaims("sub-1", "coach@chessacademy.com", "COACH"))));
+  }
+
+  @Test
+  public void validateToken_rejectsTamperedOrForeignTokens() {
+    String token = signer.sign(TestTokens.accessClaims("sub-1"));
+    String[] parts = token.split("\\.");
+    String otherPayload = signer.sign(TestTokens.accessClaims("sub-2")).split("\\.")[1];
+
+    assertFalse(jwtUtil.validateToken(parts[0] + "." + otherPayload + "." + parts[2]));
+    assertFalse(jwtUtil.validateToken(parts[0] + "." + parts[1]));
+    assertFalse(jwtUtil.validateToken("not-a-token"));
+    assertFalse(jwtUtil.validateToken(new TestTokens("key-1").sign(TestTokens.accessClaims("x"))));
+  }
+
+  @Test
+  public void validateToken_checksIssuerAudienceTokenUseAndExpiry() {
+    assertFalse(jwtUtil.validateToken(signer.sign(with("iss", "https://evil.example.com"))));
+    assertFalse(jwtUtil.validateToken(signer.sign(with("client_id", "other-client"))));
+    assertFalse(jwtUtil.validateToken(signer.sign(with("token_use", "refresh"))));
+    assertFalse(
+        jwtUtil.validateToken(signer.sign(with("exp", System.currentTimeMillis() / 1000 - 3600))));
+  }
+
+  @Test
+  public void claimGetters_readTheDecodedToken() {
+    String token = signer.sign(TestTokens.idClaims("sub-1", "coach@chessacademy.com", "COACH"));
+
+    assertEquals("sub-1", jwtUtil.getUserIdFromToken(token));
+    assertEquals("coach@chessacademy.com", jwtUtil.getEmailFromToken(token));
+    assertEquals("COACH", jwtUtil.getUserTypeFromToken(token));
+    assertFalse(jwtUtil.isTokenExpired(token));
+    assertEquals("id", jwtUtil.getClaimsFromToken(token).get("token_use"));
+    assertSame(jwtUtil.decode(token), jwtUtil.decode(token));
+
+    String accessToken = signer.sign(TestTokens.accessClaims("sub-1"));
+    RuntimeException e =
+        assertThrows(RuntimeException.class, () -> jwtUtil.getEmailFromToken(accessToken));
+    assertTrue(e.getMessage().startsWith("Error extracting email from token"));
+    assertThrows(RuntimeException.class, () -> jwtUtil.getUserIdFromToken("a.b"));
+    assertTrue(jwtUtil.isTokenExpired("a.b"));
+  }
+
+  @Test
+  public void validateToken_verifiedResultIsNotReusedForAlteredToken() {
+    String token = signer.sign(TestTokens.accessClaims("sub-1"));
+    String forged = new TestTokens("key-1").sign(TestTokens.accessClaims("sub-1"));
+    String original = token.substring(0, token.lastIndexOf('.'));
+    String forgedSignature = forged.substring(forged.lastIndexOf('.'));
+
+    assertTrue(jwtUtil.validateToken(token));
+    assertTrue(jwtUtil.validateToken(token));
+    assertFalse(jwtUtil.validateToken(original + forgedSignature));
+  }
+
+  @Test
+  public void validateToken_rotatedKey_isFetchedOnceForConcurrentCallers() throws Exception {
+    TestTokens rotated = new TestTokens("key-2");
+    String token = rotated.sign(TestTokens.accessClaims("sub-1"));
+    assertTrue(jwtUtil.validateToken(signer.sign(TestTokens.accessClaims("sub-1"))));
+
+    AtomicInteger fetches = new AtomicInteger();
+    Files.writeString(jwksFile, TestTokens.jwks(signer, rotated));
+    JwksKeyStore store =
+        new JwksKeyStore(
+            () -> {
+              fetches.incrementAndGet();
+              LockSupport.parkNanos(50_000_000L);
+              return Files.readAllBytes(jwksFile);
+            },
+            Duration.ofHours(6),
+            Duration.ofMinutes(1),
+            Duration.ofSeconds(2));
+    TestFields.set(jwtUtil, "jwksKeyStore", store);
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return jwtUtil.validateToken(token);
+              }));
+    }
+    start.countDown();
+    for (Future<Boolean> result : results) {
+      assertTrue(result.get());
+    }
+    executor.shutdown();
+    assertEquals(1, fetches.get());
+
+    // further unknown kids within the cooldown do not refetch
+    assertFalse(jwtUtil.validateToken(new TestTokens("key-3").sign(TestTokens.accessClaims("x"))));
+    assertEquals(1, fetches.get());
+    store.close();
+  }
+
+  private static Map<String, Object> with(String claim, Object value) {
+    Map<String, Object> claims = TestTokens.accessClaims("sub-1");
+    claims.put(claim, value);
+    return claims;
+  }
+
+  static JwtUtil jwtUtil(Path jwksFile, Duration cooldown) {
+    JwtUtil jwtUtil = TestFields.defaults(new JwtUtil());
+    TestFields.set(jwtUtil, "userPoolId", TestTokens.USER_POOL_ID);
+    TestFields.set(jwtUtil, "awsRegion", TestTokens.REGION);
+    TestFields.set(jwtUtil, "clientId", TestTokens.CLIENT_ID);
+    TestFields.set(jwtUtil, "jwksUri", jwksFile.toUri().toString());
+    TestFields.set(jwtUtil, "jwksUnknownKidCooldown", cooldown);
+    jwtUtil.init();
+    return jwtUtil;
+  }
+}
@@ -0,0 +1,68 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.pjariwala.support.TestFields;
+import java.util.Base64;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class PageCursorCodecTest {
+
+  private static final Map<String, AttributeValue> KEY =
+      Map.of(
+          "userId", new AttributeValue("USER_S_00000000000000aa"),
+          "userType", new AttributeValue("STUDENT"),
+          "createdAt", new AttributeValue("2025-01-01T10:00:00"),
+          "score", new AttributeValue().withN("42"));
+
+  @Test
+  public void encode_roundTripsTheKey() {
+    PageCursorCodec codec = codec("secret");
+
+    String cursor = codec.encode("scope", KEY);
+
+    assertTrue(cursor.matches("[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+"), cursor);
+    assertEquals(KEY, codec.decode("scope", cursor));
+  }
+
+  @Test
+  public void encode_lastPageHasNoCursor() {
+    PageCursorCodec codec = codec("secret");
+
+    assertNull(codec.encode("scope", null));
+    assertNull(codec.encode("scope", Map.of()));
+    assertNull(codec.decode("scope", null));
+    assertNull(codec.decode("scope", " "));
+  }
+
+  @Test
+  public void decode_rejectsTamperedCursors() {
+    PageCursorCodec codec = codec("secret");
+    String cursor = codec.encode("scope", KEY);
+    String payload = cursor.substring(0, cursor.indexOf('.'));
+    String signature = cursor.substring(cursor.indexOf('.') + 1);
+    String forged =
+        Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(
+                new String(Base64.getUrlDecoder().decode(payload))
+                    .replace("00000000000000aa", "00000000000000ff")
+                    .getBytes());
+
+    assertThrows(
+        IllegalArgumentException.class, () -> codec.decode("scope", forged + "." + signature));
+    assertThrows(IllegalArgumentException.class, () -> codec.decode("other-scope", cursor));
+    assertThrows(IllegalArgumentException.class, () -> codec("other").decode("scope", cursor));
+    assertThrows(IllegalArgumentException.class, () -> codec.decode("scope", "not-a-cursor"));
+    assertThrows(IllegalArgumentException.class, () -> codec.decode("scope", "!!.??"));
+    assertThrows(IllegalArgumentException.class, () -> codec.decode("scope", payload + "."));
+  }
+
+  private static PageCursorCodec codec(String secret) {
+    PageCursorCodec codec = TestFields.set(new PageCursorCodec(), "cursorSecret", secret);
+    codec.init();
+    return codec;
+  }
+}
@@ -0,0 +1,38 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class PhoneNumberUtilTest {
+
+  @Test
+  public void toE164_nationalNumber_getsTheDefaultCountryCode() {
+    assertEquals("+919876543210", PhoneNumberUtil.toE164("98765 43210", "91"));
+    assertEquals("+919876543210", PhoneNumberUtil.toE164("098765-43210", "91"));
+  }
+
+  @Test
+  public void toE164_internationalNumber_keepsItsCountryCode() {
+    assertEquals("+919876543210", PhoneNumberUtil.toE164("+91 98765 43210", "91"));
+    assertEquals("+442079460958", PhoneNumberUtil.toE164("0044 20 7946 0958", "91"));
+  }
+
+  @Test
+  public void toE164_defaultCountryCodeWithoutPlus_isNotPrefixedTwice() {
+    assertEquals("+919876543210", PhoneNumberUtil.toE164("919876543210", "91"));
+  }
+
+  @Test
+  public void toE164_longNumberOfAnotherCountryWithoutPlus_isRejected() {
+    assertNull(PhoneNumberUtil.toE164("442079460958", "91"));
+    assertNull(PhoneNumberUtil.toE164("(1) 415-555-0134 9", "91"));
+  }
+
+  @Test
+  public void toE164_notAPhoneNumber_isRejected() {
+    assertNull(PhoneNumberUtil.toE164("johndoe_coach", "91"));
+    assertNull(PhoneNumberUtil.toE164("9876543210", null));
+    assertNull(PhoneNumberUtil.toE164(null, "91"));
+  }
+}
@@ -0,0 +1,88 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pjariwala.support.TestFields;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+public class SecretHashCalculatorTest {
+
+  private static final String CLIENT_ID = "test-client-id";
+  private static final String CLIENT_SECRET = "test-client-secret";
+
+  @Test
+  public void calculate_matchesReferenceHmac() throws Exception {
+    SecretHashCalculator calculator = calculator(16);
+
+    for (String username :
+        List.of("johndoe_coach", "", "élève_ünïcode", "学生", "a".repeat(1000), "bad\uD800pair")) {
+      assertEquals(reference(username), calculator.calculate(username), username);
+      assertEquals(reference(username), calculator.calculate(username), username);
+    }
+  }
+
+  @Test
+  public void calculate_concurrentVirtualThreads_allResultsCorrect() throws Exception {
+    SecretHashCalculator calculator = calculator(64);
+    int threads = 2_000;
+    int callsPerThread = 50;
+    ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    CountDownLatch start = new CountDownLatch(1);
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < callsPerThread; i++) {
+                    // mostly distinct usernames, so most calls miss the memo and use a pooled Mac
+                    String username = "user_" + ((thread * callsPerThread + i) % 5_000) + "_é";
+                    if (!reference(username).equals(calculator.calculate(username))) {
+                      failures.add(username);
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    assertTrue(failures.isEmpty(), "wrong hashes for " + failures.size() + " calls");
+    assertTrue(calculator.pooledCount() <= 8, "pool exceeded its bound");
+  }
+
+  private static SecretHashCalculator calculator(int cacheSize) {
+    SecretHashCalculator calculator = TestFields.defaults(new SecretHashCalculator());
+    TestFields.set(calculator, "clientId", CLIENT_ID);
+    TestFields.set(calculator, "clientSecret", CLIENT_SECRET);
+    TestFields.set(calculator, "cacheSize", cacheSize);
+    TestFields.set(calculator, "maxPooledMacs", 8);
+    calculator.init();
+    return calculator;
+  }
+
+  /** The calculation AuthServiceImpl used before the pooled engine */
+  private static String reference(String username) throws Exception {
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(CLIENT_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+    return Base64.getEncoder()
+        .encodeToString(mac.doFinal((username + CLIENT_ID).getBytes(StandardCharsets.UTF_8)));
+  }
+}
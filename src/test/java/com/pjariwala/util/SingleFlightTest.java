@@ -0,0 +1,110 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+  private static final int CALLERS = 32;
+
+  private final SingleFlight<String, String> flight = new SingleFlight<>(value -> value + "'");
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  public void concurrentCallersOfOneKey_makeExactlyOneCall() throws Exception {
+    List<String> results =
+        runConcurrently(
+            () ->
+                flight.execute(
+                    "user:alice",
+                    () -> {
+                      calls.incrementAndGet();
+                      awaitJoiners();
+                      return "alice";
+                    }));
+
+    assertEquals(1, calls.get());
+    assertEquals(CALLERS - 1, flight.sharedCount());
+    // The caller that ran the call gets its value; the others get theirs through shareAs
+    assertEquals(1, results.stream().filter("alice"::equals).count());
+    assertEquals(CALLERS - 1, results.stream().filter("alice'"::equals).count());
+    assertEquals(0, flight.inFlightCount());
+  }
+
+  @Test
+  public void failure_isSharedByEveryCaller() throws Exception {
+    IllegalStateException failure = new IllegalStateException("throttled");
+    List<String> results =
+        runConcurrently(
+            () -> {
+              try {
+                return flight.execute(
+                    "token:digest",
+                    () -> {
+                      calls.incrementAndGet();
+                      awaitJoiners();
+                      throw failure;
+                    });
+              } catch (IllegalStateException e) {
+                assertSame(failure, e);
+                return "failed";
+              }
+            });
+
+    assertEquals(1, calls.get());
+    assertEquals(CALLERS, results.stream().filter("failed"::equals).count());
+    assertEquals(0, flight.inFlightCount());
+  }
+
+  @Test
+  public void laterCallsAndOtherKeys_runTheirOwnCall() {
+    assertEquals("a", flight.execute("a", () -> "a" + calls.incrementAndGet()).substring(0, 1));
+    assertEquals("a", flight.execute("a", () -> "a" + calls.incrementAndGet()).substring(0, 1));
+    flight.execute("b", () -> "b" + calls.incrementAndGet());
+
+    assertEquals(3, calls.get());
+    assertEquals(0, flight.sharedCount());
+  }
+
+  /** Hold the running call until every other caller has joined it */
+  private void awaitJoiners() {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (flight.sharedCount() < CALLERS - 1 && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+  }
+
+  private List<String> runConcurrently(Callable<String> task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  return task.call();
+                }));
+      }
+      start.countDown();
+      List<String> results = new ArrayList<>();
+      for (Future<String> future : futures) {
+        results.add(future.get(30, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.pjariwala.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SlidingWindowSketchTest {
+
+  private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+  private final SlidingWindowSketch sketch =
+      new SlidingWindowSketch(Duration.ofMinutes(1), 4096, 4, new Random(42));
+
+  @Test
+  public void limit_isPerKey_andRejectionsAreNotCounted() {
+    long now = 10 * WINDOW;
+    for (int i = 0; i < 5; i++) {
+      assertTrue(sketch.tryAcquire("login|alice", 5, now));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertFalse(sketch.tryAcquire("login|alice", 5, now));
+    }
+    assertTrue(sketch.tryAcquire("login|bob", 5, now));
+
+    // Half of the previous window still counts: 5 * 0.5 leaves room for 3 more
+    long halfway = 11 * WINDOW + WINDOW / 2;
+    int admitted = 0;
+    while (sketch.tryAcquire("login|alice", 5, halfway)) {
+      admitted++;
+    }
+    assertEquals(3, admitted);
+
+    // Two windows on, nothing is left
+    for (int i = 0; i < 5; i++) {
+      assertTrue(sketch.tryAcquire("login|alice", 5, 13 * WINDOW));
+    }
+  }
+
+  @Test
+  public void concurrentAttempts_neverExceedTheLimit() throws Exception {
+    int threads = 16;
+    int attemptsPerThread = 20_000;
+    int limit = 1_000;
+    AtomicInteger admitted = new AtomicInteger();
+    AtomicInteger admittedOther = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        workers.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < attemptsPerThread; i++) {
+                    if (sketch.tryAcquire("login|victim", limit, 5 * WINDOW)) {
+                      admitted.incrementAndGet();
+                    }
+                    // Background of distinct keys, each under its limit
+                    if (sketch.tryAcquire("ip|" + thread + "." + i, limit, 5 * WINDOW)) {
+                      admittedOther.incrementAndGet();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertTrue(admitted.get() <= limit, "admitted: " + admitted.get());
+    // Concurrent rejections are taken back, so the limit is still reached
+    assertTrue(admitted.get() >= limit - threads, "admitted: " + admitted.get());
+    assertEquals(threads * attemptsPerThread, admittedOther.get());
+  }
+
+  @Test
+  public void manyDistinctKeys_barelyInflateOneKeysCount() {
+    SlidingWindowSketch wide =
+        new SlidingWindowSketch(Duration.ofMinutes(1), 32768, 4, new Random(7));
+    long now = 3 * WINDOW;
+    for (int i = 0; i < 100_000; i++) {
+      assertTrue(wide.tryAcquire("login|user" + i + "@example.com", 10, now));
+    }
+
+    int admitted = 0;
+    while (wide.tryAcquire("login|alice@example.com", 10, now)) {
+      admitted++;
+    }
+    assertTrue(admitted >= 8, "admitted: " + admitted);
+    assertEquals(1024 * 1024, wide.sizeBytes());
+  }
+}